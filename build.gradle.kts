@@ -16,4 +16,40 @@ dependencies {
 
 tasks.test {
     useJUnitPlatform()
-}
\ No newline at end of file
+}
+
+// The Vector API is still incubating, so only VectorRunScanner is compiled
+// against it, in a source set of its own. It is loaded reflectively, and
+// VectorLexer falls back to scalar scanning when the module is not added at
+// runtime, so nothing else needs the module.
+val vector by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output
+}
+
+tasks.named<JavaCompile>("compileVectorJava") {
+    options.compilerArgs.addAll(listOf("--add-modules", "jdk.incubator.vector"))
+}
+
+sourceSets.main {
+    runtimeClasspath += vector.output
+}
+
+sourceSets.test {
+    runtimeClasspath += vector.output
+}
+
+tasks.jar {
+    from(vector.output)
+}
+
+// Runs the vector lexer tests with the module added, so the vector scanner is
+// checked against the scalar one: gradle vectorTest
+val vectorTest by tasks.registering(Test::class) {
+    testClassesDirs = sourceSets.test.get().output.classesDirs
+    classpath = sourceSets.test.get().runtimeClasspath
+    useJUnitPlatform()
+    filter {
+        includeTestsMatching("plc.project.VectorLexerTests")
+    }
+    jvmArgs("--add-modules", "jdk.incubator.vector")
+}
@@ -2,41 +2,198 @@ import plc.project.*;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Scanner;
 
 public class Harness {
     public static void main(String[] args) {
         String source_file = args[0];
+        List<String> options = Arrays.asList(args).subList(1, args.length);
+
+        ProgramCache cache = null;
+        byte[] source_bytes = null;
+        Ast.Source ast = null;
+        for (String option : options) {
+            if (option.startsWith("--cache=")) {
+                // Programs are cached by the hash of their bytes, so the
+                // cached tree is only used for an identical source. Analyzed
+                // trees are kept apart from trees which are only parsed.
+                try {
+                    source_bytes = Files.readAllBytes(Paths.get(source_file));
+                    cache = new ProgramCache(Paths.get(option.substring("--cache=".length()))
+                            .resolve(options.contains("--analyze") ? "analyzed" : "parsed"));
+                    ast = cache.load(source_bytes);
+                } catch (IOException e) {
+                    System.out.println(e.getMessage());
+                }
+            }
+        }
+
+        if (ast != null) {
+            System.out.println("Loaded " + source_file + " from cache");
+        }
+        else {
+            ast = parse(source_file, options);
+            if (ast == null) {
+                return;
+            }
+            if (options.contains("--analyze")) {
+                try {
+                    new Analyzer(null).visit(ast);
+                } catch (RuntimeException e) {
+                    System.out.println(e.getMessage());
+                    return;
+                }
+                System.out.println("Analysis Complete");
+            }
+            if (cache != null) {
+                try {
+                    cache.store(source_bytes, ast);
+                } catch (IOException e) {
+                    System.out.println(e.getMessage());
+                }
+            }
+        }
+
+        if (options.contains("--javac")) {
+            // The generated Java source is compiled in this process, and the
+            // classes are kept beside any cached trees, keyed by the source.
+            try {
+                Path classes = null;
+                for (String option : options) {
+                    if (option.startsWith("--cache=")) {
+                        classes = Paths.get(option.substring("--cache=".length())).resolve("classes");
+                    }
+                }
+                String java = JavaSourceCompiler.generate(ast, Analyzer.analyze(ast, null));
+                System.out.println(new JavaSourceCompiler(classes, 1).compile(java).run());
+            } catch (RuntimeException e) {
+                System.out.println(e.getMessage());
+            }
+            return;
+        }
+
+        if (options.contains("--bytecode")) {
+            // The tree is compiled to a class with the types found by
+            // analysis, then run on the JVM. Its main returns an int.
+            try {
+                Analysis analysis = Analyzer.analyze(ast, null);
+                System.out.println(BytecodeCompiler.load(BytecodeCompiler.compile(ast, analysis)).run());
+            } catch (RuntimeException e) {
+                System.out.println(e.getMessage());
+            }
+            return;
+        }
+
+        Environment.PlcObject visit;
+        if (options.contains("--closures")) {
+            // The tree is compiled to closures once, then run.
+            visit = new ClosureCompiler(null).compile(ast).run();
+        }
+        else {
+            // Resolved names are bound once before running rather than
+            // looked up in scopes each time they are used.
+            Ast.Visitor<Environment.PlcObject> interpreter = options.contains("--resolved")
+                    ? new ResolvedInterpreter(null)
+                    : new Interpreter(null);
+            visit = interpreter.visit(ast);
+        }
+        System.out.println(visit.getValue());
+
+    }
+
+    private static Ast.Source parse(String source_file, List<String> options) {
         String java_file = new String("Main.java");
-        String source = new String();
+        CharSequence source = new String();
         Scanner scanner;
 
         System.out.println("Generate Java source from " + source_file);
 
-        try {
-            File file = new File(source_file);
-            scanner = new Scanner(file);
+        if (options.contains("--mmap")) {
+            // Lex straight from the mapped file instead of copying it in.
+            try {
+                source = MappedSource.map(Paths.get(source_file));
+            } catch (IOException e) {
+                System.out.println(e.getMessage());
+            }
+        }
+        else {
+            try {
+                File file = new File(source_file);
+                scanner = new Scanner(file);
 
-            StringBuilder source_contents = new StringBuilder((int) file.length());
+                StringBuilder source_contents = new StringBuilder((int) file.length());
 
-            while (scanner.hasNextLine()) {
-                source_contents.append(scanner.nextLine() + System.lineSeparator());
-            }
+                while (scanner.hasNextLine()) {
+                    source_contents.append(scanner.nextLine() + System.lineSeparator());
+                }
 
-            source = source_contents.toString();
-            scanner.close();
-        } catch (FileNotFoundException e) {}
+                source = source_contents.toString();
+                scanner.close();
+            } catch (FileNotFoundException e) {}
+        }
 
-        Lexer lexer = new Lexer(source);
         System.out.println("Lexing...");
+        // The lexers produce a token list, unless --stream or --buffer asks
+        // for another form, which goes straight to a parser.
+        List<Token> tokens = null;
+        Parser parser = null;
+        if (options.contains("--lexer=dfa")) {
+            DfaLexer lexer = new DfaLexer(source);
+            if (options.contains("--buffer")) {
+                parser = new Parser(lexer.lexBuffer());
+            }
+            else if (options.contains("--stream")) {
+                parser = new Parser(lexer.iterator());
+            }
+            else {
+                tokens = lexer.lex();
+            }
+        }
+        else if (options.contains("--lexer=vector")) {
+            tokens = new VectorLexer(source).lex();
+        }
+        else if (options.contains("--lexer=utf8")) {
+            // Lexes the file's bytes directly; indices are byte offsets.
+            try {
+                tokens = new Utf8Lexer(MappedSource.mapBytes(Paths.get(source_file))).lex();
+            } catch (IOException e) {
+                System.out.println(e.getMessage());
+                return null;
+            }
+        }
+        else if (options.contains("--lexer=parallel")) {
+            tokens = new ParallelLexer(source).lex();
+        }
+        else {
+            Lexer lexer = new Lexer(source);
+            if (options.contains("--stream")) {
+                parser = new Parser(lexer.iterator());
+            }
+            else {
+                tokens = lexer.lex();
+            }
+        }
+
+        if (parser == null) {
+            // Method bodies are only parsed when first called.
+            parser = options.contains("--lazy") ? Parser.lazy(tokens) : new Parser(tokens);
+        }
+        else if (options.contains("--lazy")) {
+            System.out.println("--lazy needs a token list, so it is ignored with --stream or --buffer");
+        }
 
-        Parser parser = new Parser(lexer.lex());
+        if (options.contains("--share")) {
+            // Repeated literals and constant expressions become one node.
+            parser.shareExpressions();
+        }
         Ast.Source ast = parser.parseSource();
         System.out.println("Parsing Complete");
-
-        Interpreter interpreter = new Interpreter(null);
-        Environment.PlcObject visit = interpreter.visit(ast);
-        System.out.println(visit.getValue());
-
+        return ast;
     }
 }
@@ -0,0 +1,73 @@
+package plc.project;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * The results of analyzing an {@link Ast} with {@link Analyzer#analyze(Ast,
+ * Scope)}: the variable, function or type of each node, keyed by node
+ * identity. Unlike the annotations on {@link Ast} nodes, an analysis is not
+ * part of the tree, so several analyses of one tree may exist at once and
+ * the tree may be shared between threads. An analysis is immutable.
+ */
+public final class Analysis {
+
+    private final Map<Ast, Object> annotations;
+
+    Analysis(IdentityHashMap<Ast, Object> annotations) {
+        this.annotations = Collections.unmodifiableMap(annotations);
+    }
+
+    /**
+     * Returns the variable of a field, declaration or access.
+     */
+    public Environment.Variable getVariable(Ast ast) {
+        return getVariable(annotations, ast);
+    }
+
+    /**
+     * Returns the function of a method or function call.
+     */
+    public Environment.Function getFunction(Ast ast) {
+        return getFunction(annotations, ast);
+    }
+
+    /**
+     * Returns the type of an expression.
+     */
+    public Environment.Type getType(Ast.Expression ast) {
+        return getType(annotations, ast);
+    }
+
+    static Environment.Variable getVariable(Map<Ast, Object> annotations, Ast ast) {
+        Object variable = annotations.get(ast);
+        if (variable == null) {
+            throw new IllegalStateException("variable is uninitialized");
+        }
+        return (Environment.Variable) variable;
+    }
+
+    static Environment.Function getFunction(Map<Ast, Object> annotations, Ast ast) {
+        Object function = annotations.get(ast);
+        if (function == null) {
+            throw new IllegalStateException("function is uninitialized");
+        }
+        return (Environment.Function) function;
+    }
+
+    static Environment.Type getType(Map<Ast, Object> annotations, Ast.Expression ast) {
+        if (ast instanceof Ast.Expression.Access) {
+            return getVariable(annotations, ast).getType();
+        }
+        else if (ast instanceof Ast.Expression.Function) {
+            return getFunction(annotations, ast).getReturnType();
+        }
+        Object type = annotations.get(ast);
+        if (type == null) {
+            throw new IllegalStateException("type is uninitialized");
+        }
+        return (Environment.Type) type;
+    }
+
+}
@@ -5,26 +5,77 @@ import java.math.BigInteger;
 import java.math.RoundingMode;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
  * See the specification for information about what the different visit
  * methods should do.
+ *
+ * The variable, function or type found for each node is recorded in an
+ * {@link Analysis}. An analyzer created by {@link #Analyzer(Scope)} also sets
+ * it on the node itself; {@link #analyze(Ast, Scope)} leaves the tree
+ * untouched, so one tree can be analyzed by many analyzers at once.
  */
 public final class Analyzer implements Ast.Visitor<Void> {
     public Scope scope;
     private Ast.Method method;
+    private final IdentityHashMap<Ast, Object> annotations = new IdentityHashMap<>();
+    private final boolean annotateTree;
 
     public Analyzer(Scope parent) {
+        this(parent, true);
+    }
+
+    private Analyzer(Scope parent, boolean annotateTree) {
         scope = new Scope(parent);
         scope.defineFunction("print", "System.out.println", Arrays.asList(Environment.Type.ANY), Environment.Type.NIL, args -> Environment.NIL);
+        this.annotateTree = annotateTree;
+    }
+
+    /**
+     * Analyzes {@code ast} in a new scope under {@code parent} without
+     * changing the tree, returning the results.
+     */
+    public static Analysis analyze(Ast ast, Scope parent) {
+        Analyzer analyzer = new Analyzer(parent, false);
+        analyzer.visit(ast);
+        return new Analysis(analyzer.annotations);
     }
 
     public Scope getScope() {
         return scope;
     }
 
+    /**
+     * Returns a copy of the results recorded so far.
+     */
+    public Analysis getAnalysis() {
+        return new Analysis(new IdentityHashMap<>(annotations));
+    }
+
+    /**
+     * Records the variable, function or type of {@code ast}, also setting it
+     * on the node with {@code setter} unless created by {@link
+     * #analyze(Ast, Scope)}.
+     */
+    private <T> void annotate(Ast ast, T annotation, Consumer<T> setter) {
+        annotations.put(ast, annotation);
+        if (annotateTree) {
+            setter.accept(annotation);
+        }
+    }
+
+    private Environment.Variable getVariable(Ast ast) {
+        return Analysis.getVariable(annotations, ast);
+    }
+
+    private Environment.Type getType(Ast.Expression ast) {
+        return Analysis.getType(annotations, ast);
+    }
+
     @Override
     public Void visit(Ast.Source ast) {
         for (Ast.Field field : ast.getFields()) {
@@ -46,7 +97,7 @@ public final class Analyzer implements Ast.Visitor<Void> {
 
         if (ast.getValue().isPresent()) {
             visit(ast.getValue().get()); // have to visit before variable is defined
-            requireAssignable(type, ast.getValue().get().getType());
+            requireAssignable(type, getType(ast.getValue().get()));
         }
 
         if (ast.getConstant()) {
@@ -55,7 +106,7 @@ public final class Analyzer implements Ast.Visitor<Void> {
             }
         }
 
-        ast.setVariable(scope.defineVariable(name, name, type, ast.getConstant(), Environment.NIL));
+        annotate(ast, scope.defineVariable(name, name, type, ast.getConstant(), Environment.NIL), ast::setVariable);
 
         return null;
     }
@@ -75,14 +126,14 @@ public final class Analyzer implements Ast.Visitor<Void> {
         }
 
         Environment.Function func = scope.defineFunction(name, name, paramTypes, returnType,args -> Environment.NIL);
-        ast.setFunction(func);
+        annotate(ast, func, ast::setFunction);
 
         try {
             scope = new Scope(scope);
             for (Ast.Statement statement : ast.getStatements()) {
                 visit(statement);
                 if (statement instanceof Ast.Statement.Return) {
-                    requireAssignable(returnType, ((Ast.Statement.Return) statement).getValue().getType());
+                    requireAssignable(returnType, getType(((Ast.Statement.Return) statement).getValue()));
                 }
             }
         }
@@ -114,14 +165,14 @@ public final class Analyzer implements Ast.Visitor<Void> {
         }
         else if (ast.getValue().isPresent()) {
             visit(ast.getValue().get());
-            type = ast.getValue().get().getType().getName();
+            type = getType(ast.getValue().get()).getName();
         }
         else {
             throw new RuntimeException("No type found");
         }
 
         Environment.Type officialType = Environment.getType(type);
-        ast.setVariable(scope.defineVariable(name, name, officialType, false, Environment.NIL));
+        annotate(ast, scope.defineVariable(name, name, officialType, false, Environment.NIL), ast::setVariable);
 
         return null;
     }
@@ -133,9 +184,9 @@ public final class Analyzer implements Ast.Visitor<Void> {
         }
         visit(ast.getReceiver());
         visit(ast.getValue());
-        requireAssignable(ast.getReceiver().getType(), ast.getValue().getType());
+        requireAssignable(getType(ast.getReceiver()), getType(ast.getValue()));
 
-        if (((Ast.Expression.Access) ast.getReceiver()).getVariable().getConstant()) {
+        if (getVariable(ast.getReceiver()).getConstant()) {
             throw new RuntimeException("Assigning to a constant field");
         }
 
@@ -145,7 +196,7 @@ public final class Analyzer implements Ast.Visitor<Void> {
     @Override
     public Void visit(Ast.Statement.If ast) {
         visit(ast.getCondition());
-        requireAssignable(ast.getCondition().getType(), Environment.Type.BOOLEAN);
+        requireAssignable(getType(ast.getCondition()), Environment.Type.BOOLEAN);
 
         if (ast.getThenStatements().isEmpty()) {
             throw new RuntimeException("Empty if statement body");
@@ -181,12 +232,12 @@ public final class Analyzer implements Ast.Visitor<Void> {
             visit(ast.getIncrement()); // If initialization is present, increment needs to be same type
         }
         if (ast.getInitialization() instanceof Ast.Statement.Assignment) {
-            requireAssignable(((Ast.Statement.Assignment)(ast.getInitialization())).getReceiver().getType(), Environment.Type.COMPARABLE);
-            requireAssignable(((Ast.Statement.Assignment)(ast.getIncrement())).getReceiver().getType(), ((Ast.Statement.Assignment)(ast.getInitialization())).getReceiver().getType());
+            requireAssignable(getType(((Ast.Statement.Assignment)(ast.getInitialization())).getReceiver()), Environment.Type.COMPARABLE);
+            requireAssignable(getType(((Ast.Statement.Assignment)(ast.getIncrement())).getReceiver()), getType(((Ast.Statement.Assignment)(ast.getInitialization())).getReceiver()));
         }
 
         visit(ast.getCondition());
-        requireAssignable(ast.getCondition().getType(), Environment.Type.BOOLEAN);
+        requireAssignable(getType(ast.getCondition()), Environment.Type.BOOLEAN);
 
         if (ast.getStatements().isEmpty()) {
             throw new RuntimeException("Empty for loop body");
@@ -208,7 +259,7 @@ public final class Analyzer implements Ast.Visitor<Void> {
     @Override
     public Void visit(Ast.Statement.While ast) {
         visit(ast.getCondition()); // to set type
-        requireAssignable(ast.getCondition().getType(), Environment.Type.BOOLEAN);
+        requireAssignable(getType(ast.getCondition()), Environment.Type.BOOLEAN);
         try {
             scope = new Scope(scope);
             ast.getStatements().forEach(this::visit);
@@ -227,22 +278,30 @@ public final class Analyzer implements Ast.Visitor<Void> {
 
     @Override
     public Void visit(Ast.Expression.Literal ast) {
-        Object lit = ast.getLiteral();
+        annotate(ast, literalType(ast.getLiteral()), ast::setType);
+        return null;
+    }
+
+    /**
+     * Returns the type of a literal value, or null if it is not a literal
+     * type. Shared with {@link FlatAnalyzer}.
+     */
+    static Environment.Type literalType(Object lit) {
         if (lit instanceof Boolean) {
-            ast.setType(Environment.Type.BOOLEAN);
+            return Environment.Type.BOOLEAN;
         }
         else if (lit instanceof String) {
-            ast.setType(Environment.Type.STRING);
+            return Environment.Type.STRING;
         }
         else if (lit instanceof Character) {
-            ast.setType(Environment.Type.CHARACTER);
+            return Environment.Type.CHARACTER;
         }
         else if (lit == null) {
-            ast.setType(Environment.Type.NIL);
+            return Environment.Type.NIL;
         }
         else if (lit instanceof BigInteger) {
             if (((BigInteger) lit).compareTo(BigInteger.valueOf(Integer.MAX_VALUE)) < 1){
-                ast.setType(Environment.Type.INTEGER);
+                return Environment.Type.INTEGER;
             }
             else {
                 throw new RuntimeException("BigInteger Literal exceeds Integer.MAX_VALUE");
@@ -250,13 +309,12 @@ public final class Analyzer implements Ast.Visitor<Void> {
         }
         else if (lit instanceof BigDecimal) {
             if (((BigDecimal) lit).compareTo(BigDecimal.valueOf(Double.MAX_VALUE)) < 1){
-                ast.setType(Environment.Type.DECIMAL);
+                return Environment.Type.DECIMAL;
             }
             else {
                 throw new RuntimeException("BigDecimal Literal exceeds Double.MAX_VALUE");
             }
         }
-
         return null;
     }
 
@@ -266,63 +324,64 @@ public final class Analyzer implements Ast.Visitor<Void> {
             throw new RuntimeException("Contained expression is not binary ");
         }
         visit(ast.getExpression());
-        ast.setType(ast.getExpression().getType());
+        annotate(ast, getType(ast.getExpression()), ast::setType);
         return null;
     }
 
     @Override
     public Void visit(Ast.Expression.Binary ast) {
-        String op = ast.getOperator();
-        Ast.Expression left = ast.getLeft();
-        visit(left);
-        Ast.Expression right = ast.getRight();
-        visit(right);
+        visit(ast.getLeft());
+        visit(ast.getRight());
+        annotate(ast, binaryType(ast.getOperator(), getType(ast.getLeft()), getType(ast.getRight())), ast::setType);
+        return null;
+    }
 
+    /**
+     * Returns the type of the binary operator {@code op} applied to operands
+     * of the given types, or throws if they are not allowed. Shared with
+     * {@link FlatAnalyzer}.
+     */
+    static Environment.Type binaryType(String op, Environment.Type left, Environment.Type right) {
         switch (op) {
             case "AND", "OR":
-                requireAssignable(left.getType(), Environment.Type.BOOLEAN);
-                requireAssignable(right.getType(), Environment.Type.BOOLEAN);
-                ast.setType(Environment.Type.BOOLEAN);
-                break;
+                requireAssignable(left, Environment.Type.BOOLEAN);
+                requireAssignable(right, Environment.Type.BOOLEAN);
+                return Environment.Type.BOOLEAN;
             case "<", "<=", ">", ">=", "==", "!=":
-                requireAssignable(left.getType(), Environment.Type.COMPARABLE);
-                requireAssignable(right.getType(), Environment.Type.COMPARABLE);
-                ast.setType(Environment.Type.BOOLEAN);
-                break;
+                requireAssignable(left, Environment.Type.COMPARABLE);
+                requireAssignable(right, Environment.Type.COMPARABLE);
+                return Environment.Type.BOOLEAN;
             case "+":
-                if (left.getType() == Environment.Type.STRING) {
-                    ast.setType(Environment.Type.STRING);
+                if (left == Environment.Type.STRING) {
+                    return Environment.Type.STRING;
                 }
-                else if (right.getType() == Environment.Type.STRING) {
-                    ast.setType(Environment.Type.STRING);
+                else if (right == Environment.Type.STRING) {
+                    return Environment.Type.STRING;
                 }
-                else if (left.getType() == Environment.Type.INTEGER) {
-                    requireAssignable(right.getType(), Environment.Type.INTEGER);
-                    ast.setType(Environment.Type.INTEGER);
+                else if (left == Environment.Type.INTEGER) {
+                    requireAssignable(right, Environment.Type.INTEGER);
+                    return Environment.Type.INTEGER;
                 }
-                else if (left.getType() == Environment.Type.DECIMAL) {
-                    requireAssignable(right.getType(), Environment.Type.DECIMAL);
-                    ast.setType(Environment.Type.DECIMAL);
+                else if (left == Environment.Type.DECIMAL) {
+                    requireAssignable(right, Environment.Type.DECIMAL);
+                    return Environment.Type.DECIMAL;
                 }
                 else
                     throw new RuntimeException("Not BigInt, BigDec, or String");
-                break;
             case "-", "*", "/":
-                if (left.getType() == Environment.Type.INTEGER) {
-                    requireAssignable(right.getType(), Environment.Type.INTEGER);
-                    ast.setType(Environment.Type.INTEGER);
+                if (left == Environment.Type.INTEGER) {
+                    requireAssignable(right, Environment.Type.INTEGER);
+                    return Environment.Type.INTEGER;
                 }
-                else if (left.getType() == Environment.Type.DECIMAL) {
-                    requireAssignable(right.getType(), Environment.Type.DECIMAL);
-                    ast.setType(Environment.Type.DECIMAL);
+                else if (left == Environment.Type.DECIMAL) {
+                    requireAssignable(right, Environment.Type.DECIMAL);
+                    return Environment.Type.DECIMAL;
                 }
                 else
                     throw new RuntimeException("Not BigInt, BigDec");
-                break;
             default:
                 throw new RuntimeException("Expected a valid operator, got " + op);
         }
-        return null;
     }
 
     @Override
@@ -330,13 +389,13 @@ public final class Analyzer implements Ast.Visitor<Void> {
         Environment.Variable var;
         if (ast.getReceiver().isPresent()) {
             visit(ast.getReceiver().get());
-            var = ast.getReceiver().get().getType().getField(ast.getName());
+            var = getType(ast.getReceiver().get()).getField(ast.getName());
         }
         else {
             var = scope.lookupVariable(ast.getName());
         }
 
-        ast.setVariable(var);
+        annotate(ast, var, ast::setVariable);
 
         return null;
     }
@@ -350,7 +409,7 @@ public final class Analyzer implements Ast.Visitor<Void> {
 
         if (ast.getReceiver().isPresent()) { // it is a method, first argument needs to be 'this'
             visit(ast.getReceiver().get()); // have to visit to ensure that type is set
-            func = ast.getReceiver().get().getType().getFunction(ast.getName(), arguments.size());
+            func = getType(ast.getReceiver().get()).getFunction(ast.getName(), arguments.size());
         }
         else {
             func = scope.lookupFunction(name, arguments.size());
@@ -358,9 +417,9 @@ public final class Analyzer implements Ast.Visitor<Void> {
 
         for (int i = 0; i < arguments.size(); i++){
             visit(arguments.get(i)); // to ensure type is assigned
-            requireAssignable(func.getParameterTypes().get(i), arguments.get(i).getType());
+            requireAssignable(func.getParameterTypes().get(i), getType(arguments.get(i)));
         }
-        ast.setFunction(func);
+        annotate(ast, func, ast::setFunction);
         return null;
     }
 
@@ -11,6 +11,14 @@ import java.util.Optional;
  */
 public abstract class Ast {
 
+    /**
+     * Calls the {@link Visitor} method for this node's class with a single
+     * virtual call, for visitors that dispatch nodes themselves. {@link
+     * Visitor#visit(Ast)} keeps its chain of {@code instanceof} tests, which
+     * measured no slower.
+     */
+    public abstract <T> T accept(Visitor<T> visitor);
+
     public static final class Source extends Ast {
 
         private final List<Field> fields;
@@ -29,6 +37,11 @@ public abstract class Ast {
             return methods;
         }
 
+        @Override
+        public <T> T accept(Visitor<T> visitor) {
+            return visitor.visit(this);
+        }
+
         @Override
         public boolean equals(Object obj) {
             return obj instanceof Source &&
@@ -36,6 +49,11 @@ public abstract class Ast {
                     methods.equals(((Source) obj).methods);
         }
 
+        @Override
+        public int hashCode() {
+            return Objects.hash(fields, methods);
+        }
+
         @Override
         public String toString() {
             return "Ast.Source{" +
@@ -94,6 +112,11 @@ public abstract class Ast {
         }
 
 
+        @Override
+        public <T> T accept(Visitor<T> visitor) {
+            return visitor.visit(this);
+        }
+
         @Override
         public boolean equals(Object obj) {
             return obj instanceof Field &&
@@ -104,6 +127,11 @@ public abstract class Ast {
                     Objects.equals(variable, ((Field) obj).variable);
         }
 
+        @Override
+        public int hashCode() {
+            return Objects.hash(name, typeName, constant, value);
+        }
+
         @Override
         public String toString() {
             return "Ast.Field{" +
@@ -174,6 +202,11 @@ public abstract class Ast {
         }
 
 
+        @Override
+        public <T> T accept(Visitor<T> visitor) {
+            return visitor.visit(this);
+        }
+
         @Override
         public boolean equals(Object obj) {
             return obj instanceof Ast.Method &&
@@ -186,6 +219,11 @@ public abstract class Ast {
         }
 
 
+        @Override
+        public int hashCode() {
+            return Objects.hash(name, parameters, parameterTypeNames, returnTypeName, statements);
+        }
+
         @Override
         public String toString() {
             return "Method{" +
@@ -214,12 +252,22 @@ public abstract class Ast {
                 return expression;
             }
 
+            @Override
+            public <T> T accept(Visitor<T> visitor) {
+                return visitor.visit(this);
+            }
+
             @Override
             public boolean equals(Object obj) {
                 return obj instanceof Ast.Statement.Expression &&
                         expression.equals(((Ast.Statement.Expression) obj).expression);
             }
 
+            @Override
+            public int hashCode() {
+                return expression.hashCode();
+            }
+
             @Override
             public String toString() {
                 return "Ast.Statement.Expression{" +
@@ -270,6 +318,11 @@ public abstract class Ast {
             }
 
 
+            @Override
+            public <T> T accept(Visitor<T> visitor) {
+                return visitor.visit(this);
+            }
+
             @Override
             public boolean equals(Object obj) {
                 return obj instanceof Declaration &&
@@ -279,6 +332,11 @@ public abstract class Ast {
                         Objects.equals(variable, ((Declaration) obj).variable);
             }
 
+            @Override
+            public int hashCode() {
+                return Objects.hash(name, typeName, value);
+            }
+
             @Override
             public String toString() {
                 return "Ast.Statement.Declaration{" +
@@ -309,6 +367,11 @@ public abstract class Ast {
                 return value;
             }
 
+            @Override
+            public <T> T accept(Visitor<T> visitor) {
+                return visitor.visit(this);
+            }
+
             @Override
             public boolean equals(Object obj) {
                 return obj instanceof Assignment &&
@@ -316,6 +379,11 @@ public abstract class Ast {
                         value.equals(((Assignment) obj).value);
             }
 
+            @Override
+            public int hashCode() {
+                return Objects.hash(receiver, value);
+            }
+
             @Override
             public final String toString() {
                 return "Ast.Statement.Assignment{" +
@@ -351,6 +419,11 @@ public abstract class Ast {
                 return elseStatements;
             }
 
+            @Override
+            public <T> T accept(Visitor<T> visitor) {
+                return visitor.visit(this);
+            }
+
             @Override
             public boolean equals(Object obj) {
                 return obj instanceof If &&
@@ -359,6 +432,11 @@ public abstract class Ast {
                         elseStatements.equals(((If) obj).elseStatements);
             }
 
+            @Override
+            public int hashCode() {
+                return Objects.hash(condition, thenStatements, elseStatements);
+            }
+
             @Override
             public String toString() {
                 return "Ast.Statement.If{" +
@@ -400,6 +478,11 @@ public abstract class Ast {
                 return statements;
             }
 
+            @Override
+            public <T> T accept(Visitor<T> visitor) {
+                return visitor.visit(this);
+            }
+
             @Override
             public boolean equals(Object obj) {
 
@@ -430,6 +513,11 @@ public abstract class Ast {
                         statements.equals(myFor.statements);
             }
 
+            @Override
+            public int hashCode() {
+                return Objects.hash(initialization, condition, increment, statements);
+            }
+
             @Override
             public String toString() {
                 return "For{" +
@@ -460,6 +548,11 @@ public abstract class Ast {
                 return statements;
             }
 
+            @Override
+            public <T> T accept(Visitor<T> visitor) {
+                return visitor.visit(this);
+            }
+
             @Override
             public boolean equals(Object obj) {
                 return obj instanceof While &&
@@ -467,6 +560,11 @@ public abstract class Ast {
                         statements.equals(((While) obj).statements);
             }
 
+            @Override
+            public int hashCode() {
+                return Objects.hash(condition, statements);
+            }
+
             @Override
             public String toString() {
                 return "Ast.Statement.While{" +
@@ -489,12 +587,22 @@ public abstract class Ast {
                 return value;
             }
 
+            @Override
+            public <T> T accept(Visitor<T> visitor) {
+                return visitor.visit(this);
+            }
+
             @Override
             public boolean equals(Object obj) {
                 return obj instanceof Return &&
                         value.equals(((Return) obj).value);
             }
 
+            @Override
+            public int hashCode() {
+                return value.hashCode();
+            }
+
             @Override
             public String toString() {
                 return "Ast.Statement.Return{" +
@@ -506,6 +614,11 @@ public abstract class Ast {
 
     }
 
+    /**
+     * Expressions cache their {@link #hashCode()}, which covers their
+     * structure but not the annotations set by the {@link Analyzer}, so an
+     * expression should not be changed once it has been hashed.
+     */
     public static abstract class Expression extends Ast {
 
         public abstract Environment.Type getType();
@@ -514,6 +627,7 @@ public abstract class Ast {
 
             private final Object literal;
             private Environment.Type type = null;
+            private int hash = 0;
 
             public Literal(Object literal) {
                 this.literal = literal;
@@ -535,6 +649,11 @@ public abstract class Ast {
                 this.type = type;
             }
 
+            @Override
+            public <T> T accept(Visitor<T> visitor) {
+                return visitor.visit(this);
+            }
+
             @Override
             public boolean equals(Object obj) {
                 return obj instanceof Literal &&
@@ -542,6 +661,14 @@ public abstract class Ast {
                         Objects.equals(type, ((Literal) obj).type);
             }
 
+            @Override
+            public int hashCode() {
+                if (hash == 0) {
+                    hash = Objects.hashCode(literal);
+                }
+                return hash;
+            }
+
             @Override
             public String toString() {
                 return "Ast.Expression.Literal{" +
@@ -556,6 +683,7 @@ public abstract class Ast {
 
             private final Ast.Expression expression;
             private Environment.Type type = null;
+            private int hash = 0;
 
             public Group(Ast.Expression expression) {
                 this.expression = expression;
@@ -578,6 +706,11 @@ public abstract class Ast {
             }
 
 
+            @Override
+            public <T> T accept(Visitor<T> visitor) {
+                return visitor.visit(this);
+            }
+
             @Override
             public boolean equals(Object obj) {
                 return obj instanceof Group &&
@@ -586,6 +719,14 @@ public abstract class Ast {
             }
 
 
+            @Override
+            public int hashCode() {
+                if (hash == 0) {
+                    hash = Objects.hash(expression);
+                }
+                return hash;
+            }
+
             @Override
             public String toString() {
                 return "Ast.Expression.Group{" +
@@ -602,6 +743,7 @@ public abstract class Ast {
             private final Ast.Expression left;
             private final Ast.Expression right;
             private Environment.Type type = null;
+            private int hash = 0;
 
             public Binary(String operator, Ast.Expression left, Ast.Expression right) {
                 this.operator = operator;
@@ -633,6 +775,11 @@ public abstract class Ast {
                 this.type = type;
             }
 
+            @Override
+            public <T> T accept(Visitor<T> visitor) {
+                return visitor.visit(this);
+            }
+
             @Override
             public boolean equals(Object obj) {
                 return obj instanceof Binary &&
@@ -642,6 +789,14 @@ public abstract class Ast {
                         Objects.equals(type, ((Binary) obj).type);
             }
 
+            @Override
+            public int hashCode() {
+                if (hash == 0) {
+                    hash = Objects.hash(operator, left, right);
+                }
+                return hash;
+            }
+
             @Override
             public String toString() {
                 return "Ast.Expression.Binary{" +
@@ -660,6 +815,7 @@ public abstract class Ast {
             private final Optional<Ast.Expression> receiver;
             private final String name;
             private Environment.Variable variable = null;
+            private int hash = 0;
 
             public Access(Optional<Ast.Expression> receiver, String name) {
                 this.receiver = receiver;
@@ -690,6 +846,11 @@ public abstract class Ast {
                 return getVariable().getType();
             }
 
+            @Override
+            public <T> T accept(Visitor<T> visitor) {
+                return visitor.visit(this);
+            }
+
             @Override
             public boolean equals(Object obj) {
                 return obj instanceof Access &&
@@ -699,6 +860,14 @@ public abstract class Ast {
             }
 
 
+            @Override
+            public int hashCode() {
+                if (hash == 0) {
+                    hash = Objects.hash(receiver, name);
+                }
+                return hash;
+            }
+
             @Override
             public String toString() {
                 return "Ast.Expression.Access{" +
@@ -716,6 +885,7 @@ public abstract class Ast {
             private final String name;
             private final List<Ast.Expression> arguments;
             private Environment.Function function = null;
+            private int hash = 0;
 
             public Function(Optional<Ast.Expression> receiver, String name, List<Ast.Expression> arguments) {
                 this.receiver = receiver;
@@ -751,6 +921,11 @@ public abstract class Ast {
                 return getFunction().getReturnType();
             }
 
+            @Override
+            public <T> T accept(Visitor<T> visitor) {
+                return visitor.visit(this);
+            }
+
             @Override
             public boolean equals(Object obj) {
                 return obj instanceof Ast.Expression.Function &&
@@ -760,6 +935,14 @@ public abstract class Ast {
                         Objects.equals(function, ((Ast.Expression.Function) obj).function);
             }
 
+            @Override
+            public int hashCode() {
+                if (hash == 0) {
+                    hash = Objects.hash(receiver, name, arguments);
+                }
+                return hash;
+            }
+
             @Override
             public String toString() {
                 return "Ast.Expression.Function{" +
@@ -0,0 +1,759 @@
+package plc.project;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compiles an analyzed {@link Ast.Source} straight to a class file, which is
+ * loaded as a hidden class and run in this process. The class is the one
+ * {@link Generator} would write as Java source: each field and method of the
+ * program becomes a field and method of {@code Main}, with types mapped to
+ * the same JVM types, and running the program calls {@code new
+ * Main().main()}. Operators follow the Java that {@link Generator} writes,
+ * except that ordering and equality of objects use {@code compareTo} and
+ * {@code equals}, as in {@link Interpreter}. Numbers of different types are
+ * compared in the same way rather than converted, so an Integer is never
+ * equal to a Character or Decimal, and ordering them throws a {@link
+ * ClassCastException} where the Interpreter throws its type error.
+ *
+ * Types, variables and functions are read from the {@link Analysis} of the
+ * tree. Only the builtin types and the {@code print} function are supported;
+ * anything else is rejected when compiling.
+ */
+public final class BytecodeCompiler {
+
+    /**
+     * The name of the generated class, which as a hidden class must be in
+     * the package of the lookup defining it.
+     */
+    private static final String CLASS = "plc/project/Main";
+
+    private final Analysis analysis;
+    private final ClassWriter writer = new ClassWriter(ClassWriter.ACC_PUBLIC | ClassWriter.ACC_FINAL | ClassWriter.ACC_SUPER, CLASS, "java/lang/Object");
+    private final Set<Environment.Variable> fields = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Set<Environment.Function> methods = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private ClassWriter.Code code;
+    private final Map<Environment.Variable, Integer> locals = new IdentityHashMap<>();
+    private final Map<String, Integer> parameters = new HashMap<>();
+    private Environment.Type returnType;
+    private int nextLocal;
+
+    private BytecodeCompiler(Analysis analysis) {
+        this.analysis = analysis;
+    }
+
+    /**
+     * Returns the class file for {@code ast}, which must have been analyzed
+     * into {@code analysis}.
+     */
+    public static byte[] compile(Ast.Source ast, Analysis analysis) {
+        BytecodeCompiler compiler = new BytecodeCompiler(analysis);
+        compiler.source(ast);
+        return compiler.writer.toByteArray();
+    }
+
+    /**
+     * Defines the class compiled by {@link #compile(Ast.Source, Analysis)} as
+     * a hidden class, which is unloaded once the program is unreachable.
+     */
+    public static Program load(byte[] bytes) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(bytes, true);
+            Class<?> main = lookup.lookupClass();
+            return new Program(
+                    lookup.findConstructor(main, MethodType.methodType(void.class)),
+                    lookup.findVirtual(main, "main", MethodType.methodType(int.class))
+            );
+        } catch (IllegalAccessException | NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * A compiled program. Each run creates a new {@code Main}, so fields are
+     * initialized again and runs do not share state.
+     */
+    public static final class Program {
+
+        private final MethodHandle constructor;
+        private final MethodHandle main;
+
+        private Program(MethodHandle constructor, MethodHandle main) {
+            this.constructor = constructor;
+            this.main = main;
+        }
+
+        public int run() {
+            try {
+                return (int) main.invoke(constructor.invoke());
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+    }
+
+    private void source(Ast.Source ast) {
+        for (Ast.Field field : ast.getFields()) {
+            Environment.Variable variable = analysis.getVariable(field);
+            int access = ClassWriter.ACC_PUBLIC | (field.getConstant() ? ClassWriter.ACC_FINAL : 0);
+            writer.field(access, variable.getJvmName(), descriptor(variable.getType()));
+            fields.add(variable);
+        }
+        for (Ast.Method method : ast.getMethods()) {
+            methods.add(analysis.getFunction(method));
+        }
+
+        code = new ClassWriter.Code();
+        code.local(0x19, 0, 1);
+        code.op(0xB7, writer.methodRef("java/lang/Object", "<init>", "()V"), -1);
+        for (Ast.Field field : ast.getFields()) {
+            if (field.getValue().isPresent()) {
+                Environment.Variable variable = analysis.getVariable(field);
+                code.local(0x19, 0, 1);
+                push(field.getValue().get(), variable.getType());
+                code.op(0xB5, writer.fieldRef(CLASS, variable.getJvmName(), descriptor(variable.getType())), -1 - size(variable.getType()));
+            }
+        }
+        code.op(0xB1, 0);
+        code.maxLocals = 1;
+        writer.method(ClassWriter.ACC_PUBLIC, "<init>", "()V", code);
+
+        for (Ast.Method method : ast.getMethods()) {
+            method(method);
+        }
+    }
+
+    private void method(Ast.Method ast) {
+        Environment.Function function = analysis.getFunction(ast);
+        code = new ClassWriter.Code();
+        locals.clear();
+        parameters.clear();
+        returnType = function.getReturnType();
+        nextLocal = 1;
+        for (int i = 0; i < ast.getParameters().size(); i++) {
+            parameters.put(ast.getParameters().get(i), nextLocal);
+            nextLocal += size(function.getParameterTypes().get(i));
+        }
+        for (Ast.Statement statement : ast.getStatements()) {
+            statement(statement);
+        }
+        // a method may end without returning, which Java would reject
+        pushDefault(returnType);
+        code.op(returnOpcode(returnType), -size(returnType));
+        code.maxLocals = nextLocal;
+        writer.method(ClassWriter.ACC_PUBLIC, function.getJvmName(), descriptor(function), code);
+    }
+
+    private void statement(Ast.Statement ast) {
+        ast.accept(emitter);
+    }
+
+    /**
+     * Writes the instructions of a statement, or of an expression pushing
+     * its value.
+     */
+    private final Ast.Visitor<Void> emitter = new Ast.Visitor<Void>() {
+
+        @Override
+        public Void visit(Ast.Source ast) {
+            throw new AssertionError();
+        }
+
+        @Override
+        public Void visit(Ast.Field ast) {
+            throw new AssertionError();
+        }
+
+        @Override
+        public Void visit(Ast.Method ast) {
+            throw new AssertionError();
+        }
+
+        @Override
+        public Void visit(Ast.Statement.Expression ast) {
+            Environment.Type type = type(ast.getExpression());
+            push(ast.getExpression(), type);
+            code.op(size(type) == 2 ? 0x58 : 0x57, -size(type));
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Statement.Declaration ast) {
+            Environment.Variable variable = analysis.getVariable(ast);
+            Environment.Type type = variable.getType();
+            if (ast.getValue().isPresent()) {
+                push(ast.getValue().get(), type);
+            }
+            else {
+                pushDefault(type);
+            }
+            int local = nextLocal;
+            nextLocal += size(type);
+            code.local(storeOpcode(type), local, -size(type));
+            locals.put(variable, local);
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Statement.Assignment ast) {
+            Ast.Expression.Access receiver = (Ast.Expression.Access) ast.getReceiver();
+            if (receiver.getReceiver().isPresent()) {
+                throw unsupported("Assignment to a field of an object");
+            }
+            Environment.Variable variable = analysis.getVariable(receiver);
+            Environment.Type type = variable.getType();
+            if (fields.contains(variable)) {
+                code.local(0x19, 0, 1);
+                push(ast.getValue(), type);
+                code.op(0xB5, writer.fieldRef(CLASS, variable.getJvmName(), descriptor(type)), -1 - size(type));
+            }
+            else {
+                push(ast.getValue(), type);
+                code.local(storeOpcode(type), local(variable), -size(type));
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Statement.If ast) {
+            ClassWriter.Label otherwise = new ClassWriter.Label();
+            ClassWriter.Label end = new ClassWriter.Label();
+            condition(ast.getCondition(), otherwise);
+            ast.getThenStatements().forEach(BytecodeCompiler.this::statement);
+            if (!ast.getElseStatements().isEmpty()) {
+                code.jump(0xA7, end, 0);
+                code.place(otherwise);
+                ast.getElseStatements().forEach(BytecodeCompiler.this::statement);
+            }
+            else {
+                code.place(otherwise);
+            }
+            code.place(end);
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Statement.For ast) {
+            if (ast.getInitialization() != null) {
+                statement(ast.getInitialization());
+            }
+            ClassWriter.Label start = new ClassWriter.Label();
+            ClassWriter.Label end = new ClassWriter.Label();
+            code.place(start);
+            condition(ast.getCondition(), end);
+            ast.getStatements().forEach(BytecodeCompiler.this::statement);
+            if (ast.getIncrement() != null) {
+                statement(ast.getIncrement());
+            }
+            code.jump(0xA7, start, 0);
+            code.place(end);
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Statement.While ast) {
+            ClassWriter.Label start = new ClassWriter.Label();
+            ClassWriter.Label end = new ClassWriter.Label();
+            code.place(start);
+            condition(ast.getCondition(), end);
+            ast.getStatements().forEach(BytecodeCompiler.this::statement);
+            code.jump(0xA7, start, 0);
+            code.place(end);
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Statement.Return ast) {
+            push(ast.getValue(), returnType);
+            code.op(returnOpcode(returnType), -size(returnType));
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Expression.Literal ast) {
+            literal(ast.getLiteral(), type(ast));
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Expression.Group ast) {
+            push(ast.getExpression());
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Expression.Binary ast) {
+            binary(ast);
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Expression.Access ast) {
+            access(ast);
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Expression.Function ast) {
+            function(ast);
+            return null;
+        }
+
+    };
+
+    /**
+     * Pushes the value of {@code ast}, converted to {@code type}.
+     */
+    private void push(Ast.Expression ast, Environment.Type type) {
+        Environment.Type actual = type(ast);
+        push(ast);
+        convert(actual, type);
+    }
+
+    /**
+     * Pushes the value of {@code ast}, of its analyzed type.
+     */
+    private void push(Ast.Expression ast) {
+        ast.accept(emitter);
+    }
+
+    private void literal(Object literal, Environment.Type type) {
+        if (type == Environment.Type.INTEGER) {
+            integer(((BigInteger) literal).intValue());
+        }
+        else if (type == Environment.Type.DECIMAL) {
+            double value = ((BigDecimal) literal).doubleValue();
+            if (value == 0.0 && 1 / value > 0) {
+                code.op(0x0E, 2);
+            }
+            else if (value == 1.0) {
+                code.op(0x0F, 2);
+            }
+            else {
+                code.op(0x14, writer.decimal(value), 2);
+            }
+        }
+        else if (type == Environment.Type.BOOLEAN) {
+            integer((Boolean) literal ? 1 : 0);
+        }
+        else if (type == Environment.Type.CHARACTER) {
+            integer((Character) literal);
+        }
+        else if (type == Environment.Type.STRING) {
+            string((String) literal);
+        }
+        else {
+            code.op(0x01, 1);
+        }
+    }
+
+    /**
+     * Pushes {@code value}, which is built with a {@link StringBuilder} from
+     * pieces that each fit in a constant if it does not fit in one itself.
+     */
+    private void string(String value) {
+        if (ClassWriter.utf8Length(value) <= ClassWriter.MAX_UTF8) {
+            ldc(writer.string(value));
+            return;
+        }
+        code.op(0xBB, writer.classRef("java/lang/StringBuilder"), 1);
+        code.op(0x59, 1);
+        code.op(0xB7, writer.methodRef("java/lang/StringBuilder", "<init>", "()V"), -1);
+        // a char takes at most three bytes
+        int piece = ClassWriter.MAX_UTF8 / 3;
+        for (int start = 0; start < value.length(); start += piece) {
+            ldc(writer.string(value.substring(start, Math.min(start + piece, value.length()))));
+            code.op(0xB6, writer.methodRef("java/lang/StringBuilder", "append", "(Ljava/lang/String;)Ljava/lang/StringBuilder;"), -1);
+        }
+        code.op(0xB6, writer.methodRef("java/lang/StringBuilder", "toString", "()Ljava/lang/String;"), 0);
+    }
+
+    private void integer(int value) {
+        if (value >= -1 && value <= 5) {
+            code.op(0x03 + value, 1);
+        }
+        else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            code.op(0x10, 1);
+            code.u1(value);
+        }
+        else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            code.op(0x11, 1);
+            code.u2(value);
+        }
+        else {
+            ldc(writer.integer(value));
+        }
+    }
+
+    private void ldc(int index) {
+        if (index <= 0xFF) {
+            code.op(0x12, 1);
+            code.u1(index);
+        }
+        else {
+            code.op(0x13, index, 1);
+        }
+    }
+
+    private void binary(Ast.Expression.Binary ast) {
+        Environment.Type type = type(ast);
+        switch (ast.getOperator()) {
+            case "+":
+                if (type == Environment.Type.STRING) {
+                    concatenate(ast.getLeft(), ast.getRight());
+                    return;
+                }
+                arithmetic(ast, 0x60);
+                return;
+            case "-":
+                arithmetic(ast, 0x64);
+                return;
+            case "*":
+                arithmetic(ast, 0x68);
+                return;
+            case "/":
+                arithmetic(ast, 0x6C);
+                return;
+            default:
+                // a boolean operator, pushed as 1 or 0
+                ClassWriter.Label otherwise = new ClassWriter.Label();
+                ClassWriter.Label end = new ClassWriter.Label();
+                condition(ast, otherwise);
+                code.op(0x04, 1);
+                code.jump(0xA7, end, 0);
+                code.place(otherwise);
+                code.setStack(code.getStack() - 1);
+                code.op(0x03, 1);
+                code.place(end);
+        }
+    }
+
+    /**
+     * Pushes the operands of {@code ast} converted to its type, then applies
+     * the int instruction {@code opcode}, or the double instruction after it.
+     */
+    private void arithmetic(Ast.Expression.Binary ast, int opcode) {
+        Environment.Type type = type(ast);
+        push(ast.getLeft(), type);
+        push(ast.getRight(), type);
+        if (type == Environment.Type.DECIMAL) {
+            code.op(opcode + 3, -2);
+        }
+        else {
+            code.op(opcode, -1);
+        }
+    }
+
+    private void concatenate(Ast.Expression left, Ast.Expression right) {
+        code.op(0xBB, writer.classRef("java/lang/StringBuilder"), 1);
+        code.op(0x59, 1);
+        code.op(0xB7, writer.methodRef("java/lang/StringBuilder", "<init>", "()V"), -1);
+        for (Ast.Expression operand : List.of(left, right)) {
+            Environment.Type type = type(operand);
+            push(operand);
+            String descriptor = appendDescriptor(type);
+            code.op(0xB6, writer.methodRef("java/lang/StringBuilder", "append", "(" + descriptor + ")Ljava/lang/StringBuilder;"), -size(type));
+        }
+        code.op(0xB6, writer.methodRef("java/lang/StringBuilder", "toString", "()Ljava/lang/String;"), 0);
+    }
+
+    private static String appendDescriptor(Environment.Type type) {
+        if (isPrimitive(type) || type == Environment.Type.STRING) {
+            return descriptor(type);
+        }
+        return "Ljava/lang/Object;";
+    }
+
+    /**
+     * Jumps to {@code otherwise} if the boolean {@code ast} is false, and
+     * otherwise continues with the next instruction.
+     */
+    private void condition(Ast.Expression ast, ClassWriter.Label otherwise) {
+        if (ast instanceof Ast.Expression.Group) {
+            condition(((Ast.Expression.Group) ast).getExpression(), otherwise);
+            return;
+        }
+        if (!(ast instanceof Ast.Expression.Binary)) {
+            push(ast, Environment.Type.BOOLEAN);
+            code.jump(0x99, otherwise, -1);
+            return;
+        }
+        Ast.Expression.Binary binary = (Ast.Expression.Binary) ast;
+        switch (binary.getOperator()) {
+            case "&&", "AND":
+                condition(binary.getLeft(), otherwise);
+                condition(binary.getRight(), otherwise);
+                return;
+            case "||", "OR":
+                ClassWriter.Label right = new ClassWriter.Label();
+                ClassWriter.Label end = new ClassWriter.Label();
+                condition(binary.getLeft(), right);
+                code.jump(0xA7, end, 0);
+                code.place(right);
+                condition(binary.getRight(), otherwise);
+                code.place(end);
+                return;
+            case "<", "<=", ">", ">=", "==", "!=":
+                comparison(binary, otherwise);
+                return;
+            default:
+                push(ast, Environment.Type.BOOLEAN);
+                code.jump(0x99, otherwise, -1);
+        }
+    }
+
+    /**
+     * Jumps to {@code otherwise} if the comparison {@code ast} is false.
+     * Numbers of the same type are compared as in Java, and other values by
+     * {@code equals} and {@code compareTo}, so as in {@link Interpreter} an
+     * Integer never equals a Character or Decimal and ordering them throws.
+     */
+    private void comparison(Ast.Expression.Binary ast, ClassWriter.Label otherwise) {
+        String op = ast.getOperator();
+        Environment.Type left = type(ast.getLeft());
+        Environment.Type right = type(ast.getRight());
+        // the ifXX jumping when a result compared with zero makes the
+        // comparison false; the if_icmpXX comparing two ints is 6 further on
+        int inverse;
+        switch (op) {
+            case "<": inverse = 0x9C; break;
+            case "<=": inverse = 0x9D; break;
+            case ">": inverse = 0x9E; break;
+            case ">=": inverse = 0x9B; break;
+            case "==": inverse = 0x9A; break;
+            default: inverse = 0x99; break;
+        }
+        if (isNumeric(left) && left == right) {
+            if (left == Environment.Type.DECIMAL) {
+                push(ast.getLeft());
+                push(ast.getRight());
+                // NaN compares false: dcmpg gives 1 for < and <=, dcmpl -1
+                code.op(op.startsWith("<") ? 0x98 : 0x97, -3);
+                code.jump(inverse, otherwise, -1);
+            }
+            else {
+                push(ast.getLeft());
+                push(ast.getRight());
+                code.jump(inverse + 6, otherwise, -2);
+            }
+        }
+        else if (op.equals("==") || op.equals("!=")) {
+            push(ast.getLeft(), Environment.Type.ANY);
+            push(ast.getRight(), Environment.Type.ANY);
+            code.op(0xB8, writer.methodRef("java/util/Objects", "equals", "(Ljava/lang/Object;Ljava/lang/Object;)Z"), -1);
+            code.jump(op.equals("==") ? 0x99 : 0x9A, otherwise, -1);
+        }
+        else {
+            push(ast.getLeft(), Environment.Type.COMPARABLE);
+            push(ast.getRight(), Environment.Type.ANY);
+            code.op(0xB9, writer.interfaceMethodRef("java/lang/Comparable", "compareTo", "(Ljava/lang/Object;)I"), -1);
+            code.u1(2);
+            code.u1(0);
+            code.jump(inverse, otherwise, -1);
+        }
+    }
+
+    private void access(Ast.Expression.Access ast) {
+        if (ast.getReceiver().isPresent()) {
+            throw unsupported("Access to a field of an object");
+        }
+        Environment.Variable variable = analysis.getVariable(ast);
+        Environment.Type type = variable.getType();
+        if (fields.contains(variable)) {
+            code.local(0x19, 0, 1);
+            code.op(0xB4, writer.fieldRef(CLASS, variable.getJvmName(), descriptor(type)), size(type) - 1);
+        }
+        else {
+            code.local(loadOpcode(type), local(variable), size(type));
+        }
+    }
+
+    private void function(Ast.Expression.Function ast) {
+        if (ast.getReceiver().isPresent()) {
+            throw unsupported("Calling a method of an object");
+        }
+        Environment.Function function = analysis.getFunction(ast);
+        List<Environment.Type> types = function.getParameterTypes();
+        if (methods.contains(function)) {
+            code.local(0x19, 0, 1);
+            int slots = 1;
+            for (int i = 0; i < types.size(); i++) {
+                push(ast.getArguments().get(i), types.get(i));
+                slots += size(types.get(i));
+            }
+            code.op(0xB6, writer.methodRef(CLASS, function.getJvmName(), descriptor(function)), size(function.getReturnType()) - slots);
+        }
+        else if (function.getJvmName().equals("System.out.println") && types.size() == 1) {
+            code.op(0xB2, writer.fieldRef("java/lang/System", "out", "Ljava/io/PrintStream;"), 1);
+            push(ast.getArguments().get(0), Environment.Type.ANY);
+            code.op(0xB6, writer.methodRef("java/io/PrintStream", "println", "(Ljava/lang/Object;)V"), -2);
+            code.op(0x01, 1);
+        }
+        else {
+            throw unsupported("The function " + function.getName());
+        }
+    }
+
+    /**
+     * Returns the local of a variable declared in the current method, or of
+     * a parameter, which the {@link Analysis} does not record, by name.
+     */
+    private int local(Environment.Variable variable) {
+        Integer local = locals.get(variable);
+        if (local == null) {
+            local = parameters.get(variable.getName());
+        }
+        if (local == null) {
+            throw unsupported("The variable " + variable.getName());
+        }
+        return local;
+    }
+
+    /**
+     * Converts the value on the stack from {@code from} to {@code to},
+     * boxing and unboxing between primitives and objects.
+     */
+    private void convert(Environment.Type from, Environment.Type to) {
+        if (from == to) {
+            return;
+        }
+        if (isPrimitive(from) && isPrimitive(to)) {
+            if (from == Environment.Type.INTEGER && to == Environment.Type.DECIMAL) {
+                code.op(0x87, 1);
+            }
+            else if (!isInt(from) || !isInt(to)) {
+                throw unsupported("Converting " + from.getName() + " to " + to.getName());
+            }
+        }
+        else if (isPrimitive(from)) {
+            String box = box(from);
+            code.op(0xB8, writer.methodRef(box, "valueOf", "(" + descriptor(from) + ")L" + box + ";"), 1 - size(from));
+        }
+        else if (isPrimitive(to)) {
+            String box = box(to);
+            code.op(0xC0, writer.classRef(box), 0);
+            code.op(0xB6, writer.methodRef(box, to.getJvmName() + "Value", "()" + descriptor(to)), size(to) - 1);
+        }
+        else if (to != Environment.Type.ANY && from != Environment.Type.NIL) {
+            code.op(0xC0, writer.classRef(internalName(to)), 0);
+        }
+    }
+
+    private void pushDefault(Environment.Type type) {
+        if (type == Environment.Type.DECIMAL) {
+            code.op(0x0E, 2);
+        }
+        else if (isPrimitive(type)) {
+            code.op(0x03, 1);
+        }
+        else {
+            code.op(0x01, 1);
+        }
+    }
+
+    private Environment.Type type(Ast.Expression ast) {
+        return analysis.getType(ast);
+    }
+
+    private static RuntimeException unsupported(String what) {
+        return new RuntimeException(what + " is not supported by the bytecode compiler.");
+    }
+
+    private static boolean isPrimitive(Environment.Type type) {
+        return isInt(type) || type == Environment.Type.DECIMAL;
+    }
+
+    /**
+     * Returns whether values of {@code type} are ints on the JVM stack.
+     */
+    private static boolean isInt(Environment.Type type) {
+        return type == Environment.Type.INTEGER || type == Environment.Type.BOOLEAN || type == Environment.Type.CHARACTER;
+    }
+
+    private static boolean isNumeric(Environment.Type type) {
+        return type == Environment.Type.INTEGER || type == Environment.Type.DECIMAL || type == Environment.Type.CHARACTER;
+    }
+
+    private static int size(Environment.Type type) {
+        return type == Environment.Type.DECIMAL ? 2 : 1;
+    }
+
+    private static int loadOpcode(Environment.Type type) {
+        return type == Environment.Type.DECIMAL ? 0x18 : isInt(type) ? 0x15 : 0x19;
+    }
+
+    private static int storeOpcode(Environment.Type type) {
+        return type == Environment.Type.DECIMAL ? 0x39 : isInt(type) ? 0x36 : 0x3A;
+    }
+
+    private static int returnOpcode(Environment.Type type) {
+        return type == Environment.Type.DECIMAL ? 0xAF : isInt(type) ? 0xAC : 0xB0;
+    }
+
+    private static String box(Environment.Type type) {
+        if (type == Environment.Type.INTEGER) {
+            return "java/lang/Integer";
+        }
+        else if (type == Environment.Type.DECIMAL) {
+            return "java/lang/Double";
+        }
+        else if (type == Environment.Type.BOOLEAN) {
+            return "java/lang/Boolean";
+        }
+        return "java/lang/Character";
+    }
+
+    private static String internalName(Environment.Type type) {
+        if (type == Environment.Type.STRING) {
+            return "java/lang/String";
+        }
+        else if (type == Environment.Type.NIL) {
+            return "java/lang/Void";
+        }
+        else if (type == Environment.Type.ANY) {
+            return "java/lang/Object";
+        }
+        else if (type == Environment.Type.COMPARABLE) {
+            return "java/lang/Comparable";
+        }
+        throw unsupported("The type " + type.getName());
+    }
+
+    private static String descriptor(Environment.Type type) {
+        if (type == Environment.Type.INTEGER) {
+            return "I";
+        }
+        else if (type == Environment.Type.DECIMAL) {
+            return "D";
+        }
+        else if (type == Environment.Type.BOOLEAN) {
+            return "Z";
+        }
+        else if (type == Environment.Type.CHARACTER) {
+            return "C";
+        }
+        return "L" + internalName(type) + ";";
+    }
+
+    private static String descriptor(Environment.Function function) {
+        StringBuilder descriptor = new StringBuilder("(");
+        for (Environment.Type type : function.getParameterTypes()) {
+            descriptor.append(descriptor(type));
+        }
+        return descriptor.append(")").append(descriptor(function.getReturnType())).toString();
+    }
+
+}
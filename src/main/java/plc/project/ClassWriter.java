@@ -0,0 +1,365 @@
+package plc.project;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes a class file, for {@link BytecodeCompiler}. Only what the compiler
+ * needs is supported: a constant pool, fields, and methods with a {@code
+ * Code} attribute. Classes are written as version 49, which needs no stack
+ * map frames, so a method is just its instructions and the deepest stack
+ * they reach, which {@link Code} tracks as they are written.
+ */
+final class ClassWriter {
+
+    static final int ACC_PUBLIC = 0x0001;
+    static final int ACC_FINAL = 0x0010;
+    static final int ACC_SUPER = 0x0020;
+
+    private static final int VERSION = 49;
+
+    /**
+     * The most bytes a {@code CONSTANT_Utf8} entry can hold, so the longest
+     * string constant.
+     */
+    static final int MAX_UTF8 = 0xFFFF;
+
+    private final ByteArrayOutputStream pool = new ByteArrayOutputStream();
+    private final DataOutputStream poolData = new DataOutputStream(pool);
+    private final Map<String, Integer> constants = new HashMap<>();
+    private int poolCount = 1;
+    private final int access;
+    private final int thisClass;
+    private final int superClass;
+    private final List<byte[]> fields = new ArrayList<>();
+    private final List<byte[]> methods = new ArrayList<>();
+
+    ClassWriter(int access, String name, String superName) {
+        this.access = access;
+        this.thisClass = classRef(name);
+        this.superClass = classRef(superName);
+    }
+
+    int utf8(String value) {
+        if (utf8Length(value) > MAX_UTF8) {
+            throw new IllegalStateException("Constant too large");
+        }
+        return constant("U" + value, 1, out -> {
+            out.writeByte(1);
+            out.writeUTF(value);
+        });
+    }
+
+    /**
+     * Returns the length of {@code value} in the modified UTF-8 of class
+     * files, where U+0000 and each surrogate take two and three bytes.
+     */
+    static long utf8Length(String value) {
+        long length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            length += c >= 0x0001 && c <= 0x007F ? 1 : c <= 0x07FF ? 2 : 3;
+        }
+        return length;
+    }
+
+    int classRef(String name) {
+        int utf8 = utf8(name);
+        return constant("C" + name, 1, out -> {
+            out.writeByte(7);
+            out.writeShort(utf8);
+        });
+    }
+
+    int string(String value) {
+        int utf8 = utf8(value);
+        return constant("S" + value, 1, out -> {
+            out.writeByte(8);
+            out.writeShort(utf8);
+        });
+    }
+
+    int integer(int value) {
+        return constant("I" + value, 1, out -> {
+            out.writeByte(3);
+            out.writeInt(value);
+        });
+    }
+
+    int decimal(double value) {
+        return constant("D" + Double.doubleToRawLongBits(value), 2, out -> {
+            out.writeByte(6);
+            out.writeDouble(value);
+        });
+    }
+
+    int fieldRef(String owner, String name, String descriptor) {
+        return memberRef(9, owner, name, descriptor);
+    }
+
+    int methodRef(String owner, String name, String descriptor) {
+        return memberRef(10, owner, name, descriptor);
+    }
+
+    int interfaceMethodRef(String owner, String name, String descriptor) {
+        return memberRef(11, owner, name, descriptor);
+    }
+
+    private int memberRef(int tag, String owner, String name, String descriptor) {
+        int owning = classRef(owner);
+        int nameUtf8 = utf8(name);
+        int descriptorUtf8 = utf8(descriptor);
+        int nameAndType = constant("N" + name + ":" + descriptor, 1, out -> {
+            out.writeByte(12);
+            out.writeShort(nameUtf8);
+            out.writeShort(descriptorUtf8);
+        });
+        return constant(tag + owner + "." + name + ":" + descriptor, 1, out -> {
+            out.writeByte(tag);
+            out.writeShort(owning);
+            out.writeShort(nameAndType);
+        });
+    }
+
+    /**
+     * Returns the index of the constant with {@code key}, writing it with
+     * {@code writer} if it is new. Longs and doubles take two entries.
+     */
+    private int constant(String key, int size, Entry writer) {
+        Integer index = constants.get(key);
+        if (index != null) {
+            return index;
+        }
+        if (poolCount + size > 0xFFFF) {
+            throw new IllegalStateException("Too many constants");
+        }
+        try {
+            writer.write(poolData);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        index = poolCount;
+        poolCount += size;
+        constants.put(key, index);
+        return index;
+    }
+
+    @FunctionalInterface
+    private interface Entry {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    void field(int access, String name, String descriptor) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeShort(access);
+            out.writeShort(utf8(name));
+            out.writeShort(utf8(descriptor));
+            out.writeShort(0);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        fields.add(bytes.toByteArray());
+    }
+
+    void method(int access, String name, String descriptor, Code code) {
+        if (code.length > 0xFFFF) {
+            throw new IllegalStateException("Method too large: " + name);
+        }
+        int codeName = utf8("Code");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeShort(access);
+            out.writeShort(utf8(name));
+            out.writeShort(utf8(descriptor));
+            out.writeShort(1);
+            out.writeShort(codeName);
+            out.writeInt(12 + code.length);
+            out.writeShort(code.maxStack);
+            out.writeShort(code.maxLocals);
+            out.writeInt(code.length);
+            out.write(code.bytes, 0, code.length);
+            out.writeShort(0);
+            out.writeShort(0);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        methods.add(bytes.toByteArray());
+    }
+
+    byte[] toByteArray() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(VERSION);
+            out.writeShort(poolCount);
+            pool.writeTo(out);
+            out.writeShort(access);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(0);
+            out.writeShort(fields.size());
+            for (byte[] field : fields) {
+                out.write(field);
+            }
+            out.writeShort(methods.size());
+            for (byte[] method : methods) {
+                out.write(method);
+            }
+            out.writeShort(0);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * The instructions of a method. Each instruction is written with the
+     * change it makes to the stack, and the deepest stack is kept as the
+     * method's {@code max_stack}.
+     */
+    static final class Code {
+
+        private byte[] bytes = new byte[64];
+        private int length;
+        private int stack;
+        private int maxStack;
+        int maxLocals;
+
+        /**
+         * Writes the instruction {@code opcode}, changing the stack by
+         * {@code delta}.
+         */
+        Code op(int opcode, int delta) {
+            u1(opcode);
+            adjust(delta);
+            return this;
+        }
+
+        /**
+         * Writes {@code opcode} with a constant pool index.
+         */
+        Code op(int opcode, int index, int delta) {
+            u1(opcode);
+            u2(index);
+            adjust(delta);
+            return this;
+        }
+
+        /**
+         * Writes the local variable instruction {@code opcode}, made wide if
+         * {@code local} needs more than one byte.
+         */
+        Code local(int opcode, int local, int delta) {
+            if (local > 0xFF) {
+                u1(0xC4);
+                u1(opcode);
+                u2(local);
+            }
+            else {
+                u1(opcode);
+                u1(local);
+            }
+            adjust(delta);
+            return this;
+        }
+
+        /**
+         * Writes the branch {@code opcode} to {@code target}, changing the
+         * stack by {@code delta}.
+         */
+        Code jump(int opcode, Label target, int delta) {
+            int at = length;
+            u1(opcode);
+            if (target.position >= 0) {
+                u2(offset(at, target.position));
+            }
+            else {
+                target.references.add(new int[] {at, length});
+                u2(0);
+            }
+            adjust(delta);
+            return this;
+        }
+
+        /**
+         * Places {@code label} at the next instruction.
+         */
+        Code place(Label label) {
+            label.position = length;
+            for (int[] reference : label.references) {
+                patch(reference[0], reference[1]);
+            }
+            label.references.clear();
+            return this;
+        }
+
+        /**
+         * Sets the stack depth, for code reached only by a jump.
+         */
+        void setStack(int stack) {
+            this.stack = stack;
+        }
+
+        int getStack() {
+            return stack;
+        }
+
+        private void patch(int at, int offsetAt) {
+            int offset = offset(at, length);
+            bytes[offsetAt] = (byte) (offset >> 8);
+            bytes[offsetAt + 1] = (byte) offset;
+        }
+
+        private static int offset(int from, int to) {
+            int offset = to - from;
+            if (offset < Short.MIN_VALUE || offset > Short.MAX_VALUE) {
+                throw new IllegalStateException("Method too large");
+            }
+            return offset & 0xFFFF;
+        }
+
+        void u1(int value) {
+            ensure(1);
+            bytes[length++] = (byte) value;
+        }
+
+        void u2(int value) {
+            ensure(2);
+            bytes[length++] = (byte) (value >> 8);
+            bytes[length++] = (byte) value;
+        }
+
+        private void ensure(int count) {
+            if (length + count > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + count));
+            }
+        }
+
+        private void adjust(int delta) {
+            stack += delta;
+            maxStack = Math.max(maxStack, stack);
+        }
+
+    }
+
+    /**
+     * A position in a method's instructions, which may be jumped to before
+     * it is placed.
+     */
+    static final class Label {
+        private int position = -1;
+        private final List<int[]> references = new ArrayList<>();
+    }
+
+}
@@ -0,0 +1,538 @@
+package plc.project;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles an {@link Ast} into a tree of closures which evaluate it with the
+ * semantics of {@link Interpreter}. Everything the {@link Interpreter} finds
+ * on each evaluation is found once while compiling: each operator is bound
+ * to a closure for it, each literal to its {@link Environment.PlcObject},
+ * each local variable to a slot in its method's frame, and each name outside
+ * a method to its {@link Environment.Variable}. Calls to methods of the
+ * program evaluate their arguments straight into the new frame.
+ *
+ * Names are resolved as in {@link ResolvedInterpreter}, and a name which
+ * cannot be resolved compiles to the error the {@link Interpreter} would
+ * give. Unlike the {@link Interpreter}, a method returns by returning its
+ * value rather than by throwing.
+ *
+ * Compiling a program defines its methods in {@link #getScope()}. A compiled
+ * program shares its fields between runs, so it may be run again but not by
+ * two threads at once.
+ */
+public final class ClosureCompiler {
+
+    private final Scope scope;
+    private final Map<String, Environment.Variable> globals = new HashMap<>();
+    private final Map<String, Method> methods = new HashMap<>();
+    private final Deque<Map<String, Integer>> blocks = new ArrayDeque<>();
+    private final Builder builder = new Builder();
+    private int slots;
+
+    public ClosureCompiler(Scope parent) {
+        scope = new Scope(parent);
+        scope.defineFunction("print", 1, args -> {
+            System.out.println(args.get(0).getValue());
+            return Environment.NIL;
+        });
+    }
+
+    public Scope getScope() {
+        return scope;
+    }
+
+    /**
+     * Compiles {@code ast}, which may be a source, field, method, statement
+     * or expression. Running the result evaluates {@code ast} as {@link
+     * Interpreter#visit(Ast)} would.
+     */
+    public Program compile(Ast ast) {
+        slots = 0;
+        if (ast instanceof Ast.Expression) {
+            Expression expression = expression((Ast.Expression) ast);
+            return new Program(slots, expression::evaluate);
+        }
+        Statement statement = (Statement) ast.accept(builder);
+        if (ast instanceof Ast.Source) {
+            return new Program(slots, statement::execute);
+        }
+        return new Program(slots, frame -> {
+            statement.execute(frame);
+            return Environment.NIL;
+        });
+    }
+
+    /**
+     * A compiled program, statement or expression.
+     */
+    public static final class Program {
+
+        private final int size;
+        private final Expression body;
+
+        private Program(int size, Expression body) {
+            this.size = size;
+            this.body = body;
+        }
+
+        public Environment.PlcObject run() {
+            return body.evaluate(new Environment.PlcObject[size]);
+        }
+
+    }
+
+    /**
+     * An expression, evaluated in the frame of the method containing it.
+     */
+    @FunctionalInterface
+    interface Expression {
+        Environment.PlcObject evaluate(Environment.PlcObject[] frame);
+    }
+
+    /**
+     * A statement, executed in the frame of the method containing it. It
+     * returns the value of a {@code RETURN} it executes, or {@code null} if
+     * execution should continue with the next statement.
+     */
+    @FunctionalInterface
+    interface Statement {
+        Environment.PlcObject execute(Environment.PlcObject[] frame);
+    }
+
+    /**
+     * A method of the program, whose frame size and body are set once its
+     * body is compiled so that calls may be compiled before it.
+     */
+    private static final class Method {
+
+        private int size;
+        private Statement body;
+
+        private Environment.PlcObject invoke(Environment.PlcObject[] frame) {
+            Environment.PlcObject value = body.execute(frame);
+            return value != null ? value : Environment.NIL;
+        }
+
+    }
+
+    private Expression expression(Ast.Expression ast) {
+        return (Expression) ast.accept(builder);
+    }
+
+    private Statement statement(Ast.Statement ast) {
+        return (Statement) ast.accept(builder);
+    }
+
+    /**
+     * Compiles {@code statements} in a new block, whose declarations take new
+     * slots in the current frame.
+     */
+    private Statement block(List<Ast.Statement> statements) {
+        blocks.push(new HashMap<>());
+        try {
+            return sequence(statements);
+        }
+        finally {
+            blocks.pop();
+        }
+    }
+
+    private Statement sequence(List<Ast.Statement> statements) {
+        Statement[] compiled = new Statement[statements.size()];
+        for (int i = 0; i < compiled.length; i++) {
+            compiled[i] = statement(statements.get(i));
+        }
+        switch (compiled.length) {
+            case 0:
+                return frame -> null;
+            case 1:
+                return compiled[0];
+            default:
+                return frame -> {
+                    for (Statement statement : compiled) {
+                        Environment.PlcObject value = statement.execute(frame);
+                        if (value != null) {
+                            return value;
+                        }
+                    }
+                    return null;
+                };
+        }
+    }
+
+    /**
+     * Returns the slot of a local variable, the {@link Environment.Variable}
+     * of any other variable, or the error for a variable which is not
+     * defined.
+     */
+    private Object resolveVariable(String name) {
+        for (Map<String, Integer> block : blocks) {
+            Integer slot = block.get(name);
+            if (slot != null) {
+                return slot;
+            }
+        }
+        Environment.Variable global = globals.get(name);
+        if (global != null) {
+            return global;
+        }
+        try {
+            return scope.lookupVariable(name);
+        }
+        catch (RuntimeException e) {
+            return e.getMessage();
+        }
+    }
+
+    /**
+     * Defines a variable outside any block, which like a field is added to
+     * {@link #getScope()} when executed.
+     */
+    private Statement global(String name, boolean constant, Ast.Expression value) {
+        Expression initializer = value != null ? expression(value) : frame -> Environment.NIL;
+        if (globals.containsKey(name)) {
+            return fail("The variable " + name + " is already defined in this scope.");
+        }
+        Environment.Variable variable = new Environment.Variable(name, constant, Environment.NIL);
+        globals.put(name, variable);
+        return frame -> {
+            Environment.PlcObject initial = initializer.evaluate(frame);
+            Environment.Variable defined = scope.variables.putIfAbsent(name, variable);
+            if (defined != null && defined != variable) {
+                throw new RuntimeException("The variable " + name + " is already defined in this scope.");
+            }
+            variable.setValue(initial);
+            return null;
+        };
+    }
+
+    private static Statement fail(String message) {
+        return frame -> {
+            throw new RuntimeException(message);
+        };
+    }
+
+    private static boolean condition(Expression condition, Environment.PlcObject[] frame) {
+        return Interpreter.requireType(Boolean.class, condition.evaluate(frame));
+    }
+
+    /**
+     * Returns the closure for {@code op}, which calls the helper {@link
+     * Interpreter#binary} uses for it.
+     */
+    private static Expression binary(String op, Expression left, Expression right) {
+        switch (op) {
+            case "&&", "AND":
+                return frame -> Interpreter.and(left.evaluate(frame), right.evaluate(frame));
+            case "||", "OR":
+                return frame -> condition(left, frame) ? Environment.create(Boolean.TRUE) : Environment.create(condition(right, frame));
+            case "<":
+                return frame -> Environment.create(Interpreter.compare(left.evaluate(frame), right.evaluate(frame)) < 0);
+            case "<=":
+                return frame -> Environment.create(Interpreter.compare(left.evaluate(frame), right.evaluate(frame)) <= 0);
+            case ">":
+                return frame -> Environment.create(Interpreter.compare(left.evaluate(frame), right.evaluate(frame)) > 0);
+            case ">=":
+                return frame -> Environment.create(Interpreter.compare(left.evaluate(frame), right.evaluate(frame)) >= 0);
+            case "==":
+                return frame -> Environment.create(left.evaluate(frame).getValue().equals(right.evaluate(frame).getValue()));
+            case "!=":
+                return frame -> Environment.create(!left.evaluate(frame).getValue().equals(right.evaluate(frame).getValue()));
+            case "+":
+                return frame -> Interpreter.add(left.evaluate(frame), right.evaluate(frame));
+            case "-":
+                return frame -> Interpreter.subtract(left.evaluate(frame), right.evaluate(frame));
+            case "*":
+                return frame -> Interpreter.multiply(left.evaluate(frame), right.evaluate(frame));
+            case "/":
+                return frame -> Interpreter.divide(left.evaluate(frame), right.evaluate(frame));
+            default:
+                return frame -> {
+                    throw new RuntimeException("Expected a valid operator, got " + op);
+                };
+        }
+    }
+
+    /**
+     * Compiles each node to an {@link Expression} or {@link Statement}; a
+     * source, field or method compiles to a statement.
+     */
+    private final class Builder implements Ast.Visitor<Object> {
+
+        @Override
+        public Statement visit(Ast.Source ast) {
+            List<Statement> fields = new ArrayList<>();
+            for (Ast.Field field : ast.getFields()) {
+                fields.add(visit(field));
+            }
+            List<Method> compiled = new ArrayList<>();
+            for (Ast.Method method : ast.getMethods()) {
+                compiled.add(define(method));
+            }
+            for (int i = 0; i < compiled.size(); i++) {
+                compile(ast.getMethods().get(i), compiled.get(i));
+            }
+            return frame -> {
+                for (Statement field : fields) {
+                    field.execute(frame);
+                }
+                try {
+                    return scope.lookupFunction("main", 0).invoke(new ArrayList<>());
+                }
+                catch (Exception e) {
+                    System.out.println(e.getMessage());
+                    return Environment.NIL;
+                }
+            };
+        }
+
+        @Override
+        public Statement visit(Ast.Field ast) {
+            return global(ast.getName(), ast.getConstant(), ast.getValue().orElse(null));
+        }
+
+        @Override
+        public Statement visit(Ast.Method ast) {
+            compile(ast, define(ast));
+            return frame -> null;
+        }
+
+        private Method define(Ast.Method ast) {
+            Method method = new Method();
+            int arity = ast.getParameters().size();
+            scope.defineFunction(ast.getName(), arity, args -> {
+                Environment.PlcObject[] frame = new Environment.PlcObject[method.size];
+                for (int i = 0; i < arity; i++) {
+                    frame[i] = args.get(i);
+                }
+                return method.invoke(frame);
+            });
+            methods.put(ast.getName() + "/" + arity, method);
+            return method;
+        }
+
+        private void compile(Ast.Method ast, Method method) {
+            int outer = slots;
+            slots = 0;
+            blocks.push(new HashMap<>());
+            try {
+                String duplicate = null;
+                for (String parameter : ast.getParameters()) {
+                    if (blocks.peek().putIfAbsent(parameter, slots++) != null && duplicate == null) {
+                        duplicate = "The variable " + parameter + " is already defined in this scope.";
+                    }
+                }
+                method.body = duplicate != null ? fail(duplicate) : sequence(ast.getStatements());
+                method.size = slots;
+            }
+            finally {
+                blocks.pop();
+                slots = outer;
+            }
+        }
+
+        @Override
+        public Statement visit(Ast.Statement.Expression ast) {
+            Expression expression = expression(ast.getExpression());
+            return frame -> {
+                expression.evaluate(frame);
+                return null;
+            };
+        }
+
+        @Override
+        public Statement visit(Ast.Statement.Declaration ast) {
+            if (blocks.isEmpty()) {
+                return global(ast.getName(), false, ast.getValue().orElse(null));
+            }
+            Expression value = ast.getValue().isPresent() ? expression(ast.getValue().get()) : frame -> Environment.NIL;
+            if (blocks.peek().containsKey(ast.getName())) {
+                return fail("The variable " + ast.getName() + " is already defined in this scope.");
+            }
+            int slot = slots++;
+            blocks.peek().put(ast.getName(), slot);
+            return frame -> {
+                frame[slot] = value.evaluate(frame);
+                return null;
+            };
+        }
+
+        @Override
+        public Statement visit(Ast.Statement.Assignment ast) {
+            if (!(ast.getReceiver() instanceof Ast.Expression.Access)) {
+                return fail("Expected an Ast.Expression.Access");
+            }
+            Ast.Expression.Access receiver = (Ast.Expression.Access) ast.getReceiver();
+            Expression value = expression(ast.getValue());
+            if (receiver.getReceiver().isPresent()) {
+                Expression object = expression(receiver.getReceiver().get());
+                String name = receiver.getName();
+                return frame -> {
+                    Environment.PlcObject result = value.evaluate(frame);
+                    object.evaluate(frame).setField(name, result);
+                    return null;
+                };
+            }
+            Object binding = resolveVariable(receiver.getName());
+            if (binding instanceof Integer) {
+                int slot = (Integer) binding;
+                return frame -> {
+                    frame[slot] = value.evaluate(frame);
+                    return null;
+                };
+            }
+            else if (binding instanceof Environment.Variable) {
+                Environment.Variable variable = (Environment.Variable) binding;
+                return frame -> {
+                    variable.setValue(value.evaluate(frame));
+                    return null;
+                };
+            }
+            return fail((String) binding);
+        }
+
+        @Override
+        public Statement visit(Ast.Statement.If ast) {
+            Expression condition = expression(ast.getCondition());
+            Statement then = block(ast.getThenStatements());
+            Statement otherwise = block(ast.getElseStatements());
+            return frame -> condition(condition, frame) ? then.execute(frame) : otherwise.execute(frame);
+        }
+
+        @Override
+        public Statement visit(Ast.Statement.For ast) {
+            Statement initialization = ast.getInitialization() != null ? statement(ast.getInitialization()) : frame -> null;
+            Expression condition = expression(ast.getCondition());
+            Statement body = block(ast.getStatements());
+            Statement increment = ast.getIncrement() != null ? statement(ast.getIncrement()) : frame -> null;
+            return frame -> {
+                initialization.execute(frame);
+                while (condition(condition, frame)) {
+                    Environment.PlcObject value;
+                    try {
+                        value = body.execute(frame);
+                    }
+                    finally {
+                        increment.execute(frame);
+                    }
+                    if (value != null) {
+                        return value;
+                    }
+                }
+                return null;
+            };
+        }
+
+        @Override
+        public Statement visit(Ast.Statement.While ast) {
+            Expression condition = expression(ast.getCondition());
+            Statement body = block(ast.getStatements());
+            return frame -> {
+                while (condition(condition, frame)) {
+                    Environment.PlcObject value = body.execute(frame);
+                    if (value != null) {
+                        return value;
+                    }
+                }
+                return null;
+            };
+        }
+
+        @Override
+        public Statement visit(Ast.Statement.Return ast) {
+            Expression value = expression(ast.getValue());
+            return value::evaluate;
+        }
+
+        @Override
+        public Expression visit(Ast.Expression.Literal ast) {
+            Environment.PlcObject value = ast.getLiteral() == null ? Environment.NIL : Environment.create(ast.getLiteral());
+            return frame -> value;
+        }
+
+        @Override
+        public Expression visit(Ast.Expression.Group ast) {
+            return expression(ast.getExpression());
+        }
+
+        @Override
+        public Expression visit(Ast.Expression.Binary ast) {
+            return binary(ast.getOperator(), expression(ast.getLeft()), expression(ast.getRight()));
+        }
+
+        @Override
+        public Expression visit(Ast.Expression.Access ast) {
+            if (ast.getReceiver().isPresent()) {
+                Expression receiver = expression(ast.getReceiver().get());
+                String name = ast.getName();
+                return frame -> receiver.evaluate(frame).getField(name).getValue();
+            }
+            Object binding = resolveVariable(ast.getName());
+            if (binding instanceof Integer) {
+                int slot = (Integer) binding;
+                return frame -> frame[slot];
+            }
+            else if (binding instanceof Environment.Variable) {
+                Environment.Variable variable = (Environment.Variable) binding;
+                return frame -> variable.getValue();
+            }
+            String message = (String) binding;
+            return frame -> {
+                throw new RuntimeException(message);
+            };
+        }
+
+        @Override
+        public Expression visit(Ast.Expression.Function ast) {
+            Expression[] arguments = new Expression[ast.getArguments().size()];
+            for (int i = 0; i < arguments.length; i++) {
+                arguments[i] = expression(ast.getArguments().get(i));
+            }
+            if (ast.getReceiver().isPresent()) {
+                Expression receiver = expression(ast.getReceiver().get());
+                String name = ast.getName();
+                return frame -> {
+                    List<Environment.PlcObject> args = evaluate(arguments, frame);
+                    return receiver.evaluate(frame).callMethod(name, args);
+                };
+            }
+            Method method = methods.get(ast.getName() + "/" + arguments.length);
+            if (method != null) {
+                return frame -> {
+                    Environment.PlcObject[] callee = new Environment.PlcObject[method.size];
+                    for (int i = 0; i < arguments.length; i++) {
+                        callee[i] = arguments[i].evaluate(frame);
+                    }
+                    return method.invoke(callee);
+                };
+            }
+            Environment.Function function;
+            try {
+                function = scope.lookupFunction(ast.getName(), arguments.length);
+            }
+            catch (RuntimeException e) {
+                String message = e.getMessage();
+                return frame -> {
+                    evaluate(arguments, frame);
+                    throw new RuntimeException(message);
+                };
+            }
+            return frame -> function.invoke(evaluate(arguments, frame));
+        }
+
+        private List<Environment.PlcObject> evaluate(Expression[] arguments, Environment.PlcObject[] frame) {
+            List<Environment.PlcObject> args = new ArrayList<>(arguments.length);
+            for (Expression argument : arguments) {
+                args.add(argument.evaluate(frame));
+            }
+            return args;
+        }
+
+    }
+
+}
@@ -0,0 +1,90 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finds the top-level declarations of a source from its tokens without
+ * parsing them, so they can be parsed independently (see {@link
+ * ParallelParser} and {@link IncrementalParser}).
+ *
+ * A field runs from {@code LET} to the next {@code ;}. A method runs from
+ * {@code DEF} to its {@code END}, found by counting blocks: {@code DEF},
+ * {@code IF}, {@code FOR} and {@code WHILE} each open one closed by an
+ * {@code END}. Keywords used as a name after a {@code .} are ignored. Other
+ * uses of these keywords as names can still mislead the scan, so each slice
+ * must be checked to parse as exactly one declaration, with {@link
+ * Parser#parseDeclaration()}.
+ */
+final class Declarations {
+
+    private Declarations() {}
+
+    /**
+     * Returns the token index where each declaration starts, followed by the
+     * end of the last one, or null if the tokens are not a sequence of fields
+     * followed by methods.
+     */
+    static int[] split(List<Token> tokens) {
+        List<Integer> bounds = new ArrayList<>();
+        boolean methods = false;
+        int i = 0;
+        while (i < tokens.size()) {
+            bounds.add(i);
+            int symbol = tokens.get(i).getSymbol();
+            if (symbol == Symbols.LET && !methods) {
+                while (i < tokens.size() && tokens.get(i).getSymbol() != Symbols.SEMICOLON) {
+                    i++;
+                }
+                if (i == tokens.size()) {
+                    return null;
+                }
+                i++;
+            } else if (symbol == Symbols.DEF) {
+                methods = true;
+                i = skipMethod(tokens, i);
+                if (i < 0) {
+                    return null;
+                }
+            } else {
+                return null;
+            }
+        }
+        bounds.add(tokens.size());
+        int[] result = new int[bounds.size()];
+        for (int j = 0; j < result.length; j++) {
+            result[j] = bounds.get(j);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the index after the {@code END} of the method starting at
+     * {@code start}, or -1 if it is not closed.
+     */
+    private static int skipMethod(List<Token> tokens, int start) {
+        int depth = 0;
+        for (int i = start; i < tokens.size(); i++) {
+            if (i > 0 && tokens.get(i - 1).getSymbol() == Symbols.DOT) {
+                continue;
+            }
+            switch (tokens.get(i).getSymbol()) {
+                case Symbols.DEF:
+                case Symbols.IF:
+                case Symbols.FOR:
+                case Symbols.WHILE:
+                    depth++;
+                    break;
+                case Symbols.END:
+                    if (--depth == 0) {
+                        return i + 1;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        return -1;
+    }
+
+}
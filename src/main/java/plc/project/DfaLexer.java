@@ -0,0 +1,283 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A table-driven lexer producing exactly the same tokens as {@link Lexer}.
+ *
+ * Instead of matching a regex per character, every character is mapped to a
+ * character class through a precomputed table and the lexer walks an explicit
+ * DFA (see {@link #TRANSITIONS}) until no transition is possible. The token is
+ * the longest prefix which ended in an accepting state, which is how the
+ * two-character lookahead of {@link Lexer#lexNumber()} (for {@code 1.5} versus
+ * {@code 1.}) is handled.
+ *
+ * Note that the classes intentionally mirror the quirks of the regex lexer,
+ * such as identifiers starting with any character in {@code [A-za-z]}.
+ */
+public final class DfaLexer {
+
+    // Character classes
+    static final int OTHER = 0;
+    static final int LETTER = 1;          // [A-Za-z] except the escape letters
+    static final int ESCAPE_LETTER = 2;   // [bnrt]
+    static final int UNDERSCORE = 3;      // _
+    static final int BRACKET = 4;         // [ ] ^ ` (identifier start only)
+    static final int BACKSLASH = 5;       // \ (identifier start and escapes)
+    static final int MINUS = 6;
+    static final int PLUS = 7;
+    static final int ZERO = 8;
+    static final int DIGIT = 9;           // [1-9]
+    static final int DOT = 10;
+    static final int SINGLE_QUOTE = 11;
+    static final int DOUBLE_QUOTE = 12;
+    static final int COMPARISON = 13;     // [<>!]
+    static final int EQUALS = 14;
+    static final int NEWLINE = 15;        // [\n\r]
+    static final int LINE_SEPARATOR = 16; // NEL, LS and PS
+    static final int CLASS_COUNT = 17;
+
+    // States
+    static final int START = 0;
+    static final int IDENTIFIER = 1;
+    static final int SIGN = 2;
+    static final int ZERO_INTEGER = 3;
+    static final int INTEGER = 4;
+    static final int DECIMAL_POINT = 5;
+    static final int DECIMAL = 6;
+    static final int CHARACTER_OPEN = 7;
+    static final int CHARACTER_BODY = 8;
+    static final int CHARACTER_ESCAPE = 9;
+    static final int CHARACTER_CLOSE = 10;
+    static final int STRING_BODY = 11;
+    static final int STRING_ESCAPE = 12;
+    static final int STRING_CLOSE = 13;
+    static final int COMPARISON_OPERATOR = 14;
+    static final int COMPARISON_EQUALS = 15;
+    static final int OPERATOR = 16;
+    static final int DEAD = 17;
+    static final int STATE_COUNT = 18;
+
+    static final byte[] CLASSES = new byte[128];
+    static final byte[] TRANSITIONS = new byte[STATE_COUNT * CLASS_COUNT];
+    static final Token.Type[] ACCEPTS = new Token.Type[STATE_COUNT];
+
+    static {
+        for (char c = 'A'; c <= 'Z'; c++) {
+            CLASSES[c] = LETTER;
+            CLASSES[Character.toLowerCase(c)] = LETTER;
+        }
+        for (char c : "bnrt".toCharArray()) {
+            CLASSES[c] = ESCAPE_LETTER;
+        }
+        for (char c : "[]^`".toCharArray()) {
+            CLASSES[c] = BRACKET;
+        }
+        for (char c = '1'; c <= '9'; c++) {
+            CLASSES[c] = DIGIT;
+        }
+        CLASSES['_'] = UNDERSCORE;
+        CLASSES['\\'] = BACKSLASH;
+        CLASSES['-'] = MINUS;
+        CLASSES['+'] = PLUS;
+        CLASSES['0'] = ZERO;
+        CLASSES['.'] = DOT;
+        CLASSES['\''] = SINGLE_QUOTE;
+        CLASSES['"'] = DOUBLE_QUOTE;
+        CLASSES['<'] = COMPARISON;
+        CLASSES['>'] = COMPARISON;
+        CLASSES['!'] = COMPARISON;
+        CLASSES['='] = EQUALS;
+        CLASSES['\n'] = NEWLINE;
+        CLASSES['\r'] = NEWLINE;
+
+        Arrays.fill(TRANSITIONS, (byte) DEAD);
+        for (int c = 0; c < CLASS_COUNT; c++) {
+            transition(START, c, OPERATOR); // the regex lexer's "." fallback
+            if (c != SINGLE_QUOTE && c != NEWLINE && c != BACKSLASH) {
+                transition(CHARACTER_OPEN, c, CHARACTER_BODY);
+            }
+            if (c != DOUBLE_QUOTE && c != NEWLINE && c != BACKSLASH) {
+                transition(STRING_BODY, c, STRING_BODY);
+            }
+        }
+        transition(START, NEWLINE, DEAD);
+        transition(START, LINE_SEPARATOR, DEAD);
+        for (int c : new int[] {LETTER, ESCAPE_LETTER, UNDERSCORE, BRACKET, BACKSLASH}) {
+            transition(START, c, IDENTIFIER);
+        }
+        for (int c : new int[] {LETTER, ESCAPE_LETTER, UNDERSCORE, ZERO, DIGIT, MINUS}) {
+            transition(IDENTIFIER, c, IDENTIFIER);
+        }
+        transition(START, MINUS, SIGN);
+        transition(START, PLUS, SIGN);
+        transition(START, ZERO, ZERO_INTEGER);
+        transition(START, DIGIT, INTEGER);
+        transition(SIGN, ZERO, ZERO_INTEGER);
+        transition(SIGN, DIGIT, INTEGER);
+        transition(ZERO_INTEGER, DOT, DECIMAL_POINT);
+        transition(INTEGER, ZERO, INTEGER);
+        transition(INTEGER, DIGIT, INTEGER);
+        transition(INTEGER, DOT, DECIMAL_POINT);
+        transition(DECIMAL_POINT, ZERO, DECIMAL);
+        transition(DECIMAL_POINT, DIGIT, DECIMAL);
+        transition(DECIMAL, ZERO, DECIMAL);
+        transition(DECIMAL, DIGIT, DECIMAL);
+        transition(START, SINGLE_QUOTE, CHARACTER_OPEN);
+        transition(CHARACTER_OPEN, BACKSLASH, CHARACTER_ESCAPE);
+        transition(CHARACTER_BODY, SINGLE_QUOTE, CHARACTER_CLOSE);
+        transition(START, DOUBLE_QUOTE, STRING_BODY);
+        transition(STRING_BODY, BACKSLASH, STRING_ESCAPE);
+        transition(STRING_BODY, DOUBLE_QUOTE, STRING_CLOSE);
+        for (int c : new int[] {ESCAPE_LETTER, SINGLE_QUOTE, DOUBLE_QUOTE, BACKSLASH}) {
+            transition(CHARACTER_ESCAPE, c, CHARACTER_BODY);
+            transition(STRING_ESCAPE, c, STRING_BODY);
+        }
+        transition(START, COMPARISON, COMPARISON_OPERATOR);
+        transition(START, EQUALS, COMPARISON_OPERATOR);
+        transition(COMPARISON_OPERATOR, EQUALS, COMPARISON_EQUALS);
+
+        ACCEPTS[IDENTIFIER] = Token.Type.IDENTIFIER;
+        ACCEPTS[SIGN] = Token.Type.OPERATOR;
+        ACCEPTS[ZERO_INTEGER] = Token.Type.INTEGER;
+        ACCEPTS[INTEGER] = Token.Type.INTEGER;
+        ACCEPTS[DECIMAL] = Token.Type.DECIMAL;
+        ACCEPTS[CHARACTER_CLOSE] = Token.Type.CHARACTER;
+        ACCEPTS[STRING_CLOSE] = Token.Type.STRING;
+        ACCEPTS[COMPARISON_OPERATOR] = Token.Type.OPERATOR;
+        ACCEPTS[COMPARISON_EQUALS] = Token.Type.OPERATOR;
+        ACCEPTS[OPERATOR] = Token.Type.OPERATOR;
+    }
+
+    private static void transition(int state, int characterClass, int next) {
+        TRANSITIONS[state * CLASS_COUNT + characterClass] = (byte) next;
+    }
+
+    private final CharSequence input;
+    private final List<Token> tokens = new ArrayList<>();
+    private final Symbols.Table symbols = new Symbols.Table();
+    private int index = 0;
+
+    public DfaLexer(CharSequence input) {
+        this.input = input;
+    }
+
+    /**
+     * Lexes the entire input, skipping whitespace in the same way as
+     * {@link Lexer#lex()}.
+     */
+    public List<Token> lex() {
+        while (hasToken()) {
+            tokens.add(lexToken());
+        }
+        return tokens;
+    }
+
+    /**
+     * Lexes the entire input into a {@link TokenBuffer}, without creating
+     * {@link Token} objects or copying literals.
+     */
+    public TokenBuffer lexBuffer() {
+        TokenBuffer buffer = new TokenBuffer(input);
+        while (hasToken()) {
+            long result = scan(input, index, input.length());
+            int end = (int) result;
+            Token.Type type = ACCEPTS[(int) (result >>> 32)];
+            boolean symbolic = type == Token.Type.IDENTIFIER || type == Token.Type.OPERATOR;
+            buffer.add(type, index, end - index, symbolic ? Symbols.lookup(input, index, end) : Symbols.NONE);
+            index = end;
+        }
+        return buffer;
+    }
+
+    /**
+     * Returns an iterator lexing one token at a time on demand, as with
+     * {@link Lexer#iterator()}.
+     */
+    public Iterator<Token> iterator() {
+        return new Iterator<Token>() {
+
+            @Override
+            public boolean hasNext() {
+                return hasToken();
+            }
+
+            @Override
+            public Token next() {
+                if (!hasToken()) {
+                    throw new NoSuchElementException();
+                }
+                return lexToken();
+            }
+
+        };
+    }
+
+    /**
+     * Skips whitespace, returning true if there is another token to lex.
+     */
+    private boolean hasToken() {
+        int length = input.length();
+        while (index < length && isWhitespace(input.charAt(index))) {
+            index++;
+        }
+        return index < length;
+    }
+
+    /**
+     * Lexes the next token, starting at the current index.
+     */
+    public Token lexToken() {
+        long result = scan(input, index, input.length());
+        int end = (int) result;
+        Token token = symbols.token(ACCEPTS[(int) (result >>> 32)], input, index, end);
+        index = end;
+        return token;
+    }
+
+    /**
+     * Runs the DFA over {@code input} from {@code start}, never reading at or
+     * past {@code end}. Returns the accepting state in the upper 32 bits and
+     * the end offset of the token in the lower 32 bits, or throws a
+     * {@link ParseException} at the same index as {@link Lexer}.
+     */
+    static long scan(CharSequence input, int start, int end) {
+        int state = START;
+        int position = start;
+        int acceptState = DEAD;
+        int acceptEnd = start;
+        while (position < end) {
+            int next = TRANSITIONS[state * CLASS_COUNT + classify(input.charAt(position))];
+            if (next == DEAD) {
+                break;
+            }
+            state = next;
+            position++;
+            if (ACCEPTS[state] != null) {
+                acceptState = state;
+                acceptEnd = position;
+            }
+        }
+        if (acceptState == DEAD) {
+            // The regex lexer peeks the backslash and escape as a pair.
+            throw new ParseException("Error at ", state == CHARACTER_ESCAPE ? position - 1 : position);
+        }
+        return ((long) acceptState << 32) | acceptEnd;
+    }
+
+    static int classify(char c) {
+        if (c < 128) {
+            return CLASSES[c];
+        }
+        return c == '\u0085' || c == '\u2028' || c == '\u2029' ? LINE_SEPARATOR : OTHER;
+    }
+
+    static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\b' || c == '\n' || c == '\r' || c == '\t';
+    }
+
+}
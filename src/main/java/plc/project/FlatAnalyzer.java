@@ -0,0 +1,310 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Analyzes a {@link FlatAst} with the same rules as {@link Analyzer}. Since a
+ * {@link FlatAst} holds no analysis state, the variable, function or type of
+ * each node is recorded in an array indexed by node instead, and read with
+ * {@link #getVariable(int)}, {@link #getFunction(int)} and {@link
+ * #getType(int)}.
+ */
+public final class FlatAnalyzer implements FlatAst.Visitor<Void> {
+
+    private final FlatAst ast;
+    private final Object[] annotations;
+    public Scope scope;
+
+    public FlatAnalyzer(FlatAst ast, Scope parent) {
+        this.ast = ast;
+        this.annotations = new Object[ast.size()];
+        scope = new Scope(parent);
+        scope.defineFunction("print", "System.out.println", Arrays.asList(Environment.Type.ANY), Environment.Type.NIL, args -> Environment.NIL);
+    }
+
+    public Scope getScope() {
+        return scope;
+    }
+
+    /**
+     * Returns the variable of a field, declaration or access.
+     */
+    public Environment.Variable getVariable(int node) {
+        if (annotations[node] == null) {
+            throw new IllegalStateException("variable is uninitialized");
+        }
+        return (Environment.Variable) annotations[node];
+    }
+
+    /**
+     * Returns the function of a method or function call.
+     */
+    public Environment.Function getFunction(int node) {
+        if (annotations[node] == null) {
+            throw new IllegalStateException("function is uninitialized");
+        }
+        return (Environment.Function) annotations[node];
+    }
+
+    /**
+     * Returns the type of an expression.
+     */
+    public Environment.Type getType(int node) {
+        switch (ast.getKind(node)) {
+            case FlatAst.ACCESS:
+                return getVariable(node).getType();
+            case FlatAst.FUNCTION:
+                return getFunction(node).getReturnType();
+            default:
+                if (annotations[node] == null) {
+                    throw new IllegalStateException("type is uninitialized");
+                }
+                return (Environment.Type) annotations[node];
+        }
+    }
+
+    public Void visit(int node) {
+        return ast.accept(this, node);
+    }
+
+    @Override
+    public Void visitSource(int node) {
+        visitList(ast.getChild(node, 0));
+        visitList(ast.getChild(node, 1));
+        Analyzer.requireAssignable(Environment.Type.INTEGER, scope.lookupFunction("main", 0).getReturnType());
+        return null;
+    }
+
+    @Override
+    public Void visitField(int node) {
+        String name = ast.getName(node);
+        Environment.Type type = Environment.getType((String) ast.getConstant(node, 1));
+        boolean constant = ast.getSlot(node, 2) != 0;
+        int value = ast.getChild(node, 3);
+        if (value != FlatAst.NONE) {
+            visit(value);
+            Analyzer.requireAssignable(type, getType(value));
+        }
+        else if (constant) {
+            throw new RuntimeException("Constant field must be initialized");
+        }
+        annotations[node] = scope.defineVariable(name, name, type, constant, Environment.NIL);
+        return null;
+    }
+
+    @Override
+    public Void visitMethod(int node) {
+        String name = ast.getName(node);
+        String returnTypeName = (String) ast.getConstant(node, 1);
+        Environment.Type returnType = returnTypeName != null ? Environment.getType(returnTypeName) : Environment.Type.NIL;
+        int count = ast.getSlot(node, 3);
+        List<Environment.Type> paramTypes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String parameter = (String) ast.getConstant(node, 4 + i);
+            Environment.Type type = Environment.getType((String) ast.getConstant(node, 4 + count + i));
+            paramTypes.add(type);
+            scope.defineVariable(parameter, parameter, type, false, Environment.NIL);
+        }
+        annotations[node] = scope.defineFunction(name, name, paramTypes, returnType, args -> Environment.NIL);
+
+        int statements = ast.getChild(node, 2);
+        try {
+            scope = new Scope(scope);
+            for (int i = 0; i < ast.getSlotCount(statements); i++) {
+                int statement = ast.getElement(statements, i);
+                visit(statement);
+                if (ast.getKind(statement) == FlatAst.RETURN) {
+                    Analyzer.requireAssignable(returnType, getType(ast.getChild(statement, 0)));
+                }
+            }
+        }
+        finally {
+            scope = scope.getParent();
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitExpressionStatement(int node) {
+        int expression = ast.getChild(node, 0);
+        if (ast.getKind(expression) != FlatAst.FUNCTION) {
+            throw new RuntimeException("Expected an Ast.Expression.Function");
+        }
+        visit(expression);
+        return null;
+    }
+
+    @Override
+    public Void visitDeclaration(int node) {
+        String name = ast.getName(node);
+        String type = (String) ast.getConstant(node, 1);
+        int value = ast.getChild(node, 2);
+        if (value != FlatAst.NONE) {
+            visit(value);
+            if (type == null) {
+                type = getType(value).getName();
+            }
+        }
+        else if (type == null) {
+            throw new RuntimeException("No type found");
+        }
+        annotations[node] = scope.defineVariable(name, name, Environment.getType(type), false, Environment.NIL);
+        return null;
+    }
+
+    @Override
+    public Void visitAssignment(int node) {
+        int receiver = ast.getChild(node, 0);
+        int value = ast.getChild(node, 1);
+        if (ast.getKind(receiver) != FlatAst.ACCESS) {
+            throw new RuntimeException("Expected Ast.Expression.Access");
+        }
+        visit(receiver);
+        visit(value);
+        Analyzer.requireAssignable(getType(receiver), getType(value));
+        if (getVariable(receiver).getConstant()) {
+            throw new RuntimeException("Assigning to a constant field");
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitIf(int node) {
+        int condition = ast.getChild(node, 0);
+        visit(condition);
+        Analyzer.requireAssignable(getType(condition), Environment.Type.BOOLEAN);
+        if (ast.getSlotCount(ast.getChild(node, 1)) == 0) {
+            throw new RuntimeException("Empty if statement body");
+        }
+        visitBlock(ast.getChild(node, 1));
+        visitBlock(ast.getChild(node, 2));
+        return null;
+    }
+
+    @Override
+    public Void visitFor(int node) {
+        int initialization = ast.getChild(node, 0);
+        int condition = ast.getChild(node, 1);
+        int increment = ast.getChild(node, 2);
+        if (initialization != FlatAst.NONE) {
+            visit(initialization);
+        }
+        if (increment != FlatAst.NONE) {
+            visit(increment);
+        }
+        if (initialization != FlatAst.NONE && ast.getKind(initialization) == FlatAst.ASSIGNMENT) {
+            Environment.Type type = getType(ast.getChild(initialization, 0));
+            Analyzer.requireAssignable(type, Environment.Type.COMPARABLE);
+            if (increment == FlatAst.NONE || ast.getKind(increment) != FlatAst.ASSIGNMENT) {
+                throw new ClassCastException("Expected an increment assignment");
+            }
+            Analyzer.requireAssignable(getType(ast.getChild(increment, 0)), type);
+        }
+        visit(condition);
+        Analyzer.requireAssignable(getType(condition), Environment.Type.BOOLEAN);
+        if (ast.getSlotCount(ast.getChild(node, 3)) == 0) {
+            throw new RuntimeException("Empty for loop body");
+        }
+        visitBlock(ast.getChild(node, 3));
+        return null;
+    }
+
+    @Override
+    public Void visitWhile(int node) {
+        int condition = ast.getChild(node, 0);
+        visit(condition);
+        Analyzer.requireAssignable(getType(condition), Environment.Type.BOOLEAN);
+        visitBlock(ast.getChild(node, 1));
+        return null;
+    }
+
+    @Override
+    public Void visitReturn(int node) {
+        visit(ast.getChild(node, 0));
+        return null;
+    }
+
+    @Override
+    public Void visitLiteral(int node) {
+        annotations[node] = Analyzer.literalType(ast.getLiteral(node));
+        return null;
+    }
+
+    @Override
+    public Void visitGroup(int node) {
+        int expression = ast.getChild(node, 0);
+        if (ast.getKind(expression) != FlatAst.BINARY) {
+            throw new RuntimeException("Contained expression is not binary ");
+        }
+        visit(expression);
+        annotations[node] = getType(expression);
+        return null;
+    }
+
+    @Override
+    public Void visitBinary(int node) {
+        int left = ast.getChild(node, 1);
+        int right = ast.getChild(node, 2);
+        visit(left);
+        visit(right);
+        annotations[node] = Analyzer.binaryType(ast.getName(node), getType(left), getType(right));
+        return null;
+    }
+
+    @Override
+    public Void visitAccess(int node) {
+        int receiver = ast.getChild(node, 1);
+        if (receiver != FlatAst.NONE) {
+            visit(receiver);
+            annotations[node] = getType(receiver).getField(ast.getName(node));
+        }
+        else {
+            annotations[node] = scope.lookupVariable(ast.getName(node));
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitFunction(int node) {
+        int receiver = ast.getChild(node, 1);
+        int arguments = ast.getChild(node, 2);
+        int count = ast.getSlotCount(arguments);
+        Environment.Function func;
+        if (receiver != FlatAst.NONE) {
+            visit(receiver);
+            func = getType(receiver).getFunction(ast.getName(node), count);
+        }
+        else {
+            func = scope.lookupFunction(ast.getName(node), count);
+        }
+        for (int i = 0; i < count; i++) {
+            int argument = ast.getElement(arguments, i);
+            visit(argument);
+            Analyzer.requireAssignable(func.getParameterTypes().get(i), getType(argument));
+        }
+        annotations[node] = func;
+        return null;
+    }
+
+    private void visitList(int list) {
+        for (int i = 0; i < ast.getSlotCount(list); i++) {
+            visit(ast.getElement(list, i));
+        }
+    }
+
+    /**
+     * Visits the statements of {@code list} in a new scope.
+     */
+    private void visitBlock(int list) {
+        try {
+            scope = new Scope(scope);
+            visitList(list);
+        }
+        finally {
+            scope = scope.getParent();
+        }
+    }
+
+}
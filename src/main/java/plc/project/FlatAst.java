@@ -0,0 +1,427 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A compact encoding of an {@link Ast} in a few primitive arrays rather than
+ * a graph of node, {@link Optional}, {@link List} and {@link String} objects.
+ *
+ * Each node is an index with a kind and a run of int slots. A slot holds
+ * either the index of a child node, the index of a constant in a pool shared
+ * by all nodes (names, operators, type names and literal values, each stored
+ * once), or {@link #NONE} for an absent optional. Lists of statements,
+ * expressions and declarations are {@link #LIST} nodes whose slots are their
+ * elements. Nodes are stored children first, so the root is the last node.
+ *
+ * <table>
+ *     <tr><th>Kind</th><th>Slots</th></tr>
+ *     <tr><td>{@link #SOURCE}</td><td>fields list, methods list</td></tr>
+ *     <tr><td>{@link #FIELD}</td><td>name, type name, constant (0 or 1), value</td></tr>
+ *     <tr><td>{@link #METHOD}</td><td>name, return type name, statements list, parameter count, parameters..., parameter type names...</td></tr>
+ *     <tr><td>{@link #EXPRESSION_STATEMENT}</td><td>expression</td></tr>
+ *     <tr><td>{@link #DECLARATION}</td><td>name, type name, value</td></tr>
+ *     <tr><td>{@link #ASSIGNMENT}</td><td>receiver, value</td></tr>
+ *     <tr><td>{@link #IF}</td><td>condition, then list, else list</td></tr>
+ *     <tr><td>{@link #FOR}</td><td>initialization, condition, increment, statements list</td></tr>
+ *     <tr><td>{@link #WHILE}</td><td>condition, statements list</td></tr>
+ *     <tr><td>{@link #RETURN}</td><td>value</td></tr>
+ *     <tr><td>{@link #LITERAL}</td><td>literal</td></tr>
+ *     <tr><td>{@link #GROUP}</td><td>expression</td></tr>
+ *     <tr><td>{@link #BINARY}</td><td>operator, left, right</td></tr>
+ *     <tr><td>{@link #ACCESS}</td><td>name, receiver</td></tr>
+ *     <tr><td>{@link #FUNCTION}</td><td>name, receiver, arguments list</td></tr>
+ * </table>
+ *
+ * The name, operator or literal of a node is always its first slot, see
+ * {@link #getName(int)}. A {@link FlatAst} is read through a node index as a
+ * cursor, either directly or by {@link #accept(Visitor, int)}, and converted
+ * with {@link #of(Ast)} and {@link #toAst(int)}. It holds no analysis state;
+ * see {@link FlatAnalyzer} and {@link FlatInterpreter}.
+ */
+public final class FlatAst {
+
+    public static final int SOURCE = 0;
+    public static final int FIELD = 1;
+    public static final int METHOD = 2;
+    public static final int EXPRESSION_STATEMENT = 3;
+    public static final int DECLARATION = 4;
+    public static final int ASSIGNMENT = 5;
+    public static final int IF = 6;
+    public static final int FOR = 7;
+    public static final int WHILE = 8;
+    public static final int RETURN = 9;
+    public static final int LITERAL = 10;
+    public static final int GROUP = 11;
+    public static final int BINARY = 12;
+    public static final int ACCESS = 13;
+    public static final int FUNCTION = 14;
+    public static final int LIST = 15;
+
+    /**
+     * The slot value of an absent child or constant.
+     */
+    public static final int NONE = -1;
+
+    private byte[] kinds = new byte[16];
+    private int[] offsets = new int[17];
+    private int[] slots = new int[32];
+    private Object[] pool = new Object[16];
+    private int size = 0;
+    private int slotCount = 0;
+    private int poolSize = 0;
+
+    /**
+     * The index of each constant in the pool while converting, dropped once
+     * conversion is complete.
+     */
+    private Map<Object, Integer> constants = new HashMap<>();
+
+    private FlatAst() {}
+
+    /**
+     * Encodes {@code ast} and all of its children. Analysis state attached to
+     * the nodes, such as {@link Ast.Field#getVariable()}, is not retained.
+     */
+    public static FlatAst of(Ast ast) {
+        FlatAst flat = new FlatAst();
+        flat.encode(ast);
+        flat.kinds = Arrays.copyOf(flat.kinds, flat.size);
+        flat.offsets = Arrays.copyOf(flat.offsets, flat.size + 1);
+        flat.slots = Arrays.copyOf(flat.slots, flat.slotCount);
+        flat.pool = Arrays.copyOf(flat.pool, flat.poolSize);
+        flat.constants = null;
+        return flat;
+    }
+
+    /**
+     * Returns the index of the root node, the {@link Ast} passed to {@link
+     * #of(Ast)}.
+     */
+    public int getRoot() {
+        return size - 1;
+    }
+
+    /**
+     * Returns the number of nodes, including lists.
+     */
+    public int size() {
+        return size;
+    }
+
+    public int getKind(int node) {
+        return kinds[node];
+    }
+
+    /**
+     * Returns the number of slots of {@code node}, which for a {@link #LIST}
+     * is the number of elements.
+     */
+    public int getSlotCount(int node) {
+        return offsets[node + 1] - offsets[node];
+    }
+
+    /**
+     * Returns the raw value of a slot, a node index, a pool index, a count or
+     * {@link #NONE}, as described in the class documentation.
+     */
+    public int getSlot(int node, int slot) {
+        return slots[offsets[node] + slot];
+    }
+
+    /**
+     * Returns the child node at {@code slot}, or {@link #NONE} if absent.
+     */
+    public int getChild(int node, int slot) {
+        return getSlot(node, slot);
+    }
+
+    /**
+     * Returns the constant at {@code slot}, or null if absent.
+     */
+    public Object getConstant(int node, int slot) {
+        int index = getSlot(node, slot);
+        return index == NONE ? null : pool[index];
+    }
+
+    /**
+     * Returns the name of a field, method, declaration, access or function,
+     * or the operator of a binary expression.
+     */
+    public String getName(int node) {
+        return (String) getConstant(node, 0);
+    }
+
+    /**
+     * Returns the value of a {@link #LITERAL}.
+     */
+    public Object getLiteral(int node) {
+        return getConstant(node, 0);
+    }
+
+    /**
+     * Returns the element at {@code index} of a {@link #LIST}.
+     */
+    public int getElement(int list, int index) {
+        return getSlot(list, index);
+    }
+
+    /**
+     * Calls the method of {@code visitor} for the kind of {@code node}. Lists
+     * are not visited; their elements are visited individually.
+     */
+    public <T> T accept(Visitor<T> visitor, int node) {
+        switch (kinds[node]) {
+            case SOURCE: return visitor.visitSource(node);
+            case FIELD: return visitor.visitField(node);
+            case METHOD: return visitor.visitMethod(node);
+            case EXPRESSION_STATEMENT: return visitor.visitExpressionStatement(node);
+            case DECLARATION: return visitor.visitDeclaration(node);
+            case ASSIGNMENT: return visitor.visitAssignment(node);
+            case IF: return visitor.visitIf(node);
+            case FOR: return visitor.visitFor(node);
+            case WHILE: return visitor.visitWhile(node);
+            case RETURN: return visitor.visitReturn(node);
+            case LITERAL: return visitor.visitLiteral(node);
+            case GROUP: return visitor.visitGroup(node);
+            case BINARY: return visitor.visitBinary(node);
+            case ACCESS: return visitor.visitAccess(node);
+            case FUNCTION: return visitor.visitFunction(node);
+            default: throw new AssertionError("Unimplemented node kind: " + kinds[node] + ".");
+        }
+    }
+
+    /**
+     * Decodes {@code node} and its children into new {@link Ast} objects,
+     * which are equal to those passed to {@link #of(Ast)}.
+     */
+    public Ast toAst(int node) {
+        switch (kinds[node]) {
+            case SOURCE:
+                return new Ast.Source(toList(getChild(node, 0), Ast.Field.class), toList(getChild(node, 1), Ast.Method.class));
+            case FIELD:
+                return new Ast.Field(getName(node), (String) getConstant(node, 1), getSlot(node, 2) != 0, toOptional(getChild(node, 3)));
+            case METHOD: {
+                int count = getSlot(node, 3);
+                List<String> parameters = new ArrayList<>();
+                List<String> parameterTypeNames = new ArrayList<>();
+                for (int i = 4; i < 4 + count; i++) {
+                    parameters.add((String) getConstant(node, i));
+                }
+                for (int i = 4 + count; i < getSlotCount(node); i++) {
+                    parameterTypeNames.add((String) getConstant(node, i));
+                }
+                return new Ast.Method(getName(node), parameters, parameterTypeNames,
+                        Optional.ofNullable((String) getConstant(node, 1)), toList(getChild(node, 2), Ast.Statement.class));
+            }
+            case EXPRESSION_STATEMENT:
+                return new Ast.Statement.Expression((Ast.Expression) toAst(getChild(node, 0)));
+            case DECLARATION:
+                return new Ast.Statement.Declaration(getName(node), Optional.ofNullable((String) getConstant(node, 1)), toOptional(getChild(node, 2)));
+            case ASSIGNMENT:
+                return new Ast.Statement.Assignment((Ast.Expression) toAst(getChild(node, 0)), (Ast.Expression) toAst(getChild(node, 1)));
+            case IF:
+                return new Ast.Statement.If((Ast.Expression) toAst(getChild(node, 0)),
+                        toList(getChild(node, 1), Ast.Statement.class), toList(getChild(node, 2), Ast.Statement.class));
+            case FOR:
+                return new Ast.Statement.For(toNullable(getChild(node, 0)), (Ast.Expression) toAst(getChild(node, 1)),
+                        toNullable(getChild(node, 2)), toList(getChild(node, 3), Ast.Statement.class));
+            case WHILE:
+                return new Ast.Statement.While((Ast.Expression) toAst(getChild(node, 0)), toList(getChild(node, 1), Ast.Statement.class));
+            case RETURN:
+                return new Ast.Statement.Return((Ast.Expression) toAst(getChild(node, 0)));
+            case LITERAL:
+                return new Ast.Expression.Literal(getLiteral(node));
+            case GROUP:
+                return new Ast.Expression.Group((Ast.Expression) toAst(getChild(node, 0)));
+            case BINARY:
+                return new Ast.Expression.Binary(getName(node), (Ast.Expression) toAst(getChild(node, 1)), (Ast.Expression) toAst(getChild(node, 2)));
+            case ACCESS:
+                return new Ast.Expression.Access(toOptional(getChild(node, 1)), getName(node));
+            case FUNCTION:
+                return new Ast.Expression.Function(toOptional(getChild(node, 1)), getName(node), toList(getChild(node, 2), Ast.Expression.class));
+            default:
+                throw new AssertionError("Unimplemented node kind: " + kinds[node] + ".");
+        }
+    }
+
+    private <T extends Ast> List<T> toList(int list, Class<T> type) {
+        List<T> elements = new ArrayList<>(getSlotCount(list));
+        for (int i = 0; i < getSlotCount(list); i++) {
+            elements.add(type.cast(toAst(getElement(list, i))));
+        }
+        return elements;
+    }
+
+    private Optional<Ast.Expression> toOptional(int node) {
+        return node == NONE ? Optional.empty() : Optional.of((Ast.Expression) toAst(node));
+    }
+
+    private Ast.Statement toNullable(int node) {
+        return node == NONE ? null : (Ast.Statement) toAst(node);
+    }
+
+    /**
+     * Appends {@code ast} after its children and returns its index.
+     */
+    private int encode(Ast ast) {
+        if (ast instanceof Ast.Source) {
+            int fields = encodeList(((Ast.Source) ast).getFields());
+            int methods = encodeList(((Ast.Source) ast).getMethods());
+            return append(SOURCE, fields, methods);
+        } else if (ast instanceof Ast.Field) {
+            Ast.Field field = (Ast.Field) ast;
+            int value = encodeOptional(field.getValue());
+            return append(FIELD, constant(field.getName()), constant(field.getTypeName()), field.getConstant() ? 1 : 0, value);
+        } else if (ast instanceof Ast.Method) {
+            Ast.Method method = (Ast.Method) ast;
+            int statements = encodeList(method.getStatements());
+            int[] values = new int[4 + method.getParameters().size() + method.getParameterTypeNames().size()];
+            values[0] = constant(method.getName());
+            values[1] = constant(method.getReturnTypeName().orElse(null));
+            values[2] = statements;
+            values[3] = method.getParameters().size();
+            int i = 4;
+            for (String parameter : method.getParameters()) {
+                values[i++] = constant(parameter);
+            }
+            for (String typeName : method.getParameterTypeNames()) {
+                values[i++] = constant(typeName);
+            }
+            return append(METHOD, values);
+        } else if (ast instanceof Ast.Statement.Expression) {
+            return append(EXPRESSION_STATEMENT, encode(((Ast.Statement.Expression) ast).getExpression()));
+        } else if (ast instanceof Ast.Statement.Declaration) {
+            Ast.Statement.Declaration declaration = (Ast.Statement.Declaration) ast;
+            int value = encodeOptional(declaration.getValue());
+            return append(DECLARATION, constant(declaration.getName()), constant(declaration.getTypeName().orElse(null)), value);
+        } else if (ast instanceof Ast.Statement.Assignment) {
+            int receiver = encode(((Ast.Statement.Assignment) ast).getReceiver());
+            return append(ASSIGNMENT, receiver, encode(((Ast.Statement.Assignment) ast).getValue()));
+        } else if (ast instanceof Ast.Statement.If) {
+            Ast.Statement.If statement = (Ast.Statement.If) ast;
+            int condition = encode(statement.getCondition());
+            int thenStatements = encodeList(statement.getThenStatements());
+            return append(IF, condition, thenStatements, encodeList(statement.getElseStatements()));
+        } else if (ast instanceof Ast.Statement.For) {
+            Ast.Statement.For statement = (Ast.Statement.For) ast;
+            int initialization = statement.getInitialization() == null ? NONE : encode(statement.getInitialization());
+            int condition = encode(statement.getCondition());
+            int increment = statement.getIncrement() == null ? NONE : encode(statement.getIncrement());
+            return append(FOR, initialization, condition, increment, encodeList(statement.getStatements()));
+        } else if (ast instanceof Ast.Statement.While) {
+            int condition = encode(((Ast.Statement.While) ast).getCondition());
+            return append(WHILE, condition, encodeList(((Ast.Statement.While) ast).getStatements()));
+        } else if (ast instanceof Ast.Statement.Return) {
+            return append(RETURN, encode(((Ast.Statement.Return) ast).getValue()));
+        } else if (ast instanceof Ast.Expression.Literal) {
+            return append(LITERAL, constant(((Ast.Expression.Literal) ast).getLiteral()));
+        } else if (ast instanceof Ast.Expression.Group) {
+            return append(GROUP, encode(((Ast.Expression.Group) ast).getExpression()));
+        } else if (ast instanceof Ast.Expression.Binary) {
+            Ast.Expression.Binary binary = (Ast.Expression.Binary) ast;
+            int left = encode(binary.getLeft());
+            return append(BINARY, constant(binary.getOperator()), left, encode(binary.getRight()));
+        } else if (ast instanceof Ast.Expression.Access) {
+            Ast.Expression.Access access = (Ast.Expression.Access) ast;
+            return append(ACCESS, constant(access.getName()), encodeOptional(access.getReceiver()));
+        } else if (ast instanceof Ast.Expression.Function) {
+            Ast.Expression.Function function = (Ast.Expression.Function) ast;
+            int receiver = encodeOptional(function.getReceiver());
+            return append(FUNCTION, constant(function.getName()), receiver, encodeList(function.getArguments()));
+        } else {
+            throw new AssertionError("Unimplemented AST type: " + ast.getClass().getName() + ".");
+        }
+    }
+
+    private int encodeList(List<? extends Ast> elements) {
+        int[] values = new int[elements.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = encode(elements.get(i));
+        }
+        return append(LIST, values);
+    }
+
+    private int encodeOptional(Optional<Ast.Expression> value) {
+        return value.isPresent() ? encode(value.get()) : NONE;
+    }
+
+    /**
+     * Returns the pool index of {@code value}, adding it if not present, or
+     * {@link #NONE} if it is null (including a {@code NIL} literal).
+     */
+    private int constant(Object value) {
+        if (value == null) {
+            return NONE;
+        }
+        Integer index = constants.get(value);
+        if (index != null) {
+            return index;
+        }
+        if (poolSize == pool.length) {
+            pool = Arrays.copyOf(pool, poolSize * 2);
+        }
+        pool[poolSize] = value;
+        constants.put(value, poolSize);
+        return poolSize++;
+    }
+
+    private int append(int kind, int... values) {
+        if (size == kinds.length) {
+            kinds = Arrays.copyOf(kinds, size * 2);
+            offsets = Arrays.copyOf(offsets, size * 2 + 1);
+        }
+        while (slotCount + values.length > slots.length) {
+            slots = Arrays.copyOf(slots, slots.length * 2);
+        }
+        System.arraycopy(values, 0, slots, slotCount, values.length);
+        kinds[size] = (byte) kind;
+        offsets[size] = slotCount;
+        slotCount += values.length;
+        offsets[++size] = slotCount;
+        return size - 1;
+    }
+
+    /**
+     * Visits the nodes of a {@link FlatAst} by index, called by {@link
+     * FlatAst#accept(Visitor, int)} for the node's kind.
+     */
+    public interface Visitor<T> {
+
+        T visitSource(int node);
+
+        T visitField(int node);
+
+        T visitMethod(int node);
+
+        T visitExpressionStatement(int node);
+
+        T visitDeclaration(int node);
+
+        T visitAssignment(int node);
+
+        T visitIf(int node);
+
+        T visitFor(int node);
+
+        T visitWhile(int node);
+
+        T visitReturn(int node);
+
+        T visitLiteral(int node);
+
+        T visitGroup(int node);
+
+        T visitBinary(int node);
+
+        T visitAccess(int node);
+
+        T visitFunction(int node);
+
+    }
+
+}
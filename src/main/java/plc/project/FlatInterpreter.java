@@ -0,0 +1,216 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Evaluates a {@link FlatAst} in place with the same semantics as {@link
+ * Interpreter}, reading nodes by index rather than converting them back to
+ * {@link Ast} objects. Binary operators are shared through {@link
+ * Interpreter#binary}.
+ */
+public final class FlatInterpreter implements FlatAst.Visitor<Environment.PlcObject> {
+
+    private final FlatAst ast;
+    private Scope scope;
+
+    public FlatInterpreter(FlatAst ast, Scope parent) {
+        this.ast = ast;
+        scope = new Scope(parent);
+        scope.defineFunction("print", 1, args -> {
+            System.out.println(args.get(0).getValue());
+            return Environment.NIL;
+        });
+    }
+
+    public Scope getScope() {
+        return scope;
+    }
+
+    public Environment.PlcObject visit(int node) {
+        return ast.accept(this, node);
+    }
+
+    private void visitList(int list) {
+        for (int i = 0; i < ast.getSlotCount(list); i++) {
+            visit(ast.getElement(list, i));
+        }
+    }
+
+    @Override
+    public Environment.PlcObject visitSource(int node) {
+        visitList(ast.getChild(node, 0));
+        visitList(ast.getChild(node, 1));
+        try {
+            return scope.lookupFunction("main", 0).invoke(new ArrayList<>());
+        }
+        catch (Exception e) {
+            System.out.println(e.getMessage());
+            return Environment.NIL;
+        }
+    }
+
+    @Override
+    public Environment.PlcObject visitField(int node) {
+        int value = ast.getChild(node, 3);
+        boolean constant = ast.getSlot(node, 2) != 0;
+        scope.defineVariable(ast.getName(node), constant, value != FlatAst.NONE ? visit(value) : Environment.NIL);
+        return Environment.NIL;
+    }
+
+    @Override
+    public Environment.PlcObject visitMethod(int node) {
+        Scope testScope = new Scope(scope);
+        int count = ast.getSlot(node, 3);
+        scope.defineFunction(ast.getName(node), count, args -> {
+            Scope currentScope = new Scope(scope);
+            try {
+                scope = testScope;
+                for (int i = 0; i < args.size(); ++i) {
+                    scope.defineVariable((String) ast.getConstant(node, 4 + i), false, args.get(i));
+                }
+                visitList(ast.getChild(node, 2));
+                return Environment.NIL;
+            }
+            catch (Return e) {
+                return e.value;
+            }
+            finally {
+                scope = currentScope.getParent();
+            }
+        });
+        return Environment.NIL;
+    }
+
+    @Override
+    public Environment.PlcObject visitExpressionStatement(int node) {
+        visit(ast.getChild(node, 0));
+        return Environment.NIL;
+    }
+
+    @Override
+    public Environment.PlcObject visitDeclaration(int node) {
+        int value = ast.getChild(node, 2);
+        scope.defineVariable(ast.getName(node), false, value != FlatAst.NONE ? visit(value) : Environment.NIL);
+        return Environment.NIL;
+    }
+
+    @Override
+    public Environment.PlcObject visitAssignment(int node) {
+        int receiver = ast.getChild(node, 0);
+        if (ast.getKind(receiver) != FlatAst.ACCESS) {
+            throw new RuntimeException("Expected an Ast.Expression.Access");
+        }
+        Environment.PlcObject value = visit(ast.getChild(node, 1));
+        int object = ast.getChild(receiver, 1);
+        if (object != FlatAst.NONE) {
+            visit(object).setField(ast.getName(receiver), value);
+        }
+        else {
+            scope.lookupVariable(ast.getName(receiver)).setValue(value);
+        }
+        return Environment.NIL;
+    }
+
+    @Override
+    public Environment.PlcObject visitIf(int node) {
+        boolean condition = Interpreter.requireType(Boolean.class, visit(ast.getChild(node, 0)));
+        try {
+            scope = new Scope(scope);
+            visitList(ast.getChild(node, condition ? 1 : 2));
+        }
+        finally {
+            scope = scope.getParent();
+        }
+        return Environment.NIL;
+    }
+
+    @Override
+    public Environment.PlcObject visitFor(int node) {
+        visit(ast.getChild(node, 0));
+        while (Interpreter.requireType(Boolean.class, visit(ast.getChild(node, 1)))) {
+            try {
+                scope = new Scope(scope);
+                visitList(ast.getChild(node, 3));
+            }
+            finally {
+                scope = scope.getParent();
+                visit(ast.getChild(node, 2));
+            }
+        }
+        return Environment.NIL;
+    }
+
+    @Override
+    public Environment.PlcObject visitWhile(int node) {
+        while (Interpreter.requireType(Boolean.class, visit(ast.getChild(node, 0)))) {
+            try {
+                scope = new Scope(scope);
+                visitList(ast.getChild(node, 1));
+            }
+            finally {
+                scope = scope.getParent();
+            }
+        }
+        return Environment.NIL;
+    }
+
+    @Override
+    public Environment.PlcObject visitReturn(int node) {
+        throw new Return(visit(ast.getChild(node, 0)));
+    }
+
+    @Override
+    public Environment.PlcObject visitLiteral(int node) {
+        Object literal = ast.getLiteral(node);
+        return literal == null ? Environment.NIL : Environment.create(literal);
+    }
+
+    @Override
+    public Environment.PlcObject visitGroup(int node) {
+        return visit(ast.getChild(node, 0));
+    }
+
+    @Override
+    public Environment.PlcObject visitBinary(int node) {
+        return Interpreter.binary(ast.getName(node), visit(ast.getChild(node, 1)), () -> visit(ast.getChild(node, 2)));
+    }
+
+    @Override
+    public Environment.PlcObject visitAccess(int node) {
+        int receiver = ast.getChild(node, 1);
+        if (receiver != FlatAst.NONE) {
+            return visit(receiver).getField(ast.getName(node)).getValue();
+        }
+        return scope.lookupVariable(ast.getName(node)).getValue();
+    }
+
+    @Override
+    public Environment.PlcObject visitFunction(int node) {
+        int arguments = ast.getChild(node, 2);
+        List<Environment.PlcObject> args = new ArrayList<>();
+        for (int i = 0; i < ast.getSlotCount(arguments); i++) {
+            args.add(visit(ast.getElement(arguments, i)));
+        }
+        int receiver = ast.getChild(node, 1);
+        if (receiver != FlatAst.NONE) {
+            return visit(receiver).callMethod(ast.getName(node), args);
+        }
+        return scope.lookupFunction(ast.getName(node), args.size()).invoke(args);
+    }
+
+    /**
+     * Exception class for returning values.
+     */
+    @SuppressWarnings("serial")
+    private static class Return extends RuntimeException {
+
+        private final Environment.PlcObject value;
+
+        private Return(Environment.PlcObject value) {
+            this.value = value;
+        }
+
+    }
+
+}
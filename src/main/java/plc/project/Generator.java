@@ -5,10 +5,47 @@ import java.io.PrintWriter;
 public final class Generator implements Ast.Visitor<Void> {
 
     private final PrintWriter writer;
+    private final Analysis analysis;
     private int indent = 0;
 
     public Generator(PrintWriter writer) {
+        this(writer, null);
+    }
+
+    /**
+     * Creates a generator that reads variables, functions and types from
+     * {@code analysis} instead of the tree, for trees analyzed with {@link
+     * Analyzer#analyze(Ast, Scope)}.
+     */
+    public Generator(PrintWriter writer, Analysis analysis) {
         this.writer = writer;
+        this.analysis = analysis;
+    }
+
+    private Environment.Variable variable(Ast ast) {
+        if (analysis != null) {
+            return analysis.getVariable(ast);
+        }
+        if (ast instanceof Ast.Field) {
+            return ((Ast.Field) ast).getVariable();
+        } else if (ast instanceof Ast.Statement.Declaration) {
+            return ((Ast.Statement.Declaration) ast).getVariable();
+        }
+        return ((Ast.Expression.Access) ast).getVariable();
+    }
+
+    private Environment.Function function(Ast ast) {
+        if (analysis != null) {
+            return analysis.getFunction(ast);
+        }
+        if (ast instanceof Ast.Method) {
+            return ((Ast.Method) ast).getFunction();
+        }
+        return ((Ast.Expression.Function) ast).getFunction();
+    }
+
+    private Environment.Type type(Ast.Expression ast) {
+        return analysis != null ? analysis.getType(ast) : ast.getType();
     }
 
     private void print(Object... objects) {
@@ -77,8 +114,8 @@ public final class Generator implements Ast.Visitor<Void> {
         if (ast.getConstant()) {
             print("final ");
         }
-        print(ast.getVariable().getType().getJvmName(), " ");
-        print(ast.getVariable().getJvmName()); // generating JVM name in case special var identifier used
+        print(variable(ast).getType().getJvmName(), " ");
+        print(variable(ast).getJvmName()); // generating JVM name in case special var identifier used
 
         if (ast.getValue().isPresent()) {
             print(" = ");
@@ -91,15 +128,15 @@ public final class Generator implements Ast.Visitor<Void> {
 
     @Override
     public Void visit(Ast.Method ast) {
-        print(ast.getFunction().getType().getJvmName(), " ");
-        print(ast.getFunction().getJvmName(),"("); // using JVM name here in case a special method is defined
+        print(function(ast).getType().getJvmName(), " ");
+        print(function(ast).getJvmName(),"("); // using JVM name here in case a special method is defined
 
         if (!ast.getParameters().isEmpty()) {
-            print(ast.getFunction().getParameterTypes().get(0).getJvmName(), " ");
+            print(function(ast).getParameterTypes().get(0).getJvmName(), " ");
             print(ast.getParameters().get(0));
             for (int i = 1; i < ast.getParameters().size(); i++) {
                 print(", ");
-                print(ast.getFunction().getParameterTypes().get(i).getJvmName(), " ");
+                print(function(ast).getParameterTypes().get(i).getJvmName(), " ");
                 print(ast.getParameters().get(i));
             }
         }
@@ -129,9 +166,9 @@ public final class Generator implements Ast.Visitor<Void> {
 
     @Override
     public Void visit(Ast.Statement.Declaration ast) {
-        print(ast.getVariable().getType().getJvmName(),
+        print(variable(ast).getType().getJvmName(),
                 " ",
-                ast.getVariable().getJvmName());
+                variable(ast).getJvmName());
 
         if (ast.getValue().isPresent()) {
             print(" = ", ast.getValue().get());
@@ -247,13 +284,13 @@ public final class Generator implements Ast.Visitor<Void> {
 
     @Override
     public Void visit(Ast.Expression.Literal ast) {
-        if (ast.getType().equals(Environment.Type.STRING)) {
+        if (type(ast).equals(Environment.Type.STRING)) {
             print("\"", ast.getLiteral(), "\"");
         }
-        else if (ast.getType().equals(Environment.Type.CHARACTER)) {
+        else if (type(ast).equals(Environment.Type.CHARACTER)) {
             print("'", ast.getLiteral(), "'");
         }
-        else if (ast.getType().equals(Environment.Type.NIL)) {
+        else if (type(ast).equals(Environment.Type.NIL)) {
             print("null");
         }
         else {
@@ -285,7 +322,7 @@ public final class Generator implements Ast.Visitor<Void> {
             print(ast.getReceiver().get());
             print(".");
         }
-        print(ast.getVariable().getJvmName());
+        print(variable(ast).getJvmName());
         return null; //TODO
     }
 
@@ -296,7 +333,7 @@ public final class Generator implements Ast.Visitor<Void> {
             print(".");
         }
 
-        print(ast.getFunction().getJvmName(), "(");
+        print(function(ast).getJvmName(), "(");
         if (!ast.getArguments().isEmpty()) {
             print(ast.getArguments().get(0));
             for (int i = 1; i < ast.getArguments().size(); i++) {
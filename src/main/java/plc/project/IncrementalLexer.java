@@ -0,0 +1,344 @@
+package plc.project;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Keeps the tokens of a source up to date as it is edited, re-lexing only the
+ * region damaged by each edit instead of the entire source.
+ *
+ * The lexer has no state between tokens besides its position, so once the
+ * re-lexed tokens reach a position past the edit where an old token also
+ * started, every following token is the same as before and is kept.
+ *
+ * The text and the tokens are each kept in a gap buffer with the gap at the
+ * last edit. Tokens after the gap store their position relative to the end
+ * of the source, so an edit changes none of them; a token whose index is
+ * out of date is only replaced when it is read. An edit therefore costs the
+ * size of the edit and the damaged tokens, plus moving each gap from the
+ * previous edit, as in a text editor, but nothing in proportion to the size
+ * of the source.
+ */
+public final class IncrementalLexer {
+
+    /**
+     * The number of characters the lexer may read past the end of a token
+     * before deciding it has ended (for {@code 1.} followed by a digit).
+     */
+    private static final int LOOKAHEAD = 2;
+
+    private final Symbols.Table symbols = new Symbols.Table();
+    private final Text text;
+    private final Tokens tokens;
+    private String source;
+    private int relexed = 0;
+    private int moved = 0;
+
+    public IncrementalLexer(String source) {
+        this.source = source;
+        this.text = new Text(source);
+        this.tokens = new Tokens(new DfaLexer(source).lex());
+    }
+
+    /**
+     * Returns the edited source, which is copied out of the buffer on the
+     * first call after an edit.
+     */
+    public String getSource() {
+        if (source == null) {
+            source = text.toString();
+        }
+        return source;
+    }
+
+    /**
+     * Returns a read-only view of the tokens, which reflects later edits.
+     */
+    public List<Token> getTokens() {
+        return tokens;
+    }
+
+    /**
+     * Returns the number of tokens re-lexed by the last edit.
+     */
+    int getRelexed() {
+        return relexed;
+    }
+
+    /**
+     * Returns the number of characters and tokens moved across a gap by the
+     * last edit.
+     */
+    int getMoved() {
+        return moved;
+    }
+
+    /**
+     * Replaces {@code removed} characters at {@code offset} with
+     * {@code inserted} and returns the updated tokens. If the edited source
+     * fails to lex, a {@link ParseException} is thrown and the previous state
+     * is kept.
+     */
+    public List<Token> edit(int offset, int removed, String inserted) {
+        int length = text.length();
+        if (offset < 0 || removed < 0 || offset + removed > length) {
+            throw new IndexOutOfBoundsException("Invalid edit at " + offset + " removing " + removed + ".");
+        }
+        int delta = inserted.length() - removed;
+        int editEnd = offset + inserted.length();
+
+        // Tokens whose scan never reached the edit are unchanged.
+        int first = tokens.firstEndingAfter(offset - LOOKAHEAD, length);
+        int position = first > 0 ? tokens.end(first - 1, length) : 0;
+
+        moved = text.moveGap(offset);
+        String deleted = text.replace(offset, removed, inserted);
+        List<Token> result = new ArrayList<>();
+        int old = first;
+        try {
+            while (true) {
+                while (position < text.length() && DfaLexer.isWhitespace(text.charAt(position))) {
+                    position++;
+                }
+                if (position >= text.length()) {
+                    old = tokens.size();
+                    break;
+                }
+                if (position >= editEnd) {
+                    while (old < tokens.size() && tokens.start(old, length) + delta < position) {
+                        old++;
+                    }
+                    if (old < tokens.size() && tokens.start(old, length) + delta == position) {
+                        break;
+                    }
+                }
+                long scan = DfaLexer.scan(text, position, text.length());
+                int end = (int) scan;
+                result.add(symbols.token(DfaLexer.ACCEPTS[(int) (scan >>> 32)], text, position, end));
+                position = end;
+            }
+        } catch (ParseException e) {
+            text.moveGap(offset);
+            text.replace(offset, inserted.length(), deleted);
+            throw e;
+        }
+
+        moved += tokens.replace(first, old - first, result, length);
+        source = null;
+        relexed = result.size();
+        return tokens;
+    }
+
+    /**
+     * The source text, with a gap at the last edit.
+     */
+    private static final class Text implements CharSequence {
+
+        private char[] chars;
+        private int gapStart;
+        private int gapEnd;
+
+        private Text(String source) {
+            chars = Arrays.copyOf(source.toCharArray(), source.length() + 16);
+            gapStart = source.length();
+            gapEnd = chars.length;
+        }
+
+        /**
+         * Moves the gap to {@code offset}, returning the number of characters
+         * moved.
+         */
+        private int moveGap(int offset) {
+            int count = Math.abs(offset - gapStart);
+            if (offset < gapStart) {
+                System.arraycopy(chars, offset, chars, gapEnd - count, count);
+                gapEnd -= count;
+            }
+            else {
+                System.arraycopy(chars, gapEnd, chars, gapStart, count);
+                gapEnd += count;
+            }
+            gapStart = offset;
+            return count;
+        }
+
+        /**
+         * Replaces {@code removed} characters at the gap, which must be at
+         * {@code offset}, with {@code inserted}, returning what was removed.
+         */
+        private String replace(int offset, int removed, String inserted) {
+            String deleted = new String(chars, gapEnd, removed);
+            gapEnd += removed;
+            if (inserted.length() > gapEnd - gapStart) {
+                int tail = chars.length - gapEnd;
+                char[] grown = new char[Math.max(chars.length * 2, length() + inserted.length() + 16)];
+                System.arraycopy(chars, 0, grown, 0, gapStart);
+                System.arraycopy(chars, gapEnd, grown, grown.length - tail, tail);
+                gapEnd = grown.length - tail;
+                chars = grown;
+            }
+            inserted.getChars(0, inserted.length(), chars, offset);
+            gapStart = offset + inserted.length();
+            return deleted;
+        }
+
+        @Override
+        public int length() {
+            return chars.length - (gapEnd - gapStart);
+        }
+
+        @Override
+        public char charAt(int index) {
+            return chars[index < gapStart ? index : index + gapEnd - gapStart];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (end <= gapStart) {
+                return new String(chars, start, end - start);
+            } else if (start >= gapStart) {
+                return new String(chars, start + gapEnd - gapStart, end - start);
+            }
+            return new StringBuilder(end - start)
+                    .append(chars, start, gapStart - start)
+                    .append(chars, gapEnd, end - gapStart)
+                    .toString();
+        }
+
+        @Override
+        public String toString() {
+            return subSequence(0, length()).toString();
+        }
+
+    }
+
+    /**
+     * The tokens, with a gap at the last edit. A token before the gap stores
+     * its index, and one after the gap its index less the source length.
+     * The stored {@link Token} keeps the index it was created with and is
+     * replaced when read if that has changed.
+     */
+    private final class Tokens extends AbstractList<Token> implements RandomAccess {
+
+        private Token[] values;
+        private int[] starts;
+        private int gapStart;
+        private int gapEnd;
+
+        private Tokens(List<Token> tokens) {
+            values = tokens.toArray(new Token[tokens.size() + 16]);
+            starts = new int[values.length];
+            for (int i = 0; i < tokens.size(); i++) {
+                starts[i] = tokens.get(i).getIndex();
+            }
+            gapStart = tokens.size();
+            gapEnd = values.length;
+        }
+
+        private int slot(int index) {
+            return index < gapStart ? index : index + gapEnd - gapStart;
+        }
+
+        /**
+         * Returns the index of token {@code index} in a source of
+         * {@code length} characters.
+         */
+        private int start(int index, int length) {
+            return index < gapStart ? starts[index] : starts[slot(index)] + length;
+        }
+
+        private int end(int index, int length) {
+            return start(index, length) + values[slot(index)].getLiteral().length();
+        }
+
+        /**
+         * Returns the first token ending after {@code offset}, found by binary
+         * search since tokens are in order and do not overlap.
+         */
+        private int firstEndingAfter(int offset, int length) {
+            int low = 0;
+            int high = size();
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (end(middle, length) <= offset) {
+                    low = middle + 1;
+                }
+                else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Replaces {@code removed} tokens at {@code index} with
+         * {@code inserted}, whose indices are in the edited source. Returns
+         * the number of tokens moved across the gap to reach {@code index}.
+         */
+        private int replace(int index, int removed, List<Token> inserted, int length) {
+            int count = Math.abs(index - gapStart);
+            if (index < gapStart) {
+                System.arraycopy(values, index, values, gapEnd - count, count);
+                System.arraycopy(starts, index, starts, gapEnd - count, count);
+                gapEnd -= count;
+                for (int i = gapEnd; i < gapEnd + count; i++) {
+                    starts[i] -= length;
+                }
+            }
+            else {
+                System.arraycopy(values, gapEnd, values, gapStart, count);
+                System.arraycopy(starts, gapEnd, starts, gapStart, count);
+                for (int i = gapStart; i < gapStart + count; i++) {
+                    starts[i] += length;
+                }
+                gapEnd += count;
+            }
+            gapStart = index;
+            Arrays.fill(values, gapEnd, gapEnd + removed, null);
+            gapEnd += removed;
+            if (inserted.size() > gapEnd - gapStart) {
+                int tail = values.length - gapEnd;
+                int capacity = Math.max(values.length * 2, size() + inserted.size() + 16);
+                Token[] grownValues = new Token[capacity];
+                int[] grownStarts = new int[capacity];
+                System.arraycopy(values, 0, grownValues, 0, gapStart);
+                System.arraycopy(starts, 0, grownStarts, 0, gapStart);
+                System.arraycopy(values, gapEnd, grownValues, capacity - tail, tail);
+                System.arraycopy(starts, gapEnd, grownStarts, capacity - tail, tail);
+                gapEnd = capacity - tail;
+                values = grownValues;
+                starts = grownStarts;
+            }
+            for (Token token : inserted) {
+                values[gapStart] = token;
+                starts[gapStart++] = token.getIndex();
+            }
+            return count;
+        }
+
+        @Override
+        public Token get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size());
+            }
+            int slot = slot(index);
+            Token token = values[slot];
+            int start = start(index, text.length());
+            if (token.getIndex() != start) {
+                token = new Token(token.getType(), token.getLiteral(), start, token.getSymbol());
+                values[slot] = token;
+            }
+            return token;
+        }
+
+        @Override
+        public int size() {
+            return values.length - (gapEnd - gapStart);
+        }
+
+    }
+
+}
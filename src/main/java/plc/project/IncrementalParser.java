@@ -0,0 +1,118 @@
+package plc.project;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parses successive versions of a source, reusing the {@link Ast.Field} and
+ * {@link Ast.Method} objects of declarations whose tokens have not changed.
+ *
+ * Each declaration found by {@link Declarations} is fingerprinted by the type
+ * and literal of its tokens (not their indices, which shift with any edit
+ * before them). Declarations with a fingerprint from the previous parse reuse
+ * that subtree, keeping its identity, so the entries for its nodes in an
+ * {@link Analysis}, which is keyed by node identity, can be reused; only the
+ * others are parsed. If the source cannot be split into declarations or a
+ * declaration fails to parse, the whole source is parsed by {@link Parser} to
+ * report the error.
+ */
+public final class IncrementalParser {
+
+    private Map<Fingerprint, Deque<Ast>> previous = new HashMap<>();
+    private int reparsed = 0;
+
+    /**
+     * Returns the number of declarations parsed by the last call to {@link
+     * #parse(List)}, rather than reused.
+     */
+    int getReparsed() {
+        return reparsed;
+    }
+
+    public Ast.Source parse(List<Token> tokens) throws ParseException {
+        int[] bounds = Declarations.split(tokens);
+        if (bounds == null) {
+            previous = new HashMap<>();
+            return new Parser(tokens).parseSource();
+        }
+        Map<Fingerprint, Deque<Ast>> current = new HashMap<>();
+        List<Ast.Field> fields = new ArrayList<>();
+        List<Ast.Method> methods = new ArrayList<>();
+        int count = 0;
+        for (int i = 0; i + 1 < bounds.length; i++) {
+            Fingerprint fingerprint = new Fingerprint(tokens.subList(bounds[i], bounds[i + 1]));
+            Deque<Ast> reusable = previous.get(fingerprint);
+            Ast declaration;
+            if (reusable != null && !reusable.isEmpty()) {
+                declaration = reusable.poll();
+            } else {
+                try {
+                    declaration = new Parser(fingerprint.tokens).parseDeclaration();
+                } catch (RuntimeException e) {
+                    previous = new HashMap<>();
+                    return new Parser(tokens).parseSource();
+                }
+                count++;
+            }
+            current.computeIfAbsent(fingerprint, f -> new ArrayDeque<>()).add(declaration);
+            if (declaration instanceof Ast.Field) {
+                fields.add((Ast.Field) declaration);
+            } else {
+                methods.add((Ast.Method) declaration);
+            }
+        }
+        previous = current;
+        reparsed = count;
+        return new Ast.Source(fields, methods);
+    }
+
+    /**
+     * The token types and literals of a declaration, with a hash computed
+     * once from the (cached) hashes of the literals. The tokens are copied,
+     * since a list such as {@link IncrementalLexer#getTokens()} may change
+     * after the parse.
+     */
+    private static final class Fingerprint {
+
+        private final List<Token> tokens;
+        private final int hash;
+
+        private Fingerprint(List<Token> tokens) {
+            this.tokens = List.copyOf(tokens);
+            int hash = 1;
+            for (Token token : tokens) {
+                hash = 31 * (31 * hash + token.getType().ordinal()) + token.getLiteral().hashCode();
+            }
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Fingerprint) || hash != ((Fingerprint) obj).hash) {
+                return false;
+            }
+            List<Token> other = ((Fingerprint) obj).tokens;
+            if (tokens.size() != other.size()) {
+                return false;
+            }
+            for (int i = 0; i < tokens.size(); i++) {
+                if (tokens.get(i).getType() != other.get(i).getType()
+                        || !tokens.get(i).getLiteral().equals(other.get(i).getLiteral())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+    }
+
+}
@@ -5,6 +5,7 @@ import java.math.BigInteger;
 import java.math.RoundingMode;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
 
 public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
 
@@ -189,118 +190,108 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
 
     @Override
     public Environment.PlcObject visit(Ast.Expression.Binary ast) {
-        String op = ast.getOperator();
-        Ast.Expression left = ast.getLeft();
-        Ast.Expression right = ast.getRight();
-        Environment.PlcObject toReturn;
+        return binary(ast.getOperator(), visit(ast.getLeft()), () -> visit(ast.getRight()));
+    }
 
+    /**
+     * Evaluates the binary operator {@code op} on {@code left} and the value
+     * of {@code right}, which is only evaluated if the operator needs it.
+     * Each operand is evaluated at most once, so a call in an operand is
+     * only made once rather than again for each type test.
+     * This is shared with {@link FlatInterpreter} and {@link
+     * ResolvedInterpreter}, and {@link ClosureCompiler} uses the helpers for
+     * each operator, so every representation evaluates operators identically.
+     */
+    static Environment.PlcObject binary(String op, Environment.PlcObject left, Supplier<Environment.PlcObject> right) {
         switch (op) {
             case "&&", "AND":
-                Boolean l = requireType(Boolean.class, visit(left));
-                Boolean r =requireType(Boolean.class, visit(right));
-                toReturn = Environment.create(Boolean.logicalAnd(l, r));
-                return toReturn;
+                return and(left, right.get());
             case "||", "OR":
-                Boolean l1 = requireType(Boolean.class, visit(left));
-                if (l1.booleanValue()) {
-                    toReturn = Environment.create(Boolean.TRUE);
-                    return toReturn;
-                }
-                Boolean r1 =requireType(Boolean.class, visit(right));
-                toReturn = Environment.create(Boolean.logicalOr(l1, r1));
-                return toReturn;
+                return requireType(Boolean.class, left) ? Environment.create(Boolean.TRUE) : Environment.create(requireType(Boolean.class, right.get()));
             case "<":
-                Comparable llt = requireType(Comparable.class, visit(left));
-                Comparable rlt = requireType(llt.getClass(), visit(right));
-                toReturn = Environment.create(llt.compareTo(rlt) < 0);
-                return toReturn;
+                return Environment.create(compare(left, right.get()) < 0);
             case "<=":
-                Comparable llte = requireType(Comparable.class, visit(left));
-                Comparable rlte = requireType(llte.getClass(), visit(right));
-                toReturn = Environment.create(llte.compareTo(rlte) <= 0);
-                return toReturn;
+                return Environment.create(compare(left, right.get()) <= 0);
             case ">":
-                Comparable lgt = requireType(Comparable.class, visit(left));
-                Comparable rgt = requireType(lgt.getClass(), visit(right));
-                toReturn = Environment.create(lgt.compareTo(rgt) > 0);
-                return toReturn;
+                return Environment.create(compare(left, right.get()) > 0);
             case ">=":
-                Comparable lgte = requireType(Comparable.class, visit(left));
-                Comparable rgte = requireType(lgte.getClass(), visit(right));
-                toReturn = Environment.create(lgte.compareTo(rgte) >= 0);
-                return toReturn;
+                return Environment.create(compare(left, right.get()) >= 0);
             case "==":
-                toReturn = Environment.create((visit(left).getValue()).equals(visit(right).getValue()));
-                return toReturn;
+                return Environment.create(left.getValue().equals(right.get().getValue()));
             case "!=":
-                toReturn = Environment.create(!(visit(left).getValue()).equals(visit(right).getValue()));
-                return toReturn;
+                return Environment.create(!left.getValue().equals(right.get().getValue()));
             case "+":
-                if (visit(left).getValue() instanceof BigDecimal) {
-                    BigDecimal bd = (BigDecimal) visit(left).getValue();
-                    BigDecimal bd2 = requireType(BigDecimal.class, visit(right));
-                    toReturn = Environment.create(bd.add(bd2));
-                }
-                else if (visit(left).getValue() instanceof BigInteger) {
-                    BigInteger bi = (BigInteger) visit(left).getValue();
-                    BigInteger bi2 = requireType(BigInteger.class, visit(right));
-                    toReturn = Environment.create(bi.add(bi2));
-                }
-                else if (visit(left).getValue() instanceof String) {
-                    String s = (String) visit(left).getValue();
-                    String s2 = requireType(String.class, visit(right));
-                    toReturn = Environment.create(s+s2);
-                }
-                else
-                    throw new RuntimeException("Not BigInt, BigDec, or String");
-                return toReturn;
+                return add(left, right.get());
             case "-":
-                if (visit(left).getValue() instanceof BigDecimal) {
-                    BigDecimal bd = (BigDecimal) visit(left).getValue();
-                    BigDecimal bd2 = requireType(BigDecimal.class, visit(right));
-                    toReturn = Environment.create(bd.subtract(bd2));
-                }
-                else if (visit(left).getValue() instanceof BigInteger) {
-                    BigInteger bi = (BigInteger) visit(left).getValue();
-                    BigInteger bi2 = requireType(BigInteger.class, visit(right));
-                    toReturn = Environment.create(bi.subtract(bi2));
-                }
-                else
-                    throw new RuntimeException("Not BigInt, BigDec");
-                return toReturn;
+                return subtract(left, right.get());
             case "*":
-                if (visit(left).getValue() instanceof BigDecimal) {
-                    BigDecimal bd = (BigDecimal) visit(left).getValue();
-                    BigDecimal bd2 = requireType(BigDecimal.class, visit(right));
-                    toReturn = Environment.create(bd.multiply(bd2));
-                }
-                else if (visit(left).getValue() instanceof BigInteger) {
-                    BigInteger bi = (BigInteger) visit(left).getValue();
-                    BigInteger bi2 = requireType(BigInteger.class, visit(right));
-                    toReturn = Environment.create(bi.multiply(bi2));
-                }
-                else
-                    throw new RuntimeException("Not BigInt, BigDec");
-                return toReturn;
+                return multiply(left, right.get());
             case "/":
-                if (visit(left).getValue() instanceof BigDecimal) {
-                    BigDecimal bd = (BigDecimal) visit(left).getValue();
-                    BigDecimal bd2 = requireType(BigDecimal.class, visit(right));
-                    toReturn = Environment.create(bd.divide(bd2, RoundingMode.HALF_EVEN));
-                }
-                else if (visit(left).getValue() instanceof BigInteger) {
-                    BigInteger bi = (BigInteger) visit(left).getValue();
-                    BigInteger bi2 = requireType(BigInteger.class, visit(right));
-                    toReturn = Environment.create(bi.multiply(bi2));
-                }
-                else
-                    throw new RuntimeException("Not BigInt, BigDec");
-                return toReturn;
+                return divide(left, right.get());
             default:
                 throw new RuntimeException("Expected a valid operator, got " + op);
         }
     }
 
+    static Environment.PlcObject and(Environment.PlcObject left, Environment.PlcObject right) {
+        Boolean l = requireType(Boolean.class, left);
+        Boolean r = requireType(Boolean.class, right);
+        return Environment.create(Boolean.logicalAnd(l, r));
+    }
+
+    @SuppressWarnings("unchecked")
+    static int compare(Environment.PlcObject left, Environment.PlcObject right) {
+        Comparable<Object> l = requireType(Comparable.class, left);
+        return l.compareTo(requireType(l.getClass(), right));
+    }
+
+    static Environment.PlcObject add(Environment.PlcObject left, Environment.PlcObject right) {
+        Object l = left.getValue();
+        if (l instanceof BigDecimal) {
+            return Environment.create(((BigDecimal) l).add(requireType(BigDecimal.class, right)));
+        }
+        else if (l instanceof BigInteger) {
+            return Environment.create(((BigInteger) l).add(requireType(BigInteger.class, right)));
+        }
+        else if (l instanceof String) {
+            return Environment.create((String) l + requireType(String.class, right));
+        }
+        throw new RuntimeException("Not BigInt, BigDec, or String");
+    }
+
+    static Environment.PlcObject subtract(Environment.PlcObject left, Environment.PlcObject right) {
+        Object l = left.getValue();
+        if (l instanceof BigDecimal) {
+            return Environment.create(((BigDecimal) l).subtract(requireType(BigDecimal.class, right)));
+        }
+        else if (l instanceof BigInteger) {
+            return Environment.create(((BigInteger) l).subtract(requireType(BigInteger.class, right)));
+        }
+        throw new RuntimeException("Not BigInt, BigDec");
+    }
+
+    static Environment.PlcObject multiply(Environment.PlcObject left, Environment.PlcObject right) {
+        Object l = left.getValue();
+        if (l instanceof BigDecimal) {
+            return Environment.create(((BigDecimal) l).multiply(requireType(BigDecimal.class, right)));
+        }
+        else if (l instanceof BigInteger) {
+            return Environment.create(((BigInteger) l).multiply(requireType(BigInteger.class, right)));
+        }
+        throw new RuntimeException("Not BigInt, BigDec");
+    }
+
+    static Environment.PlcObject divide(Environment.PlcObject left, Environment.PlcObject right) {
+        Object l = left.getValue();
+        if (l instanceof BigDecimal) {
+            return Environment.create(((BigDecimal) l).divide(requireType(BigDecimal.class, right), RoundingMode.HALF_EVEN));
+        }
+        else if (l instanceof BigInteger) {
+            return Environment.create(((BigInteger) l).multiply(requireType(BigInteger.class, right)));
+        }
+        throw new RuntimeException("Not BigInt, BigDec");
+    }
+
     @Override
     public Environment.PlcObject visit(Ast.Expression.Access ast) {
         // Note - Access should not be defining a variable but retrieving value
@@ -326,7 +317,7 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
     /**
      * Helper function to ensure an object is of the appropriate type.
      */
-    private static <T> T requireType(Class<T> type, Environment.PlcObject object) {
+    static <T> T requireType(Class<T> type, Environment.PlcObject object) {
         if (type.isInstance(object.getValue())) {
             return type.cast(object.getValue());
         } else {
@@ -337,6 +328,7 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
     /**
      * Exception class for returning values.
      */
+    @SuppressWarnings("serial")
     private static class Return extends RuntimeException {
 
         private final Environment.PlcObject value;
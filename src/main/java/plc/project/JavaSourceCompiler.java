@@ -0,0 +1,379 @@
+package plc.project;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles the Java source written by {@link Generator} with the system Java
+ * compiler in this process, then loads and runs it, instead of writing the
+ * source out and running javac on it.
+ *
+ * Each program is put in a package named after the SHA-256 hash of its
+ * source, so any number of programs can be compiled by one javac task and
+ * loaded side by side. Compiled classes are kept in a memory cache of the
+ * most recently used programs and, if a directory is given, on disk, both
+ * keyed by that hash, so a program compiled before is not compiled again.
+ */
+public final class JavaSourceCompiler {
+
+    private static final int MAGIC = 0x504C434A;
+    private static final int VERSION = 1;
+    private static final String PACKAGE = "plc.generated.p";
+
+    private final Path directory;
+    private final Map<String, Program> programs;
+
+    /**
+     * Creates a compiler keeping the {@code capacity} most recently used
+     * programs in memory and, unless {@code directory} is null, every
+     * compiled program on disk.
+     */
+    public JavaSourceCompiler(Path directory, int capacity) {
+        this.directory = directory;
+        this.programs = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Program> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the Java source generated for {@code ast}, which must have been
+     * analyzed into {@code analysis}.
+     */
+    public static String generate(Ast.Source ast, Analysis analysis) {
+        StringWriter buffer = new StringWriter();
+        PrintWriter writer = new PrintWriter(buffer);
+        new Generator(writer, analysis).visit(ast);
+        writer.flush();
+        return buffer.toString();
+    }
+
+    /**
+     * Returns the hex SHA-256 hash of {@code source}, which names its package
+     * and cached classes.
+     */
+    public static String key(String source) {
+        return ProgramCache.key(source.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Program compile(String source) {
+        return compile(List.of(source)).get(0);
+    }
+
+    /**
+     * Returns the programs for {@code sources}, in order. Programs found in
+     * neither cache are compiled together by one javac task, and a compile
+     * error in any of them throws a {@link RuntimeException} with javac's
+     * messages.
+     */
+    public List<Program> compile(List<String> sources) {
+        Map<String, Program> found = new HashMap<>();
+        Map<String, String> missing = new LinkedHashMap<>();
+        for (String source : sources) {
+            String key = key(source);
+            if (found.containsKey(key) || missing.containsKey(key)) {
+                continue;
+            }
+            Program program = cached(key);
+            if (program != null) {
+                found.put(key, program);
+            }
+            else {
+                missing.put(key, source);
+            }
+        }
+        if (!missing.isEmpty()) {
+            Map<String, Map<String, byte[]>> compiled = javac(missing);
+            for (Map.Entry<String, Map<String, byte[]>> entry : compiled.entrySet()) {
+                Program program = new Program(entry.getKey(), entry.getValue());
+                found.put(entry.getKey(), program);
+                synchronized (programs) {
+                    programs.put(entry.getKey(), program);
+                }
+                store(entry.getKey(), entry.getValue());
+            }
+        }
+        List<Program> result = new ArrayList<>(sources.size());
+        for (String source : sources) {
+            result.add(found.get(key(source)));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the program with {@code key} from memory or disk, or null.
+     */
+    private Program cached(String key) {
+        synchronized (programs) {
+            Program program = programs.get(key);
+            if (program != null) {
+                return program;
+            }
+        }
+        Map<String, byte[]> classes = load(key);
+        if (classes == null) {
+            return null;
+        }
+        Program program = new Program(key, classes);
+        synchronized (programs) {
+            programs.put(key, program);
+        }
+        return program;
+    }
+
+    /**
+     * Compiles each source in {@code sources}, by key, into its package,
+     * returning the classes of each by binary name.
+     */
+    private static Map<String, Map<String, byte[]>> javac(Map<String, String> sources) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("No Java compiler is available; a JDK is required.");
+        }
+        List<JavaFileObject> units = new ArrayList<>(sources.size());
+        for (Map.Entry<String, String> entry : sources.entrySet()) {
+            units.add(new Source(entry.getKey(), entry.getValue()));
+        }
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        Map<String, byte[]> classes = new HashMap<>();
+        try (StandardJavaFileManager standard = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8);
+             JavaFileManager manager = new Output(standard, classes)) {
+            boolean success = compiler.getTask(null, manager, diagnostics,
+                    List.of("-proc:none", "-g:none", "-nowarn"), null, units).call();
+            if (!success) {
+                StringBuilder message = new StringBuilder("Generated Java source did not compile:");
+                for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+                    if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                        message.append(System.lineSeparator()).append(diagnostic);
+                    }
+                }
+                throw new RuntimeException(message.toString());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        Map<String, Map<String, byte[]>> result = new LinkedHashMap<>();
+        for (String key : sources.keySet()) {
+            result.put(key, new HashMap<>());
+        }
+        for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+            String name = entry.getKey();
+            result.get(name.substring(PACKAGE.length(), name.indexOf('.', PACKAGE.length()))).put(name, entry.getValue());
+        }
+        return result;
+    }
+
+    static String packageName(String key) {
+        return PACKAGE + key;
+    }
+
+    private Path getPath(String key) {
+        return directory.resolve(key + ".classes");
+    }
+
+    /**
+     * Returns the classes stored for {@code key}, or null if there are none
+     * or they cannot be read.
+     */
+    private Map<String, byte[]> load(String key) {
+        if (directory == null || !Files.isRegularFile(getPath(key))) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(getPath(key))))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            Map<String, byte[]> classes = new HashMap<>();
+            for (int count = in.readInt(); count > 0; count--) {
+                String name = in.readUTF();
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                classes.put(name, bytes);
+            }
+            return in.read() == -1 && classes.containsKey(packageName(key) + ".Main") ? classes : null;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Stores {@code classes} for {@code key}, written to a temporary name and
+     * moved into place. A cache which cannot be written is only a miss later.
+     */
+    private void store(String key, Map<String, byte[]> classes) {
+        if (directory == null) {
+            return;
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(classes.size());
+            for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue().length);
+                out.write(entry.getValue());
+            }
+            Path path = getPath(key);
+            Files.createDirectories(directory);
+            Path temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+            try {
+                Files.write(temporary, bytes.toByteArray());
+                Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (IOException e) {
+            // the program still runs from memory
+        }
+    }
+
+    /**
+     * A compiled program, loaded in its own class loader.
+     */
+    public static final class Program {
+
+        private final String key;
+        private final Constructor<?> constructor;
+        private final Method main;
+
+        private Program(String key, Map<String, byte[]> classes) {
+            this.key = key;
+            try {
+                Class<?> type = Class.forName(packageName(key) + ".Main", true, new Loader(classes));
+                constructor = type.getDeclaredConstructor();
+                constructor.setAccessible(true);
+                main = type.getDeclaredMethod("main");
+                main.setAccessible(true);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Compiled program has no main method.", e);
+            }
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         * Runs {@code new Main().main()}, returning its result, which is null
+         * for a main without one.
+         */
+        public Object run() {
+            try {
+                return main.invoke(constructor.newInstance());
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                } else if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new RuntimeException(cause);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+    }
+
+    private static final class Loader extends ClassLoader {
+
+        private final Map<String, byte[]> classes;
+
+        private Loader(Map<String, byte[]> classes) {
+            super(JavaSourceCompiler.class.getClassLoader());
+            this.classes = classes;
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            byte[] bytes = classes.get(name);
+            if (bytes == null) {
+                throw new ClassNotFoundException(name);
+            }
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+
+    }
+
+    /**
+     * A generated source, put in the package for its key.
+     */
+    private static final class Source extends SimpleJavaFileObject {
+
+        private final String content;
+
+        private Source(String key, String source) {
+            super(URI.create("string:///" + packageName(key).replace('.', '/') + "/Main.java"), Kind.SOURCE);
+            this.content = "package " + packageName(key) + ";\n" + source;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return content;
+        }
+
+    }
+
+    /**
+     * Keeps class files written by javac in memory, by binary name.
+     */
+    private static final class Output extends ForwardingJavaFileManager<StandardJavaFileManager> {
+
+        private final Map<String, byte[]> classes;
+
+        private Output(StandardJavaFileManager manager, Map<String, byte[]> classes) {
+            super(manager);
+            this.classes = classes;
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(Location location, String name, JavaFileObject.Kind kind, FileObject sibling) {
+            return new SimpleJavaFileObject(URI.create("bytes:///" + name.replace('.', '/') + kind.extension), kind) {
+                @Override
+                public OutputStream openOutputStream() {
+                    return new ByteArrayOutputStream() {
+                        @Override
+                        public void close() {
+                            classes.put(name, toByteArray());
+                        }
+                    };
+                }
+            };
+        }
+
+    }
+
+}
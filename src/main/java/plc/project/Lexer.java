@@ -2,13 +2,16 @@ package plc.project;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 /**
  * The lexer works through three main functions:
  *
  *  - {@link #lex()}, which repeatedly calls lexToken() and skips whitespace
+ *    (or {@link #iterator()}, which does the same lazily)
  *  - {@link #lexToken()}, which lexes the next token
  *  - {@link CharStream}, which manages the state of the lexer and literals
  *
@@ -23,7 +26,7 @@ public final class Lexer {
     private final CharStream chars;
     private final List<Token> tokens = new ArrayList<Token>();
 
-    public Lexer(String input) {
+    public Lexer(CharSequence input) {
         chars = new CharStream(input);
     }
 
@@ -32,6 +35,41 @@ public final class Lexer {
      * whitespace where appropriate.
      */
     public List<Token> lex() {
+        while (hasToken()) {
+            tokens.add(lexToken());
+        }
+        return tokens;
+        //throw new UnsupportedOperationException(); //TODO
+    }
+
+    /**
+     * Returns an iterator lexing one token at a time on demand, so tokens can
+     * be consumed without materializing the whole list as {@link #lex()} does.
+     * Whitespace is skipped in the same way.
+     */
+    public Iterator<Token> iterator() {
+        return new Iterator<Token>() {
+
+            @Override
+            public boolean hasNext() {
+                return hasToken();
+            }
+
+            @Override
+            public Token next() {
+                if (!hasToken()) {
+                    throw new NoSuchElementException();
+                }
+                return lexToken();
+            }
+
+        };
+    }
+
+    /**
+     * Skips whitespace, returning true if there is another token to lex.
+     */
+    private boolean hasToken() {
         while (chars.has(0)) {
             char c = chars.get(0);
             switch(c) {
@@ -42,11 +80,10 @@ public final class Lexer {
                 case '\t':
                     lexEscape(); break;
                 default:
-                    tokens.add(lexToken()); break;
+                    return true;
             }
         }
-        return tokens;
-        //throw new UnsupportedOperationException(); //TODO
+        return false;
     }
 
     /**
@@ -207,14 +244,19 @@ public final class Lexer {
      * You should rely on peek/match for state management in nearly all cases.
      * The only field you need to access is {@link #index} for any {@link
      * ParseException} which is thrown.
+     *
+     * The input may be any {@link CharSequence}, such as a {@link
+     * MappedSource} reading directly from a memory-mapped file; only the
+     * literals of emitted tokens are copied.
      */
     public static final class CharStream {
 
-        private final String input;
+        private final CharSequence input;
+        private final Symbols.Table symbols = new Symbols.Table();
         private int index = 0;
         private int length = 0;
 
-        public CharStream(String input) {
+        public CharStream(CharSequence input) {
             this.input = input;
         }
 
@@ -238,7 +280,7 @@ public final class Lexer {
         public Token emit(Token.Type type) {
             int start = index - length;
             skip();
-            return new Token(type, input.substring(start, index), start);
+            return symbols.token(type, input, start, index);
         }
 
     }
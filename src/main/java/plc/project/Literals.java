@@ -0,0 +1,130 @@
+package plc.project;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Decodes the value of integer, decimal, character and string literals in a
+ * single pass over their chars in the source, for {@link Token#getValue()} and
+ * {@link TokenBuffer#getValue(int)}.
+ *
+ * Integers and decimals of up to 18 digits are accumulated into a long rather
+ * than parsed from a copied string, and small integers are shared from a
+ * canonical cache.
+ */
+final class Literals {
+
+    private static final int CACHE_LOW = -128;
+    private static final int CACHE_HIGH = 1024;
+    private static final BigInteger[] INTEGERS = new BigInteger[CACHE_HIGH - CACHE_LOW + 1];
+    private static final int MAX_DIGITS = 18;
+
+    static {
+        for (int i = 0; i < INTEGERS.length; i++) {
+            INTEGERS[i] = BigInteger.valueOf(i + CACHE_LOW);
+        }
+    }
+
+    private Literals() {}
+
+    /**
+     * Returns the value of the literal from {@code start} to {@code end}: a
+     * {@link BigInteger}, {@link BigDecimal}, {@link Character} or
+     * {@link String}. Identifiers and operators are their own literal.
+     */
+    static Object decode(Token.Type type, CharSequence source, int start, int end) {
+        switch (type) {
+            case INTEGER:
+                return integer(source, start, end);
+            case DECIMAL:
+                return decimal(source, start, end);
+            case CHARACTER:
+                return character(source, start, end);
+            case STRING:
+                return string(source, start, end);
+            default:
+                return source.subSequence(start, end).toString();
+        }
+    }
+
+    /**
+     * Returns the shared {@link BigInteger} for {@code value}, if it is small
+     * enough to be cached.
+     */
+    static BigInteger integer(long value) {
+        if (value >= CACHE_LOW && value <= CACHE_HIGH) {
+            return INTEGERS[(int) value - CACHE_LOW];
+        }
+        return BigInteger.valueOf(value);
+    }
+
+    private static BigInteger integer(CharSequence source, int start, int end) {
+        int digits = hasSign(source, start) ? start + 1 : start;
+        if (end - digits > MAX_DIGITS) {
+            return new BigInteger(source.subSequence(start, end).toString());
+        }
+        long value = 0;
+        for (int i = digits; i < end; i++) {
+            value = value * 10 + (source.charAt(i) - '0');
+        }
+        return integer(source.charAt(start) == '-' ? -value : value);
+    }
+
+    private static BigDecimal decimal(CharSequence source, int start, int end) {
+        int digits = hasSign(source, start) ? start + 1 : start;
+        if (end - digits - 1 > MAX_DIGITS) {
+            return new BigDecimal(source.subSequence(start, end).toString());
+        }
+        long unscaled = 0;
+        int scale = 0;
+        for (int i = digits; i < end; i++) {
+            char c = source.charAt(i);
+            if (c == '.') {
+                scale = end - i - 1;
+            } else {
+                unscaled = unscaled * 10 + (c - '0');
+            }
+        }
+        return BigDecimal.valueOf(source.charAt(start) == '-' ? -unscaled : unscaled, scale);
+    }
+
+    private static Character character(CharSequence source, int start, int end) {
+        char c = source.charAt(start + 1);
+        return c == '\\' ? escape(source.charAt(start + 2)) : c;
+    }
+
+    private static String string(CharSequence source, int start, int end) {
+        int first = start + 1;
+        int last = end - 1;
+        int escape = first;
+        while (escape < last && source.charAt(escape) != '\\') {
+            escape++;
+        }
+        if (escape == last) {
+            return source.subSequence(first, last).toString();
+        }
+        StringBuilder builder = new StringBuilder(last - first);
+        builder.append(source, first, escape);
+        for (int i = escape; i < last; i++) {
+            char c = source.charAt(i);
+            builder.append(c == '\\' ? escape(source.charAt(++i)) : c);
+        }
+        return builder.toString();
+    }
+
+    private static char escape(char c) {
+        switch (c) {
+            case 'b': return '\b';
+            case 'n': return '\n';
+            case 'r': return '\r';
+            case 't': return '\t';
+            default: return c; // ', " and \ stand for themselves
+        }
+    }
+
+    private static boolean hasSign(CharSequence source, int start) {
+        char c = source.charAt(start);
+        return c == '+' || c == '-';
+    }
+
+}
@@ -0,0 +1,123 @@
+package plc.project;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A source file exposed as a {@link CharSequence} over a memory-mapped region,
+ * so that large inputs can be lexed without first being read onto the heap.
+ *
+ * ASCII files (the common case) are read in place, one byte per char. Other
+ * UTF-8 files are decoded once into a direct buffer, which is still off-heap;
+ * see {@link #map(Path)}.
+ */
+public final class MappedSource implements CharSequence {
+
+    /**
+     * The largest non-ASCII file which can be decoded, as its chars take two
+     * bytes each in a direct buffer, which holds at most {@code
+     * Integer.MAX_VALUE} bytes.
+     */
+    static final int MAX_DECODED = Integer.MAX_VALUE / 2;
+
+    private final ByteBuffer bytes;
+
+    /**
+     * Views {@code bytes} as chars, one per byte. The bytes must be ASCII.
+     */
+    MappedSource(ByteBuffer bytes) {
+        this.bytes = bytes;
+    }
+
+    /**
+     * Maps the file at {@code path} and returns its contents as a char
+     * sequence. Throws an {@link IOException} if the file is not valid UTF-8,
+     * or is not ASCII and larger than {@link #MAX_DECODED} bytes.
+     */
+    public static CharSequence map(Path path) throws IOException {
+        MappedByteBuffer buffer = mapBytes(path);
+        if (isAscii(buffer)) {
+            return new MappedSource(buffer);
+        }
+        if (buffer.limit() > MAX_DECODED) {
+            throw new IOException("The file " + path + " is too large to decode; files which are not ASCII are limited to " + MAX_DECODED + " bytes.");
+        }
+        return decode(buffer);
+    }
+
+    /**
+     * Maps the file at {@code path} as raw bytes, such as for the
+     * {@link Utf8Lexer}.
+     */
+    public static MappedByteBuffer mapBytes(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("The file " + path + " is too large to map.");
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Returns true if every byte in the buffer is ASCII, checking eight bytes
+     * at a time.
+     */
+    static boolean isAscii(ByteBuffer buffer) {
+        int i = 0;
+        int limit = buffer.limit();
+        for (; i + Long.BYTES <= limit; i += Long.BYTES) {
+            if ((buffer.getLong(i) & 0x8080808080808080L) != 0) {
+                return false;
+            }
+        }
+        for (; i < limit; i++) {
+            if (buffer.get(i) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static CharBuffer decode(ByteBuffer buffer) throws IOException {
+        // UTF-8 never needs more chars than bytes.
+        CharBuffer chars = ByteBuffer.allocateDirect(buffer.limit() * 2).asCharBuffer();
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder();
+        CoderResult result = decoder.decode(buffer.duplicate(), chars, true);
+        if (result.isError()) {
+            result.throwException();
+        }
+        decoder.flush(chars);
+        return chars.flip();
+    }
+
+    @Override
+    public int length() {
+        return bytes.limit();
+    }
+
+    @Override
+    public char charAt(int index) {
+        return (char) bytes.get(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return new MappedSource(bytes.slice(start, end - start));
+    }
+
+    @Override
+    public String toString() {
+        byte[] copy = new byte[bytes.limit()];
+        bytes.get(0, copy);
+        return new String(copy, StandardCharsets.US_ASCII);
+    }
+
+}
@@ -0,0 +1,139 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Lexes large inputs by splitting them into chunks and lexing the chunks in
+ * parallel on a {@link ForkJoinPool}, producing the same tokens (and the same
+ * first error) as {@link Lexer#lex()}.
+ *
+ * Chunks are split at line breaks. No token can contain a {@code \n}, and
+ * string and character literals cannot span lines, so a line break is always
+ * whitespace outside of any literal and the lexer state is the same on either
+ * side of it. Token indices are offsets into the whole input, so the chunk
+ * results are simply concatenated.
+ */
+public final class ParallelLexer {
+
+    /**
+     * The default minimum number of chars in a chunk.
+     */
+    public static final int CHUNK_SIZE = 1 << 16;
+
+    private final CharSequence input;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+
+    public ParallelLexer(CharSequence input) {
+        this(input, ForkJoinPool.commonPool(), CHUNK_SIZE);
+    }
+
+    public ParallelLexer(CharSequence input, ForkJoinPool pool, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("The chunk size must be positive.");
+        }
+        this.input = input;
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Lexes the entire input. If any chunk fails, the error from the earliest
+     * chunk is thrown, which is the error the sequential lexer would report.
+     */
+    public List<Token> lex() {
+        List<Chunk> chunks = split();
+        if (chunks.size() == 1) {
+            chunks.get(0).compute();
+        } else {
+            pool.invoke(new RecursiveAction() {
+
+                @Override
+                protected void compute() {
+                    invokeAll(chunks);
+                }
+
+            });
+        }
+        int size = 0;
+        for (Chunk chunk : chunks) {
+            if (chunk.error != null) {
+                throw chunk.error;
+            }
+            size += chunk.tokens.size();
+        }
+        List<Token> tokens = new ArrayList<>(size);
+        for (Chunk chunk : chunks) {
+            tokens.addAll(chunk.tokens);
+        }
+        return tokens;
+    }
+
+    /**
+     * Splits the input into chunks of at least {@link #chunkSize} chars, each
+     * ending at a line break or the end of the input.
+     */
+    private List<Chunk> split() {
+        List<Chunk> chunks = new ArrayList<>();
+        int length = input.length();
+        int start = 0;
+        while (start < length) {
+            int end = start + chunkSize;
+            while (end < length && input.charAt(end) != '\n') {
+                end++;
+            }
+            end = Math.min(end, length);
+            chunks.add(new Chunk(start, end));
+            start = end;
+        }
+        if (chunks.isEmpty()) {
+            chunks.add(new Chunk(0, 0));
+        }
+        return chunks;
+    }
+
+    /**
+     * Lexes the input from {@code start} to {@code end}. Each chunk has its own
+     * {@link Symbols.Table}, since tables are not thread safe.
+     */
+    @SuppressWarnings("serial")
+    private final class Chunk extends RecursiveAction {
+
+        private final int start;
+        private final int end;
+        private final List<Token> tokens = new ArrayList<>();
+        private ParseException error;
+
+        private Chunk(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            Symbols.Table symbols = new Symbols.Table();
+            int index = start;
+            try {
+                while (true) {
+                    while (index < end && DfaLexer.isWhitespace(input.charAt(index))) {
+                        index++;
+                    }
+                    if (index >= end) {
+                        break;
+                    }
+                    long result = DfaLexer.scan(input, index, end);
+                    int next = (int) result;
+                    tokens.add(symbols.token(DfaLexer.ACCEPTS[(int) (result >>> 32)], input, index, next));
+                    index = next;
+                }
+            } catch (ParseException e) {
+                error = e;
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,96 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Parses the declarations of a source in parallel on a {@link ForkJoinPool},
+ * producing the same {@link Ast.Source} as {@link Parser#parseSource()}.
+ *
+ * A pre-scan by {@link Declarations} finds the token range of each field and
+ * method, and each range is then parsed by its own {@link Parser}. If the scan
+ * cannot split the source or any range throws a {@link ParseException}, the
+ * whole source is parsed again sequentially, so errors are reported exactly
+ * as by {@link Parser}. Any other exception, such as one from the pool, is
+ * thrown as it is.
+ */
+public final class ParallelParser {
+
+    /**
+     * The number of declarations parsed in one task, to amortize the cost of
+     * forking over many small methods.
+     */
+    private static final int BATCH = 16;
+
+    private final List<Token> tokens;
+    private final ForkJoinPool pool;
+
+    public ParallelParser(List<Token> tokens) {
+        this(tokens, ForkJoinPool.commonPool());
+    }
+
+    public ParallelParser(List<Token> tokens, ForkJoinPool pool) {
+        this.tokens = tokens;
+        this.pool = pool;
+    }
+
+    public Ast.Source parseSource() throws ParseException {
+        int[] bounds = Declarations.split(tokens);
+        if (bounds != null) {
+            try {
+                Ast[] declarations = new Ast[bounds.length - 1];
+                pool.invoke(new Batch(bounds, declarations, 0, declarations.length));
+                List<Ast.Field> fields = new ArrayList<>();
+                List<Ast.Method> methods = new ArrayList<>();
+                for (Ast declaration : declarations) {
+                    if (declaration instanceof Ast.Field) {
+                        fields.add((Ast.Field) declaration);
+                    } else {
+                        methods.add((Ast.Method) declaration);
+                    }
+                }
+                return new Ast.Source(fields, methods);
+            } catch (ParseException e) {
+                // Parse sequentially to report the error, since a slice may
+                // also fail by running out of tokens.
+            }
+        }
+        return new Parser(tokens).parseSource();
+    }
+
+    /**
+     * Parses declarations {@code from} (inclusive) to {@code to} (exclusive),
+     * splitting the range in half until it is at most {@link #BATCH}.
+     */
+    @SuppressWarnings("serial")
+    private final class Batch extends RecursiveAction {
+
+        private final int[] bounds;
+        private final Ast[] declarations;
+        private final int from;
+        private final int to;
+
+        private Batch(int[] bounds, Ast[] declarations, int from, int to) {
+            this.bounds = bounds;
+            this.declarations = declarations;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > BATCH) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Batch(bounds, declarations, from, middle), new Batch(bounds, declarations, middle, to));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                declarations[i] = new Parser(tokens.subList(bounds[i], bounds[i + 1])).parseDeclaration();
+            }
+        }
+
+    }
+
+}
@@ -1,10 +1,12 @@
 package plc.project;
 
-import java.math.BigDecimal;
-import java.math.BigInteger;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 // ToDo - finalize index check of improper characters and resolve has() checking for tokens (may be redundant)
@@ -14,8 +16,9 @@ import java.util.Optional;
  * Tree (AST).
  *
  * The parser has a similar architecture to the lexer, just with {@link Token}s
- * instead of characters. As before, {@link #peek(Object...)} and {@link
- * #match(Object...)} are helpers to make the implementation easier.
+ * instead of characters. {@link #peek(int)} and {@link #match(int)} look ahead
+ * one token for a keyword or operator by its {@link Symbols} ID, and {@link
+ * #peek(Token.Type)} and {@link #match(Token.Type)} for a token type.
  *
  * This type of parser is called <em>recursive descent</em>. Each rule in our
  * grammar will have its own function, and reference to other rules correspond
@@ -23,10 +26,132 @@ import java.util.Optional;
  */
 public final class Parser {
 
+    static final int LOGICAL = 1;
+    static final int EQUALITY = 2;
+    static final int ADDITIVE = 3;
+    static final int MULTIPLICATIVE = 4;
+
+    /**
+     * The precedence of each binary operator by {@link Symbols} ID, or 0 if
+     * the symbol is not a binary operator.
+     */
+    static final int[] PRECEDENCE = new int[Symbols.COUNT];
+
+    static {
+        for (int symbol : new int[] {Symbols.AND, Symbols.OR, Symbols.AMPERSANDS, Symbols.PIPES}) {
+            PRECEDENCE[symbol] = LOGICAL;
+        }
+        for (int symbol : new int[] {Symbols.LESS, Symbols.LESS_EQUAL, Symbols.GREATER, Symbols.GREATER_EQUAL, Symbols.EQUAL, Symbols.NOT_EQUAL}) {
+            PRECEDENCE[symbol] = EQUALITY;
+        }
+        PRECEDENCE[Symbols.PLUS] = ADDITIVE;
+        PRECEDENCE[Symbols.MINUS] = ADDITIVE;
+        PRECEDENCE[Symbols.STAR] = MULTIPLICATIVE;
+        PRECEDENCE[Symbols.SLASH] = MULTIPLICATIVE;
+    }
+
     private final TokenStream tokens;
 
+    /**
+     * The tokens of a lazy parser, see {@link #lazy(List)}, or null.
+     */
+    private final List<Token> lazy;
+
+    /**
+     * The canonical node for each shared expression, see {@link
+     * #shareExpressions()}, or null.
+     */
+    private Map<Ast.Expression, Ast.Expression> shared = null;
+
     public Parser(List<Token> tokens) {
-        this.tokens = new TokenStream(tokens);
+        this(tokens.iterator());
+    }
+
+    /**
+     * Creates a parser pulling tokens on demand, such as from {@link
+     * Lexer#iterator()}. Only a small window of tokens is retained at a time.
+     */
+    public Parser(Iterator<Token> tokens) {
+        this.tokens = new IteratorTokenStream(tokens);
+        this.lazy = null;
+    }
+
+    /**
+     * Creates a parser reading a {@link TokenBuffer} in place, without
+     * materializing {@link Token} objects.
+     */
+    public Parser(TokenBuffer tokens) {
+        this.tokens = new BufferTokenStream(tokens);
+        this.lazy = null;
+    }
+
+    private Parser(List<Token> tokens, boolean lazy) {
+        this.tokens = new ListTokenStream(tokens);
+        this.lazy = lazy ? tokens : null;
+    }
+
+    /**
+     * Creates a parser which only records the token range of each method
+     * body, parsing its statements the first time {@link
+     * Ast.Method#getStatements()} is used, such as when the method is first
+     * called by the {@link Interpreter}. Errors in a body are thrown at that
+     * point rather than by {@link #parseSource()}.
+     *
+     * The end of a body is found by counting blocks: {@code IF}, {@code FOR}
+     * and {@code WHILE} each open one closed by an {@code END}. These keywords
+     * are therefore reserved in lazy bodies, except as a name after a
+     * {@code .}.
+     */
+    public static Parser lazy(List<Token> tokens) {
+        return new Parser(tokens, true);
+    }
+
+    /**
+     * Makes this parser hash-cons expressions, returning one node for all
+     * structurally equal literals and for groups and binary expressions built
+     * only from shared nodes. Variables and function calls, and expressions
+     * containing them, are never shared, since the {@link Analyzer} resolves
+     * each occurrence in its own scope; the shared expressions are those whose
+     * annotations do not depend on where they occur.
+     *
+     * Returns this parser. Method bodies of a lazy parser share the same
+     * nodes when they are parsed.
+     */
+    public Parser shareExpressions() {
+        shared = new HashMap<>();
+        return this;
+    }
+
+    /**
+     * Returns the canonical node equal to {@code expression} if it can be
+     * shared, recording it if it is the first, or {@code expression} itself.
+     * Children are shared first, so a group or binary expression can be
+     * shared if its children are canonical.
+     */
+    private Ast.Expression share(Ast.Expression expression) {
+        if (shared == null) {
+            return expression;
+        }
+        if (expression instanceof Ast.Expression.Group) {
+            if (!isShared(((Ast.Expression.Group) expression).getExpression())) {
+                return expression;
+            }
+        }
+        else if (expression instanceof Ast.Expression.Binary) {
+            Ast.Expression.Binary binary = (Ast.Expression.Binary) expression;
+            if (!isShared(binary.getLeft()) || !isShared(binary.getRight())) {
+                return expression;
+            }
+        }
+        else if (!(expression instanceof Ast.Expression.Literal)) {
+            return expression;
+        }
+        Ast.Expression canonical = shared.putIfAbsent(expression, expression);
+        return canonical != null ? canonical : expression;
+    }
+
+    private boolean isShared(Ast.Expression expression) {
+        return shared.get(expression) == expression;
     }
 
     /**
@@ -39,24 +164,35 @@ public final class Parser {
         Ast.Source source = new Ast.Source(fields, methods);
 
         while (tokens.has(0)) {
-            Token t = tokens.get(0);
-            if (peek("LET")) {
+            if (peek(Symbols.LET)) {
                 fields.add(parseField());
             }
             else
                 break;
         }
         while (tokens.has(0)) {
-            if (peek("DEF")) {
+            if (peek(Symbols.DEF)) {
                 methods.add(parseMethod());
             }
             else {
-                throw new ParseException("Expected a method at index: ", tokens.get(0).getIndex());
+                throw new ParseException("Expected a method at index: ", tokens.getIndex(0));
             }
         }
         return source;
     }
 
+    /**
+     * Parses a single field or method, which must use all of the tokens. This
+     * is used to parse the slices found by {@link Declarations} on their own.
+     */
+    Ast parseDeclaration() throws ParseException {
+        Ast ast = peek(Symbols.LET) ? parseField() : parseMethod();
+        if (tokens.has(0)) {
+            throw new ParseException("Expected the end of the declaration at index: ", tokens.getIndex(0));
+        }
+        return ast;
+    }
+
     /**
      * Parses the {@code field} rule. This method should only be called if the
      * next tokens start a field, aka {@code LET}.
@@ -67,33 +203,33 @@ public final class Parser {
         boolean constant = false;
         Optional<Ast.Expression> value = Optional.empty();
 
-        match("LET");
-        if (match("CONST")) {
+        match(Symbols.LET);
+        if (match(Symbols.CONST)) {
             constant = true;
         }
         if (!match(Token.Type.IDENTIFIER)) {
             if (tokens.has(0)) {
-                throw new ParseException("Expected an identifier at index: ", tokens.get(0).getIndex());
+                throw new ParseException("Expected an identifier at index: ", tokens.getIndex(0));
             }
             else
-                throw new ParseException("Expected identifier", tokens.get(-1).getIndex()+tokens.get(-1).getLiteral().length());
+                throw new ParseException("Expected identifier", tokens.getEnd(-1));
         }
-        name = tokens.get(-1).getLiteral();
+        name = tokens.getLiteral(-1);
         // Modified parser starts here
         checkForRequiredType();
-        String type = tokens.get(-1).getLiteral();
+        String type = tokens.getLiteral(-1);
         // Modified parser ends here
 
-        if (match("=")) {
+        if (match(Symbols.ASSIGN)) {
             if (tokens.has(0)) {
                 value = Optional.of(parseExpression());
             }
             else {
-                throw new ParseException("Expected an expression", tokens.get(-1).getIndex()+tokens.get(-1).getLiteral().length());
+                throw new ParseException("Expected an expression", tokens.getEnd(-1));
             }
         }
-        if (!match(";")) {
-            throw new ParseException("Expected semicolon at index: ", tokens.get(-1).getIndex()+tokens.get(-1).getLiteral().length());
+        if (!match(Symbols.SEMICOLON)) {
+            throw new ParseException("Expected semicolon at index: ", tokens.getEnd(-1));
         }
 
         return new Ast.Field(name, type, constant, value);
@@ -106,71 +242,175 @@ public final class Parser {
     public Ast.Method parseMethod() throws ParseException {
         String name = "";
         List<String> parameters = new ArrayList<>();
-        List<Ast.Statement> statements = new ArrayList<>();
+        List<Ast.Statement> statements;
         Optional<String> returnType = Optional.empty();
         List<String> parameterTypeNames = new ArrayList<>();
 
-        match("DEF");
+        match(Symbols.DEF);
         if (!match(Token.Type.IDENTIFIER)) {
             if (tokens.has(0)) {
-                throw new ParseException("Expected an identifier at index: ", tokens.get(0).getIndex());
+                throw new ParseException("Expected an identifier at index: ", tokens.getIndex(0));
             }
             else
-                throw new ParseException("Expected identifier", tokens.get(-1).getIndex()+tokens.get(-1).getLiteral().length());
+                throw new ParseException("Expected identifier", tokens.getEnd(-1));
         }
-        name = tokens.get(-1).getLiteral();
+        name = tokens.getLiteral(-1);
 
-        if(!match("(")) {
-            throw new ParseException("Expected left paren", tokens.get(-1).getIndex()+tokens.get(-1).getLiteral().length());
+        if(!match(Symbols.LEFT_PAREN)) {
+            throw new ParseException("Expected left paren", tokens.getEnd(-1));
         }
         if (match(Token.Type.IDENTIFIER)) {
-            parameters.add(tokens.get(-1).getLiteral());
+            parameters.add(tokens.getLiteral(-1));
             checkForRequiredType();
-            parameterTypeNames.add(tokens.get(-1).getLiteral());
+            parameterTypeNames.add(tokens.getLiteral(-1));
 
-            while (match(",")) {
+            while (match(Symbols.COMMA)) {
                 if (!match(Token.Type.IDENTIFIER)) {
-                    throw new ParseException("Expected identifier", tokens.get(-1).getIndex()+tokens.get(-1).getLiteral().length());
+                    throw new ParseException("Expected identifier", tokens.getEnd(-1));
                 }
-                parameters.add(tokens.get(-1).getLiteral());
+                parameters.add(tokens.getLiteral(-1));
                 checkForRequiredType();
-                parameterTypeNames.add(tokens.get(-1).getLiteral());
+                parameterTypeNames.add(tokens.getLiteral(-1));
             }
         }
 
 
-        if(!match(")")) {
-            throw new ParseException("Expected right paren", tokens.get(-1).getIndex()+tokens.get(-1).getLiteral().length());
+        if(!match(Symbols.RIGHT_PAREN)) {
+            throw new ParseException("Expected right paren", tokens.getEnd(-1));
         }
         returnType = checkOptionalReturnType(returnType);
-        if(!match("DO")) {
+        if(!match(Symbols.DO)) {
             if (tokens.has(0)) {
-                throw new ParseException("Expected DO at index: ", tokens.get(0).getIndex());
+                throw new ParseException("Expected DO at index: ", tokens.getIndex(0));
             }
             else
-                throw new ParseException("Expected DO: ", tokens.get(-1).getIndex()+tokens.get(-1).getLiteral().length());
+                throw new ParseException("Expected DO: ", tokens.getEnd(-1));
         }
-        while (!match("END")) {
-            statements.add(parseStatement());
+        if (lazy != null) {
+            statements = new LazyStatements(lazy.subList(tokens.index, skipBlock()), shared);
+        }
+        else {
+            statements = parseBlock();
         }
 
         return new Ast.Method(name, parameters, parameterTypeNames, returnType, statements );
     }
 
+    /**
+     * Parses statements up to and including the {@code END} of the current
+     * block.
+     */
+    private List<Ast.Statement> parseBlock() throws ParseException {
+        List<Ast.Statement> statements = new ArrayList<>();
+        while (!match(Symbols.END)) {
+            statements.add(parseStatement());
+        }
+        return statements;
+    }
+
+    /**
+     * Advances past the {@code END} of the current block without parsing it,
+     * returning the new index. Used by lazy parsers only.
+     */
+    private int skipBlock() throws ParseException {
+        int depth = 0;
+        for (int i = tokens.index; i < lazy.size(); i++) {
+            int symbol = lazy.get(i).getSymbol();
+            if (i > 0 && lazy.get(i - 1).getSymbol() == Symbols.DOT) {
+                continue;
+            }
+            if (symbol == Symbols.IF || symbol == Symbols.FOR || symbol == Symbols.WHILE) {
+                depth++;
+            }
+            else if (symbol == Symbols.END && depth-- == 0) {
+                tokens.index = i + 1;
+                return tokens.index;
+            }
+        }
+        Token last = lazy.get(lazy.size() - 1);
+        throw new ParseException("Expected END", last.getIndex() + last.getLiteral().length());
+    }
+
+    /**
+     * The statements of a method body, parsed from its tokens on first use.
+     * Parsing is synchronized so a tree may be shared between threads; bodies
+     * sharing expressions lock the shared map, which is not thread-safe.
+     */
+    private static final class LazyStatements extends AbstractList<Ast.Statement> {
+
+        private final Object lock;
+        private List<Token> body;
+        private Map<Ast.Expression, Ast.Expression> shared;
+        private volatile List<Ast.Statement> statements;
+
+        private LazyStatements(List<Token> body, Map<Ast.Expression, Ast.Expression> shared) {
+            this.lock = shared != null ? shared : this;
+            this.body = body;
+            this.shared = shared;
+        }
+
+        private List<Ast.Statement> parse() {
+            List<Ast.Statement> result = statements;
+            if (result != null) {
+                return result;
+            }
+            synchronized (lock) {
+                if (statements == null) {
+                    Parser parser = new Parser(body, false);
+                    parser.shared = shared;
+                    List<Ast.Statement> parsed = parser.parseBlock();
+                    if (parser.tokens.has(0)) {
+                        throw new ParseException("Unexpected END at index: ", parser.tokens.getIndex(-1));
+                    }
+                    statements = parsed;
+                    body = null;
+                    shared = null;
+                }
+                return statements;
+            }
+        }
+
+        @Override
+        public Ast.Statement get(int index) {
+            return parse().get(index);
+        }
+
+        @Override
+        public int size() {
+            return parse().size();
+        }
+
+        @Override
+        public Ast.Statement set(int index, Ast.Statement element) {
+            return parse().set(index, element);
+        }
+
+        @Override
+        public void add(int index, Ast.Statement element) {
+            parse().add(index, element);
+        }
+
+        @Override
+        public Ast.Statement remove(int index) {
+            return parse().remove(index);
+        }
+
+    }
+
     private void checkForRequiredType() {
-        if (!match(":")) {
+        if (!match(Symbols.COLON)) {
             if (tokens.has(0)) {
-                throw new ParseException("Expected a ':' at index: ", tokens.get(0).getIndex());
+                throw new ParseException("Expected a ':' at index: ", tokens.getIndex(0));
             }
             else
-                throw new ParseException("Expected a ':' ", tokens.get(-1).getIndex()+tokens.get(-1).getLiteral().length());
+                throw new ParseException("Expected a ':' ", tokens.getEnd(-1));
         }
         if (!match(Token.Type.IDENTIFIER)) {
             if (tokens.has(0)) {
-                throw new ParseException("Expected an identifier (type) at index: ", tokens.get(0).getIndex());
+                throw new ParseException("Expected an identifier (type) at index: ", tokens.getIndex(0));
             }
             else
-                throw new ParseException("Expected identifier (type)", tokens.get(-1).getIndex()+tokens.get(-1).getLiteral().length());
+                throw new ParseException("Expected identifier (type)", tokens.getEnd(-1));
         }
     }
 
@@ -178,36 +418,36 @@ public final class Parser {
      * Parses the {@code statement} rule and delegates to the necessary method.
      * If the next tokens do not start a declaration, if, while, or return
      * statement, then it is an expression/assignment statement.
+     *
+     * The production is chosen by a single switch on the {@link Symbols} ID
+     * of the first token, since the keywords starting each statement are
+     * disjoint from the first tokens of an expression.
      */
     public Ast.Statement parseStatement() throws ParseException {
-        if (peek("LET")) {
-            return parseDeclarationStatement(); // match ';' in method
-        }
-        else if (peek("IF")) {
-            return parseIfStatement(); // match ';' in method
-        }
-        else if (peek("FOR")) {
-            return parseForStatement(); // match ';' in method
-        }
-        else if (peek("WHILE")) {
-            return parseWhileStatement(); // match ';' in method
-        }
-        else if (peek("RETURN")) {
-            return parseReturnStatement(); // match ';' in method
-        }
-        else {
-            Ast.Expression expr = parseExpression();
-            if (match("=")) {
-                Ast.Expression expr2 = parseExpression();
-                if (!match(";")) {
-                    throw new ParseException("Expected semicolon at index: ", tokens.get(-1).getIndex()+tokens.get(-1).getLiteral().length());
+        switch (tokens.has(0) ? tokens.getSymbol(0) : Symbols.NONE) {
+            case Symbols.LET:
+                return parseDeclarationStatement(); // match ';' in method
+            case Symbols.IF:
+                return parseIfStatement(); // match ';' in method
+            case Symbols.FOR:
+                return parseForStatement(); // match ';' in method
+            case Symbols.WHILE:
+                return parseWhileStatement(); // match ';' in method
+            case Symbols.RETURN:
+                return parseReturnStatement(); // match ';' in method
+            default:
+                Ast.Expression expr = parseExpression();
+                if (match(Symbols.ASSIGN)) {
+                    Ast.Expression expr2 = parseExpression();
+                    if (!match(Symbols.SEMICOLON)) {
+                        throw new ParseException("Expected semicolon at index: ", tokens.getEnd(-1));
+                    }
+                    return new Ast.Statement.Assignment(expr, expr2);
                 }
-                return new Ast.Statement.Assignment(expr, expr2);
-            }
-            if (!match(";")) {
-                throw new ParseException("Expected semicolon at index: ", tokens.get(-1).getIndex()+tokens.get(-1).getLiteral().length());
-            }
-            return new Ast.Statement.Expression(expr);
+                if (!match(Symbols.SEMICOLON)) {
+                    throw new ParseException("Expected semicolon at index: ", tokens.getEnd(-1));
+                }
+                return new Ast.Statement.Expression(expr);
         }
     }
 
@@ -218,42 +458,42 @@ public final class Parser {
      */
     public Ast.Statement.Declaration parseDeclarationStatement() throws ParseException {
         Optional<String> type = Optional.empty();
-        match("LET");
+        match(Symbols.LET);
         if (!match(Token.Type.IDENTIFIER)) {
             if (tokens.has(0)) {
-                throw new ParseException("Expected an identifier at index: ", tokens.get(0).getIndex());
+                throw new ParseException("Expected an identifier at index: ", tokens.getIndex(0));
             }
             else
-                throw new ParseException("Expected identifier", tokens.get(-1).getIndex()+tokens.get(-1).getLiteral().length());
+                throw new ParseException("Expected identifier", tokens.getEnd(-1));
         }
-        String name = tokens.get(-1).getLiteral();
+        String name = tokens.getLiteral(-1);
         type = checkOptionalReturnType(type);
         Optional<Ast.Expression> value = Optional.empty();
-        if (match("=")) {
+        if (match(Symbols.ASSIGN)) {
             if (tokens.has(0)) {
                 value = Optional.of(parseExpression());
             }
             else {
-                throw new ParseException("Expected an expression", tokens.get(-1).getIndex()+tokens.get(-1).getLiteral().length());
+                throw new ParseException("Expected an expression", tokens.getEnd(-1));
             }
         }
-        if (!match(";")) {
-            throw new ParseException("Expected semicolon at index: ", tokens.get(-1).getIndex()+tokens.get(-1).getLiteral().length());
+        if (!match(Symbols.SEMICOLON)) {
+            throw new ParseException("Expected semicolon at index: ", tokens.getEnd(-1));
         }
 
         return new Ast.Statement.Declaration(name, type, value);
     }
 
     private Optional<String> checkOptionalReturnType(Optional<String> type) {
-        if (match(":")) {
+        if (match(Symbols.COLON)) {
             if (!match(Token.Type.IDENTIFIER)) {
                 if (tokens.has(0)) {
-                    throw new ParseException("Expected an identifier (type) at index: ", tokens.get(0).getIndex());
+                    throw new ParseException("Expected an identifier (type) at index: ", tokens.getIndex(0));
                 }
                 else
-                    throw new ParseException("Expected identifier (type)", tokens.get(-1).getIndex()+tokens.get(-1).getLiteral().length());
+                    throw new ParseException("Expected identifier (type)", tokens.getEnd(-1));
             }
-            type = Optional.of(tokens.get(-1).getLiteral());
+            type = Optional.of(tokens.getLiteral(-1));
         }
         return type;
     }
@@ -264,7 +504,7 @@ public final class Parser {
      * {@code IF}.
      */
     public Ast.Statement.If parseIfStatement() throws ParseException {
-        match("IF");
+        match(Symbols.IF);
         Ast.Expression condition;
         List<Ast.Statement> thenStatements = new ArrayList<>();
         List<Ast.Statement> elseStatements = new ArrayList<>();
@@ -273,19 +513,19 @@ public final class Parser {
             condition = parseExpression();
         }
         else {
-            throw new ParseException("Expected an expression", tokens.get(-1).getIndex()+tokens.get(-1).getLiteral().length());
+            throw new ParseException("Expected an expression", tokens.getEnd(-1));
         }
-        if(!match("DO")) {
+        if(!match(Symbols.DO)) {
             if (tokens.has(0)) {
-                throw new ParseException("Expected DO at index: ", tokens.get(0).getIndex());
+                throw new ParseException("Expected DO at index: ", tokens.getIndex(0));
             }
-            throw new ParseException("Expected DO: ", tokens.get(-1).getIndex()+tokens.get(-1).getLiteral().length());
+            throw new ParseException("Expected DO: ", tokens.getEnd(-1));
         }
-        while (!match("END") && !match("ELSE")) {
+        while (!match(Symbols.END) && !match(Symbols.ELSE)) {
             thenStatements.add(parseStatement());
         }
-        if (tokens.get(-1).getLiteral().equals("ELSE")) {
-            while (!match("END")) {
+        if (tokens.getSymbol(-1) == Symbols.ELSE) {
+            while (!match(Symbols.END)) {
                 elseStatements.add(parseStatement());
             }
         }
@@ -303,37 +543,37 @@ public final class Parser {
         Ast.Statement increment = null;
         List<Ast.Statement> statements = new ArrayList<>();
 
-        match("FOR");
-        if(!match("(")) {
-            throw new ParseException("Expected left paren", tokens.get(-1).getIndex()+tokens.get(-1).getLiteral().length());
+        match(Symbols.FOR);
+        if(!match(Symbols.LEFT_PAREN)) {
+            throw new ParseException("Expected left paren", tokens.getEnd(-1));
         }
         if (match(Token.Type.IDENTIFIER)) {
-            Ast.Expression expr1 = new Ast.Expression.Access(Optional.empty(), tokens.get(-1).getLiteral());
-            if(!match("=")) {
-                throw new ParseException("Expected =", tokens.get(-1).getIndex()+tokens.get(-1).getLiteral().length());
+            Ast.Expression expr1 = new Ast.Expression.Access(Optional.empty(), tokens.getLiteral(-1));
+            if(!match(Symbols.ASSIGN)) {
+                throw new ParseException("Expected =", tokens.getEnd(-1));
             }
             Ast.Expression expr2 = parseExpression();
             initialization = new Ast.Statement.Assignment(expr1, expr2);
         }
-        if (!match(";")) {
-            throw new ParseException("Expected semicolon at index: ", tokens.get(-1).getIndex()+tokens.get(-1).getLiteral().length());
+        if (!match(Symbols.SEMICOLON)) {
+            throw new ParseException("Expected semicolon at index: ", tokens.getEnd(-1));
         }
         condition = parseExpression();
-        if (!match(";")) {
-            throw new ParseException("Expected semicolon at index: ", tokens.get(-1).getIndex()+tokens.get(-1).getLiteral().length());
+        if (!match(Symbols.SEMICOLON)) {
+            throw new ParseException("Expected semicolon at index: ", tokens.getEnd(-1));
         }
         if (match(Token.Type.IDENTIFIER)) {
-            Ast.Expression expr1 = new Ast.Expression.Access(Optional.empty(), tokens.get(-1).getLiteral());
-            if(!match("=")) {
-                throw new ParseException("Expected =", tokens.get(-1).getIndex()+tokens.get(-1).getLiteral().length());
+            Ast.Expression expr1 = new Ast.Expression.Access(Optional.empty(), tokens.getLiteral(-1));
+            if(!match(Symbols.ASSIGN)) {
+                throw new ParseException("Expected =", tokens.getEnd(-1));
             }
             Ast.Expression expr2 = parseExpression();
             increment = new Ast.Statement.Assignment(expr1, expr2);
         }
-        if(!match(")")) {
-            throw new ParseException("Expected right paren", tokens.get(-1).getIndex()+tokens.get(-1).getLiteral().length());
+        if(!match(Symbols.RIGHT_PAREN)) {
+            throw new ParseException("Expected right paren", tokens.getEnd(-1));
         }
-        while (!match("END")) {
+        while (!match(Symbols.END)) {
             if (tokens.has(0)) {
                 statements.add(parseStatement());
             }
@@ -341,8 +581,8 @@ public final class Parser {
                 break;
             }
         }
-        if (!tokens.get(-1).getLiteral().equals("END")) {
-            throw new ParseException("Expected END at index: ", tokens.get(-1).getIndex()+tokens.get(-1).getLiteral().length());
+        if (tokens.getSymbol(-1) != Symbols.END) {
+            throw new ParseException("Expected END at index: ", tokens.getEnd(-1));
         }
         return new Ast.Statement.For(initialization, condition, increment, statements);
     }
@@ -353,18 +593,18 @@ public final class Parser {
      * {@code WHILE}.
      */
     public Ast.Statement.While parseWhileStatement() throws ParseException {
-        match("WHILE");
+        match(Symbols.WHILE);
         Ast.Expression condition = parseExpression();
         List<Ast.Statement> statements = new ArrayList<>();
 
-        if (!match("DO")) {
+        if (!match(Symbols.DO)) {
             if (tokens.has(0)) {
-                throw new ParseException("Expected DO at index: ", tokens.get(0).getIndex());
+                throw new ParseException("Expected DO at index: ", tokens.getIndex(0));
             }
             else
-                throw new ParseException("Expected DO: ", tokens.get(-1).getIndex()+tokens.get(-1).getLiteral().length());
+                throw new ParseException("Expected DO: ", tokens.getEnd(-1));
         }
-        while (!match("END")) {
+        while (!match(Symbols.END)) {
             if (tokens.has(0)) {
                 statements.add(parseStatement());
             }
@@ -372,8 +612,8 @@ public final class Parser {
                 break;
             }
         }
-        if (!tokens.get(-1).getLiteral().equals("END")) {
-            throw new ParseException("Expected END at index: ", tokens.get(-1).getIndex()+tokens.get(-1).getLiteral().length());
+        if (tokens.getSymbol(-1) != Symbols.END) {
+            throw new ParseException("Expected END at index: ", tokens.getEnd(-1));
         }
         return new Ast.Statement.While(condition, statements);
     }
@@ -384,10 +624,10 @@ public final class Parser {
      * {@code RETURN}.
      */
     public Ast.Statement.Return parseReturnStatement() throws ParseException {
-        match("RETURN");
+        match(Symbols.RETURN);
         Ast.Expression value = parseExpression();
-        if (!match(";")) {
-            throw new ParseException("Expected ;", tokens.get(-1).getIndex()+tokens.get(-1).getLiteral().length());
+        if (!match(Symbols.SEMICOLON)) {
+            throw new ParseException("Expected ;", tokens.getEnd(-1));
         }
         return new Ast.Statement.Return(value);
     }
@@ -396,7 +636,7 @@ public final class Parser {
      * Parses the {@code expression} rule.
      */
     public Ast.Expression parseExpression() throws ParseException {
-        return parseLogicalExpression();
+        return parseBinaryExpression(LOGICAL);
         //throw new UnsupportedOperationException();
     }
 
@@ -404,14 +644,8 @@ public final class Parser {
      * Parses the {@code logical-expression} rule.
      */
     public Ast.Expression parseLogicalExpression() throws ParseException {
-        Ast.Expression expr = parseEqualityExpression();
-        while (match("AND") || match("OR") || match("&&") || match("||")) {
-            // Added in match on "||" and "&&" because test cases don't align with project spec
-            String operator = tokens.get(-1).getLiteral();
-            Ast.Expression right = parseEqualityExpression();
-            expr = new Ast.Expression.Binary(operator,expr,right);
-        }
-        return expr;
+        // Also matches "||" and "&&" because test cases don't align with project spec
+        return parseBinaryExpression(LOGICAL);
         //throw new UnsupportedOperationException();
     }
 
@@ -419,13 +653,7 @@ public final class Parser {
      * Parses the {@code equality-expression} rule.
      */
     public Ast.Expression parseEqualityExpression() throws ParseException {
-        Ast.Expression expr = parseAdditiveExpression();
-        while (match("<") || match("<=") || match(">") || match(">=") || match("==") || match("!=") ) {
-            String operator = tokens.get(-1).getLiteral();
-            Ast.Expression right = parseAdditiveExpression();
-            expr = new Ast.Expression.Binary(operator,expr,right);
-        }
-        return expr;
+        return parseBinaryExpression(EQUALITY);
         //throw new UnsupportedOperationException();
     }
 
@@ -433,18 +661,7 @@ public final class Parser {
      * Parses the {@code additive-expression} rule.
      */
     public Ast.Expression parseAdditiveExpression() throws ParseException {
-        Ast.Expression expr = parseMultiplicativeExpression();
-        while (match("+") || match("-")) {
-            String operator = tokens.get(-1).getLiteral();
-            if (tokens.has(0)) {
-            Ast.Expression right = parseMultiplicativeExpression();
-            expr = new Ast.Expression.Binary(operator,expr,right);
-            }
-            else {
-                throw new ParseException("Expected additive", tokens.get(-1).getIndex()+tokens.get(-1).getLiteral().length());
-            }
-        }
-        return expr;
+        return parseBinaryExpression(ADDITIVE);
         //throw new UnsupportedOperationException();
     }
 
@@ -452,19 +669,36 @@ public final class Parser {
      * Parses the {@code multiplicative-expression} rule.
      */
     public Ast.Expression parseMultiplicativeExpression() throws ParseException {
+        return parseBinaryExpression(MULTIPLICATIVE);
+        //throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Parses a chain of binary operators binding at least as tightly as
+     * {@code minimum} by precedence climbing, replacing a method per
+     * precedence level. The operator's precedence is looked up by its
+     * {@link Symbols} ID in {@link #PRECEDENCE}, and all operators are left
+     * associative, so the right operand only takes tighter operators. This
+     * builds the same trees as the {@code logical-expression} through
+     * {@code multiplicative-expression} rules.
+     */
+    private Ast.Expression parseBinaryExpression(int minimum) throws ParseException {
         Ast.Expression expr = parseSecondaryExpression();
-        while (match("*") || match("/")) {
-            String operator = tokens.get(-1).getLiteral();
-            if (tokens.has(0)) {
-            Ast.Expression right = parseSecondaryExpression();
-            expr = new Ast.Expression.Binary(operator,expr,right);
+        while (tokens.has(0)) {
+            int symbol = tokens.getSymbol(0);
+            int precedence = PRECEDENCE[symbol];
+            if (precedence < minimum) {
+                break;
             }
-            else {
-                throw new ParseException("Expected multiplicative", tokens.get(-1).getIndex()+tokens.get(-1).getLiteral().length());
+            tokens.advance();
+            if (precedence >= ADDITIVE && !tokens.has(0)) {
+                throw new ParseException(precedence == ADDITIVE ? "Expected additive" : "Expected multiplicative",
+                        tokens.getEnd(-1));
             }
+            Ast.Expression right = parseBinaryExpression(precedence + 1);
+            expr = share(new Ast.Expression.Binary(Symbols.getName(symbol), expr, right));
         }
         return expr;
-        //throw new UnsupportedOperationException();
     }
 
     /**
@@ -472,20 +706,20 @@ public final class Parser {
      */
     public Ast.Expression parseSecondaryExpression() throws ParseException {
         Ast.Expression expr = parsePrimaryExpression();
-        while (match(".")) {
+        while (match(Symbols.DOT)) {
             if (match(Token.Type.IDENTIFIER)) {
-                String name = tokens.get(-1).getLiteral();
-                if (match("(")) {
+                String name = tokens.getLiteral(-1);
+                if (match(Symbols.LEFT_PAREN)) {
                     List<Ast.Expression> args = new ArrayList<>();
-                    if (!match(")")) {
+                    if (!match(Symbols.RIGHT_PAREN)) {
                         do {
                             Ast.Expression expr2 = parseExpression();
                             args.add(expr2);
-                        } while (match(","));
+                        } while (match(Symbols.COMMA));
 
-                        if (!match(")")) {
+                        if (!match(Symbols.RIGHT_PAREN)) {
                             throw new ParseException("Expected ')' at index: ",
-                                    tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length());
+                                    tokens.getEnd(-1));
                         }
                     }
                     expr = new Ast.Expression.Function(Optional.of(expr), name, args);
@@ -496,7 +730,7 @@ public final class Parser {
             }
             else {
                 throw new ParseException("Expected identifier at index: ",
-                        tokens.get(-1).getIndex()+tokens.get(-1).getLiteral().length());
+                        tokens.getEnd(-1));
             }
         }
         return expr;
@@ -508,155 +742,334 @@ public final class Parser {
      * for expressions and includes literal values, grouping, variables, and
      * functions. It may be helpful to break these up into other methods but is
      * not strictly necessary.
+     *
+     * The alternative is chosen by a switch on the token type and then, for
+     * identifiers, on the {@link Symbols} ID, rather than probing each one in
+     * turn.
      */
     public Ast.Expression parsePrimaryExpression() throws ParseException {
-        if (match("TRUE")) {
-            return new Ast.Expression.Literal(Boolean.TRUE);
-        }
-        else if (match("FALSE")) {
-            return new Ast.Expression.Literal(Boolean.FALSE);
-        }
-        else if (match("NIL")) {
-            return new Ast.Expression.Literal(null);
-        }
-        else if (match(Token.Type.INTEGER)) {
-            return new Ast.Expression.Literal(new BigInteger(tokens.get(-1).getLiteral()));
-        }
-        else if (match(Token.Type.DECIMAL)) {
-            return new Ast.Expression.Literal(new BigDecimal(tokens.get(-1).getLiteral()));
-        }
-        else if (match(Token.Type.CHARACTER)) {
-            String c = tokens.get(-1).getLiteral();
-            c = c.substring(1, c.length()-1);
-            c = c.replace("\\n", "\n")
-                    .replace("\\t", "\t")
-                    .replace("\\r", "\r")
-                    .replace("\\b", "\b")
-                    .replace("\\\"", "\"")
-                    .replace("\\\\", "\\");
-            return new Ast.Expression.Literal(c.charAt(0));
-        }
-        else if (match(Token.Type.STRING)) {
-            String s = tokens.get(-1).getLiteral();
-            s = s.substring(1, s.length()-1);
-            s = s.replace("\\n", "\n")
-                    .replace("\\t", "\t")
-                    .replace("\\r", "\r")
-                    .replace("\\b", "\b")
-                    .replace("\\\"", "\"")
-                    .replace("\\\\", "\\");
-            return new Ast.Expression.Literal(s);
-        }
-        else if (match("(")) {
-            Ast.Expression expr = parseExpression();
-            if (!match(")")) {
+        switch (tokens.has(0) ? tokens.getType(0) : Token.Type.OPERATOR) {
+            case INTEGER:
+            case DECIMAL:
+            case CHARACTER:
+            case STRING:
+                tokens.advance();
+                return share(new Ast.Expression.Literal(tokens.getValue(-1)));
+            case IDENTIFIER:
+                switch (tokens.getSymbol(0)) {
+                    case Symbols.TRUE:
+                        tokens.advance();
+                        return share(new Ast.Expression.Literal(Boolean.TRUE));
+                    case Symbols.FALSE:
+                        tokens.advance();
+                        return share(new Ast.Expression.Literal(Boolean.FALSE));
+                    case Symbols.NIL:
+                        tokens.advance();
+                        return share(new Ast.Expression.Literal(null));
+                    default:
+                        return parseNameExpression();
+                }
+            default:
+                if (match(Symbols.LEFT_PAREN)) {
+                    Ast.Expression expr = parseExpression();
+                    if (!match(Symbols.RIGHT_PAREN)) {
+                        throw new ParseException("Expected ')' at index: ",
+                                tokens.getEnd(-1));
+                    }
+                    return share(new Ast.Expression.Group(expr));
+                }
+                throw new ParseException("End of Syntax Tree Error at: ",
+                        tokens.getIndex(0));
+        }
+    }
+
+    /**
+     * Parses a variable or function call starting with the identifier at the
+     * current token, from the {@code primary-expression} rule.
+     */
+    private Ast.Expression parseNameExpression() throws ParseException {
+        tokens.advance();
+        String name = tokens.getLiteral(-1);
+        if (match(Symbols.LEFT_PAREN)) {
+            List<Ast.Expression> args = new ArrayList<>();
+            if (match(Symbols.RIGHT_PAREN)) {return new Ast.Expression.Function(Optional.empty(),name, args);}
+            do {
+                Ast.Expression expr2 = parseExpression();
+                args.add(expr2);
+            } while (match(Symbols.COMMA));
+
+            if (!match(Symbols.RIGHT_PAREN)) {
                 throw new ParseException("Expected ')' at index: ",
-                        tokens.get(-1).getIndex()+tokens.get(-1).getLiteral().length());
+                        tokens.getEnd(-1));
             }
-            return new Ast.Expression.Group(expr);
+            return new Ast.Expression.Function(Optional.empty(),name,args);
         }
-        else if (match(Token.Type.IDENTIFIER)) {
-            String name = tokens.get(-1).getLiteral();
-            if (match("(")) {
-                List<Ast.Expression> args = new ArrayList<>();
-                if (match(")")) {return new Ast.Expression.Function(Optional.empty(),name, args);}
-                do {
-                    Ast.Expression expr2 = parseExpression();
-                    args.add(expr2);
-                } while (match(","));
 
-                if (!match(")")) {
-                    throw new ParseException("Expected ')' at index: ",
-                            tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length());
-                }
-                return new Ast.Expression.Function(Optional.empty(),name,args);
-            }
+        return new Ast.Expression.Access(Optional.empty(), name);
+    }
 
-            return new Ast.Expression.Access(Optional.empty(), tokens.get(-1).getLiteral());
-        }
-        else {
-            throw new ParseException("End of Syntax Tree Error at: ",
-                    tokens.get(0).getIndex());
-        }
-        //throw new UnsupportedOperationException();
+    /**
+     * Returns {@code true} if the next token is the keyword or operator with
+     * the given {@link Symbols} ID. This compares the ID assigned by the lexer
+     * rather than the literal, and is used for all keyword probes.
+     */
+    private boolean peek(int symbol) {
+        return tokens.has(0) && tokens.getSymbol(0) == symbol;
     }
 
     /**
-     * As in the lexer, returns {@code true} if the current sequence of tokens
-     * matches the given patterns. Unlike the lexer, the pattern is not a regex;
-     * instead it is either a {@link Token.Type}, which matches if the token's
-     * type is the same, or a {@link String}, which matches if the token's
-     * literal is the same.
-     *
-     * In other words, {@code Token(IDENTIFIER, "literal")} is matched by both
-     * {@code peek(Token.Type.IDENTIFIER)} and {@code peek("literal")}.
+     * As with {@link #peek(int)}, but also advances the token stream.
      */
-    private boolean peek(Object... patterns) {
-        for (int i = 0; i <patterns.length; i++) {
-            if (!tokens.has(i)) {
-                return false;
-            }
-            else if (patterns[i] instanceof Token.Type) {
-                if (patterns[i] != tokens.get(i).getType()) {
-                    return false;
-                }
-            }
-            else if (patterns[i] instanceof String) {
-                if (!patterns[i].equals(tokens.get(i).getLiteral())) {
-                    return false;
-                }
-            }
-            else {
-                throw new AssertionError("Invalid pattern object: " + patterns[i].getClass());
-            }
+    private boolean match(int symbol) {
+        boolean peek = peek(symbol);
+        if (peek) {
+            tokens.advance();
         }
-        return true;
-        //throw new UnsupportedOperationException();
+        return peek;
+    }
+
+    /**
+     * Returns {@code true} if the next token has the given type.
+     */
+    private boolean peek(Token.Type type) {
+        return tokens.has(0) && tokens.getType(0) == type;
     }
 
     /**
-     * As in the lexer, returns {@code true} if {@link #peek(Object...)} is true
-     * and advances the token stream.
+     * As with {@link #peek(Token.Type)}, but also advances the token stream.
      */
-    private boolean match(Object... patterns) {
-        boolean peek = peek(patterns);
+    private boolean match(Token.Type type) {
+        boolean peek = peek(type);
         if (peek) {
-            for (int i = 0; i < patterns.length; i++) {
-                tokens.advance();
-            }
+            tokens.advance();
         }
         return peek;
-        //throw new UnsupportedOperationException();
     }
 
-    private static final class TokenStream {
+    /**
+     * The tokens being parsed, accessed relative to the current index. Tokens
+     * are read through accessors rather than as {@link Token} objects so a
+     * {@link TokenBuffer} can be parsed without materializing them.
+     */
+    private static abstract class TokenStream {
 
-        private final List<Token> tokens;
-        private int index = 0;
-
-        private TokenStream(List<Token> tokens) {
-            this.tokens = tokens;
-        }
+        protected int index = 0;
 
         /**
          * Returns true if there is a token at index + offset.
          */
+        public abstract boolean has(int offset);
+
+        public abstract Token.Type getType(int offset);
+
+        public abstract String getLiteral(int offset);
+
+        /**
+         * Returns the decoded value of the token at index + offset, see
+         * {@link Token#getValue()}.
+         */
+        public abstract Object getValue(int offset);
+
+        /**
+         * Returns the {@link Symbols} ID of the token at index + offset.
+         */
+        public abstract int getSymbol(int offset);
+
+        public abstract int getIndex(int offset);
+
+        /**
+         * Returns the index just past the end of the token at index + offset.
+         */
+        public abstract int getEnd(int offset);
+
+        /**
+         * Advances to the next token, incrementing the index.
+         */
+        public void advance() {
+            index++;
+        }
+
+    }
+
+    /**
+     * Reads tokens from an iterator through a ring buffer. The parser looks at
+     * most a couple of tokens ahead and one token behind ({@code get(-1)}), so
+     * only {@link #WINDOW} tokens are kept regardless of the input size.
+     */
+    private static final class IteratorTokenStream extends TokenStream {
+
+        private static final int WINDOW = 8;
+
+        private final Iterator<Token> source;
+        private final Token[] window = new Token[WINDOW];
+        private int size = 0;
+
+        private IteratorTokenStream(Iterator<Token> source) {
+            this.source = source;
+        }
+
+        @Override
         public boolean has(int offset) {
-            return index + offset < tokens.size();
+            return fill(index + offset);
         }
 
         /**
          * Gets the token at index + offset.
          */
         public Token get(int offset) {
-            return tokens.get(index + offset);
+            int position = index + offset;
+            if (position < 0 || position < size - WINDOW || !fill(position)) {
+                throw new IndexOutOfBoundsException("Token " + position + " is not available.");
+            }
+            return window[position % WINDOW];
+        }
+
+        @Override
+        public Token.Type getType(int offset) {
+            return get(offset).getType();
+        }
+
+        @Override
+        public String getLiteral(int offset) {
+            return get(offset).getLiteral();
+        }
+
+        @Override
+        public Object getValue(int offset) {
+            return get(offset).getValue();
+        }
+
+        @Override
+        public int getSymbol(int offset) {
+            return get(offset).getSymbol();
+        }
+
+        @Override
+        public int getIndex(int offset) {
+            return get(offset).getIndex();
+        }
+
+        @Override
+        public int getEnd(int offset) {
+            Token token = get(offset);
+            return token.getIndex() + token.getLiteral().length();
         }
 
         /**
-         * Advances to the next token, incrementing the index.
+         * Reads tokens from the source until {@code position} is buffered,
+         * returning false if the source runs out first.
          */
-        public void advance() {
-            index++;
+        private boolean fill(int position) {
+            if (position - index >= WINDOW - 1) {
+                throw new IllegalStateException("Lookahead of " + (position - index) + " exceeds the token window.");
+            }
+            while (size <= position && source.hasNext()) {
+                window[size % WINDOW] = source.next();
+                size++;
+            }
+            return position < size;
+        }
+
+    }
+
+    /**
+     * Reads tokens from a random access list, so a lazy parser can skip over
+     * method bodies without reading them.
+     */
+    private static final class ListTokenStream extends TokenStream {
+
+        private final List<Token> tokens;
+
+        private ListTokenStream(List<Token> tokens) {
+            this.tokens = tokens;
+        }
+
+        private Token get(int offset) {
+            return tokens.get(index + offset);
+        }
+
+        @Override
+        public boolean has(int offset) {
+            return index + offset < tokens.size();
+        }
+
+        @Override
+        public Token.Type getType(int offset) {
+            return get(offset).getType();
+        }
+
+        @Override
+        public String getLiteral(int offset) {
+            return get(offset).getLiteral();
+        }
+
+        @Override
+        public Object getValue(int offset) {
+            return get(offset).getValue();
+        }
+
+        @Override
+        public int getSymbol(int offset) {
+            return get(offset).getSymbol();
+        }
+
+        @Override
+        public int getIndex(int offset) {
+            return get(offset).getIndex();
+        }
+
+        @Override
+        public int getEnd(int offset) {
+            Token token = get(offset);
+            return token.getIndex() + token.getLiteral().length();
+        }
+
+    }
+
+    /**
+     * Reads tokens in place from a {@link TokenBuffer}.
+     */
+    private static final class BufferTokenStream extends TokenStream {
+
+        private final TokenBuffer buffer;
+
+        private BufferTokenStream(TokenBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public boolean has(int offset) {
+            return index + offset < buffer.size();
+        }
+
+        @Override
+        public Token.Type getType(int offset) {
+            return buffer.getType(index + offset);
+        }
+
+        @Override
+        public String getLiteral(int offset) {
+            return buffer.getLiteralString(index + offset);
+        }
+
+        @Override
+        public Object getValue(int offset) {
+            return buffer.getValue(index + offset);
+        }
+
+        @Override
+        public int getSymbol(int offset) {
+            return buffer.getSymbol(index + offset);
+        }
+
+        @Override
+        public int getIndex(int offset) {
+            return buffer.getIndex(index + offset);
+        }
+
+        @Override
+        public int getEnd(int offset) {
+            return buffer.getIndex(index + offset) + buffer.getLength(index + offset);
         }
 
     }
@@ -0,0 +1,610 @@
+package plc.project;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * A directory of parsed programs in a compact binary form, keyed by the
+ * SHA-256 hash of the source bytes, so a program seen before is loaded
+ * without lexing or parsing it.
+ *
+ * The tree is written in prefix order with the {@link FlatAst} kinds as tags.
+ * Strings are written once and then referred to by index. Annotations set by
+ * the {@link Analyzer} are kept where present: types are written by name and
+ * resolved with {@link Environment#getType(String)}, and each variable and
+ * function is written once, so nodes sharing one before still share it after
+ * loading. A tree with a type that is not registered cannot be stored.
+ *
+ * A file is written to a temporary name and moved into place, and a file that
+ * cannot be read (such as one from another format version) is a miss.
+ */
+public final class ProgramCache {
+
+    private static final int MAGIC = 0x504C4341;
+    private static final int VERSION = 1;
+
+    private static final int NIL = 0;
+    private static final int BOOLEAN = 1;
+    private static final int INTEGER = 2;
+    private static final int DECIMAL = 3;
+    private static final int CHARACTER = 4;
+    private static final int STRING = 5;
+
+    private final Path directory;
+
+    public ProgramCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Returns the hex SHA-256 hash of {@code source}, used as the file name.
+     */
+    public static String key(byte[] source) {
+        try {
+            StringBuilder builder = new StringBuilder(64);
+            for (byte b : MessageDigest.getInstance("SHA-256").digest(source)) {
+                builder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return builder.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    public Path getPath(byte[] source) {
+        return directory.resolve(key(source) + ".ast");
+    }
+
+    /**
+     * Returns the cached tree for {@code source}, or null if there is none
+     * or it cannot be read.
+     */
+    public Ast.Source load(byte[] source) {
+        Path path = getPath(source);
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        try {
+            return decode(MappedSource.mapBytes(path));
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Stores {@code ast} as the tree for {@code source}, returning false if
+     * it cannot be encoded. Encoding parses the bodies of a tree from {@link
+     * Parser#lazy(java.util.List)}, so a tree with an error in a body is not
+     * stored and the error is left to be thrown when the body is used.
+     */
+    public boolean store(byte[] source, Ast.Source ast) throws IOException {
+        byte[] bytes;
+        try {
+            bytes = encode(ast);
+        } catch (IllegalArgumentException | ParseException e) {
+            return false;
+        }
+        Path path = getPath(source);
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temporary, bytes);
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        return true;
+    }
+
+    /**
+     * Encodes {@code ast}, throwing an {@link IllegalArgumentException} if it
+     * contains a value or type which cannot be written.
+     */
+    static byte[] encode(Ast.Source ast) {
+        Writer writer = new Writer();
+        writer.writeFixed(MAGIC);
+        writer.writeFixed(VERSION);
+        writer.writeNode(ast);
+        return writer.out.toByteArray();
+    }
+
+    /**
+     * Decodes a tree written by {@link #encode(Ast.Source)}, throwing an
+     * {@link IllegalStateException} if it is not in this format.
+     */
+    static Ast.Source decode(ByteBuffer bytes) {
+        Reader reader = new Reader(bytes.duplicate());
+        if (reader.buffer.remaining() < 8 || reader.buffer.getInt() != MAGIC || reader.buffer.getInt() != VERSION) {
+            throw new IllegalStateException("Not a cached program of version " + VERSION + ".");
+        }
+        Ast ast = reader.readNode();
+        if (!(ast instanceof Ast.Source) || reader.buffer.hasRemaining()) {
+            throw new IllegalStateException("Malformed cached program.");
+        }
+        return (Ast.Source) ast;
+    }
+
+    /**
+     * Returns the annotation read by {@code getter}, or null if it has not
+     * been set.
+     */
+    private static <T> T annotation(Supplier<T> getter) {
+        try {
+            return getter.get();
+        } catch (IllegalStateException e) {
+            return null;
+        }
+    }
+
+    private static final class Writer {
+
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        private final Map<String, Integer> strings = new HashMap<>();
+        private final Map<Environment.Variable, Integer> variables = new IdentityHashMap<>();
+        private final Map<Environment.Function, Integer> functions = new IdentityHashMap<>();
+
+        private void writeFixed(int value) {
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                out.write(value >>> shift);
+            }
+        }
+
+        /**
+         * Writes a non-negative int in 7 bit groups, low group first.
+         */
+        private void writeInt(int value) {
+            while ((value & ~0x7F) != 0) {
+                out.write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.write(value);
+        }
+
+        private void writeBytes(byte[] bytes) {
+            writeInt(bytes.length);
+            out.write(bytes, 0, bytes.length);
+        }
+
+        /**
+         * Writes 0 for null, or the index of the string plus one, followed by
+         * the string itself the first time it is written.
+         */
+        private void writeString(String string) {
+            if (string == null) {
+                writeInt(0);
+                return;
+            }
+            Integer index = strings.get(string);
+            if (index != null) {
+                writeInt(index + 1);
+                return;
+            }
+            strings.put(string, strings.size());
+            writeInt(strings.size());
+            writeBytes(string.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private void writeStrings(List<String> list) {
+            writeInt(list.size());
+            for (String string : list) {
+                writeString(string);
+            }
+        }
+
+        private void writeType(Environment.Type type) {
+            if (type != null) {
+                Environment.Type registered;
+                try {
+                    registered = Environment.getType(type.getName());
+                } catch (RuntimeException e) {
+                    registered = null;
+                }
+                if (registered != type) {
+                    throw new IllegalArgumentException("The type " + type.getName() + " is not registered.");
+                }
+            }
+            writeString(type == null ? null : type.getName());
+        }
+
+        private void writeVariable(Environment.Variable variable) {
+            if (variable == null) {
+                writeInt(0);
+                return;
+            }
+            Integer index = variables.get(variable);
+            if (index != null) {
+                writeInt(index + 1);
+                return;
+            }
+            variables.put(variable, variables.size());
+            writeInt(variables.size());
+            writeString(variable.getName());
+            writeString(variable.getJvmName());
+            writeType(variable.getType());
+            out.write(variable.getConstant() ? 1 : 0);
+        }
+
+        private void writeFunction(Environment.Function function) {
+            if (function == null) {
+                writeInt(0);
+                return;
+            }
+            Integer index = functions.get(function);
+            if (index != null) {
+                writeInt(index + 1);
+                return;
+            }
+            functions.put(function, functions.size());
+            writeInt(functions.size());
+            writeString(function.getName());
+            writeString(function.getJvmName());
+            writeInt(function.getParameterTypes().size());
+            for (Environment.Type type : function.getParameterTypes()) {
+                writeType(type);
+            }
+            writeType(function.getReturnType());
+        }
+
+        private void writeLiteral(Object literal) {
+            if (literal == null) {
+                out.write(NIL);
+            } else if (literal instanceof Boolean) {
+                out.write(BOOLEAN);
+                out.write((Boolean) literal ? 1 : 0);
+            } else if (literal instanceof BigInteger) {
+                out.write(INTEGER);
+                writeBytes(((BigInteger) literal).toByteArray());
+            } else if (literal instanceof BigDecimal) {
+                out.write(DECIMAL);
+                writeBytes(((BigDecimal) literal).unscaledValue().toByteArray());
+                writeFixed(((BigDecimal) literal).scale());
+            } else if (literal instanceof Character) {
+                out.write(CHARACTER);
+                writeInt((Character) literal);
+            } else if (literal instanceof String) {
+                out.write(STRING);
+                writeString((String) literal);
+            } else {
+                throw new IllegalArgumentException("Unsupported literal " + literal.getClass().getName() + ".");
+            }
+        }
+
+        private void writeNodes(List<? extends Ast> nodes) {
+            writeInt(nodes.size());
+            for (Ast node : nodes) {
+                writeNode(node);
+            }
+        }
+
+        private void writeNode(Optional<? extends Ast> node) {
+            writeNode(node.orElse(null));
+        }
+
+        /**
+         * Writes the kind of {@code ast}, or 0xFF for null, followed by its
+         * children and annotations.
+         */
+        private void writeNode(Ast ast) {
+            if (ast == null) {
+                out.write(0xFF);
+            } else if (ast instanceof Ast.Source) {
+                out.write(FlatAst.SOURCE);
+                writeNodes(((Ast.Source) ast).getFields());
+                writeNodes(((Ast.Source) ast).getMethods());
+            } else if (ast instanceof Ast.Field) {
+                Ast.Field field = (Ast.Field) ast;
+                out.write(FlatAst.FIELD);
+                writeString(field.getName());
+                writeString(field.getTypeName());
+                out.write(field.getConstant() ? 1 : 0);
+                writeNode(field.getValue());
+                writeVariable(annotation(field::getVariable));
+            } else if (ast instanceof Ast.Method) {
+                Ast.Method method = (Ast.Method) ast;
+                out.write(FlatAst.METHOD);
+                writeString(method.getName());
+                writeStrings(method.getParameters());
+                writeStrings(method.getParameterTypeNames());
+                writeString(method.getReturnTypeName().orElse(null));
+                writeNodes(method.getStatements());
+                writeFunction(annotation(method::getFunction));
+            } else if (ast instanceof Ast.Statement.Expression) {
+                out.write(FlatAst.EXPRESSION_STATEMENT);
+                writeNode(((Ast.Statement.Expression) ast).getExpression());
+            } else if (ast instanceof Ast.Statement.Declaration) {
+                Ast.Statement.Declaration declaration = (Ast.Statement.Declaration) ast;
+                out.write(FlatAst.DECLARATION);
+                writeString(declaration.getName());
+                writeString(declaration.getTypeName().orElse(null));
+                writeNode(declaration.getValue());
+                writeVariable(annotation(declaration::getVariable));
+            } else if (ast instanceof Ast.Statement.Assignment) {
+                out.write(FlatAst.ASSIGNMENT);
+                writeNode(((Ast.Statement.Assignment) ast).getReceiver());
+                writeNode(((Ast.Statement.Assignment) ast).getValue());
+            } else if (ast instanceof Ast.Statement.If) {
+                out.write(FlatAst.IF);
+                writeNode(((Ast.Statement.If) ast).getCondition());
+                writeNodes(((Ast.Statement.If) ast).getThenStatements());
+                writeNodes(((Ast.Statement.If) ast).getElseStatements());
+            } else if (ast instanceof Ast.Statement.For) {
+                Ast.Statement.For statement = (Ast.Statement.For) ast;
+                out.write(FlatAst.FOR);
+                writeNode(statement.getInitialization());
+                writeNode(statement.getCondition());
+                writeNode(statement.getIncrement());
+                writeNodes(statement.getStatements());
+            } else if (ast instanceof Ast.Statement.While) {
+                out.write(FlatAst.WHILE);
+                writeNode(((Ast.Statement.While) ast).getCondition());
+                writeNodes(((Ast.Statement.While) ast).getStatements());
+            } else if (ast instanceof Ast.Statement.Return) {
+                out.write(FlatAst.RETURN);
+                writeNode(((Ast.Statement.Return) ast).getValue());
+            } else if (ast instanceof Ast.Expression.Literal) {
+                out.write(FlatAst.LITERAL);
+                writeLiteral(((Ast.Expression.Literal) ast).getLiteral());
+                writeType(annotation(((Ast.Expression.Literal) ast)::getType));
+            } else if (ast instanceof Ast.Expression.Group) {
+                out.write(FlatAst.GROUP);
+                writeNode(((Ast.Expression.Group) ast).getExpression());
+                writeType(annotation(((Ast.Expression.Group) ast)::getType));
+            } else if (ast instanceof Ast.Expression.Binary) {
+                Ast.Expression.Binary binary = (Ast.Expression.Binary) ast;
+                out.write(FlatAst.BINARY);
+                writeString(binary.getOperator());
+                writeNode(binary.getLeft());
+                writeNode(binary.getRight());
+                writeType(annotation(binary::getType));
+            } else if (ast instanceof Ast.Expression.Access) {
+                Ast.Expression.Access access = (Ast.Expression.Access) ast;
+                out.write(FlatAst.ACCESS);
+                writeNode(access.getReceiver());
+                writeString(access.getName());
+                writeVariable(annotation(access::getVariable));
+            } else if (ast instanceof Ast.Expression.Function) {
+                Ast.Expression.Function function = (Ast.Expression.Function) ast;
+                out.write(FlatAst.FUNCTION);
+                writeNode(function.getReceiver());
+                writeString(function.getName());
+                writeNodes(function.getArguments());
+                writeFunction(annotation(function::getFunction));
+            } else {
+                throw new IllegalArgumentException("Unsupported AST type " + ast.getClass().getName() + ".");
+            }
+        }
+
+    }
+
+    private static final class Reader {
+
+        private final ByteBuffer buffer;
+        private final List<String> strings = new ArrayList<>();
+        private final List<Environment.Variable> variables = new ArrayList<>();
+        private final List<Environment.Function> functions = new ArrayList<>();
+
+        private Reader(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        private int readInt() {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = buffer.get();
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+
+        private byte[] readBytes() {
+            byte[] bytes = new byte[readInt()];
+            buffer.get(bytes);
+            return bytes;
+        }
+
+        private String readString() {
+            int index = readInt();
+            if (index == 0) {
+                return null;
+            } else if (index <= strings.size()) {
+                return strings.get(index - 1);
+            } else if (index != strings.size() + 1) {
+                throw new IllegalStateException("Malformed cached program.");
+            }
+            String string = new String(readBytes(), StandardCharsets.UTF_8);
+            strings.add(string);
+            return string;
+        }
+
+        private List<String> readStrings() {
+            int size = readInt();
+            List<String> list = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                list.add(readString());
+            }
+            return list;
+        }
+
+        private Environment.Type readType() {
+            String name = readString();
+            return name == null ? null : Environment.getType(name);
+        }
+
+        private Environment.Variable readVariable() {
+            int index = readInt();
+            if (index == 0) {
+                return null;
+            } else if (index <= variables.size()) {
+                return variables.get(index - 1);
+            }
+            String name = readString();
+            String jvmName = readString();
+            Environment.Type type = readType();
+            Environment.Variable variable = new Environment.Variable(name, jvmName, type, buffer.get() != 0, Environment.NIL);
+            variables.add(variable);
+            return variable;
+        }
+
+        private Environment.Function readFunction() {
+            int index = readInt();
+            if (index == 0) {
+                return null;
+            } else if (index <= functions.size()) {
+                return functions.get(index - 1);
+            }
+            String name = readString();
+            String jvmName = readString();
+            int arity = readInt();
+            List<Environment.Type> parameterTypes = new ArrayList<>(arity);
+            for (int i = 0; i < arity; i++) {
+                parameterTypes.add(readType());
+            }
+            Environment.Function function = new Environment.Function(name, jvmName, parameterTypes, readType(), args -> Environment.NIL);
+            functions.add(function);
+            return function;
+        }
+
+        private Object readLiteral() {
+            switch (buffer.get()) {
+                case NIL:
+                    return null;
+                case BOOLEAN:
+                    return buffer.get() != 0;
+                case INTEGER:
+                    return new BigInteger(readBytes());
+                case DECIMAL:
+                    BigInteger unscaled = new BigInteger(readBytes());
+                    return new BigDecimal(unscaled, buffer.getInt());
+                case CHARACTER:
+                    return (char) readInt();
+                case STRING:
+                    return readString();
+                default:
+                    throw new IllegalStateException("Malformed cached program.");
+            }
+        }
+
+        private <T extends Ast> List<T> readNodes(Class<T> type) {
+            int size = readInt();
+            List<T> nodes = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                nodes.add(type.cast(readNode()));
+            }
+            return nodes;
+        }
+
+        private Optional<Ast.Expression> readOptional() {
+            return Optional.ofNullable((Ast.Expression) readNode());
+        }
+
+        private Ast readNode() {
+            switch (buffer.get()) {
+                case -1:
+                    return null;
+                case FlatAst.SOURCE: {
+                    List<Ast.Field> fields = readNodes(Ast.Field.class);
+                    return new Ast.Source(fields, readNodes(Ast.Method.class));
+                }
+                case FlatAst.FIELD: {
+                    String name = readString();
+                    String typeName = readString();
+                    boolean constant = buffer.get() != 0;
+                    Ast.Field field = new Ast.Field(name, typeName, constant, readOptional());
+                    field.setVariable(readVariable());
+                    return field;
+                }
+                case FlatAst.METHOD: {
+                    String name = readString();
+                    List<String> parameters = readStrings();
+                    List<String> parameterTypeNames = readStrings();
+                    Optional<String> returnTypeName = Optional.ofNullable(readString());
+                    Ast.Method method = new Ast.Method(name, parameters, parameterTypeNames, returnTypeName, readNodes(Ast.Statement.class));
+                    method.setFunction(readFunction());
+                    return method;
+                }
+                case FlatAst.EXPRESSION_STATEMENT:
+                    return new Ast.Statement.Expression((Ast.Expression) readNode());
+                case FlatAst.DECLARATION: {
+                    String name = readString();
+                    Optional<String> typeName = Optional.ofNullable(readString());
+                    Ast.Statement.Declaration declaration = new Ast.Statement.Declaration(name, typeName, readOptional());
+                    declaration.setVariable(readVariable());
+                    return declaration;
+                }
+                case FlatAst.ASSIGNMENT: {
+                    Ast.Expression receiver = (Ast.Expression) readNode();
+                    return new Ast.Statement.Assignment(receiver, (Ast.Expression) readNode());
+                }
+                case FlatAst.IF: {
+                    Ast.Expression condition = (Ast.Expression) readNode();
+                    List<Ast.Statement> thenStatements = readNodes(Ast.Statement.class);
+                    return new Ast.Statement.If(condition, thenStatements, readNodes(Ast.Statement.class));
+                }
+                case FlatAst.FOR: {
+                    Ast.Statement initialization = (Ast.Statement) readNode();
+                    Ast.Expression condition = (Ast.Expression) readNode();
+                    Ast.Statement increment = (Ast.Statement) readNode();
+                    return new Ast.Statement.For(initialization, condition, increment, readNodes(Ast.Statement.class));
+                }
+                case FlatAst.WHILE: {
+                    Ast.Expression condition = (Ast.Expression) readNode();
+                    return new Ast.Statement.While(condition, readNodes(Ast.Statement.class));
+                }
+                case FlatAst.RETURN:
+                    return new Ast.Statement.Return((Ast.Expression) readNode());
+                case FlatAst.LITERAL: {
+                    Ast.Expression.Literal literal = new Ast.Expression.Literal(readLiteral());
+                    literal.setType(readType());
+                    return literal;
+                }
+                case FlatAst.GROUP: {
+                    Ast.Expression.Group group = new Ast.Expression.Group((Ast.Expression) readNode());
+                    group.setType(readType());
+                    return group;
+                }
+                case FlatAst.BINARY: {
+                    String operator = readString();
+                    Ast.Expression left = (Ast.Expression) readNode();
+                    Ast.Expression.Binary binary = new Ast.Expression.Binary(operator, left, (Ast.Expression) readNode());
+                    binary.setType(readType());
+                    return binary;
+                }
+                case FlatAst.ACCESS: {
+                    Optional<Ast.Expression> receiver = readOptional();
+                    Ast.Expression.Access access = new Ast.Expression.Access(receiver, readString());
+                    access.setVariable(readVariable());
+                    return access;
+                }
+                case FlatAst.FUNCTION: {
+                    Optional<Ast.Expression> receiver = readOptional();
+                    String name = readString();
+                    Ast.Expression.Function function = new Ast.Expression.Function(receiver, name, readNodes(Ast.Expression.class));
+                    function.setFunction(readFunction());
+                    return function;
+                }
+                default:
+                    throw new IllegalStateException("Malformed cached program.");
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,871 @@
+package plc.project;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Evaluates a tree as {@link Interpreter} does, but resolves every name once
+ * before running instead of on each use.
+ *
+ * Resolving turns the tree into a tree of {@link Node}s which hold what each
+ * name was bound to. Each local variable and parameter is given a slot in the
+ * frame of its method, which is an array allocated per call; block scopes
+ * share their method's frame, with a new slot for each declaration. Fields
+ * and variables already in scope are bound directly to their {@link
+ * Environment.Variable}, and each call site to its {@link
+ * Environment.Function}, so running a program does no lookups by name or by
+ * node. A name which is not bound when resolving is looked up by name when
+ * reached, giving the same result or error as the {@link Interpreter}.
+ * Fields, and declarations visited outside of a method, are defined in
+ * {@link #getScope()} as the {@link Interpreter} defines them.
+ *
+ * One behavior differs on purpose. The {@link Interpreter} keeps a single
+ * scope for all calls of a method, so a second or recursive call of a method
+ * with parameters or local variables fails with the variable already
+ * defined. Here each call has its own frame, so such calls succeed.
+ *
+ * The given tree is left unchanged.
+ */
+public final class ResolvedInterpreter implements Ast.Visitor<Environment.PlcObject> {
+
+    private final Scope scope;
+    private Environment.PlcObject[] frame = new Environment.PlcObject[0];
+
+    public ResolvedInterpreter(Scope parent) {
+        scope = new Scope(parent);
+        scope.defineFunction("print", 1, args -> {
+            System.out.println(args.get(0).getValue());
+            return Environment.NIL;
+        });
+    }
+
+    public Scope getScope() {
+        return scope;
+    }
+
+    @Override
+    public Environment.PlcObject visit(Ast.Source ast) {
+        return run(ast);
+    }
+
+    @Override
+    public Environment.PlcObject visit(Ast.Field ast) {
+        return run(ast);
+    }
+
+    @Override
+    public Environment.PlcObject visit(Ast.Method ast) {
+        return run(ast);
+    }
+
+    @Override
+    public Environment.PlcObject visit(Ast.Statement.Expression ast) {
+        return run(ast);
+    }
+
+    @Override
+    public Environment.PlcObject visit(Ast.Statement.Declaration ast) {
+        return run(ast);
+    }
+
+    @Override
+    public Environment.PlcObject visit(Ast.Statement.Assignment ast) {
+        return run(ast);
+    }
+
+    @Override
+    public Environment.PlcObject visit(Ast.Statement.If ast) {
+        return run(ast);
+    }
+
+    @Override
+    public Environment.PlcObject visit(Ast.Statement.For ast) {
+        return run(ast);
+    }
+
+    @Override
+    public Environment.PlcObject visit(Ast.Statement.While ast) {
+        return run(ast);
+    }
+
+    @Override
+    public Environment.PlcObject visit(Ast.Statement.Return ast) {
+        return run(ast);
+    }
+
+    @Override
+    public Environment.PlcObject visit(Ast.Expression.Literal ast) {
+        return run(ast);
+    }
+
+    @Override
+    public Environment.PlcObject visit(Ast.Expression.Group ast) {
+        return run(ast);
+    }
+
+    @Override
+    public Environment.PlcObject visit(Ast.Expression.Binary ast) {
+        return run(ast);
+    }
+
+    @Override
+    public Environment.PlcObject visit(Ast.Expression.Access ast) {
+        return run(ast);
+    }
+
+    @Override
+    public Environment.PlcObject visit(Ast.Expression.Function ast) {
+        return run(ast);
+    }
+
+    /**
+     * Resolves {@code ast} and evaluates it. A declaration outside of any
+     * block is defined in the scope, and those in blocks outside of a method
+     * are given a frame of their own.
+     */
+    private Environment.PlcObject run(Ast ast) {
+        Resolver resolver = new Resolver();
+        Node node = resolver.visit(ast);
+        Environment.PlcObject[] caller = frame;
+        frame = new Environment.PlcObject[resolver.slots];
+        try {
+            return node.evaluate();
+        }
+        finally {
+            frame = caller;
+        }
+    }
+
+    /**
+     * A statement or expression with its names resolved. Statements evaluate
+     * to NIL, and RETURN throws the value as in {@link Interpreter}.
+     */
+    private abstract class Node {
+
+        abstract Environment.PlcObject evaluate();
+
+    }
+
+    private final class Program extends Node {
+
+        private final Node[] fields;
+
+        private Program(Node[] fields) {
+            this.fields = fields;
+        }
+
+        @Override
+        Environment.PlcObject evaluate() {
+            execute(fields);
+            try {
+                return scope.lookupFunction("main", 0).invoke(new ArrayList<>());
+            }
+            catch (Exception e) {
+                System.out.println(e.getMessage());
+                return Environment.NIL;
+            }
+        }
+
+    }
+
+    /**
+     * A field or a declaration outside of any block, defined in the scope.
+     * Accesses resolved to it read the variable it defined.
+     */
+    private final class Define extends Node {
+
+        private final String name;
+        private final boolean constant;
+        private final Node value;
+        private Environment.Variable variable;
+
+        private Define(String name, boolean constant, Node value) {
+            this.name = name;
+            this.constant = constant;
+            this.value = value;
+        }
+
+        @Override
+        Environment.PlcObject evaluate() {
+            Environment.PlcObject value = this.value != null ? this.value.evaluate() : Environment.NIL;
+            variable = scope.defineVariable(name, name, Environment.Type.ANY, constant, value);
+            return Environment.NIL;
+        }
+
+    }
+
+    /**
+     * The body of a method, filled in once it is resolved, and the size of
+     * its frame.
+     */
+    private static final class Method {
+        private Node[] body;
+        private int size;
+    }
+
+    private final class Nil extends Node {
+
+        @Override
+        Environment.PlcObject evaluate() {
+            return Environment.NIL;
+        }
+
+    }
+
+    /**
+     * A name which could not be resolved, evaluated after whatever the
+     * {@link Interpreter} evaluates before reporting it.
+     */
+    private final class Failure extends Node {
+
+        private final Node[] before;
+        private final String message;
+
+        private Failure(Node[] before, String message) {
+            this.before = before;
+            this.message = message;
+        }
+
+        @Override
+        Environment.PlcObject evaluate() {
+            for (Node node : before) {
+                node.evaluate();
+            }
+            throw new RuntimeException(message);
+        }
+
+    }
+
+    private final class ExpressionStatement extends Node {
+
+        private final Node expression;
+
+        private ExpressionStatement(Node expression) {
+            this.expression = expression;
+        }
+
+        @Override
+        Environment.PlcObject evaluate() {
+            expression.evaluate();
+            return Environment.NIL;
+        }
+
+    }
+
+    private final class SetLocal extends Node {
+
+        private final int slot;
+        private final Node value;
+
+        private SetLocal(int slot, Node value) {
+            this.slot = slot;
+            this.value = value;
+        }
+
+        @Override
+        Environment.PlcObject evaluate() {
+            frame[slot] = value != null ? value.evaluate() : Environment.NIL;
+            return Environment.NIL;
+        }
+
+    }
+
+    private final class SetVariable extends Node {
+
+        private final Environment.Variable variable;
+        private final Node value;
+
+        private SetVariable(Environment.Variable variable, Node value) {
+            this.variable = variable;
+            this.value = value;
+        }
+
+        @Override
+        Environment.PlcObject evaluate() {
+            variable.setValue(value.evaluate());
+            return Environment.NIL;
+        }
+
+    }
+
+    private final class SetDefined extends Node {
+
+        private final Define definition;
+        private final Node value;
+
+        private SetDefined(Define definition, Node value) {
+            this.definition = definition;
+            this.value = value;
+        }
+
+        @Override
+        Environment.PlcObject evaluate() {
+            definition.variable.setValue(value.evaluate());
+            return Environment.NIL;
+        }
+
+    }
+
+    private final class SetLookup extends Node {
+
+        private final String name;
+        private final Node value;
+
+        private SetLookup(String name, Node value) {
+            this.name = name;
+            this.value = value;
+        }
+
+        @Override
+        Environment.PlcObject evaluate() {
+            Environment.PlcObject value = this.value.evaluate();
+            scope.lookupVariable(name).setValue(value);
+            return Environment.NIL;
+        }
+
+    }
+
+    private final class SetField extends Node {
+
+        private final Node receiver;
+        private final String name;
+        private final Node value;
+
+        private SetField(Node receiver, String name, Node value) {
+            this.receiver = receiver;
+            this.name = name;
+            this.value = value;
+        }
+
+        @Override
+        Environment.PlcObject evaluate() {
+            Environment.PlcObject value = this.value.evaluate();
+            receiver.evaluate().setField(name, value);
+            return Environment.NIL;
+        }
+
+    }
+
+    private final class If extends Node {
+
+        private final Node condition;
+        private final Node[] thenStatements;
+        private final Node[] elseStatements;
+
+        private If(Node condition, Node[] thenStatements, Node[] elseStatements) {
+            this.condition = condition;
+            this.thenStatements = thenStatements;
+            this.elseStatements = elseStatements;
+        }
+
+        @Override
+        Environment.PlcObject evaluate() {
+            execute(Interpreter.requireType(Boolean.class, condition.evaluate()) ? thenStatements : elseStatements);
+            return Environment.NIL;
+        }
+
+    }
+
+    private final class For extends Node {
+
+        private final Node initialization;
+        private final Node condition;
+        private final Node increment;
+        private final Node[] statements;
+
+        private For(Node initialization, Node condition, Node increment, Node[] statements) {
+            this.initialization = initialization;
+            this.condition = condition;
+            this.increment = increment;
+            this.statements = statements;
+        }
+
+        @Override
+        Environment.PlcObject evaluate() {
+            initialization.evaluate();
+            while (Interpreter.requireType(Boolean.class, condition.evaluate())) {
+                try {
+                    execute(statements);
+                }
+                finally {
+                    increment.evaluate();
+                }
+            }
+            return Environment.NIL;
+        }
+
+    }
+
+    private final class While extends Node {
+
+        private final Node condition;
+        private final Node[] statements;
+
+        private While(Node condition, Node[] statements) {
+            this.condition = condition;
+            this.statements = statements;
+        }
+
+        @Override
+        Environment.PlcObject evaluate() {
+            while (Interpreter.requireType(Boolean.class, condition.evaluate())) {
+                execute(statements);
+            }
+            return Environment.NIL;
+        }
+
+    }
+
+    private final class ReturnStatement extends Node {
+
+        private final Node value;
+
+        private ReturnStatement(Node value) {
+            this.value = value;
+        }
+
+        @Override
+        Environment.PlcObject evaluate() {
+            throw new Return(value.evaluate());
+        }
+
+    }
+
+    private final class Literal extends Node {
+
+        private final Object literal;
+
+        private Literal(Object literal) {
+            this.literal = literal;
+        }
+
+        @Override
+        Environment.PlcObject evaluate() {
+            return literal == null ? Environment.NIL : Environment.create(literal);
+        }
+
+    }
+
+    private final class Binary extends Node {
+
+        private final String operator;
+        private final Node left;
+        private final Node right;
+
+        private Binary(String operator, Node left, Node right) {
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        Environment.PlcObject evaluate() {
+            return Interpreter.binary(operator, left.evaluate(), right::evaluate);
+        }
+
+    }
+
+    private final class GetLocal extends Node {
+
+        private final int slot;
+
+        private GetLocal(int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        Environment.PlcObject evaluate() {
+            return frame[slot];
+        }
+
+    }
+
+    private final class GetVariable extends Node {
+
+        private final Environment.Variable variable;
+
+        private GetVariable(Environment.Variable variable) {
+            this.variable = variable;
+        }
+
+        @Override
+        Environment.PlcObject evaluate() {
+            return variable.getValue();
+        }
+
+    }
+
+    private final class GetDefined extends Node {
+
+        private final Define definition;
+
+        private GetDefined(Define definition) {
+            this.definition = definition;
+        }
+
+        @Override
+        Environment.PlcObject evaluate() {
+            return definition.variable.getValue();
+        }
+
+    }
+
+    private final class Lookup extends Node {
+
+        private final String name;
+
+        private Lookup(String name) {
+            this.name = name;
+        }
+
+        @Override
+        Environment.PlcObject evaluate() {
+            return scope.lookupVariable(name).getValue();
+        }
+
+    }
+
+    private final class GetField extends Node {
+
+        private final Node receiver;
+        private final String name;
+
+        private GetField(Node receiver, String name) {
+            this.receiver = receiver;
+            this.name = name;
+        }
+
+        @Override
+        Environment.PlcObject evaluate() {
+            return receiver.evaluate().getField(name).getValue();
+        }
+
+    }
+
+    private final class Call extends Node {
+
+        private final Environment.Function function;
+        private final Node[] arguments;
+
+        private Call(Environment.Function function, Node[] arguments) {
+            this.function = function;
+            this.arguments = arguments;
+        }
+
+        @Override
+        Environment.PlcObject evaluate() {
+            return function.invoke(values(arguments));
+        }
+
+    }
+
+    private final class CallLookup extends Node {
+
+        private final String name;
+        private final Node[] arguments;
+
+        private CallLookup(String name, Node[] arguments) {
+            this.name = name;
+            this.arguments = arguments;
+        }
+
+        @Override
+        Environment.PlcObject evaluate() {
+            List<Environment.PlcObject> args = values(arguments);
+            return scope.lookupFunction(name, arguments.length).invoke(args);
+        }
+
+    }
+
+    private final class CallMethod extends Node {
+
+        private final Node receiver;
+        private final String name;
+        private final Node[] arguments;
+
+        private CallMethod(Node receiver, String name, Node[] arguments) {
+            this.receiver = receiver;
+            this.name = name;
+            this.arguments = arguments;
+        }
+
+        @Override
+        Environment.PlcObject evaluate() {
+            List<Environment.PlcObject> args = values(arguments);
+            return receiver.evaluate().callMethod(name, args);
+        }
+
+    }
+
+    private static void execute(Node[] statements) {
+        for (Node statement : statements) {
+            statement.evaluate();
+        }
+    }
+
+    private static List<Environment.PlcObject> values(Node[] arguments) {
+        List<Environment.PlcObject> args = new ArrayList<>(arguments.length);
+        for (Node argument : arguments) {
+            args.add(argument.evaluate());
+        }
+        return args;
+    }
+
+    /**
+     * Binds each name in a program, following the scoping of {@link
+     * Interpreter}: a declaration is visible after it in its block, fields
+     * after their definition, and methods everywhere in method bodies.
+     */
+    private final class Resolver implements Ast.Visitor<Node> {
+
+        private final Map<String, Define> fields = new HashMap<>();
+        private final Deque<Map<String, Integer>> blocks = new ArrayDeque<>();
+        private int slots;
+
+        @Override
+        public Node visit(Ast.Source ast) {
+            Node[] fields = new Node[ast.getFields().size()];
+            for (int i = 0; i < fields.length; i++) {
+                fields[i] = visit(ast.getFields().get(i));
+            }
+            List<Method> methods = new ArrayList<>();
+            for (Ast.Method method : ast.getMethods()) {
+                methods.add(define(method));
+            }
+            for (int i = 0; i < ast.getMethods().size(); i++) {
+                resolve(ast.getMethods().get(i), methods.get(i));
+            }
+            return new Program(fields);
+        }
+
+        @Override
+        public Node visit(Ast.Field ast) {
+            Define field = new Define(ast.getName(), ast.getConstant(), ast.getValue().map(this::visit).orElse(null));
+            fields.putIfAbsent(ast.getName(), field);
+            return field;
+        }
+
+        /**
+         * Defines the function for {@code method}, returning a holder for its
+         * body and frame size, which are only known once it is resolved.
+         */
+        private Method define(Ast.Method method) {
+            Method resolved = new Method();
+            String error = duplicateParameter(method.getParameters());
+            scope.defineFunction(method.getName(), method.getParameters().size(), args -> {
+                if (error != null) {
+                    throw new RuntimeException(error);
+                }
+                Environment.PlcObject[] caller = frame;
+                frame = new Environment.PlcObject[resolved.size];
+                try {
+                    for (int i = 0; i < args.size(); i++) {
+                        frame[i] = args.get(i);
+                    }
+                    execute(resolved.body);
+                    return Environment.NIL;
+                }
+                catch (Return e) {
+                    return e.value;
+                }
+                finally {
+                    frame = caller;
+                }
+            });
+            return resolved;
+        }
+
+        private String duplicateParameter(List<String> parameters) {
+            for (int i = 0; i < parameters.size(); i++) {
+                if (parameters.subList(0, i).contains(parameters.get(i))) {
+                    return "The variable " + parameters.get(i) + " is already defined in this scope.";
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public Node visit(Ast.Method ast) {
+            resolve(ast, define(ast));
+            return new Nil();
+        }
+
+        private void resolve(Ast.Method ast, Method method) {
+            Deque<Map<String, Integer>> outer = new ArrayDeque<>(blocks);
+            int outerSlots = slots;
+            blocks.clear();
+            slots = 0;
+            blocks.push(new HashMap<>());
+            for (String parameter : ast.getParameters()) {
+                blocks.peek().putIfAbsent(parameter, slots++);
+            }
+            method.body = statements(ast.getStatements());
+            method.size = slots;
+            blocks.clear();
+            blocks.addAll(outer);
+            slots = outerSlots;
+        }
+
+        @Override
+        public Node visit(Ast.Statement.Expression ast) {
+            return new ExpressionStatement(visit(ast.getExpression()));
+        }
+
+        @Override
+        public Node visit(Ast.Statement.Declaration ast) {
+            Node value = ast.getValue().map(this::visit).orElse(null);
+            if (blocks.isEmpty()) {
+                return new Define(ast.getName(), false, value);
+            }
+            if (blocks.peek().containsKey(ast.getName())) {
+                return failure("The variable " + ast.getName() + " is already defined in this scope.", value);
+            }
+            blocks.peek().put(ast.getName(), slots);
+            return new SetLocal(slots++, value);
+        }
+
+        @Override
+        public Node visit(Ast.Statement.Assignment ast) {
+            if (!(ast.getReceiver() instanceof Ast.Expression.Access)) {
+                return failure("Expected an Ast.Expression.Access", null);
+            }
+            Ast.Expression.Access receiver = (Ast.Expression.Access) ast.getReceiver();
+            Node value = visit(ast.getValue());
+            if (receiver.getReceiver().isPresent()) {
+                return new SetField(visit(receiver.getReceiver().get()), receiver.getName(), value);
+            }
+            Node target = visit(receiver);
+            if (target instanceof GetLocal) {
+                return new SetLocal(((GetLocal) target).slot, value);
+            } else if (target instanceof GetVariable) {
+                return new SetVariable(((GetVariable) target).variable, value);
+            } else if (target instanceof GetDefined) {
+                return new SetDefined(((GetDefined) target).definition, value);
+            }
+            return new SetLookup(receiver.getName(), value);
+        }
+
+        @Override
+        public Node visit(Ast.Statement.If ast) {
+            return new If(visit(ast.getCondition()), block(ast.getThenStatements()), block(ast.getElseStatements()));
+        }
+
+        @Override
+        public Node visit(Ast.Statement.For ast) {
+            Node initialization = ast.getInitialization() != null ? visit(ast.getInitialization()) : new Nil();
+            Node condition = visit(ast.getCondition());
+            Node[] statements = block(ast.getStatements());
+            Node increment = ast.getIncrement() != null ? visit(ast.getIncrement()) : new Nil();
+            return new For(initialization, condition, increment, statements);
+        }
+
+        @Override
+        public Node visit(Ast.Statement.While ast) {
+            return new While(visit(ast.getCondition()), block(ast.getStatements()));
+        }
+
+        @Override
+        public Node visit(Ast.Statement.Return ast) {
+            return new ReturnStatement(visit(ast.getValue()));
+        }
+
+        @Override
+        public Node visit(Ast.Expression.Literal ast) {
+            return new Literal(ast.getLiteral());
+        }
+
+        @Override
+        public Node visit(Ast.Expression.Group ast) {
+            return visit(ast.getExpression());
+        }
+
+        @Override
+        public Node visit(Ast.Expression.Binary ast) {
+            return new Binary(ast.getOperator(), visit(ast.getLeft()), visit(ast.getRight()));
+        }
+
+        @Override
+        public Node visit(Ast.Expression.Access ast) {
+            if (ast.getReceiver().isPresent()) {
+                return new GetField(visit(ast.getReceiver().get()), ast.getName());
+            }
+            for (Map<String, Integer> block : blocks) {
+                Integer slot = block.get(ast.getName());
+                if (slot != null) {
+                    return new GetLocal(slot);
+                }
+            }
+            Define field = fields.get(ast.getName());
+            if (field != null) {
+                return new GetDefined(field);
+            }
+            try {
+                return new GetVariable(scope.lookupVariable(ast.getName()));
+            }
+            catch (RuntimeException e) {
+                return new Lookup(ast.getName());
+            }
+        }
+
+        @Override
+        public Node visit(Ast.Expression.Function ast) {
+            Node receiver = ast.getReceiver().map(this::visit).orElse(null);
+            Node[] arguments = new Node[ast.getArguments().size()];
+            for (int i = 0; i < arguments.length; i++) {
+                arguments[i] = visit(ast.getArguments().get(i));
+            }
+            if (receiver != null) {
+                return new CallMethod(receiver, ast.getName(), arguments);
+            }
+            try {
+                return new Call(scope.lookupFunction(ast.getName(), ast.getArguments().size()), arguments);
+            }
+            catch (RuntimeException e) {
+                return new CallLookup(ast.getName(), arguments);
+            }
+        }
+
+        private Failure failure(String message, Node value) {
+            return new Failure(value != null ? new Node[] {value} : new Node[0], message);
+        }
+
+        /**
+         * Resolves {@code statements} in a new block, whose declarations take
+         * new slots in the current frame.
+         */
+        private Node[] block(List<Ast.Statement> statements) {
+            blocks.push(new HashMap<>());
+            Node[] nodes = statements(statements);
+            blocks.pop();
+            return nodes;
+        }
+
+        private Node[] statements(List<Ast.Statement> statements) {
+            Node[] nodes = new Node[statements.size()];
+            for (int i = 0; i < nodes.length; i++) {
+                nodes[i] = visit(statements.get(i));
+            }
+            return nodes;
+        }
+
+    }
+
+    /**
+     * Exception class for returning values.
+     */
+    @SuppressWarnings("serial")
+    private static class Return extends RuntimeException {
+
+        private final Environment.PlcObject value;
+
+        private Return(Environment.PlcObject value) {
+            this.value = value;
+        }
+
+    }
+
+}
@@ -0,0 +1,79 @@
+package plc.project;
+
+/**
+ * Finds the end of runs of whitespace, identifier body chars and digits, the
+ * inner loops of lexing. Each method returns the index of the first char at or
+ * after {@code start} (and before {@code end}) which is not part of the run,
+ * or {@code end}.
+ *
+ * {@link #SCALAR} checks one char at a time. {@link #get()} returns the
+ * {@code VectorRunScanner} when the {@code jdk.incubator.vector} module is
+ * available, which checks a whole vector of chars per step. It is compiled
+ * separately, in the {@code vector} source set, since it needs the module.
+ */
+interface RunScanner {
+
+    RunScanner SCALAR = new RunScanner() {
+
+        @Override
+        public int whitespace(char[] chars, int start, int end) {
+            while (start < end && isWhitespace(chars[start])) {
+                start++;
+            }
+            return start;
+        }
+
+        @Override
+        public int identifier(char[] chars, int start, int end) {
+            while (start < end && isIdentifier(chars[start])) {
+                start++;
+            }
+            return start;
+        }
+
+        @Override
+        public int digits(char[] chars, int start, int end) {
+            while (start < end && isDigit(chars[start])) {
+                start++;
+            }
+            return start;
+        }
+
+    };
+
+    int whitespace(char[] chars, int start, int end);
+
+    int identifier(char[] chars, int start, int end);
+
+    int digits(char[] chars, int start, int end);
+
+    /**
+     * Returns the vector scanner if the {@code jdk.incubator.vector} module
+     * was added to the boot layer (with {@code --add-modules}), otherwise
+     * {@link #SCALAR}.
+     */
+    static RunScanner get() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return SCALAR;
+        }
+        try {
+            // Loaded reflectively so this class never links against the module.
+            return (RunScanner) Class.forName("plc.project.VectorRunScanner").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return SCALAR;
+        }
+    }
+
+    static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\b' || c == '\n' || c == '\r' || c == '\t';
+    }
+
+    static boolean isIdentifier(char c) {
+        return (char) ((c | 0x20) - 'a') < 26 || isDigit(c) || c == '_' || c == '-';
+    }
+
+    static boolean isDigit(char c) {
+        return (char) (c - '0') < 10;
+    }
+
+}
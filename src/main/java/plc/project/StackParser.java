@@ -0,0 +1,641 @@
+package plc.project;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A parser producing the same AST and errors as {@link Parser}, but keeping
+ * nested expressions and blocks on an explicit stack of frames on the heap
+ * instead of the Java call stack. Groups, arguments and {@code IF}, {@code FOR}
+ * and {@code WHILE} blocks can be nested arbitrarily deep (up to available
+ * memory) without a {@link StackOverflowError}, and each level of nesting costs
+ * a single small frame.
+ *
+ * Each frame is one grammar rule in progress. A frame "calls" a nested rule by
+ * pushing its frame and recording in {@link Frame#state} where to resume; the
+ * nested frame pops itself and leaves its node in {@link #result}. Fields and
+ * method signatures, which never nest, are parsed directly as in
+ * {@link Parser}.
+ */
+public final class StackParser {
+
+    private final List<Token> tokens;
+    private final Deque<Frame> stack = new ArrayDeque<>();
+    private int index = 0;
+    private Object result;
+
+    public StackParser(List<Token> tokens) {
+        this.tokens = tokens;
+    }
+
+    /**
+     * Parses the {@code source} rule.
+     */
+    public Ast.Source parseSource() throws ParseException {
+        List<Ast.Field> fields = new ArrayList<>();
+        List<Ast.Method> methods = new ArrayList<>();
+        while (has(0) && peek(Symbols.LET)) {
+            fields.add(parseField());
+        }
+        while (has(0)) {
+            if (!peek(Symbols.DEF)) {
+                throw new ParseException("Expected a method at index: ", get(0).getIndex());
+            }
+            methods.add(parseMethod());
+        }
+        return new Ast.Source(fields, methods);
+    }
+
+    /**
+     * Parses the {@code field} rule.
+     */
+    public Ast.Field parseField() throws ParseException {
+        match(Symbols.LET);
+        boolean constant = match(Symbols.CONST);
+        String name = requireIdentifier();
+        requireType();
+        String type = get(-1).getLiteral();
+        Optional<Ast.Expression> value = Optional.empty();
+        if (match(Symbols.ASSIGN)) {
+            if (!has(0)) {
+                throw new ParseException("Expected an expression", end(-1));
+            }
+            value = Optional.of(parseExpression());
+        }
+        if (!match(Symbols.SEMICOLON)) {
+            throw new ParseException("Expected semicolon at index: ", end(-1));
+        }
+        return new Ast.Field(name, type, constant, value);
+    }
+
+    /**
+     * Parses the {@code method} rule.
+     */
+    public Ast.Method parseMethod() throws ParseException {
+        List<String> parameters = new ArrayList<>();
+        List<String> parameterTypeNames = new ArrayList<>();
+        match(Symbols.DEF);
+        String name = requireIdentifier();
+        if (!match(Symbols.LEFT_PAREN)) {
+            throw new ParseException("Expected left paren", end(-1));
+        }
+        if (match(Token.Type.IDENTIFIER)) {
+            do {
+                parameters.add(get(-1).getLiteral());
+                requireType();
+                parameterTypeNames.add(get(-1).getLiteral());
+            } while (match(Symbols.COMMA) && requireParameter());
+        }
+        if (!match(Symbols.RIGHT_PAREN)) {
+            throw new ParseException("Expected right paren", end(-1));
+        }
+        Optional<String> returnType = optionalType();
+        requireDo();
+        List<Ast.Statement> statements = new ArrayList<>();
+        while (!match(Symbols.END)) {
+            statements.add(parseStatement());
+        }
+        return new Ast.Method(name, parameters, parameterTypeNames, returnType, statements);
+    }
+
+    /**
+     * Parses the {@code statement} rule.
+     */
+    public Ast.Statement parseStatement() throws ParseException {
+        return (Ast.Statement) run(new StatementFrame());
+    }
+
+    /**
+     * Parses the {@code expression} rule.
+     */
+    public Ast.Expression parseExpression() throws ParseException {
+        return (Ast.Expression) run(new BinaryFrame(Parser.LOGICAL));
+    }
+
+    /**
+     * Steps the frames above {@code frame} until it completes, returning its
+     * result.
+     */
+    private Object run(Frame frame) {
+        int base = stack.size();
+        stack.push(frame);
+        while (stack.size() > base) {
+            stack.peek().step();
+        }
+        return result;
+    }
+
+    /**
+     * A rule in progress, resuming at {@link #state} each time it is stepped.
+     */
+    private abstract class Frame {
+
+        int state = 0;
+
+        abstract void step();
+
+        /**
+         * Pushes {@code frame}, resuming at {@code state} once it completes.
+         */
+        void call(Frame frame, int state) {
+            this.state = state;
+            stack.push(frame);
+        }
+
+        /**
+         * Pops this frame, leaving {@code value} for the frame below.
+         */
+        void complete(Object value) {
+            stack.pop();
+            result = value;
+        }
+
+    }
+
+    /**
+     * Parses binary operators by precedence climbing, as in {@link
+     * Parser#parseExpression()}.
+     */
+    private final class BinaryFrame extends Frame {
+
+        private static final int LEFT = 1;
+        private static final int RIGHT = 2;
+
+        private final int minimum;
+        private Ast.Expression left;
+        private int operator;
+
+        private BinaryFrame(int minimum) {
+            this.minimum = minimum;
+        }
+
+        @Override
+        void step() {
+            switch (state) {
+                case 0:
+                    call(new SecondaryFrame(), LEFT);
+                    return;
+                case LEFT:
+                    left = (Ast.Expression) result;
+                    break;
+                case RIGHT:
+                    left = new Ast.Expression.Binary(Symbols.getName(operator), left, (Ast.Expression) result);
+                    break;
+                default:
+                    throw new AssertionError(state);
+            }
+            if (has(0) && Parser.PRECEDENCE[get(0).getSymbol()] >= minimum) {
+                operator = get(0).getSymbol();
+                int precedence = Parser.PRECEDENCE[operator];
+                index++;
+                if (precedence >= Parser.ADDITIVE && !has(0)) {
+                    throw new ParseException(precedence == Parser.ADDITIVE ? "Expected additive" : "Expected multiplicative",
+                            end(-1));
+                }
+                call(new BinaryFrame(precedence + 1), RIGHT);
+            } else {
+                complete(left);
+            }
+        }
+
+    }
+
+    /**
+     * Parses the {@code secondary-expression} rule: a primary expression
+     * followed by any number of field accesses and method calls.
+     */
+    private final class SecondaryFrame extends Frame {
+
+        private static final int RECEIVER = 1;
+        private static final int ARGUMENT = 2;
+
+        private Ast.Expression receiver;
+        private String name;
+        private List<Ast.Expression> arguments;
+
+        @Override
+        void step() {
+            switch (state) {
+                case 0:
+                    call(new PrimaryFrame(), RECEIVER);
+                    return;
+                case RECEIVER:
+                    receiver = (Ast.Expression) result;
+                    break;
+                case ARGUMENT:
+                    arguments.add((Ast.Expression) result);
+                    if (match(Symbols.COMMA)) {
+                        call(new BinaryFrame(Parser.LOGICAL), ARGUMENT);
+                        return;
+                    }
+                    requireRightParen();
+                    receiver = new Ast.Expression.Function(Optional.of(receiver), name, arguments);
+                    break;
+                default:
+                    throw new AssertionError(state);
+            }
+            while (match(Symbols.DOT)) {
+                if (!match(Token.Type.IDENTIFIER)) {
+                    throw new ParseException("Expected identifier at index: ", end(-1));
+                }
+                name = get(-1).getLiteral();
+                if (!match(Symbols.LEFT_PAREN)) {
+                    receiver = new Ast.Expression.Access(Optional.of(receiver), name);
+                } else if (match(Symbols.RIGHT_PAREN)) {
+                    receiver = new Ast.Expression.Function(Optional.of(receiver), name, new ArrayList<>());
+                } else {
+                    arguments = new ArrayList<>();
+                    call(new BinaryFrame(Parser.LOGICAL), ARGUMENT);
+                    return;
+                }
+            }
+            complete(receiver);
+        }
+
+    }
+
+    /**
+     * Parses the {@code primary-expression} rule.
+     */
+    private final class PrimaryFrame extends Frame {
+
+        private static final int GROUP = 1;
+        private static final int ARGUMENT = 2;
+
+        private String name;
+        private List<Ast.Expression> arguments;
+
+        @Override
+        void step() {
+            switch (state) {
+                case 0:
+                    start();
+                    return;
+                case GROUP:
+                    requireRightParen();
+                    complete(new Ast.Expression.Group((Ast.Expression) result));
+                    return;
+                case ARGUMENT:
+                    arguments.add((Ast.Expression) result);
+                    if (match(Symbols.COMMA)) {
+                        call(new BinaryFrame(Parser.LOGICAL), ARGUMENT);
+                        return;
+                    }
+                    requireRightParen();
+                    complete(new Ast.Expression.Function(Optional.empty(), name, arguments));
+                    return;
+                default:
+                    throw new AssertionError(state);
+            }
+        }
+
+        private void start() {
+            if (match(Symbols.TRUE)) {
+                complete(new Ast.Expression.Literal(Boolean.TRUE));
+            } else if (match(Symbols.FALSE)) {
+                complete(new Ast.Expression.Literal(Boolean.FALSE));
+            } else if (match(Symbols.NIL)) {
+                complete(new Ast.Expression.Literal(null));
+            } else if (match(Token.Type.INTEGER) || match(Token.Type.DECIMAL)
+                    || match(Token.Type.CHARACTER) || match(Token.Type.STRING)) {
+                complete(new Ast.Expression.Literal(get(-1).getValue()));
+            } else if (match(Symbols.LEFT_PAREN)) {
+                call(new BinaryFrame(Parser.LOGICAL), GROUP);
+            } else if (match(Token.Type.IDENTIFIER)) {
+                name = get(-1).getLiteral();
+                if (!match(Symbols.LEFT_PAREN)) {
+                    complete(new Ast.Expression.Access(Optional.empty(), name));
+                } else if (match(Symbols.RIGHT_PAREN)) {
+                    complete(new Ast.Expression.Function(Optional.empty(), name, new ArrayList<>()));
+                } else {
+                    arguments = new ArrayList<>();
+                    call(new BinaryFrame(Parser.LOGICAL), ARGUMENT);
+                }
+            } else {
+                throw new ParseException("End of Syntax Tree Error at: ", get(0).getIndex());
+            }
+        }
+
+    }
+
+    /**
+     * Parses the {@code statement} rule, including the nested statements of
+     * {@code IF}, {@code FOR} and {@code WHILE} blocks.
+     */
+    private final class StatementFrame extends Frame {
+
+        private static final int DECLARATION_VALUE = 1;
+        private static final int IF_CONDITION = 2;
+        private static final int THEN_STATEMENT = 3;
+        private static final int ELSE_STATEMENT = 4;
+        private static final int FOR_INITIALIZATION = 5;
+        private static final int FOR_CONDITION = 6;
+        private static final int FOR_INCREMENT = 7;
+        private static final int FOR_STATEMENT = 8;
+        private static final int WHILE_CONDITION = 9;
+        private static final int WHILE_STATEMENT = 10;
+        private static final int RETURN_VALUE = 11;
+        private static final int EXPRESSION = 12;
+        private static final int ASSIGNMENT_VALUE = 13;
+
+        private String name;
+        private Optional<String> type;
+        private Ast.Expression expression;
+        private Ast.Statement initialization;
+        private Ast.Statement increment;
+        private Ast.Expression receiver;
+        private List<Ast.Statement> statements;
+        private List<Ast.Statement> elseStatements;
+
+        @Override
+        void step() {
+            switch (state) {
+                case 0:
+                    start();
+                    return;
+                case DECLARATION_VALUE:
+                    completeDeclaration(Optional.of((Ast.Expression) result));
+                    return;
+                case IF_CONDITION:
+                    expression = (Ast.Expression) result;
+                    requireDo();
+                    statements = new ArrayList<>();
+                    elseStatements = new ArrayList<>();
+                    nextThenStatement();
+                    return;
+                case THEN_STATEMENT:
+                    statements.add((Ast.Statement) result);
+                    nextThenStatement();
+                    return;
+                case ELSE_STATEMENT:
+                    elseStatements.add((Ast.Statement) result);
+                    nextElseStatement();
+                    return;
+                case FOR_INITIALIZATION:
+                    initialization = new Ast.Statement.Assignment(receiver, (Ast.Expression) result);
+                    forCondition();
+                    return;
+                case FOR_CONDITION:
+                    expression = (Ast.Expression) result;
+                    requireSemicolon();
+                    if (match(Token.Type.IDENTIFIER)) {
+                        receiver = new Ast.Expression.Access(Optional.empty(), get(-1).getLiteral());
+                        if (!match(Symbols.ASSIGN)) {
+                            throw new ParseException("Expected =", end(-1));
+                        }
+                        call(new BinaryFrame(Parser.LOGICAL), FOR_INCREMENT);
+                        return;
+                    }
+                    forBody();
+                    return;
+                case FOR_INCREMENT:
+                    increment = new Ast.Statement.Assignment(receiver, (Ast.Expression) result);
+                    forBody();
+                    return;
+                case FOR_STATEMENT:
+                    statements.add((Ast.Statement) result);
+                    nextBlockStatement(FOR_STATEMENT);
+                    return;
+                case WHILE_CONDITION:
+                    expression = (Ast.Expression) result;
+                    requireDo();
+                    statements = new ArrayList<>();
+                    nextBlockStatement(WHILE_STATEMENT);
+                    return;
+                case WHILE_STATEMENT:
+                    statements.add((Ast.Statement) result);
+                    nextBlockStatement(WHILE_STATEMENT);
+                    return;
+                case RETURN_VALUE:
+                    if (!match(Symbols.SEMICOLON)) {
+                        throw new ParseException("Expected ;", end(-1));
+                    }
+                    complete(new Ast.Statement.Return((Ast.Expression) result));
+                    return;
+                case EXPRESSION:
+                    expression = (Ast.Expression) result;
+                    if (match(Symbols.ASSIGN)) {
+                        call(new BinaryFrame(Parser.LOGICAL), ASSIGNMENT_VALUE);
+                        return;
+                    }
+                    requireSemicolon();
+                    complete(new Ast.Statement.Expression(expression));
+                    return;
+                case ASSIGNMENT_VALUE:
+                    requireSemicolon();
+                    complete(new Ast.Statement.Assignment(expression, (Ast.Expression) result));
+                    return;
+                default:
+                    throw new AssertionError(state);
+            }
+        }
+
+        private void start() {
+            if (match(Symbols.LET)) {
+                name = requireIdentifier();
+                type = optionalType();
+                if (match(Symbols.ASSIGN)) {
+                    if (!has(0)) {
+                        throw new ParseException("Expected an expression", end(-1));
+                    }
+                    call(new BinaryFrame(Parser.LOGICAL), DECLARATION_VALUE);
+                } else {
+                    completeDeclaration(Optional.empty());
+                }
+            } else if (match(Symbols.IF)) {
+                if (!has(0)) {
+                    throw new ParseException("Expected an expression", end(-1));
+                }
+                call(new BinaryFrame(Parser.LOGICAL), IF_CONDITION);
+            } else if (match(Symbols.FOR)) {
+                if (!match(Symbols.LEFT_PAREN)) {
+                    throw new ParseException("Expected left paren", end(-1));
+                }
+                if (match(Token.Type.IDENTIFIER)) {
+                    receiver = new Ast.Expression.Access(Optional.empty(), get(-1).getLiteral());
+                    if (!match(Symbols.ASSIGN)) {
+                        throw new ParseException("Expected =", end(-1));
+                    }
+                    call(new BinaryFrame(Parser.LOGICAL), FOR_INITIALIZATION);
+                } else {
+                    forCondition();
+                }
+            } else if (match(Symbols.WHILE)) {
+                call(new BinaryFrame(Parser.LOGICAL), WHILE_CONDITION);
+            } else if (match(Symbols.RETURN)) {
+                call(new BinaryFrame(Parser.LOGICAL), RETURN_VALUE);
+            } else {
+                call(new BinaryFrame(Parser.LOGICAL), EXPRESSION);
+            }
+        }
+
+        private void completeDeclaration(Optional<Ast.Expression> value) {
+            requireSemicolon();
+            complete(new Ast.Statement.Declaration(name, type, value));
+        }
+
+        private void nextThenStatement() {
+            if (match(Symbols.END)) {
+                complete(new Ast.Statement.If(expression, statements, elseStatements));
+            } else if (match(Symbols.ELSE)) {
+                nextElseStatement();
+            } else {
+                call(new StatementFrame(), THEN_STATEMENT);
+            }
+        }
+
+        private void nextElseStatement() {
+            if (match(Symbols.END)) {
+                complete(new Ast.Statement.If(expression, statements, elseStatements));
+            } else {
+                call(new StatementFrame(), ELSE_STATEMENT);
+            }
+        }
+
+        private void forCondition() {
+            requireSemicolon();
+            call(new BinaryFrame(Parser.LOGICAL), FOR_CONDITION);
+        }
+
+        private void forBody() {
+            if (!match(Symbols.RIGHT_PAREN)) {
+                throw new ParseException("Expected right paren", end(-1));
+            }
+            statements = new ArrayList<>();
+            nextBlockStatement(FOR_STATEMENT);
+        }
+
+        /**
+         * Parses the next statement of a {@code FOR} or {@code WHILE} body, or
+         * completes it at {@code END} (or the end of the input, which is an
+         * error unless the last token was an {@code END}, as in {@link
+         * Parser}).
+         */
+        private void nextBlockStatement(int resume) {
+            if (!match(Symbols.END) && has(0)) {
+                call(new StatementFrame(), resume);
+                return;
+            }
+            if (get(-1).getSymbol() != Symbols.END) {
+                throw new ParseException("Expected END at index: ", end(-1));
+            }
+            if (resume == FOR_STATEMENT) {
+                complete(new Ast.Statement.For(initialization, expression, increment, statements));
+            } else {
+                complete(new Ast.Statement.While(expression, statements));
+            }
+        }
+
+    }
+
+    private boolean has(int offset) {
+        return index + offset < tokens.size();
+    }
+
+    private Token get(int offset) {
+        return tokens.get(index + offset);
+    }
+
+    /**
+     * Returns the index just past the end of the token at index + offset.
+     */
+    private int end(int offset) {
+        Token token = get(offset);
+        return token.getIndex() + token.getLiteral().length();
+    }
+
+    private boolean peek(int symbol) {
+        return has(0) && get(0).getSymbol() == symbol;
+    }
+
+    private boolean match(int symbol) {
+        boolean peek = peek(symbol);
+        if (peek) {
+            index++;
+        }
+        return peek;
+    }
+
+    private boolean match(Token.Type type) {
+        boolean peek = has(0) && get(0).getType() == type;
+        if (peek) {
+            index++;
+        }
+        return peek;
+    }
+
+    private String requireIdentifier() {
+        if (!match(Token.Type.IDENTIFIER)) {
+            if (has(0)) {
+                throw new ParseException("Expected an identifier at index: ", get(0).getIndex());
+            }
+            throw new ParseException("Expected identifier", end(-1));
+        }
+        return get(-1).getLiteral();
+    }
+
+    /**
+     * Requires another identifier after a {@code ,} in a parameter list.
+     */
+    private boolean requireParameter() {
+        if (!match(Token.Type.IDENTIFIER)) {
+            throw new ParseException("Expected identifier", end(-1));
+        }
+        return true;
+    }
+
+    /**
+     * Requires a {@code : Type}, as in {@link Parser}'s required types.
+     */
+    private void requireType() {
+        if (!match(Symbols.COLON)) {
+            if (has(0)) {
+                throw new ParseException("Expected a ':' at index: ", get(0).getIndex());
+            }
+            throw new ParseException("Expected a ':' ", end(-1));
+        }
+        requireTypeName();
+    }
+
+    private Optional<String> optionalType() {
+        if (!match(Symbols.COLON)) {
+            return Optional.empty();
+        }
+        requireTypeName();
+        return Optional.of(get(-1).getLiteral());
+    }
+
+    private void requireTypeName() {
+        if (!match(Token.Type.IDENTIFIER)) {
+            if (has(0)) {
+                throw new ParseException("Expected an identifier (type) at index: ", get(0).getIndex());
+            }
+            throw new ParseException("Expected identifier (type)", end(-1));
+        }
+    }
+
+    private void requireDo() {
+        if (!match(Symbols.DO)) {
+            if (has(0)) {
+                throw new ParseException("Expected DO at index: ", get(0).getIndex());
+            }
+            throw new ParseException("Expected DO: ", end(-1));
+        }
+    }
+
+    private void requireSemicolon() {
+        if (!match(Symbols.SEMICOLON)) {
+            throw new ParseException("Expected semicolon at index: ", end(-1));
+        }
+    }
+
+    private void requireRightParen() {
+        if (!match(Symbols.RIGHT_PAREN)) {
+            throw new ParseException("Expected ')' at index: ", end(-1));
+        }
+    }
+
+}
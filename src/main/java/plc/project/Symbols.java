@@ -0,0 +1,220 @@
+package plc.project;
+
+import java.util.Arrays;
+
+/**
+ * Dense integer IDs for the keywords and operators of the language, assigned
+ * by the lexers so the {@link Parser} can compare ints instead of strings.
+ *
+ * IDs are found with a perfect hash over {@link #NAMES}: the seed is chosen
+ * when the class is loaded so that no two symbols share a slot, and a lookup
+ * is a single hash and comparison. Identifier literals are shared through a
+ * {@link Table}.
+ */
+public final class Symbols {
+
+    public static final int NONE = 0;
+
+    public static final int LET = 1;
+    public static final int CONST = 2;
+    public static final int DEF = 3;
+    public static final int DO = 4;
+    public static final int END = 5;
+    public static final int IF = 6;
+    public static final int ELSE = 7;
+    public static final int FOR = 8;
+    public static final int WHILE = 9;
+    public static final int RETURN = 10;
+    public static final int TRUE = 11;
+    public static final int FALSE = 12;
+    public static final int NIL = 13;
+    public static final int AND = 14;
+    public static final int OR = 15;
+
+    public static final int ASSIGN = 16;
+    public static final int SEMICOLON = 17;
+    public static final int COLON = 18;
+    public static final int COMMA = 19;
+    public static final int DOT = 20;
+    public static final int LEFT_PAREN = 21;
+    public static final int RIGHT_PAREN = 22;
+    public static final int LESS = 23;
+    public static final int LESS_EQUAL = 24;
+    public static final int GREATER = 25;
+    public static final int GREATER_EQUAL = 26;
+    public static final int EQUAL = 27;
+    public static final int NOT_EQUAL = 28;
+    public static final int PLUS = 29;
+    public static final int MINUS = 30;
+    public static final int STAR = 31;
+    public static final int SLASH = 32;
+    public static final int AMPERSANDS = 33;
+    public static final int PIPES = 34;
+
+    public static final int COUNT = 35;
+
+    private static final String[] NAMES = {
+            null,
+            "LET", "CONST", "DEF", "DO", "END", "IF", "ELSE", "FOR", "WHILE", "RETURN",
+            "TRUE", "FALSE", "NIL", "AND", "OR",
+            "=", ";", ":", ",", ".", "(", ")", "<", "<=", ">", ">=", "==", "!=",
+            "+", "-", "*", "/", "&&", "||"
+    };
+
+    private static final int BITS = 7;
+    private static final int MAX_LENGTH = 6;
+    private static final byte[] SLOTS = new byte[1 << BITS];
+    private static final int SEED;
+
+    static {
+        int seed = 1;
+        while (!fill(seed)) {
+            seed += 2;
+        }
+        SEED = seed;
+    }
+
+    /**
+     * Places every symbol in {@link #SLOTS} using {@code seed}, returning false
+     * if two symbols collide.
+     */
+    private static boolean fill(int seed) {
+        Arrays.fill(SLOTS, (byte) NONE);
+        for (int id = 1; id < COUNT; id++) {
+            int slot = slot(hash(NAMES[id], 0, NAMES[id].length()), seed);
+            if (SLOTS[slot] != NONE) {
+                return false;
+            }
+            SLOTS[slot] = (byte) id;
+        }
+        return true;
+    }
+
+    private static int hash(CharSequence source, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + source.charAt(i);
+        }
+        return hash;
+    }
+
+    private static int slot(int hash, int seed) {
+        return (hash * seed) >>> (32 - BITS);
+    }
+
+    /**
+     * Returns the ID of the symbol spelled by {@code source} from
+     * {@code start} to {@code end}, or {@link #NONE}.
+     */
+    public static int lookup(CharSequence source, int start, int end) {
+        int length = end - start;
+        if (length == 0 || length > MAX_LENGTH) {
+            return NONE;
+        }
+        int id = SLOTS[slot(hash(source, start, end), SEED)];
+        String name = NAMES[id];
+        if (id == NONE || name.length() != length) {
+            return NONE;
+        }
+        for (int i = 0; i < length; i++) {
+            if (name.charAt(i) != source.charAt(start + i)) {
+                return NONE;
+            }
+        }
+        return id;
+    }
+
+    public static int lookup(String literal) {
+        return lookup(literal, 0, literal.length());
+    }
+
+    /**
+     * Returns the literal of the symbol with the given ID.
+     */
+    public static String getName(int id) {
+        return NAMES[id];
+    }
+
+    /**
+     * An interning table for literals, so that every occurrence of an
+     * identifier shares one {@link String} and keywords use the literal from
+     * {@link #getName(int)}. Literals are looked up in place in the source,
+     * only allocating the first time one is seen.
+     */
+    public static final class Table {
+
+        private String[] entries = new String[256];
+        private int size = 0;
+
+        /**
+         * Creates a token spanning {@code start} to {@code end} in
+         * {@code source}, with a shared literal and its symbol ID.
+         */
+        public Token token(Token.Type type, CharSequence source, int start, int end) {
+            if (type == Token.Type.IDENTIFIER || type == Token.Type.OPERATOR) {
+                int symbol = lookup(source, start, end);
+                if (symbol != NONE) {
+                    return new Token(type, NAMES[symbol], start, symbol);
+                }
+                if (type == Token.Type.IDENTIFIER) {
+                    return new Token(type, intern(source, start, end), start, NONE);
+                }
+            }
+            return new Token(type, source.subSequence(start, end).toString(), start, NONE);
+        }
+
+        /**
+         * Returns the shared string equal to {@code source} from {@code start}
+         * to {@code end}.
+         */
+        public String intern(CharSequence source, int start, int end) {
+            int mask = entries.length - 1;
+            int slot = hash(source, start, end) & mask;
+            for (String entry = entries[slot]; entry != null; entry = entries[slot]) {
+                if (regionEquals(entry, source, start, end)) {
+                    return entry;
+                }
+                slot = (slot + 1) & mask;
+            }
+            String literal = source.subSequence(start, end).toString();
+            entries[slot] = literal;
+            if (++size * 2 > entries.length) {
+                resize();
+            }
+            return literal;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        private void resize() {
+            String[] old = entries;
+            entries = new String[old.length * 2];
+            int mask = entries.length - 1;
+            for (String entry : old) {
+                if (entry != null) {
+                    int slot = entry.hashCode() & mask;
+                    while (entries[slot] != null) {
+                        slot = (slot + 1) & mask;
+                    }
+                    entries[slot] = entry;
+                }
+            }
+        }
+
+        private static boolean regionEquals(String entry, CharSequence source, int start, int end) {
+            if (entry.length() != end - start) {
+                return false;
+            }
+            for (int i = 0; i < entry.length(); i++) {
+                if (entry.charAt(i) != source.charAt(start + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+    }
+
+}
@@ -14,11 +14,22 @@ public final class Token {
     private final Type type;
     private final String literal;
     private final int index;
+    private final int symbol;
+    private Object value;
 
     public Token(Type type, String literal, int index) {
+        this(type, literal, index, Symbols.lookup(literal));
+    }
+
+    /**
+     * Creates a token whose {@link Symbols} ID is already known, as done by
+     * the lexers.
+     */
+    Token(Type type, String literal, int index, int symbol) {
         this.type = type;
         this.literal = literal;
         this.index = index;
+        this.symbol = symbol;
     }
 
     public Type getType() {
@@ -33,6 +44,27 @@ public final class Token {
         return index;
     }
 
+    /**
+     * Returns the {@link Symbols} ID of this token's literal, or {@link
+     * Symbols#NONE} if it is not a keyword or operator.
+     */
+    public int getSymbol() {
+        return symbol;
+    }
+
+    /**
+     * Returns the decoded value of this token's literal: a BigInteger,
+     * BigDecimal, Character (with any escape applied) or String (without
+     * quotes, with escapes applied). Identifiers and operators return their
+     * literal. The value is decoded on first use and cached.
+     */
+    public Object getValue() {
+        if (value == null) {
+            value = Literals.decode(type, literal, 0, literal.length());
+        }
+        return value;
+    }
+
     @Override
     public boolean equals(Object obj) {
         return obj instanceof Token
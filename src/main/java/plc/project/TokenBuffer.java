@@ -0,0 +1,151 @@
+package plc.project;
+
+import java.nio.CharBuffer;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A compact list of tokens stored as parallel primitive arrays (type, start
+ * offset, length and {@link Symbols} ID) over the original source, instead of one {@link Token}
+ * object and literal copy per token.
+ *
+ * Literals are exposed as views over the source through {@link
+ * #getLiteral(int)}, and {@link Token} objects are only created by {@link
+ * #get(int)} for APIs which need them. The {@link Parser} reads a buffer
+ * directly through {@link Parser#Parser(TokenBuffer)}.
+ */
+public final class TokenBuffer {
+
+    private static final Token.Type[] TYPES = Token.Type.values();
+
+    private final CharSequence source;
+    private byte[] types = new byte[64];
+    private int[] starts = new int[64];
+    private int[] lengths = new int[64];
+    private byte[] symbols = new byte[64];
+    private int size = 0;
+
+    public TokenBuffer(CharSequence source) {
+        this.source = source;
+    }
+
+    /**
+     * Appends a token spanning {@code length} chars from {@code start}, with
+     * the given {@link Symbols} ID.
+     */
+    void add(Token.Type type, int start, int length, int symbol) {
+        if (size == types.length) {
+            int capacity = size * 2;
+            types = Arrays.copyOf(types, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            symbols = Arrays.copyOf(symbols, capacity);
+        }
+        types[size] = (byte) type.ordinal();
+        starts[size] = start;
+        lengths[size] = length;
+        symbols[size] = (byte) symbol;
+        size++;
+    }
+
+    public CharSequence getSource() {
+        return source;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Token.Type getType(int i) {
+        return TYPES[types[check(i)]];
+    }
+
+    public int getIndex(int i) {
+        return starts[check(i)];
+    }
+
+    public int getLength(int i) {
+        return lengths[check(i)];
+    }
+
+    public int getSymbol(int i) {
+        return symbols[check(i)];
+    }
+
+    /**
+     * Returns a read-only view of the literal over the source, without copying
+     * its characters.
+     */
+    public CharSequence getLiteral(int i) {
+        return CharBuffer.wrap(source, starts[check(i)], starts[i] + lengths[i]);
+    }
+
+    /**
+     * Returns a copy of the literal as a {@link String}.
+     */
+    public String getLiteralString(int i) {
+        return source.subSequence(starts[check(i)], starts[i] + lengths[i]).toString();
+    }
+
+    /**
+     * Returns true if the literal of token {@code i} is equal to
+     * {@code literal}, comparing in place.
+     */
+    public boolean isLiteral(int i, String literal) {
+        int start = starts[check(i)];
+        if (lengths[i] != literal.length()) {
+            return false;
+        }
+        for (int j = 0; j < lengths[i]; j++) {
+            if (source.charAt(start + j) != literal.charAt(j)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the decoded value of token {@code i}, as with {@link
+     * Token#getValue()}, reading the literal in place.
+     */
+    public Object getValue(int i) {
+        return Literals.decode(getType(i), source, starts[i], starts[i] + lengths[i]);
+    }
+
+    /**
+     * Materializes token {@code i} as a {@link Token}.
+     */
+    public Token get(int i) {
+        int symbol = symbols[check(i)];
+        String literal = symbol != Symbols.NONE ? Symbols.getName(symbol) : getLiteralString(i);
+        return new Token(getType(i), literal, starts[i], symbol);
+    }
+
+    /**
+     * Returns a list view materializing tokens on access.
+     */
+    public List<Token> asList() {
+        return new AbstractList<Token>() {
+
+            @Override
+            public Token get(int index) {
+                return TokenBuffer.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+        };
+    }
+
+    private int check(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Token " + i + " is not available.");
+        }
+        return i;
+    }
+
+}
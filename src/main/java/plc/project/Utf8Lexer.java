@@ -0,0 +1,148 @@
+package plc.project;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A lexer running the {@link DfaLexer} tables directly over UTF-8 bytes, such
+ * as a file mapped with {@link MappedSource#mapBytes(java.nio.file.Path)}, so
+ * the source is never decoded as a whole. Token indices are byte offsets from
+ * the start of the buffer.
+ *
+ * ASCII bytes are classified with a single table lookup. Multi-byte sequences
+ * are validated and classified as one char, so a non-ASCII char outside of a
+ * literal is a single operator token as in {@link Lexer}; the only difference
+ * is that a supplementary char is one token here rather than two surrogates.
+ * Bytes are only decoded for the literals of tokens containing non-ASCII
+ * chars, which are almost always strings and characters.
+ */
+public final class Utf8Lexer {
+
+    private final ByteBuffer bytes;
+    private final CharSequence ascii;
+    private final List<Token> tokens = new ArrayList<>();
+    private final Symbols.Table symbols = new Symbols.Table();
+    private int index = 0;
+    private boolean multibyte = false;
+
+    public Utf8Lexer(ByteBuffer bytes) {
+        this.bytes = bytes.slice();
+        this.ascii = new MappedSource(this.bytes);
+    }
+
+    public List<Token> lex() {
+        int limit = bytes.limit();
+        while (true) {
+            while (index < limit && DfaLexer.isWhitespace((char) bytes.get(index))) {
+                index++;
+            }
+            if (index == limit) {
+                return tokens;
+            }
+            tokens.add(lexToken());
+        }
+    }
+
+    /**
+     * Lexes the next token, starting at the current index.
+     */
+    public Token lexToken() {
+        long result = scan(index);
+        int start = index;
+        int end = (int) result;
+        Token.Type type = DfaLexer.ACCEPTS[(int) (result >>> 32)];
+        index = end;
+        if (!multibyte) {
+            return symbols.token(type, ascii, start, end);
+        }
+        byte[] literal = new byte[end - start];
+        bytes.get(start, literal);
+        return new Token(type, new String(literal, StandardCharsets.UTF_8), start, Symbols.NONE);
+    }
+
+    /**
+     * Runs the DFA from {@code start} in the same way as {@link
+     * DfaLexer#scan(CharSequence, int, int)}, stepping over each multi-byte
+     * sequence as one char and recording whether the token contains one.
+     */
+    private long scan(int start) {
+        int limit = bytes.limit();
+        int state = DfaLexer.START;
+        int position = start;
+        int acceptState = DfaLexer.DEAD;
+        int acceptEnd = start;
+        boolean acceptMultibyte = false;
+        boolean seen = false;
+        while (position < limit) {
+            byte b = bytes.get(position);
+            int width = 1;
+            int characterClass;
+            if (b >= 0) {
+                characterClass = DfaLexer.CLASSES[b];
+            } else {
+                width = width(position);
+                characterClass = DfaLexer.classify(decode(position, width));
+            }
+            int next = DfaLexer.TRANSITIONS[state * DfaLexer.CLASS_COUNT + characterClass];
+            if (next == DfaLexer.DEAD) {
+                break;
+            }
+            state = next;
+            position += width;
+            seen |= width > 1;
+            if (DfaLexer.ACCEPTS[state] != null) {
+                acceptState = state;
+                acceptEnd = position;
+                acceptMultibyte = seen;
+            }
+        }
+        if (acceptState == DfaLexer.DEAD) {
+            throw new ParseException("Error at ", state == DfaLexer.CHARACTER_ESCAPE ? position - 1 : position);
+        }
+        multibyte = acceptMultibyte;
+        return ((long) acceptState << 32) | acceptEnd;
+    }
+
+    /**
+     * Returns the length of the UTF-8 sequence at {@code position}, checking
+     * that it is well formed. As in the Unicode standard (table 3-7), the
+     * second byte after E0 and F0 is limited to reject overlong encodings,
+     * after ED to reject surrogates, and after F4 to reject code points above
+     * U+10FFFF.
+     */
+    private int width(int position) {
+        int lead = bytes.get(position) & 0xFF;
+        int width = lead > 0xF4 ? 0 : lead >= 0xF0 ? 4 : lead >= 0xE0 ? 3 : lead >= 0xC2 ? 2 : 0;
+        if (width == 0 || position + width > bytes.limit()) {
+            throw new ParseException("Invalid UTF-8 at ", position);
+        }
+        int second = bytes.get(position + 1) & 0xFF;
+        int low = lead == 0xE0 ? 0xA0 : lead == 0xF0 ? 0x90 : 0x80;
+        int high = lead == 0xED ? 0x9F : lead == 0xF4 ? 0x8F : 0xBF;
+        if (second < low || second > high) {
+            throw new ParseException("Invalid UTF-8 at ", position);
+        }
+        for (int i = 2; i < width; i++) {
+            if ((bytes.get(position + i) & 0xC0) != 0x80) {
+                throw new ParseException("Invalid UTF-8 at ", position);
+            }
+        }
+        return width;
+    }
+
+    /**
+     * Decodes the char of the sequence at {@code position} for classification.
+     * Supplementary code points return their high surrogate, which classifies
+     * the same as the whole code point.
+     */
+    private char decode(int position, int width) {
+        int code = bytes.get(position) & (0xFF >> (width + 1));
+        for (int i = 1; i < width; i++) {
+            code = (code << 6) | (bytes.get(position + i) & 0x3F);
+        }
+        return width == 4 ? Character.highSurrogate(code) : (char) code;
+    }
+
+}
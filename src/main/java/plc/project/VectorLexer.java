@@ -0,0 +1,88 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A lexer producing the same tokens as {@link DfaLexer}, but finding the end
+ * of whitespace runs, identifiers and numbers with a {@link RunScanner}, which
+ * uses the Vector API when it is available (run with {@code --add-modules
+ * jdk.incubator.vector}) and scalar loops otherwise. Other tokens are scanned
+ * by the DFA.
+ *
+ * The input is copied into a {@code char[]} once, since vectors are loaded
+ * from arrays.
+ */
+public final class VectorLexer {
+
+    private final CharSequence input;
+    private final char[] chars;
+    private final RunScanner runs;
+    private final List<Token> tokens = new ArrayList<>();
+    private final Symbols.Table symbols = new Symbols.Table();
+    private int index = 0;
+
+    public VectorLexer(CharSequence input) {
+        this(input, RunScanner.get());
+    }
+
+    VectorLexer(CharSequence input, RunScanner runs) {
+        this.input = input;
+        this.chars = new char[input.length()];
+        if (input instanceof String) {
+            ((String) input).getChars(0, chars.length, chars, 0);
+        } else {
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = input.charAt(i);
+            }
+        }
+        this.runs = runs;
+    }
+
+    /**
+     * Returns true if the Vector API is being used for scanning runs.
+     */
+    public boolean isVectorized() {
+        return runs != RunScanner.SCALAR;
+    }
+
+    public List<Token> lex() {
+        while (true) {
+            index = runs.whitespace(chars, index, chars.length);
+            if (index == chars.length) {
+                return tokens;
+            }
+            tokens.add(lexToken());
+        }
+    }
+
+    /**
+     * Lexes the next token, starting at the current index, by the first
+     * transition of the DFA.
+     */
+    private Token lexToken() {
+        int start = index;
+        int state = DfaLexer.TRANSITIONS[DfaLexer.START * DfaLexer.CLASS_COUNT + DfaLexer.classify(chars[start])];
+        if (state == DfaLexer.IDENTIFIER) {
+            return emit(Token.Type.IDENTIFIER, start, runs.identifier(chars, start + 1, chars.length));
+        }
+        int digit = state == DfaLexer.SIGN ? start + 1 : start;
+        if ((state == DfaLexer.SIGN || state == DfaLexer.INTEGER || state == DfaLexer.ZERO_INTEGER)
+                && digit < chars.length && RunScanner.isDigit(chars[digit])) {
+            // A leading zero is an integer on its own, as in the DFA.
+            int end = chars[digit] == '0' ? digit + 1 : runs.digits(chars, digit, chars.length);
+            if (end + 1 < chars.length && chars[end] == '.' && RunScanner.isDigit(chars[end + 1])) {
+                return emit(Token.Type.DECIMAL, start, runs.digits(chars, end + 1, chars.length));
+            }
+            return emit(Token.Type.INTEGER, start, end);
+        }
+        long result = DfaLexer.scan(input, start, chars.length);
+        return emit(DfaLexer.ACCEPTS[(int) (result >>> 32)], start, (int) result);
+    }
+
+    private Token emit(Token.Type type, int start, int end) {
+        index = end;
+        return symbols.token(type, input, start, end);
+    }
+
+}
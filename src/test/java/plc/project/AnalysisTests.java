@@ -0,0 +1,113 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Tests {@link Analyzer#analyze(Ast, Scope)} and the {@link Analysis} it
+ * returns in place of annotations on the tree.
+ */
+public class AnalysisTests {
+
+    private static final String PROGRAM = "LET x: Integer = 2; LET CONST s: String = \"s\";" +
+            " DEF f(): Integer DO RETURN x * (1 + 2); END" +
+            " DEF main(): Integer DO LET y = f() + 1; IF x < 3 DO print(s); END RETURN y; END";
+
+    @ParameterizedTest
+    @MethodSource
+    void testSameGeneratedCode(String test, String input) {
+        Ast.Source annotated = new Parser(new Lexer(input).lex()).parseSource();
+        new Analyzer(new Scope(null)).visit(annotated);
+        Ast.Source ast = new Parser(new Lexer(input).lex()).parseSource();
+        Analysis analysis = Analyzer.analyze(ast, new Scope(null));
+        Assertions.assertEquals(generate(annotated, null), generate(ast, analysis));
+    }
+
+    private static Stream<Arguments> testSameGeneratedCode() {
+        return Stream.of(
+                Arguments.of("Program", PROGRAM),
+                Arguments.of("Literals", "LET c: Character = 'c'; LET n: Decimal = 1.5; DEF main(): Integer DO print(c); print(n); print(NIL); RETURN 0; END"),
+                Arguments.of("Loops", "DEF main(): Integer DO LET i = 0; WHILE i < 3 DO i = i + 1; END RETURN i; END")
+        );
+    }
+
+    @Test
+    void testSameAnnotations() {
+        Ast.Source ast = new Parser(new Lexer(PROGRAM).lex()).parseSource();
+        Analyzer analyzer = new Analyzer(new Scope(null));
+        analyzer.visit(ast);
+        Analysis analysis = analyzer.getAnalysis();
+        Ast.Field field = ast.getFields().get(0);
+        Assertions.assertSame(field.getVariable(), analysis.getVariable(field));
+        Ast.Method method = ast.getMethods().get(0);
+        Assertions.assertSame(method.getFunction(), analysis.getFunction(method));
+        Ast.Statement.Declaration declaration = (Ast.Statement.Declaration) ast.getMethods().get(1).getStatements().get(0);
+        Assertions.assertSame(declaration.getVariable(), analysis.getVariable(declaration));
+        Ast.Expression value = declaration.getValue().get();
+        Assertions.assertEquals(value.getType(), analysis.getType(value));
+    }
+
+    @Test
+    void testTreeUnannotated() {
+        Ast.Source ast = new Parser(new Lexer(PROGRAM).lex()).parseSource();
+        Analysis analysis = Analyzer.analyze(ast, new Scope(null));
+        Ast.Statement.Declaration declaration = (Ast.Statement.Declaration) ast.getMethods().get(1).getStatements().get(0);
+        Assertions.assertEquals(Environment.Type.INTEGER, analysis.getVariable(declaration).getType());
+        Assertions.assertEquals(Environment.Type.INTEGER, analysis.getType(declaration.getValue().get()));
+        Assertions.assertThrows(IllegalStateException.class, declaration::getVariable);
+        Assertions.assertThrows(IllegalStateException.class, () -> declaration.getValue().get().getType());
+        Assertions.assertThrows(IllegalStateException.class, () -> ast.getMethods().get(0).getFunction());
+    }
+
+    @Test
+    void testUnanalyzedNode() {
+        Ast.Source ast = new Parser(new Lexer(PROGRAM).lex()).parseSource();
+        Analysis analysis = Analyzer.analyze(ast, new Scope(null));
+        Ast.Expression.Literal literal = new Ast.Expression.Literal(BigInteger.ONE);
+        Assertions.assertThrows(IllegalStateException.class, () -> analysis.getType(literal));
+    }
+
+    @Test
+    void testConcurrent() throws Exception {
+        Ast.Source ast = Parser.lazy(new Lexer(PROGRAM).lex()).parseSource();
+        String expected = generate(ast, Analyzer.analyze(ast, new Scope(null)));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> generated = new ArrayList<>();
+            List<Future<Object>> results = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                generated.add(executor.submit(() -> generate(ast, Analyzer.analyze(ast, new Scope(null)))));
+                results.add(executor.submit(() -> new Interpreter(new Scope(null)).visit(ast).getValue()));
+            }
+            for (Future<String> future : generated) {
+                Assertions.assertEquals(expected, future.get());
+            }
+            for (Future<Object> future : results) {
+                Assertions.assertEquals(BigInteger.valueOf(7), future.get());
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    private static String generate(Ast.Source ast, Analysis analysis) {
+        StringWriter writer = new StringWriter();
+        new Generator(new PrintWriter(writer), analysis).visit(ast);
+        return writer.toString();
+    }
+
+}
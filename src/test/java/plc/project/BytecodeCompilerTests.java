@@ -0,0 +1,158 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Tests programs compiled by {@link BytecodeCompiler} and run as hidden
+ * classes, including the class file details the compiler computes itself:
+ * stack and local sizes, jump offsets, and boxing.
+ */
+final class BytecodeCompilerTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testProgram(String test, String input, int expected, String output) {
+        BytecodeCompiler.Program program = compile(input);
+        CapturedOutput captured = CapturedOutput.run(program::run);
+        Assertions.assertEquals(expected, captured.getResult());
+        Assertions.assertEquals(output, captured.getOutput());
+    }
+
+    private static Stream<Arguments> testProgram() {
+        return Stream.of(
+                Arguments.of("Main", "DEF main(): Integer DO RETURN 0; END", 0, ""),
+                Arguments.of("Hello World", "DEF main(): Integer DO print(\"Hello, World!\"); RETURN 0; END", 0, "Hello, World!\n"),
+                Arguments.of("Fields",
+                        "LET x: Integer = 1; LET CONST y: Integer = x + 10; LET z: Integer; DEF main(): Integer DO z = x * y; RETURN z; END",
+                        11, ""),
+                Arguments.of("Integer Arithmetic", "DEF main(): Integer DO RETURN (7 - 2) * 3 / 2 + 100000; END", 100007, ""),
+                Arguments.of("Decimal Arithmetic", "DEF main(): Integer DO print(1.5 * 3.0 - 0.5 / 2.0); RETURN 0; END", 0, "4.25\n"),
+                Arguments.of("Concatenation",
+                        "LET c: Character = 'c'; DEF main(): Integer DO print(\"s\" + 1 + c + 2.5 + TRUE + NIL); RETURN 0; END",
+                        0, "s1c2.5truenull\n"),
+                Arguments.of("Comparison",
+                        "DEF main(): Integer DO print(1 < 2); print(2.5 >= 3.0); print('a' != 'b'); print(\"a\" == \"a\"); print(\"b\" <= \"a\"); RETURN 0; END",
+                        0, "true\nfalse\ntrue\ntrue\nfalse\n"),
+                Arguments.of("Logical",
+                        "DEF t(): Boolean DO print(\"t\"); RETURN TRUE; END DEF main(): Integer DO print(t() OR t()); print(1 > 2 AND t()); RETURN 0; END",
+                        0, "t\ntrue\nfalse\n"),
+                Arguments.of("If",
+                        "DEF sign(n: Integer): Integer DO IF n < 0 DO RETURN -1; ELSE IF n == 0 DO RETURN 0; END END RETURN 1; END DEF main(): Integer DO RETURN sign(-5) + sign(0) * 10 + sign(3) * 100; END",
+                        99, ""),
+                Arguments.of("While",
+                        "DEF main(): Integer DO LET i = 0; LET sum = 0; WHILE i < 1000 DO sum = sum + i; i = i + 1; END RETURN sum / 10; END",
+                        49950, ""),
+                Arguments.of("For",
+                        "DEF main(): Integer DO LET n: Integer = 0; LET sum = 0; FOR (n = 0; n < 5; n = n + 1) LET square = n * n; sum = sum + square; END RETURN sum; END",
+                        30, ""),
+                Arguments.of("Recursion",
+                        "DEF fib(n: Integer): Integer DO IF n < 2 DO RETURN n; END RETURN fib(n - 1) + fib(n - 2); END DEF main(): Integer DO RETURN fib(20); END",
+                        6765, ""),
+                Arguments.of("Mixed Parameters",
+                        "DEF f(d: Decimal, i: Integer, s: String): String DO RETURN s + (d * 2.0) + i; END DEF main(): Integer DO print(f(1.25, 7, \"x\")); RETURN 0; END",
+                        0, "x2.57\n"),
+                Arguments.of("Any",
+                        "LET a: Any = 1; DEF id(x: Any): Any DO RETURN x; END DEF main(): Integer DO print(id(a)); print(id(\"s\")); RETURN 0; END",
+                        0, "1\ns\n"),
+                Arguments.of("Void Method",
+                        "DEF log(s: String) DO print(s); END DEF main(): Integer DO log(\"a\"); log(\"b\"); RETURN 0; END",
+                        0, "a\nb\n"),
+                Arguments.of("Boxing",
+                        "LET a: Any = 1; DEF show(x: Any) DO print(x); END DEF main(): Integer DO show(2.5); show(TRUE); show('c'); show(a); a = 1.5; show(a); RETURN 0; END",
+                        0, "2.5\ntrue\nc\n1\n1.5\n"),
+                Arguments.of("Deep Expression",
+                        "DEF main(): Integer DO RETURN " + nested("+", IntStream.rangeClosed(1, 100).mapToObj(String::valueOf).toArray(String[]::new)) + "; END",
+                        5050, ""),
+                Arguments.of("Deep Decimal Expression",
+                        "DEF main(): Integer DO print(" + nested("+", IntStream.rangeClosed(1, 50).mapToObj(i -> i + ".5").toArray(String[]::new)) + "); RETURN 0; END",
+                        0, "1300.0\n"),
+                Arguments.of("Wide Locals",
+                        "DEF main(): Integer DO "
+                                + IntStream.range(0, 150).mapToObj(i -> "LET v" + i + ": Integer = " + i + "; LET d" + i + ": Decimal = " + i + ".5; ").collect(Collectors.joining())
+                                + "v149 = v149 + 1; d149 = d149 * 2.0; print(d149); RETURN v149 + v0; END",
+                        150, "299.0\n"),
+                Arguments.of("Long Jump",
+                        "DEF main(): Integer DO LET i = 0; LET s = 0; WHILE i < 2 DO " + "s = s + 1; ".repeat(5000) + "i = i + 1; END RETURN s; END",
+                        10000, "")
+        );
+    }
+
+    @Test
+    void testRunsAreIndependent() {
+        BytecodeCompiler.Program program = compile("LET x: Integer = 1; DEF main(): Integer DO x = x + 1; RETURN x; END");
+        Assertions.assertEquals(2, program.run());
+        Assertions.assertEquals(2, program.run());
+    }
+
+    @Test
+    void testUnsupportedFunction() {
+        Scope scope = new Scope(null);
+        scope.defineFunction("external", "external", java.util.List.of(), Environment.Type.INTEGER, args -> Environment.NIL);
+        Ast.Source ast = new Parser(new Lexer("DEF main(): Integer DO RETURN external(); END").lex()).parseSource();
+        Analysis analysis = Analyzer.analyze(ast, scope);
+        Assertions.assertThrows(RuntimeException.class, () -> BytecodeCompiler.compile(ast, analysis));
+    }
+
+    @Test
+    void testDivisionByZero() {
+        BytecodeCompiler.Program program = compile("DEF main(): Integer DO LET z = 0; RETURN 1 / z; END");
+        Assertions.assertThrows(ArithmeticException.class, program::run);
+    }
+
+    @Test
+    void testJumpTooLong() {
+        Ast.Source ast = new Parser(new Lexer(
+                "DEF main(): Integer DO LET i = 0; LET s = 0; WHILE i < 2 DO " + "s = s + 1; ".repeat(6000) + "i = i + 1; END RETURN s; END").lex()).parseSource();
+        Analysis analysis = Analyzer.analyze(ast, new Scope(null));
+        Assertions.assertThrows(IllegalStateException.class, () -> BytecodeCompiler.compile(ast, analysis));
+    }
+
+    @Test
+    void testMixedComparison() {
+        CapturedOutput captured = CapturedOutput.run(compile("DEF main(): Integer DO print(97 == 'a'); print(1 != 1.0); RETURN 0; END")::run);
+        Assertions.assertEquals("false\ntrue\n", captured.getOutput());
+        Assertions.assertThrows(ClassCastException.class, compile("DEF main(): Integer DO print(1 < 'a'); RETURN 0; END")::run);
+        Assertions.assertThrows(ClassCastException.class, compile("DEF main(): Integer DO print(1.5 >= 1); RETURN 0; END")::run);
+    }
+
+    @Test
+    void testLongString() {
+        String value = "a\u00e9\u4e16".repeat(25000);
+        BytecodeCompiler.Program program = compile("DEF main(): Integer DO print(\"" + value + "\"); RETURN 0; END");
+        CapturedOutput captured = CapturedOutput.run(program::run);
+        Assertions.assertEquals(value + "\n", captured.getOutput());
+    }
+
+    @Test
+    void testConstantTooLarge() {
+        ClassWriter writer = new ClassWriter(ClassWriter.ACC_PUBLIC, "Main", "java/lang/Object");
+        Assertions.assertThrows(IllegalStateException.class, () -> writer.utf8("x".repeat(ClassWriter.MAX_UTF8 + 1)));
+        Assertions.assertTrue(writer.utf8("x".repeat(ClassWriter.MAX_UTF8)) > 0);
+    }
+
+    /**
+     * Returns {@code operands} joined by {@code operator}, grouped from the
+     * right so the compiled code keeps every operand on the stack.
+     */
+    private static String nested(String operator, String... operands) {
+        String result = operands[operands.length - 2] + " " + operator + " " + operands[operands.length - 1];
+        for (int i = operands.length - 3; i >= 0; i--) {
+            result = operands[i] + " " + operator + " (" + result + ")";
+        }
+        return result;
+    }
+
+    private static BytecodeCompiler.Program compile(String input) {
+        Ast.Source ast = new Parser(new Lexer(input).lex()).parseSource();
+        return BytecodeCompiler.load(BytecodeCompiler.compile(ast, Analyzer.analyze(ast, new Scope(null))));
+    }
+
+}
@@ -0,0 +1,49 @@
+package plc.project;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Supplier;
+
+/**
+ * The result of a task run by a test and what it printed to {@link
+ * System#out}, for tests checking the output of programs.
+ */
+final class CapturedOutput {
+
+    private final Object result;
+    private final String output;
+
+    private CapturedOutput(Object result, String output) {
+        this.result = result;
+        this.output = output;
+    }
+
+    /**
+     * Runs {@code task} with {@link System#out} captured, which is restored
+     * even if the task throws. Line separators in the output are replaced
+     * with {@code \n}.
+     */
+    static CapturedOutput run(Supplier<?> task) {
+        PrintStream out = System.out;
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        Object result;
+        try {
+            System.setOut(new PrintStream(buffer, true, StandardCharsets.UTF_8));
+            result = task.get();
+        }
+        finally {
+            System.setOut(out);
+        }
+        return new CapturedOutput(result, buffer.toString(StandardCharsets.UTF_8).replace(System.lineSeparator(), "\n"));
+    }
+
+    Object getResult() {
+        return result;
+    }
+
+    String getOutput() {
+        return output;
+    }
+
+}
@@ -0,0 +1,103 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Tests that programs and nodes compiled by {@link ClosureCompiler} give the
+ * same results and output as {@link Interpreter}, running the interpreter
+ * tests against it as well as cases aimed at compiling.
+ */
+final class ClosureCompilerTests extends InterpreterTests {
+
+    @Override
+    Engine engine(Scope scope) {
+        return Engine.closures(scope);
+    }
+
+    @Nested
+    final class EndToEnd extends EndToEndInterpreterTests {
+
+        @Override
+        Engine engine(Scope scope) {
+            return Engine.closures(scope);
+        }
+
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testSameResult(String test, String input) {
+        Ast.Source ast = new Parser(new Lexer(input).lex()).parseSource();
+        CapturedOutput expected = CapturedOutput.run(() -> new Interpreter(new Scope(null)).visit(ast).getValue());
+        CapturedOutput actual = CapturedOutput.run(() -> new ClosureCompiler(new Scope(null)).compile(ast).run().getValue());
+        Assertions.assertEquals(expected.getResult(), actual.getResult());
+        Assertions.assertEquals(expected.getOutput(), actual.getOutput());
+    }
+
+    private static Stream<Arguments> testSameResult() {
+        return Stream.of(
+                Arguments.of("Main", "DEF main() DO RETURN 0; END"),
+                Arguments.of("Fields & No Return", "LET x: Integer = 1; LET y: Integer = 10; DEF main() DO x + y; END"),
+                Arguments.of("Field Assignment", "LET x: Integer = 1; DEF main() DO x = x + 1; print(x); END"),
+                Arguments.of("Locals", "DEF main() DO LET a = 1; LET b; b = a * 2; RETURN a + b; END"),
+                Arguments.of("Shadowing", "LET x: Integer = 1; DEF main() DO LET x = 2; IF TRUE DO LET x = 3; print(x); END print(x); RETURN x; END"),
+                Arguments.of("Loop Scope", "DEF main() DO LET i = 0; WHILE i < 3 DO LET j = i * i; print(j); i = i + 1; END RETURN i; END"),
+                Arguments.of("For", "DEF main() DO LET sum = 0; LET n = 0; FOR (n = 0; n < 5; n = n + 1) sum = sum + n; END RETURN sum; END"),
+                Arguments.of("Return From Loop", "DEF main() DO LET i = 0; WHILE TRUE DO i = i + 1; IF i == 4 DO RETURN i; END END END"),
+                Arguments.of("Calls", "LET count: Integer = 0; DEF f() DO count = count + 1; RETURN count; END DEF g(x: Integer) DO LET c = f(); RETURN c * x; END DEF main() DO RETURN g(10); END"),
+                Arguments.of("Operand Side Effects", "DEF f() DO print(\"f\"); RETURN 2; END DEF main() DO RETURN f() * f() + f() - (f() + 1); END"),
+                Arguments.of("Operators", "DEF main() DO print(1.5 + 2.5); print(\"a\" + \"b\"); print(3 - 1 >= 2); RETURN 'c' != 'd'; END"),
+                Arguments.of("Undefined Variable", "DEF main() DO print(1); RETURN y; END"),
+                Arguments.of("Undefined Function", "DEF main() DO RETURN f(1); END"),
+                Arguments.of("Dead Branch", "DEF main() DO IF FALSE DO RETURN undefined; END RETURN 1; END"),
+                Arguments.of("Type Error", "DEF main() DO RETURN 1 + \"s\"; END"),
+                Arguments.of("Redeclaration", "DEF main() DO LET a = 1; print(a); LET a = 2; RETURN a; END"),
+                Arguments.of("Missing Main", "LET x: Integer = 1;"),
+                Arguments.of("Generated", InterpreterBenchmark.source(50))
+        );
+    }
+
+    @Test
+    void testMethodCalledTwice() {
+        Ast.Method ast = new Parser(new Lexer("DEF square(x: Integer): Integer DO RETURN x * x; END").lex()).parseMethod();
+        Scope scope = test(ast, Environment.NIL.getValue(), new Scope(null));
+        List<Environment.PlcObject> args = Arrays.asList(Environment.create(BigInteger.TEN));
+        Assertions.assertEquals(BigInteger.valueOf(100), scope.lookupFunction("square", 1).invoke(args).getValue());
+        Assertions.assertEquals(BigInteger.valueOf(100), scope.lookupFunction("square", 1).invoke(args).getValue());
+    }
+
+    @Test
+    void testRecursion() {
+        Ast.Source ast = new Parser(new Lexer("DEF fact(n: Integer) DO IF n <= 1 DO RETURN 1; END RETURN n * fact(n - 1); END DEF main() DO RETURN fact(10); END").lex()).parseSource();
+        Assertions.assertEquals(BigInteger.valueOf(3628800), new ClosureCompiler(new Scope(null)).compile(ast).run().getValue());
+    }
+
+    @Test
+    void testRunTwice() {
+        Ast.Source ast = new Parser(new Lexer("LET x: Integer = 1; DEF main() DO x = x + 1; RETURN x; END").lex()).parseSource();
+        ClosureCompiler.Program program = new ClosureCompiler(new Scope(null)).compile(ast);
+        Assertions.assertEquals(BigInteger.valueOf(2), program.run().getValue());
+        Assertions.assertEquals(BigInteger.valueOf(2), program.run().getValue());
+    }
+
+    private static Scope test(Ast ast, Object expected, Scope scope) {
+        ClosureCompiler compiler = new ClosureCompiler(scope);
+        if (expected != null) {
+            Assertions.assertEquals(expected, compiler.compile(ast).run().getValue());
+        } else {
+            Assertions.assertThrows(RuntimeException.class, () -> compiler.compile(ast).run());
+        }
+        return compiler.getScope();
+    }
+
+}
@@ -0,0 +1,75 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.stream.Stream;
+
+/**
+ * Checks that {@link DfaLexer} produces exactly the same tokens and errors as
+ * the reference {@link Lexer}.
+ */
+public class DfaLexerTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testSameTokens(String test, String input) {
+        Assertions.assertEquals(new Lexer(input).lex(), new DfaLexer(input).lex());
+    }
+
+    private static Stream<Arguments> testSameTokens() {
+        return Stream.of(
+                Arguments.of("Identifiers", "getName thelegend27 a-b_c"),
+                Arguments.of("Bracket Identifier", "[x] ^y `z \\w"),
+                Arguments.of("Integers", "0 1 -1 +12 007"),
+                Arguments.of("Decimals", "1.5 -0.25 +3.0"),
+                Arguments.of("Trailing Decimal", "1. 0."),
+                Arguments.of("Characters", "'c' '\\n' '\\'' '\"'"),
+                Arguments.of("Strings", "\"\" \"abc\" \"Hello,\\nWorld\" \"\\\\\""),
+                Arguments.of("Operators", "< <= > >= == != = ! ( ) ; , . + - * /"),
+                Arguments.of("Whitespace", " \t\b\r\nLET\n\nx"),
+                Arguments.of("Source", LexerBenchmark.source(3))
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testSameError(String test, String input) {
+        ParseException expected = Assertions.assertThrows(ParseException.class, () -> new Lexer(input).lex());
+        ParseException actual = Assertions.assertThrows(ParseException.class, () -> new DfaLexer(input).lex());
+        Assertions.assertEquals(expected.getIndex(), actual.getIndex());
+    }
+
+    private static Stream<Arguments> testSameError() {
+        return Stream.of(
+                Arguments.of("Unterminated String", "\"unterminated"),
+                Arguments.of("Invalid String Escape", "\"invalid\\escape\""),
+                Arguments.of("Newline In String", "x = \"a\nb\";"),
+                Arguments.of("Empty Character", "''"),
+                Arguments.of("Multiple Characters", "'abc'"),
+                Arguments.of("Invalid Character Escape", "'\\q'"),
+                Arguments.of("Line Separator", "x \u2028 y")
+        );
+    }
+
+    @Test
+    void testBuffer() {
+        TokenBuffer buffer = new DfaLexer("LET x = 5;").lexBuffer();
+        Assertions.assertEquals(new Lexer("LET x = 5;").lex(), buffer.asList());
+        Assertions.assertEquals("LET", buffer.getLiteral(0).toString());
+        Assertions.assertTrue(buffer.isLiteral(2, "="));
+        Assertions.assertEquals(8, buffer.getIndex(3));
+
+        String input = LexerBenchmark.source(3);
+        Assertions.assertEquals(new Lexer(input).lex(), new DfaLexer(input).lexBuffer().asList());
+    }
+
+    @Test
+    void testLexToken() {
+        Assertions.assertEquals(new Lexer(" ").lexToken(), new DfaLexer(" ").lexToken());
+    }
+
+}
@@ -14,7 +14,7 @@ import java.util.List;
 import java.util.stream.Stream;
 import java.util.function.Function;
 
-final class EndToEndInterpreterTests {
+class EndToEndInterpreterTests {
 
     @ParameterizedTest
     @MethodSource
@@ -312,13 +312,22 @@ final class EndToEndInterpreterTests {
         );
     }
 
-    private static <T extends Ast> Scope test(String input, Object expected, Scope scope, Function<Parser, T> function) {
+    /**
+     * Returns the engine each case is run with, in a new scope under
+     * {@code scope}. Subclasses replace it to run these cases against
+     * another implementation.
+     */
+    Engine engine(Scope scope) {
+        return Engine.interpreter(scope);
+    }
+
+    private <T extends Ast> Scope test(String input, Object expected, Scope scope, Function<Parser, T> function) {
         Lexer lexer = new Lexer(input);
         Parser parser = new Parser(lexer.lex());
 
         Ast ast = function.apply(parser);
 
-        Interpreter interpreter = new Interpreter(scope);
+        Engine interpreter = engine(scope);
         if (expected != null) {
             Assertions.assertEquals(expected, interpreter.visit(ast).getValue());
         } else {
@@ -0,0 +1,58 @@
+package plc.project;
+
+/**
+ * Runs trees with the semantics of {@link Interpreter}, so that the
+ * interpreter tests can be run against each implementation of them.
+ */
+interface Engine {
+
+    Environment.PlcObject visit(Ast ast);
+
+    Scope getScope();
+
+    static Engine interpreter(Scope parent) {
+        Interpreter interpreter = new Interpreter(parent);
+        return new Engine() {
+            @Override
+            public Environment.PlcObject visit(Ast ast) {
+                return interpreter.visit(ast);
+            }
+
+            @Override
+            public Scope getScope() {
+                return interpreter.getScope();
+            }
+        };
+    }
+
+    static Engine resolved(Scope parent) {
+        ResolvedInterpreter interpreter = new ResolvedInterpreter(parent);
+        return new Engine() {
+            @Override
+            public Environment.PlcObject visit(Ast ast) {
+                return interpreter.visit(ast);
+            }
+
+            @Override
+            public Scope getScope() {
+                return interpreter.getScope();
+            }
+        };
+    }
+
+    static Engine closures(Scope parent) {
+        ClosureCompiler compiler = new ClosureCompiler(parent);
+        return new Engine() {
+            @Override
+            public Environment.PlcObject visit(Ast ast) {
+                return compiler.compile(ast).run();
+            }
+
+            @Override
+            public Scope getScope() {
+                return compiler.getScope();
+            }
+        };
+    }
+
+}
@@ -0,0 +1,48 @@
+package plc.project;
+
+import java.util.List;
+
+/**
+ * A benchmark of the parser over an expression-heavy source: long chains of
+ * binary operators at every precedence level, and bare literals. This is not a
+ * JUnit test; run it directly with an optional statement count, e.g.
+ * {@code ExpressionBenchmark 100000}.
+ */
+public final class ExpressionBenchmark {
+
+    public static void main(String[] args) {
+        int statements = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        String source = source(statements);
+        List<Token> tokens = new DfaLexer(source).lex();
+        TokenBuffer buffer = new DfaLexer(source).lexBuffer();
+        System.out.println("Source: " + source.length() + " chars, " + tokens.size() + " tokens");
+
+        ParserBenchmark.measure("Parse List<Token>", () -> new Parser(tokens).parseSource());
+        ParserBenchmark.measure("Parse TokenBuffer", () -> new Parser(buffer).parseSource());
+    }
+
+    /**
+     * Generates a single method with the given number of expression
+     * statements.
+     */
+    static String source(int statements) {
+        StringBuilder builder = new StringBuilder("DEF main() DO\n");
+        for (int i = 0; i < statements; i++) {
+            switch (i % 4) {
+                case 0:
+                    builder.append("    x = a + b * c - d / 2 + ").append(i).append(";\n");
+                    break;
+                case 1:
+                    builder.append("    y = x < 10 AND y >= 2 OR z != 0 AND w == 1;\n");
+                    break;
+                case 2:
+                    builder.append("    z = (a + 1) * (b - 2) / obj.field.method(c, d + e);\n");
+                    break;
+                default:
+                    builder.append("    print(").append(i).append(");\n");
+            }
+        }
+        return builder.append("END\n").toString();
+    }
+
+}
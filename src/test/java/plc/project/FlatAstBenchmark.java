@@ -0,0 +1,27 @@
+package plc.project;
+
+/**
+ * Compares the heap retained by an {@link Ast} with its {@link FlatAst}
+ * encoding, and the time to interpret each, over the source generated by
+ * {@link LexerBenchmark#source(int)}. This is not a JUnit test; run it
+ * directly with an optional method count, e.g. {@code FlatAstBenchmark 20000}.
+ */
+public final class FlatAstBenchmark {
+
+    public static void main(String[] args) {
+        int methods = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        String source = LexerBenchmark.source(methods);
+        Ast.Source ast = new Parser(new DfaLexer(source).lex()).parseSource();
+        FlatAst flat = FlatAst.of(ast);
+        System.out.println("Source: " + source.length() + " chars, " + flat.size() + " nodes");
+
+        System.out.printf("%-24s %8.1f bytes/node%n", "Ast", ParserBenchmark.footprint(() -> new Parser(new DfaLexer(source).lex()).parseSource()) / flat.size());
+        System.out.printf("%-24s %8.1f bytes/node%n", "FlatAst", ParserBenchmark.footprint(() -> FlatAst.of(new Parser(new DfaLexer(source).lex()).parseSource())) / flat.size());
+
+        ParserBenchmark.measure("Convert to FlatAst", () -> FlatAst.of(ast));
+        ParserBenchmark.measure("Convert to Ast", () -> flat.toAst(flat.getRoot()));
+        ParserBenchmark.measure("Interpret Ast", () -> new Interpreter(new Scope(null)).visit(ast));
+        ParserBenchmark.measure("Interpret FlatAst", () -> new FlatInterpreter(flat, new Scope(null)).visit(flat.getRoot()));
+    }
+
+}
@@ -0,0 +1,110 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Checks that a {@link FlatAst} converts back to an equal {@link Ast}, and
+ * that {@link FlatInterpreter} and {@link FlatAnalyzer} behave as {@link
+ * Interpreter} and {@link Analyzer} do on the same program.
+ */
+public class FlatAstTests {
+
+    @ParameterizedTest
+    @MethodSource("programs")
+    void testRoundTrip(String test, String input) {
+        Ast.Source ast = new Parser(new Lexer(input).lex()).parseSource();
+        FlatAst flat = FlatAst.of(ast);
+        Assertions.assertEquals(FlatAst.SOURCE, flat.getKind(flat.getRoot()));
+        Assertions.assertEquals(ast, flat.toAst(flat.getRoot()));
+    }
+
+    @ParameterizedTest
+    @MethodSource("programs")
+    void testInterpreter(String test, String input) {
+        Ast.Source ast = new Parser(new Lexer(input).lex()).parseSource();
+        FlatAst flat = FlatAst.of(ast);
+        String[] expected = run(() -> new Interpreter(new Scope(null)).visit(ast).getValue());
+        String[] actual = run(() -> new FlatInterpreter(flat, new Scope(null)).visit(flat.getRoot()).getValue());
+        Assertions.assertEquals(Arrays.asList(expected), Arrays.asList(actual));
+    }
+
+    @ParameterizedTest
+    @MethodSource("programs")
+    void testAnalyzer(String test, String input) {
+        Ast.Source ast = new Parser(new Lexer(input).lex()).parseSource();
+        FlatAst flat = FlatAst.of(ast);
+        String expected = analyze(() -> new Analyzer(new Scope(null)).visit(ast));
+        String actual = analyze(() -> new FlatAnalyzer(flat, new Scope(null)).visit(flat.getRoot()));
+        Assertions.assertEquals(expected, actual);
+    }
+
+    private static Stream<Arguments> programs() {
+        return Stream.of(
+                Arguments.of("Main", "DEF main(): Integer DO RETURN 0; END"),
+                Arguments.of("Fields", "LET x: Integer = 1; LET CONST y: Integer = 10; DEF main(): Integer DO print(x + y); RETURN x * y; END"),
+                Arguments.of("Loops", "DEF main(): Integer DO LET i = 0; LET s: String = \"\"; WHILE i < 5 DO s = s + \"a\"; i = i + 1; END print(s); RETURN i; END"),
+                Arguments.of("Calls", "DEF square(x: Integer): Integer DO RETURN x * x; END DEF main(): Integer DO print(square(7)); RETURN square(2); END"),
+                Arguments.of("If Else", "DEF main(): Integer DO LET x = 3; IF x > 2 DO print(\"big\"); ELSE print(\"small\"); END IF x == 0 DO print(x); END RETURN 0; END"),
+                Arguments.of("Literals", "DEF main(): Integer DO print('c'); print(1.5); print(TRUE OR FALSE); print(NIL); print((1 + 2) * 3); RETURN 0; END"),
+                Arguments.of("Assign Constant", "LET CONST x: Integer = 1; DEF main(): Integer DO x = 2; RETURN x; END"),
+                Arguments.of("Type Error", "DEF main(): Integer DO print(1 + TRUE); RETURN 0; END"),
+                Arguments.of("Undefined", "DEF main(): Integer DO print(y); RETURN 0; END"),
+                Arguments.of("Generated", LexerBenchmark.source(3))
+        );
+    }
+
+    @Test
+    void testExpression() {
+        Ast.Expression ast = new Parser(new Lexer("obj.method(1, \"s\", x.y) + -2 * (3 / z)").lex()).parseExpression();
+        FlatAst flat = FlatAst.of(ast);
+        Assertions.assertEquals(FlatAst.BINARY, flat.getKind(flat.getRoot()));
+        Assertions.assertEquals("+", flat.getName(flat.getRoot()));
+        Assertions.assertEquals(ast, flat.toAst(flat.getRoot()));
+    }
+
+    @Test
+    void testSharedConstants() {
+        FlatAst flat = FlatAst.of(new Parser(new Lexer("DEF f() DO x = x + x; x = x + 1; END").lex()).parseMethod());
+        int first = FlatAst.NONE;
+        for (int node = 0; node < flat.size(); node++) {
+            if (flat.getKind(node) == FlatAst.ACCESS) {
+                if (first == FlatAst.NONE) {
+                    first = node;
+                }
+                Assertions.assertEquals(flat.getSlot(first, 0), flat.getSlot(node, 0));
+            }
+        }
+    }
+
+    /**
+     * Runs {@code task}, returning its result or exception and its output.
+     */
+    private static String[] run(Supplier<Object> task) {
+        CapturedOutput captured = CapturedOutput.run(() -> {
+            try {
+                return String.valueOf(task.get());
+            } catch (RuntimeException e) {
+                return e.getClass().getName();
+            }
+        });
+        return new String[] {(String) captured.getResult(), captured.getOutput()};
+    }
+
+    private static String analyze(Runnable task) {
+        try {
+            task.run();
+            return "ok";
+        } catch (RuntimeException e) {
+            return e.getClass().getName() + ": " + e.getMessage();
+        }
+    }
+
+}
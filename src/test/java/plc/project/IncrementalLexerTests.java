@@ -0,0 +1,112 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Checks that the tokens of an {@link IncrementalLexer} after an edit are the
+ * same as lexing the edited source from scratch.
+ */
+public class IncrementalLexerTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testEdit(String test, String input, int offset, int removed, String inserted) {
+        IncrementalLexer lexer = new IncrementalLexer(input);
+        lexer.edit(offset, removed, inserted);
+        String expected = input.substring(0, offset) + inserted + input.substring(offset + removed);
+        Assertions.assertEquals(expected, lexer.getSource());
+        Assertions.assertEquals(new Lexer(expected).lex(), lexer.getTokens());
+    }
+
+    private static Stream<Arguments> testEdit() {
+        return Stream.of(
+                Arguments.of("Insert Token", "LET x = 5;", 4, 0, "y "),
+                Arguments.of("Extend Identifier", "LET x = 5;", 5, 0, "yz"),
+                Arguments.of("Split Identifier", "LET xyz = 5;", 5, 0, " "),
+                Arguments.of("Join Identifiers", "LET x y = 5;", 5, 1, ""),
+                Arguments.of("Complete Decimal", "x = 1.;", 6, 0, "5"),
+                Arguments.of("Break Decimal", "x = 1.5;", 6, 1, ""),
+                Arguments.of("Join Strings", "x = \"a\" + \"b\";", 6, 5, ""),
+                Arguments.of("Split String", "x = \"ab\";", 6, 0, "\" + \""),
+                Arguments.of("Comparison", "x < y", 3, 0, "="),
+                Arguments.of("Append", "LET x = 5", 9, 0, ";"),
+                Arguments.of("Delete All", "LET x = 5;", 0, 10, ""),
+                Arguments.of("Replace Same Length", "LET x = 5;\nLET y = 6;", 8, 1, "7")
+        );
+    }
+
+    @Test
+    void testRandomEdits() {
+        String source = LexerBenchmark.source(5);
+        IncrementalLexer lexer = new IncrementalLexer(source);
+        String[] inserts = {"", " ", "x", "1", ".", "=", "\n", "DO", "\"", "'a'", "y + 2"};
+        Random random = new Random(6);
+        for (int i = 0; i < 2000; i++) {
+            int offset = random.nextInt(source.length() + 1);
+            int removed = random.nextInt(Math.min(4, source.length() - offset) + 1);
+            String inserted = inserts[random.nextInt(inserts.length)];
+            String edited = source.substring(0, offset) + inserted + source.substring(offset + removed);
+            try {
+                Assertions.assertEquals(new Lexer(edited).lex(), lexer.edit(offset, removed, inserted));
+                source = edited;
+            } catch (ParseException e) {
+                Assertions.assertThrows(ParseException.class, () -> new Lexer(edited).lex());
+                Assertions.assertEquals(source, lexer.getSource());
+            }
+        }
+    }
+
+    @Test
+    void testLocalEdit() {
+        String source = LexerBenchmark.source(100);
+        IncrementalLexer lexer = new IncrementalLexer(source);
+        lexer.edit(source.indexOf("method50") + 6, 2, "Fifty");
+        Assertions.assertEquals(1, lexer.getRelexed());
+        Assertions.assertEquals(new Lexer(lexer.getSource()).lex(), lexer.getTokens());
+    }
+
+    @Test
+    void testEditCostIndependentOfSize() {
+        int[][] costs = new int[2][];
+        int[] sizes = {100, 1600};
+        for (int i = 0; i < sizes.length; i++) {
+            String source = LexerBenchmark.source(sizes[i]);
+            IncrementalLexer lexer = new IncrementalLexer(source);
+            int offset = source.indexOf("method" + sizes[i] / 2 + "(") + 6;
+            lexer.edit(offset, 0, " ");
+            // Typing and deleting where the last edit was moves nothing else.
+            int[] cost = new int[6];
+            for (int j = 0; j < 3; j++) {
+                lexer.edit(offset + 1 + j, 0, "x");
+                cost[j] = lexer.getRelexed() + lexer.getMoved();
+            }
+            for (int j = 3; j < 6; j++) {
+                lexer.edit(offset + 1 + 5 - j, 1, "");
+                cost[j] = lexer.getRelexed() + lexer.getMoved();
+            }
+            costs[i] = cost;
+            Assertions.assertEquals(new Lexer(lexer.getSource()).lex(), lexer.getTokens());
+        }
+        Assertions.assertEquals(Arrays.toString(costs[0]), Arrays.toString(costs[1]));
+        for (int cost : costs[1]) {
+            Assertions.assertTrue(cost <= 8, Arrays.toString(costs[1]));
+        }
+    }
+
+    @Test
+    void testError() {
+        IncrementalLexer lexer = new IncrementalLexer("x = 1;");
+        Assertions.assertThrows(ParseException.class, () -> lexer.edit(4, 0, "'ab"));
+        Assertions.assertEquals("x = 1;", lexer.getSource());
+        Assertions.assertEquals(new Lexer("x = 1;").lex(), lexer.getTokens());
+    }
+
+}
@@ -0,0 +1,55 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that {@link IncrementalParser} produces the same AST as {@link Parser}
+ * after edits, reusing the subtrees of unchanged declarations.
+ */
+public class IncrementalParserTests {
+
+    @Test
+    void testReuseUnchanged() {
+        String source = LexerBenchmark.source(20);
+        IncrementalLexer lexer = new IncrementalLexer(source);
+        IncrementalParser parser = new IncrementalParser();
+        Ast.Source before = parser.parse(lexer.getTokens());
+        Assertions.assertEquals(new Parser(lexer.getTokens()).parseSource(), before);
+
+        int offset = source.indexOf("-10 / 3");
+        Ast.Source after = parser.parse(lexer.edit(offset, 3, "(10 + 1)"));
+        Assertions.assertEquals(new Parser(new Lexer(lexer.getSource()).lex()).parseSource(), after);
+        Assertions.assertEquals(1, parser.getReparsed());
+        for (int i = 0; i < before.getFields().size(); i++) {
+            Assertions.assertSame(before.getFields().get(i), after.getFields().get(i));
+        }
+        for (int i = 0; i < before.getMethods().size(); i++) {
+            if (i != 10) {
+                Assertions.assertSame(before.getMethods().get(i), after.getMethods().get(i));
+            }
+        }
+    }
+
+    @Test
+    void testInsertDeclaration() {
+        IncrementalParser parser = new IncrementalParser();
+        Ast.Source before = parser.parse(new Lexer("LET x: Integer = 1; DEF f() DO x; END DEF f() DO x; END").lex());
+        Ast.Source after = parser.parse(new Lexer("LET x: Integer = 1; LET y: Integer; DEF g() DO END DEF f() DO x; END DEF f() DO x; END").lex());
+        Assertions.assertEquals(2, parser.getReparsed());
+        Assertions.assertSame(before.getFields().get(0), after.getFields().get(0));
+        Assertions.assertSame(before.getMethods().get(0), after.getMethods().get(1));
+        Assertions.assertSame(before.getMethods().get(1), after.getMethods().get(2));
+    }
+
+    @Test
+    void testError() {
+        IncrementalParser parser = new IncrementalParser();
+        parser.parse(new Lexer("DEF f() DO x; END").lex());
+        ParseException expected = Assertions.assertThrows(ParseException.class, () -> new Parser(new Lexer("DEF f() DO x END").lex()).parseSource());
+        ParseException actual = Assertions.assertThrows(ParseException.class, () -> parser.parse(new Lexer("DEF f() DO x END").lex()));
+        Assertions.assertEquals(expected.getIndex(), actual.getIndex());
+        Assertions.assertEquals(new Parser(new Lexer("DEF f() DO y; END").lex()).parseSource(), parser.parse(new Lexer("DEF f() DO y; END").lex()));
+    }
+
+}
@@ -0,0 +1,114 @@
+package plc.project;
+
+/**
+ * A simple benchmark of interpreter throughput on a loop-heavy program. It
+ * compares the {@code instanceof} chain in {@link Ast.Visitor#visit(Ast)}
+ * with dispatch by {@link Ast#accept(Ast.Visitor)}, names looked
+ * up in scopes with names resolved by {@link ResolvedInterpreter}, and
+ * visiting the tree with running closures built once by {@link
+ * ClosureCompiler} or a class compiled once by {@link BytecodeCompiler}.
+ * The class divides integers as Java does, so its total differs. This is
+ * not a JUnit test; run it directly with an optional iteration count, e.g.
+ * {@code InterpreterBenchmark 20000}.
+ *
+ * A second program spends its time reading and writing variables, comparing
+ * names looked up in scopes with names resolved once.
+ */
+public final class InterpreterBenchmark {
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        Ast.Source ast = new Parser(new DfaLexer(source(iterations)).lex()).parseSource();
+
+        for (int i = 0; i < 3; i++) {
+            // warm up every interpreter before measuring any
+            new Interpreter(new Scope(null)).visit(ast);
+            new AcceptInterpreter().visit(ast);
+            new ResolvedInterpreter(new Scope(null)).visit(ast);
+            new ClosureCompiler(new Scope(null)).compile(ast).run();
+        }
+        ClosureCompiler.Program program = new ClosureCompiler(new Scope(null)).compile(ast);
+        BytecodeCompiler.Program compiled = BytecodeCompiler.load(
+                BytecodeCompiler.compile(ast, Analyzer.analyze(ast, new Scope(null))));
+        compiled.run();
+        ParserBenchmark.measure("instanceof chain", () -> new Interpreter(new Scope(null)).visit(ast));
+        ParserBenchmark.measure("accept", () -> new AcceptInterpreter().visit(ast));
+        ParserBenchmark.measure("resolved", () -> new ResolvedInterpreter(new Scope(null)).visit(ast));
+        ParserBenchmark.measure("closures", program::run);
+        ParserBenchmark.measure("bytecode", compiled::run);
+
+        // Reading and writing variables in nested blocks, with no arithmetic
+        // besides the loop, to isolate the cost of finding a name.
+        Ast.Source names = new Parser(new DfaLexer(names(iterations)).lex()).parseSource();
+        for (int i = 0; i < 3; i++) {
+            new Interpreter(new Scope(null)).visit(names);
+            new ResolvedInterpreter(new Scope(null)).visit(names);
+        }
+        ParserBenchmark.measure("names: scopes", () -> new Interpreter(new Scope(null)).visit(names));
+        ParserBenchmark.measure("names: resolved", () -> new ResolvedInterpreter(new Scope(null)).visit(names));
+    }
+
+    /**
+     * Returns a program whose main method copies fields into each other
+     * {@code iterations} times from inside nested blocks, so most of its time
+     * is spent finding variables.
+     */
+    static String names(int iterations) {
+        StringBuilder builder = new StringBuilder();
+        builder.append("LET i: Integer = 0;\n");
+        for (char c = 'a'; c <= 'h'; c++) {
+            builder.append("LET ").append(c).append(": Integer = 1;\n");
+        }
+        builder.append("DEF main(): Integer DO\n");
+        builder.append("    WHILE i < ").append(iterations).append(" DO\n");
+        builder.append("        IF TRUE DO IF TRUE DO IF TRUE DO\n");
+        for (char c = 'a'; c < 'h'; c++) {
+            builder.append("            ").append(c).append(" = ").append((char) (c + 1)).append(";\n");
+        }
+        builder.append("        END END END\n");
+        builder.append("        i = i + 1;\n");
+        builder.append("    END\n");
+        builder.append("    RETURN a;\n");
+        builder.append("END\n");
+        return builder.toString();
+    }
+
+    /**
+     * Returns a program whose main method runs a loop of arithmetic,
+     * comparisons and branches {@code iterations} times. Calls take no
+     * arguments, since the {@link Interpreter} defines parameters in a scope
+     * shared by all calls of a method.
+     */
+    static String source(int iterations) {
+        return "LET total: Integer = 0;\n"
+                + "LET i: Integer = 0;\n"
+                + "DEF step(): Integer DO\n"
+                + "    IF i / 2 * 2 == i DO RETURN i + 1; ELSE RETURN i - 1; END\n"
+                + "END\n"
+                + "DEF main(): Integer DO\n"
+                + "    WHILE i < " + iterations + " DO\n"
+                + "        total = total + step() * 3 - (i + 1);\n"
+                + "        i = i + 1;\n"
+                + "    END\n"
+                + "    RETURN total;\n"
+                + "END\n";
+    }
+
+    /**
+     * The {@link Interpreter} with dispatch by {@link Ast#accept(Ast.Visitor)}
+     * rather than by testing each node class in turn.
+     */
+    private static final class AcceptInterpreter extends Interpreter {
+
+        private AcceptInterpreter() {
+            super(new Scope(null));
+        }
+
+        @Override
+        public Environment.PlcObject visit(Ast ast) {
+            return ast.accept(this);
+        }
+
+    }
+
+}
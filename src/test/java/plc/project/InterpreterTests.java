@@ -16,7 +16,7 @@ import java.util.List;
 import java.util.Optional;
 import java.util.stream.Stream;
 
-final class InterpreterTests {
+class InterpreterTests {
 
     @ParameterizedTest
     @MethodSource
@@ -345,6 +345,42 @@ final class InterpreterTests {
         );
     }
 
+    /**
+     * Each operand of a binary operator is evaluated exactly once, left
+     * before right, so a call in an operand is made once.
+     */
+    @ParameterizedTest
+    @MethodSource
+    void testOperandsEvaluatedOnce(String test, String operator, Object expected) {
+        Scope scope = new Scope(null);
+        StringBuilder calls = new StringBuilder();
+        scope.defineFunction("left", 0, args -> {
+            calls.append("left ");
+            return Environment.create(BigInteger.TWO);
+        });
+        scope.defineFunction("right", 0, args -> {
+            calls.append("right ");
+            return Environment.create(BigInteger.ONE);
+        });
+        test(new Ast.Expression.Binary(operator,
+                new Ast.Expression.Function(Optional.empty(), "left", Arrays.asList()),
+                new Ast.Expression.Function(Optional.empty(), "right", Arrays.asList())
+        ), expected, scope);
+        Assertions.assertEquals("left right ", calls.toString());
+    }
+
+    private static Stream<Arguments> testOperandsEvaluatedOnce() {
+        return Stream.of(
+                Arguments.of("Addition", "+", BigInteger.valueOf(3)),
+                Arguments.of("Subtraction", "-", BigInteger.ONE),
+                Arguments.of("Multiplication", "*", BigInteger.TWO),
+                Arguments.of("Less Than", "<", false),
+                Arguments.of("Greater Than or Equal", ">=", true),
+                Arguments.of("Equal", "==", false),
+                Arguments.of("Not Equal", "!=", true)
+        );
+    }
+
     @ParameterizedTest
     @MethodSource
     void testAccessExpression(String test, Ast ast, Object expected) {
@@ -397,8 +433,17 @@ final class InterpreterTests {
         );
     }
 
-    private static Scope test(Ast ast, Object expected, Scope scope) {
-        Interpreter interpreter = new Interpreter(scope);
+    /**
+     * Returns the engine each case is run with, in a new scope under
+     * {@code scope}. Subclasses replace it to run these cases against
+     * another implementation.
+     */
+    Engine engine(Scope scope) {
+        return Engine.interpreter(scope);
+    }
+
+    private Scope test(Ast ast, Object expected, Scope scope) {
+        Engine interpreter = engine(scope);
         if (expected != null) {
             Assertions.assertEquals(expected, interpreter.visit(ast).getValue());
         } else {
@@ -0,0 +1,37 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A simple benchmark of compiling many generated programs with {@link
+ * JavaSourceCompiler}, one javac task for each program against one task for
+ * all of them, and loading them again from the memory cache. Every
+ * measurement uses a new compiler so nothing is cached between runs. This is
+ * not a JUnit test; run it directly with an optional program count, e.g.
+ * {@code JavaSourceCompilerBenchmark 50}.
+ */
+public final class JavaSourceCompilerBenchmark {
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+        List<String> sources = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Ast.Source ast = new Parser(new DfaLexer(InterpreterBenchmark.source(1000 + i)).lex()).parseSource();
+            sources.add(JavaSourceCompiler.generate(ast, Analyzer.analyze(ast, new Scope(null))));
+        }
+
+        ParserBenchmark.measure("one task each", () -> {
+            JavaSourceCompiler compiler = new JavaSourceCompiler(null, count);
+            for (String source : sources) {
+                compiler.compile(source);
+            }
+            return compiler;
+        });
+        ParserBenchmark.measure("one task for all", () -> new JavaSourceCompiler(null, count).compile(sources));
+        JavaSourceCompiler cached = new JavaSourceCompiler(null, count);
+        cached.compile(sources);
+        ParserBenchmark.measure("memory cache", () -> cached.compile(sources));
+    }
+
+}
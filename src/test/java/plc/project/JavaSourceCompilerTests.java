@@ -0,0 +1,123 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Tests running {@link Generator} output compiled in process by {@link
+ * JavaSourceCompiler}.
+ */
+final class JavaSourceCompilerTests {
+
+    /**
+     * Compiles every program in one javac task, each in its own package, and
+     * runs them side by side.
+     */
+    @Test
+    void testBatch() {
+        List<String> inputs = List.of(
+                "DEF main(): Integer DO RETURN 0; END",
+                "DEF main(): Integer DO print(\"Hello, World!\"); RETURN 0; END",
+                "LET x: Integer = 3; LET y: Integer; DEF main(): Integer DO y = x * 14; RETURN y; END",
+                "LET x: Integer = 1; DEF main(): Integer DO x = x + 1; RETURN x; END",
+                "DEF fib(n: Integer): Integer DO IF n < 2 DO RETURN n; END RETURN fib(n - 1) + fib(n - 2); END DEF main(): Integer DO RETURN fib(20); END",
+                "DEF main(): Integer DO LET i = 0; WHILE i < 3 DO print(i); i = i + 1; END RETURN i; END"
+        );
+        List<Object> results = List.of(0, 0, 42, 2, 6765, 3);
+        List<String> outputs = List.of("", "Hello, World!\n", "", "", "", "0\n1\n2\n");
+        List<String> sources = inputs.stream().map(JavaSourceCompilerTests::generate).collect(Collectors.toList());
+        List<JavaSourceCompiler.Program> programs = new JavaSourceCompiler(null, 16).compile(sources);
+        for (int i = 0; i < programs.size(); i++) {
+            CapturedOutput captured = CapturedOutput.run(programs.get(i)::run);
+            Assertions.assertEquals(results.get(i), captured.getResult(), inputs.get(i));
+            Assertions.assertEquals(outputs.get(i), captured.getOutput(), inputs.get(i));
+        }
+    }
+
+    @Test
+    void testBatchDuplicates() {
+        JavaSourceCompiler compiler = new JavaSourceCompiler(null, 16);
+        String first = generate("DEF main(): Integer DO RETURN 1; END");
+        String second = generate("DEF main(): Integer DO RETURN 2; END");
+        List<JavaSourceCompiler.Program> programs = compiler.compile(List.of(first, second, first));
+        Assertions.assertEquals(1, programs.get(0).run());
+        Assertions.assertEquals(2, programs.get(1).run());
+        Assertions.assertSame(programs.get(0), programs.get(2));
+        Assertions.assertSame(programs.get(1), compiler.compile(second));
+    }
+
+    @Test
+    void testBatchCacheHits() {
+        JavaSourceCompiler compiler = new JavaSourceCompiler(null, 16);
+        String first = generate("DEF main(): Integer DO RETURN 1; END");
+        String second = generate("DEF main(): Integer DO RETURN 2; END");
+        JavaSourceCompiler.Program program = compiler.compile(first);
+        List<JavaSourceCompiler.Program> programs = compiler.compile(List.of(second, first));
+        Assertions.assertSame(program, programs.get(1));
+        Assertions.assertEquals(2, programs.get(0).run());
+        Assertions.assertSame(programs.get(0), compiler.compile(second));
+    }
+
+    @Test
+    void testBatchCompileError() {
+        JavaSourceCompiler compiler = new JavaSourceCompiler(null, 16);
+        String valid = generate("DEF main(): Integer DO RETURN 1; END");
+        String invalid = "public class Main { int main() { return \"x\"; } }";
+        Assertions.assertThrows(RuntimeException.class, () -> compiler.compile(List.of(valid, invalid)));
+
+        // The failed task caches nothing, so the valid program compiles alone.
+        JavaSourceCompiler.Program program = compiler.compile(valid);
+        Assertions.assertEquals(1, program.run());
+        Assertions.assertSame(program, compiler.compile(valid));
+    }
+
+    @Test
+    void testLeastRecentlyUsed() {
+        JavaSourceCompiler compiler = new JavaSourceCompiler(null, 1);
+        String first = generate("DEF main(): Integer DO RETURN 1; END");
+        JavaSourceCompiler.Program program = compiler.compile(first);
+        Assertions.assertSame(program, compiler.compile(first));
+        compiler.compile(generate("DEF main(): Integer DO RETURN 2; END"));
+        JavaSourceCompiler.Program recompiled = compiler.compile(first);
+        Assertions.assertNotSame(program, recompiled);
+        Assertions.assertEquals(1, recompiled.run());
+    }
+
+    @Test
+    void testDirectory(@TempDir Path directory) throws IOException {
+        String source = generate("DEF main(): Integer DO RETURN 7; END");
+        String key = JavaSourceCompiler.key(source);
+        Assertions.assertEquals(7, new JavaSourceCompiler(directory, 16).compile(source).run());
+        Path path = directory.resolve(key + ".classes");
+        Assertions.assertTrue(Files.isRegularFile(path));
+
+        // A new compiler loads the stored classes.
+        JavaSourceCompiler.Program program = new JavaSourceCompiler(directory, 16).compile(source);
+        Assertions.assertEquals(key, program.getKey());
+        Assertions.assertEquals(7, program.run());
+
+        // A file which cannot be read is compiled again.
+        Files.write(path, new byte[] {1, 2, 3});
+        Assertions.assertEquals(7, new JavaSourceCompiler(directory, 16).compile(source).run());
+    }
+
+    @Test
+    void testCompileError() {
+        JavaSourceCompiler compiler = new JavaSourceCompiler(null, 16);
+        Assertions.assertThrows(RuntimeException.class,
+                () -> compiler.compile("public class Main { int main() { return \"x\"; } }"));
+    }
+
+    private static String generate(String input) {
+        Ast.Source ast = new Parser(new Lexer(input).lex()).parseSource();
+        return JavaSourceCompiler.generate(ast, Analyzer.analyze(ast, null));
+    }
+
+}
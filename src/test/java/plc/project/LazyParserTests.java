@@ -0,0 +1,56 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Tests that {@link Parser#lazy(List)} produces the same AST as the eager
+ * parser once method bodies are used, and only parses them on first use.
+ */
+public class LazyParserTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testSameSource(String test, String input) {
+        List<Token> tokens = new Lexer(input).lex();
+        Assertions.assertEquals(new Parser(tokens).parseSource(), Parser.lazy(tokens).parseSource());
+    }
+
+    private static Stream<Arguments> testSameSource() {
+        return Stream.of(
+                Arguments.of("Empty Body", "DEF f() DO END"),
+                Arguments.of("Nested Blocks", "DEF f(): Integer DO IF x DO WHILE y DO z; END ELSE FOR (i = 0; i < 3; i = i + 1) a; END END RETURN 1; END DEF g() DO END"),
+                Arguments.of("Keyword Member", "DEF f() DO obj.END; obj.IF(); END"),
+                Arguments.of("Source", LexerBenchmark.source(10))
+        );
+    }
+
+    @Test
+    void testBodyErrorOnFirstUse() {
+        Ast.Source ast = Parser.lazy(new Lexer("DEF f() DO x = ; END DEF g() DO END").lex()).parseSource();
+        Assertions.assertEquals("g", ast.getMethods().get(1).getName());
+        ParseException exception = Assertions.assertThrows(ParseException.class, () -> ast.getMethods().get(0).getStatements().size());
+        Assertions.assertEquals(15, exception.getIndex());
+    }
+
+    @Test
+    void testMissingEnd() {
+        Assertions.assertThrows(ParseException.class, () -> Parser.lazy(new Lexer("DEF f() DO IF x DO y; END").lex()).parseSource());
+    }
+
+    @Test
+    void testUnusedMethodNotParsed() {
+        String input = "DEF broken() DO RETURN ; END\n" +
+                "DEF main(): Integer DO RETURN 1 + 2; END";
+        Ast.Source ast = Parser.lazy(new Lexer(input).lex()).parseSource();
+        Assertions.assertEquals(BigInteger.valueOf(3), new Interpreter(new Scope(null)).visit(ast).getValue());
+    }
+
+}
@@ -0,0 +1,90 @@
+package plc.project;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A simple throughput benchmark comparing the lexer implementations over a
+ * generated source. This is not a JUnit test; run it directly with an
+ * optional method count, e.g. {@code LexerBenchmark 20000}, and with
+ * {@code --add-modules jdk.incubator.vector} to compare the vectorized
+ * {@link VectorLexer} against its scalar fallback.
+ */
+public final class LexerBenchmark {
+
+    public static void main(String[] args) {
+        int methods = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        String source = source(methods);
+        System.out.println("Source: " + source.length() + " chars, " + new DfaLexer(source).lex().size() + " tokens");
+
+        measure("Lexer", source, input -> new Lexer(input).lex());
+        measure("DfaLexer", source, input -> new DfaLexer(input).lex());
+        measure("Scalar", source, input -> new VectorLexer(input, RunScanner.SCALAR).lex());
+        measure(new VectorLexer("").isVectorized() ? "Vector" : "Vector (n/a)", source, input -> new VectorLexer(input).lex());
+        measureEdit(source, source.indexOf("method" + methods / 2 + "(") + 6);
+    }
+
+    /**
+     * Times one-character edits to an {@link IncrementalLexer} at
+     * {@code offset}, alternately inserting and deleting, and prints the
+     * best time of one edit.
+     */
+    static void measureEdit(String source, int offset) {
+        IncrementalLexer lexer = new IncrementalLexer(source);
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 1000; i++) {
+            long start = System.nanoTime();
+            if (i % 2 == 0) {
+                lexer.edit(offset, 0, "x");
+            }
+            else {
+                lexer.edit(offset, 1, "");
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%-12s %8.4f ms per edit%n", "Incremental", best / 1e6);
+    }
+
+    /**
+     * Times {@code lexer} over several rounds after a warmup and prints the
+     * best throughput observed.
+     */
+    static void measure(String name, String source, Function<String, List<Token>> lexer) {
+        for (int i = 0; i < 3; i++) {
+            lexer.apply(source);
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            long start = System.nanoTime();
+            lexer.apply(source);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%-12s %8.2f ms %8.2f MB/s%n", name, best / 1e6, source.length() / (best / 1e9) / 1e6);
+    }
+
+    /**
+     * Generates a valid source with the given number of methods, exercising
+     * every token type.
+     */
+    static String source(int methods) {
+        StringBuilder builder = new StringBuilder();
+        builder.append("LET counter: Integer = 0;\n");
+        builder.append("LET CONST name: String = \"bench\\tmark\";\n");
+        for (int i = 0; i < methods; i++) {
+            builder.append("DEF method").append(i).append("(x: Integer, y: Decimal): Integer DO\n");
+            builder.append("    LET letter: Character = 'a';\n");
+            builder.append("    LET total = x * 2 + -").append(i).append(" / 3;\n");
+            builder.append("    IF total >= 10 AND y != 0.5 DO\n");
+            builder.append("        print(\"total is large\\n\");\n");
+            builder.append("    ELSE\n");
+            builder.append("        total = total - 1;\n");
+            builder.append("    END\n");
+            builder.append("    WHILE total < 100 DO total = total + 1; END\n");
+            builder.append("    RETURN total;\n");
+            builder.append("END\n");
+        }
+        builder.append("DEF main(): Integer DO RETURN 0; END\n");
+        return builder.toString();
+    }
+
+}
@@ -6,6 +6,7 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Stream;
@@ -131,6 +132,14 @@ public class LexerTests {
         );
     }
 
+    @Test
+    void testIterator() {
+        String input = "LET x = 5;\nprint(\"Hello, World!\");  ";
+        List<Token> tokens = new ArrayList<>();
+        new Lexer(input).iterator().forEachRemaining(tokens::add);
+        Assertions.assertEquals(new Lexer(input).lex(), tokens);
+    }
+
     @Test
     void testException() {
         ParseException exception = Assertions.assertThrows(ParseException.class,
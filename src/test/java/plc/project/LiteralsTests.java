@@ -0,0 +1,54 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.stream.Stream;
+
+/**
+ * Tests the values decoded from literals by {@link Token#getValue()} and
+ * {@link TokenBuffer#getValue(int)}.
+ */
+public class LiteralsTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testValue(String test, String input, Object expected) {
+        Token token = new DfaLexer(input).lex().get(0);
+        Assertions.assertEquals(expected, token.getValue());
+        Assertions.assertEquals(expected, new DfaLexer(input).lexBuffer().getValue(0));
+    }
+
+    private static Stream<Arguments> testValue() {
+        return Stream.of(
+                Arguments.of("Integer", "123", new BigInteger("123")),
+                Arguments.of("Negative Integer", "-45", new BigInteger("-45")),
+                Arguments.of("Signed Integer", "+7", new BigInteger("7")),
+                Arguments.of("Large Integer", "123456789012345678901234567890", new BigInteger("123456789012345678901234567890")),
+                Arguments.of("Decimal", "1.50", new BigDecimal("1.50")),
+                Arguments.of("Negative Decimal", "-0.25", new BigDecimal("-0.25")),
+                Arguments.of("Large Decimal", "12345678901234567890.5", new BigDecimal("12345678901234567890.5")),
+                Arguments.of("Character", "'c'", 'c'),
+                Arguments.of("Character Escape", "'\\n'", '\n'),
+                Arguments.of("Character Quote", "'\\''", '\''),
+                Arguments.of("String", "\"abc\"", "abc"),
+                Arguments.of("Empty String", "\"\"", ""),
+                Arguments.of("String Escapes", "\"a\\tb\\\"c\\\\n\\b\"", "a\tb\"c\\n\b"),
+                Arguments.of("Identifier", "name", "name")
+        );
+    }
+
+    @Test
+    void testSmallIntegerCache() {
+        Token first = new DfaLexer("42").lex().get(0);
+        Token second = new Lexer("x = 42;").lex().get(2);
+        Assertions.assertSame(first.getValue(), second.getValue());
+        Assertions.assertSame(first.getValue(), first.getValue());
+    }
+
+}
@@ -0,0 +1,65 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+/**
+ * Tests that lexing a {@link MappedSource} matches lexing the same contents
+ * from a {@link String}.
+ */
+public class MappedSourceTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testMap(String test, String input) throws IOException {
+        Path path = Files.createTempFile("source", ".plc");
+        try {
+            Files.write(path, input.getBytes(StandardCharsets.UTF_8));
+            CharSequence source = MappedSource.map(path);
+            Assertions.assertEquals(input, source.toString());
+            Assertions.assertEquals(new Lexer(input).lex(), new Lexer(source).lex());
+            Assertions.assertEquals(new Lexer(input).lex(), new DfaLexer(source).lex());
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    private static Stream<Arguments> testMap() {
+        return Stream.of(
+                Arguments.of("Empty", ""),
+                Arguments.of("Ascii", "LET x = 5;\nprint(\"Hello, World!\");\n"),
+                Arguments.of("Utf8", "LET name: String = \"caf\u00e9 \u4e16\u754c\";\n"),
+                Arguments.of("Source", LexerBenchmark.source(2))
+        );
+    }
+
+    /**
+     * A non-ASCII file too large to decode is rejected before any buffer is
+     * allocated. The file is sparse, so this takes no real space.
+     */
+    @Test
+    void testTooLargeToDecode() throws IOException {
+        Path path = Files.createTempFile("source", ".plc");
+        try {
+            try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+                file.write("\u00e9".getBytes(StandardCharsets.UTF_8));
+                file.setLength(MappedSource.MAX_DECODED + 1L);
+            }
+            IOException exception = Assertions.assertThrows(IOException.class, () -> MappedSource.map(path));
+            Assertions.assertTrue(exception.getMessage().contains(String.valueOf(MappedSource.MAX_DECODED)));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+}
@@ -0,0 +1,26 @@
+package plc.project;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Measures how {@link ParallelLexer} scales with the number of worker threads,
+ * against the sequential {@link DfaLexer}. This is not a JUnit test; run it
+ * directly with an optional method count, e.g.
+ * {@code ParallelLexerBenchmark 200000}.
+ */
+public final class ParallelLexerBenchmark {
+
+    public static void main(String[] args) {
+        int methods = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+        String source = LexerBenchmark.source(methods);
+        System.out.println("Source: " + source.length() + " chars, " + Runtime.getRuntime().availableProcessors() + " cores");
+
+        LexerBenchmark.measure("DfaLexer", source, input -> new DfaLexer(input).lex());
+        for (int threads = 1; threads <= Runtime.getRuntime().availableProcessors(); threads *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            LexerBenchmark.measure("Parallel x" + threads, source, input -> new ParallelLexer(input, pool, ParallelLexer.CHUNK_SIZE).lex());
+            pool.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,55 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+/**
+ * Checks that {@link ParallelLexer} produces the same tokens and errors as the
+ * sequential {@link Lexer} for any chunk size.
+ */
+public class ParallelLexerTests {
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    @ParameterizedTest
+    @MethodSource
+    void testSameTokens(String test, String input) {
+        for (int chunkSize : new int[] {1, 7, 64, ParallelLexer.CHUNK_SIZE}) {
+            Assertions.assertEquals(new Lexer(input).lex(), new ParallelLexer(input, POOL, chunkSize).lex());
+        }
+    }
+
+    private static Stream<Arguments> testSameTokens() {
+        return Stream.of(
+                Arguments.of("Empty", ""),
+                Arguments.of("Single Line", "LET x = 5;"),
+                Arguments.of("Blank Lines", "\n\n  x\n\n\ny\n"),
+                Arguments.of("Carriage Returns", "x = 1;\r\ny = \"a b\";\r\n"),
+                Arguments.of("Source", LexerBenchmark.source(20))
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testSameError(String test, String input) {
+        ParseException expected = Assertions.assertThrows(ParseException.class, () -> new Lexer(input).lex());
+        for (int chunkSize : new int[] {1, 7, 64}) {
+            ParseException actual = Assertions.assertThrows(ParseException.class, () -> new ParallelLexer(input, POOL, chunkSize).lex());
+            Assertions.assertEquals(expected.getIndex(), actual.getIndex());
+        }
+    }
+
+    private static Stream<Arguments> testSameError() {
+        return Stream.of(
+                Arguments.of("Newline In String", "x = \"a\nb\";"),
+                Arguments.of("Unterminated At End", "x = 1;\ny = 'a"),
+                Arguments.of("Earliest Error", "x = 1;\ny = '';\nz = \"\\q\";\n")
+        );
+    }
+
+}
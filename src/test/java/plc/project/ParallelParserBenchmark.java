@@ -0,0 +1,27 @@
+package plc.project;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Measures how {@link ParallelParser} scales with the number of worker threads,
+ * against the sequential {@link Parser}. This is not a JUnit test; run it
+ * directly with an optional method count, e.g.
+ * {@code ParallelParserBenchmark 20000}.
+ */
+public final class ParallelParserBenchmark {
+
+    public static void main(String[] args) {
+        int methods = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        List<Token> tokens = new DfaLexer(LexerBenchmark.source(methods)).lex();
+        System.out.println("Source: " + tokens.size() + " tokens, " + Runtime.getRuntime().availableProcessors() + " cores");
+
+        ParserBenchmark.measure("Parser", () -> new Parser(tokens).parseSource());
+        for (int threads = 1; threads <= Runtime.getRuntime().availableProcessors(); threads *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            ParserBenchmark.measure("Parallel x" + threads, () -> new ParallelParser(tokens, pool).parseSource());
+            pool.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,65 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Stream;
+
+/**
+ * Checks that {@link ParallelParser} produces the same AST, or the same error,
+ * as parsing sequentially with {@link Parser}.
+ */
+public class ParallelParserTests {
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    @ParameterizedTest
+    @MethodSource
+    void testSameSource(String test, String input) {
+        List<Token> tokens = new Lexer(input).lex();
+        Assertions.assertEquals(new Parser(tokens).parseSource(), new ParallelParser(tokens, POOL).parseSource());
+    }
+
+    private static Stream<Arguments> testSameSource() {
+        return Stream.of(
+                Arguments.of("Empty", ""),
+                Arguments.of("Fields Only", "LET x: Integer = 1; LET CONST y: String = \"s\";"),
+                Arguments.of("Nested Blocks", "DEF f(): Integer DO IF x DO WHILE y DO z; END ELSE FOR (i = 0; i < 3; i = i + 1) a; END END RETURN 1; END DEF g() DO END"),
+                Arguments.of("Keyword Member", "DEF f() DO obj.END; obj.IF(); END DEF g() DO END"),
+                Arguments.of("Source", LexerBenchmark.source(100))
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testSameError(String test, String input) {
+        List<Token> tokens = new Lexer(input).lex();
+        ParseException expected = Assertions.assertThrows(ParseException.class, () -> new Parser(tokens).parseSource());
+        ParseException actual = Assertions.assertThrows(ParseException.class, () -> new ParallelParser(tokens, POOL).parseSource());
+        Assertions.assertEquals(expected.getMessage(), actual.getMessage());
+        Assertions.assertEquals(expected.getIndex(), actual.getIndex());
+    }
+
+    private static Stream<Arguments> testSameError() {
+        return Stream.of(
+                Arguments.of("Missing Semicolon", "DEF f() DO x END DEF g() DO END"),
+                Arguments.of("Field After Method", "DEF f() DO END LET x: Integer;"),
+                Arguments.of("Extra End", "DEF f() DO IF x DO y; END END END")
+        );
+    }
+
+    @Test
+    void testPoolFailure() {
+        List<Token> tokens = new Lexer(LexerBenchmark.source(10)).lex();
+        ForkJoinPool pool = new ForkJoinPool(1);
+        pool.shutdown();
+        Assertions.assertThrows(RejectedExecutionException.class, () -> new ParallelParser(tokens, pool).parseSource());
+    }
+
+}
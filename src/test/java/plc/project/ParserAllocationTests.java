@@ -0,0 +1,33 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+/**
+ * Checks that parsing allocates little besides the tree itself, using the
+ * per-thread allocation counter read by {@link
+ * ParserBenchmark#allocated(java.util.function.Supplier)}. The tree of
+ * {@link LexerBenchmark#source(int)} is about 24.6 bytes per token; looking
+ * ahead with varargs patterns allocated about twice that, so the bound fails
+ * if dispatch starts allocating for each token again.
+ */
+public class ParserAllocationTests {
+
+    private static final double BYTES_PER_TOKEN = 30;
+
+    @Test
+    void testAllocationPerToken() {
+        List<Token> tokens = new DfaLexer(LexerBenchmark.source(50)).lex();
+        for (int i = 0; i < 3; i++) {
+            // load and initialize every class used before measuring
+            new Parser(tokens).parseSource();
+        }
+        double allocated = ParserBenchmark.allocated(() -> new Parser(tokens).parseSource());
+        Assumptions.assumeFalse(Double.isNaN(allocated), "The JVM does not measure allocation per thread.");
+        Assertions.assertTrue(allocated / tokens.size() <= BYTES_PER_TOKEN, allocated / tokens.size() + " bytes per token");
+    }
+
+}
@@ -0,0 +1,92 @@
+package plc.project;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * A simple benchmark of the parser over the source generated by {@link
+ * LexerBenchmark#source(int)}. This is not a JUnit test; run it directly with
+ * an optional method count, e.g. {@code ParserBenchmark 20000}.
+ */
+public final class ParserBenchmark {
+
+    public static void main(String[] args) {
+        int methods = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        String source = LexerBenchmark.source(methods);
+
+        List<Token> list = new DfaLexer(source).lex();
+        TokenBuffer buffer = new DfaLexer(source).lexBuffer();
+        System.out.println("Source: " + source.length() + " chars, " + list.size() + " tokens");
+        System.out.printf("%-24s %8.1f bytes/token%n", "List<Token>", footprint(() -> new DfaLexer(source).lex()) / list.size());
+        System.out.printf("%-24s %8.1f bytes/token%n", "TokenBuffer", footprint(() -> new DfaLexer(source).lexBuffer()) / buffer.size());
+
+        for (int i = 0; i < 5; i++) {
+            // warm up the parser on both inputs before measuring either
+            new Parser(list).parseSource();
+            new Parser(buffer).parseSource();
+        }
+        System.out.printf("%-24s %8.1f bytes/token%n", "Ast", footprint(() -> new Parser(list).parseSource()) / list.size());
+        System.out.printf("%-24s %8.1f bytes/token%n", "Ast shared", footprint(() -> new Parser(list).shareExpressions().parseSource()) / list.size());
+        System.out.printf("%-24s %8.1f bytes/token%n", "Parse allocation", allocated(() -> new Parser(buffer).parseSource()) / buffer.size());
+        measure("Parse List<Token>", () -> new Parser(list).parseSource());
+        measure("Parse TokenBuffer", () -> new Parser(buffer).parseSource());
+        measure("Lex+Parse List<Token>", () -> new Parser(new DfaLexer(source).lex()).parseSource());
+        measure("Lex+Parse TokenBuffer", () -> new Parser(new DfaLexer(source).lexBuffer()).parseSource());
+    }
+
+    /**
+     * Times {@code task} over several rounds after a warmup and prints the
+     * best time observed.
+     */
+    static void measure(String name, Supplier<?> task) {
+        for (int i = 0; i < 5; i++) {
+            task.get();
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 10; i++) {
+            long start = System.nanoTime();
+            task.get();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%-24s %8.2f ms%n", name, best / 1e6);
+    }
+
+    /**
+     * Returns the approximate number of heap bytes retained by the result of
+     * {@code task}, excluding the source itself.
+     */
+    static double footprint(Supplier<?> task) {
+        long before = usedMemory();
+        Object result = task.get();
+        long after = usedMemory();
+        if (result == null) {
+            throw new AssertionError();
+        }
+        return after - before;
+    }
+
+    /**
+     * Returns the number of heap bytes allocated by the current thread while
+     * running {@code task}, including garbage, or NaN if the JVM does not
+     * support measuring it.
+     */
+    static double allocated(Supplier<?> task) {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)) {
+            return Double.NaN;
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long before = threads.getCurrentThreadAllocatedBytes();
+        task.get();
+        return threads.getCurrentThreadAllocatedBytes() - before;
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+}
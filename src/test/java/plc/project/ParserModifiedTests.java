@@ -399,6 +399,43 @@ final class ParserModifiedTests {
                                 new Ast.Expression.Access(Optional.empty(), "expr1"),
                                 new Ast.Expression.Access(Optional.empty(), "expr2")
                         )
+                ),
+                Arguments.of("Binary Precedence",
+                        Arrays.asList(
+                                //a OR b < c - d * e + f AND g
+                                new Token(Token.Type.IDENTIFIER, "a", 0),
+                                new Token(Token.Type.IDENTIFIER, "OR", 2),
+                                new Token(Token.Type.IDENTIFIER, "b", 5),
+                                new Token(Token.Type.OPERATOR, "<", 7),
+                                new Token(Token.Type.IDENTIFIER, "c", 9),
+                                new Token(Token.Type.OPERATOR, "-", 11),
+                                new Token(Token.Type.IDENTIFIER, "d", 13),
+                                new Token(Token.Type.OPERATOR, "*", 15),
+                                new Token(Token.Type.IDENTIFIER, "e", 17),
+                                new Token(Token.Type.OPERATOR, "+", 19),
+                                new Token(Token.Type.IDENTIFIER, "f", 21),
+                                new Token(Token.Type.IDENTIFIER, "AND", 23),
+                                new Token(Token.Type.IDENTIFIER, "g", 27)
+                        ),
+                        new Ast.Expression.Binary("AND",
+                                new Ast.Expression.Binary("OR",
+                                        new Ast.Expression.Access(Optional.empty(), "a"),
+                                        new Ast.Expression.Binary("<",
+                                                new Ast.Expression.Access(Optional.empty(), "b"),
+                                                new Ast.Expression.Binary("+",
+                                                        new Ast.Expression.Binary("-",
+                                                                new Ast.Expression.Access(Optional.empty(), "c"),
+                                                                new Ast.Expression.Binary("*",
+                                                                        new Ast.Expression.Access(Optional.empty(), "d"),
+                                                                        new Ast.Expression.Access(Optional.empty(), "e")
+                                                                )
+                                                        ),
+                                                        new Ast.Expression.Access(Optional.empty(), "f")
+                                                )
+                                        )
+                                ),
+                                new Ast.Expression.Access(Optional.empty(), "g")
+                        )
                 )
         );
     }
@@ -555,6 +592,28 @@ final class ParserModifiedTests {
         test(input, expected, Parser::parseSource);
     }
 
+    @Test
+    void testStreamingSource() {
+        // More tokens than the parser's lookahead window, read lazily.
+        String input = "LET first: Integer = 1;\n" +
+                "DEF main(): Integer DO\n" +
+                "    WHILE first != 10 DO\n" +
+                "        print(first);\n" +
+                "        first = first + 1;\n" +
+                "    END\n" +
+                "    RETURN first;\n" +
+                "END";
+        Ast.Source expected = new Parser(new Lexer(input).lex()).parseSource();
+        Assertions.assertEquals(expected, new Parser(new Lexer(input).iterator()).parseSource());
+    }
+
+    @Test
+    void testTokenBufferSource() {
+        String input = LexerBenchmark.source(3);
+        Ast.Source expected = new Parser(new Lexer(input).lex()).parseSource();
+        Assertions.assertEquals(expected, new Parser(new DfaLexer(input).lexBuffer()).parseSource());
+    }
+
     /**
      * Standard test function. If expected is null, a ParseException is expected
      * to be thrown (not used in the provided tests).
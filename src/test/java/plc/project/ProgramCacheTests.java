@@ -0,0 +1,103 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public class ProgramCacheTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testParsed(String test, String input) {
+        Ast.Source ast = new Parser(new Lexer(input).lex()).parseSource();
+        Assertions.assertEquals(ast, ProgramCache.decode(ByteBuffer.wrap(ProgramCache.encode(ast))));
+    }
+
+    private static Stream<Arguments> testParsed() {
+        return Stream.of(
+                Arguments.of("Empty", ""),
+                Arguments.of("Literals", "LET a: Integer = 123456789012345678901234567890; LET b: Decimal = -1.50; LET c: Character = '\\n'; LET d: String = \"caf\u00e9\"; LET e: Boolean = TRUE; LET f: Any = NIL;"),
+                Arguments.of("Statements", "DEF f(x: Integer, y: String): Integer DO LET z; IF x DO RETURN (x + 1) * 2; ELSE z = y.length; END FOR (i = 0; i < x; i = i + 1) obj.m(i, j); END WHILE z != 0 DO z = z - 1; END END"),
+                Arguments.of("Generated", LexerBenchmark.source(5))
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testAnalyzed(String test, String input) {
+        Ast.Source ast = new Parser(new Lexer(input).lex()).parseSource();
+        new Analyzer(new Scope(null)).visit(ast);
+        Ast.Source decoded = ProgramCache.decode(ByteBuffer.wrap(ProgramCache.encode(ast)));
+        Assertions.assertEquals(ast, decoded);
+        Assertions.assertEquals(ast.getMethods().get(ast.getMethods().size() - 1).getFunction(),
+                decoded.getMethods().get(decoded.getMethods().size() - 1).getFunction());
+    }
+
+    private static Stream<Arguments> testAnalyzed() {
+        return Stream.of(
+                Arguments.of("Main", "DEF main(): Integer DO RETURN 0; END"),
+                Arguments.of("Fields", "LET x: Integer = 1; LET CONST s: String = \"s\"; DEF main(): Integer DO print(s.length); x = x + 2; RETURN x * (x - 1); END"),
+                Arguments.of("Control Flow", "DEF f(n: Integer): Decimal DO LET d = 1.5; WHILE n > 0 DO n = n - 1; END IF n == 0 DO print(d); END RETURN d; END DEF main(): Integer DO f(3); RETURN 0; END")
+        );
+    }
+
+    @Test
+    void testSharedVariable() {
+        Ast.Source ast = new Parser(new Lexer("LET x: Integer = 1; DEF main(): Integer DO RETURN x; END").lex()).parseSource();
+        new Analyzer(new Scope(null)).visit(ast);
+        Ast.Source decoded = ProgramCache.decode(ByteBuffer.wrap(ProgramCache.encode(ast)));
+        Ast.Statement.Return statement = (Ast.Statement.Return) decoded.getMethods().get(0).getStatements().get(0);
+        Assertions.assertSame(decoded.getFields().get(0).getVariable(), ((Ast.Expression.Access) statement.getValue()).getVariable());
+    }
+
+    @Test
+    void testUnregisteredType() {
+        Environment.Type type = new Environment.Type("Unregistered", "Object", new Scope(null));
+        Ast.Expression.Literal literal = new Ast.Expression.Literal(true);
+        literal.setType(type);
+        Ast.Source ast = new Ast.Source(Arrays.asList(new Ast.Field("x", "Boolean", false, Optional.of(literal))), Arrays.asList());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ProgramCache.encode(ast));
+    }
+
+    @Test
+    void testDirectory(@TempDir Path directory) throws IOException {
+        ProgramCache cache = new ProgramCache(directory);
+        byte[] source = "DEF main(): Integer DO RETURN 0; END".getBytes(StandardCharsets.UTF_8);
+        Assertions.assertNull(cache.load(source));
+        Ast.Source ast = new Parser(new Lexer(new String(source, StandardCharsets.UTF_8)).lex()).parseSource();
+        Assertions.assertTrue(cache.store(source, ast));
+        Assertions.assertEquals(ast, cache.load(source));
+        Assertions.assertNull(cache.load("DEF main(): Integer DO RETURN 1; END".getBytes(StandardCharsets.UTF_8)));
+
+        Files.write(cache.getPath(source), new byte[] {1, 2, 3});
+        Assertions.assertNull(cache.load(source));
+    }
+
+    @Test
+    void testLazy(@TempDir Path directory) throws IOException {
+        ProgramCache cache = new ProgramCache(directory);
+        byte[] source = "DEF f(): Integer DO RETURN 1; END DEF main(): Integer DO RETURN f(); END".getBytes(StandardCharsets.UTF_8);
+        Ast.Source ast = Parser.lazy(new Lexer(new String(source, StandardCharsets.UTF_8)).lex()).parseSource();
+        Assertions.assertTrue(cache.store(source, ast));
+        Assertions.assertEquals(new Parser(new Lexer(new String(source, StandardCharsets.UTF_8)).lex()).parseSource(), cache.load(source));
+
+        byte[] invalid = "DEF main(): Integer DO RETURN; ; END".getBytes(StandardCharsets.UTF_8);
+        Ast.Source lazy = Parser.lazy(new Lexer(new String(invalid, StandardCharsets.UTF_8)).lex()).parseSource();
+        Assertions.assertFalse(cache.store(invalid, lazy));
+        Assertions.assertNull(cache.load(invalid));
+        Assertions.assertThrows(ParseException.class, () -> lazy.getMethods().get(0).getStatements().size());
+    }
+
+}
@@ -0,0 +1,104 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigInteger;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Tests that {@link ResolvedInterpreter} gives the same results and output as
+ * {@link Interpreter}, running the interpreter tests against it as well as
+ * cases aimed at resolving names.
+ */
+final class ResolvedInterpreterTests extends InterpreterTests {
+
+    @Override
+    Engine engine(Scope scope) {
+        return Engine.resolved(scope);
+    }
+
+    @Nested
+    final class EndToEnd extends EndToEndInterpreterTests {
+
+        @Override
+        Engine engine(Scope scope) {
+            return Engine.resolved(scope);
+        }
+
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testSameResult(String test, String input) {
+        Ast.Source ast = new Parser(new Lexer(input).lex()).parseSource();
+        CapturedOutput expected = run(ast, Interpreter::new);
+        CapturedOutput actual = run(ast, ResolvedInterpreter::new);
+        Assertions.assertEquals(expected.getResult(), actual.getResult());
+        Assertions.assertEquals(expected.getOutput(), actual.getOutput());
+    }
+
+    private static Stream<Arguments> testSameResult() {
+        return Stream.of(
+                Arguments.of("Main", "DEF main() DO RETURN 0; END"),
+                Arguments.of("Fields", "LET x: Integer = 1; LET y: Integer = x + 10; DEF main() DO print(y); RETURN x + y; END"),
+                Arguments.of("Field Assignment", "LET x: Integer = 1; DEF main() DO x = x + 1; print(x); END"),
+                Arguments.of("Locals", "DEF main() DO LET a = 1; LET b; b = a * 2; RETURN a + b; END"),
+                Arguments.of("Shadowing", "LET x: Integer = 1; DEF main() DO LET x = 2; IF TRUE DO LET x = 3; print(x); END print(x); RETURN x; END"),
+                Arguments.of("Loop Scope", "DEF main() DO LET i = 0; WHILE i < 3 DO LET j = i * i; print(j); i = i + 1; END RETURN i; END"),
+                Arguments.of("For", "DEF main() DO LET sum = 0; LET n = 0; FOR (n = 0; n < 5; n = n + 1) sum = sum + n; END RETURN sum; END"),
+                Arguments.of("Calls", "LET count: Integer = 0; DEF f() DO count = count + 1; RETURN count; END DEF g(x: Integer) DO RETURN f() + x; END DEF main() DO RETURN g(10); END"),
+                Arguments.of("Forward Call", "DEF main() DO RETURN f(); END DEF f() DO RETURN \"f\"; END"),
+                Arguments.of("Undefined Variable", "DEF main() DO print(1); RETURN y; END"),
+                Arguments.of("Undefined Function", "DEF main() DO RETURN f(1); END"),
+                Arguments.of("Dead Branch", "DEF main() DO IF FALSE DO RETURN undefined; END RETURN 1; END"),
+                Arguments.of("Redeclaration", "DEF main() DO LET a = 1; print(a); LET a = 2; RETURN a; END"),
+                Arguments.of("Missing Main", "LET x: Integer = 1;")
+        );
+    }
+
+    @Test
+    void testRecursion() {
+        // the Interpreter shares one scope between calls of a method, so
+        // only calls resolved to frames can recurse with parameters
+        Ast.Source ast = new Parser(new Lexer("DEF fact(n: Integer) DO IF n <= 1 DO RETURN 1; END RETURN n * fact(n - 1); END DEF main() DO RETURN fact(10); END").lex()).parseSource();
+        Assertions.assertEquals(BigInteger.valueOf(3628800), new ResolvedInterpreter(new Scope(null)).visit(ast).getValue());
+    }
+
+    @Test
+    void testParentScope() {
+        Scope scope = new Scope(null);
+        scope.defineVariable("x", false, Environment.create(BigInteger.TEN));
+        scope.defineFunction("twice", 1, args -> Environment.create(((BigInteger) args.get(0).getValue()).shiftLeft(1)));
+        Ast.Source ast = new Parser(new Lexer("DEF main() DO x = twice(x); RETURN x; END").lex()).parseSource();
+        Assertions.assertEquals(BigInteger.valueOf(20), new ResolvedInterpreter(scope).visit(ast).getValue());
+        Assertions.assertEquals(BigInteger.valueOf(20), scope.lookupVariable("x").getValue().getValue());
+    }
+
+    @Test
+    void testDuplicateField() {
+        Ast.Source ast = new Parser(new Lexer("LET x: Integer = 1; LET x: Integer = 2; DEF main() DO RETURN x; END").lex()).parseSource();
+        RuntimeException expected = Assertions.assertThrows(RuntimeException.class, () -> new Interpreter(new Scope(null)).visit(ast));
+        RuntimeException actual = Assertions.assertThrows(RuntimeException.class, () -> new ResolvedInterpreter(new Scope(null)).visit(ast));
+        Assertions.assertEquals(expected.getMessage(), actual.getMessage());
+    }
+
+    @Test
+    void testDuplicateMethod() {
+        Ast.Source ast = new Parser(new Lexer("DEF main() DO RETURN 0; END DEF main() DO RETURN 1; END").lex()).parseSource();
+        Assertions.assertThrows(RuntimeException.class, () -> new ResolvedInterpreter(new Scope(null)).visit(ast));
+    }
+
+    /**
+     * Runs {@code ast}, returning its result and what it printed.
+     */
+    private static CapturedOutput run(Ast.Source ast, Function<Scope, Ast.Visitor<Environment.PlcObject>> interpreter) {
+        return CapturedOutput.run(() -> interpreter.apply(new Scope(null)).visit(ast).getValue());
+    }
+
+}
@@ -0,0 +1,79 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.stream.Stream;
+
+/**
+ * Tests {@link Parser#shareExpressions()} and the structural {@link
+ * Ast#hashCode()} it relies on.
+ */
+public class SharedExpressionTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testSameTree(String test, String input) {
+        Ast.Source expected = new Parser(new Lexer(input).lex()).parseSource();
+        Ast.Source actual = new Parser(new Lexer(input).lex()).shareExpressions().parseSource();
+        Assertions.assertEquals(expected, actual);
+        Assertions.assertEquals(expected.hashCode(), actual.hashCode());
+    }
+
+    private static Stream<Arguments> testSameTree() {
+        return Stream.of(
+                Arguments.of("Fields", "LET a: Integer = 1 + 2; LET b: Integer = 1 + 2; LET c: String = \"s\";"),
+                Arguments.of("Statements", "DEF f() DO IF x == 1 DO RETURN (1 + 2) * 3; END WHILE 1 < 2 DO x = x + 1; END END"),
+                Arguments.of("Generated", LexerBenchmark.source(5))
+        );
+    }
+
+    @Test
+    void testLiteralsShared() {
+        Ast.Source ast = new Parser(new Lexer("LET a: Integer = (1 + 2) * 3; LET b: Integer = (1 + 2) * 3;").lex()).shareExpressions().parseSource();
+        Assertions.assertSame(ast.getFields().get(0).getValue().get(), ast.getFields().get(1).getValue().get());
+    }
+
+    @Test
+    void testVariablesNotShared() {
+        Ast.Expression.Binary binary = (Ast.Expression.Binary) new Parser(new Lexer("(x + 1) + (x + 1)").lex()).shareExpressions().parseExpression();
+        Ast.Expression.Binary left = (Ast.Expression.Binary) ((Ast.Expression.Group) binary.getLeft()).getExpression();
+        Ast.Expression.Binary right = (Ast.Expression.Binary) ((Ast.Expression.Group) binary.getRight()).getExpression();
+        Assertions.assertEquals(left, right);
+        Assertions.assertNotSame(left, right);
+        Assertions.assertNotSame(left.getLeft(), right.getLeft());
+        Assertions.assertSame(left.getRight(), right.getRight());
+    }
+
+    @Test
+    void testLazyBodiesShared() {
+        Ast.Source ast = Parser.lazy(new Lexer("DEF f() DO RETURN 42; END DEF g() DO RETURN 42; END").lex()).shareExpressions().parseSource();
+        Ast.Statement.Return f = (Ast.Statement.Return) ast.getMethods().get(0).getStatements().get(0);
+        Ast.Statement.Return g = (Ast.Statement.Return) ast.getMethods().get(1).getStatements().get(0);
+        Assertions.assertSame(f.getValue(), g.getValue());
+    }
+
+    @Test
+    void testAnalyzeShared() {
+        String input = "LET x: Integer = 2; DEF f(): Integer DO RETURN x * (1 + 2); END DEF main(): Integer DO print(f()); RETURN 1 + 2; END";
+        Ast.Source expected = new Parser(new Lexer(input).lex()).parseSource();
+        Ast.Source actual = new Parser(new Lexer(input).lex()).shareExpressions().parseSource();
+        new Analyzer(new Scope(null)).visit(expected);
+        new Analyzer(new Scope(null)).visit(actual);
+        Assertions.assertEquals(expected.getFields(), actual.getFields());
+        Assertions.assertEquals(expected.getMethods().get(0).getStatements(), actual.getMethods().get(0).getStatements());
+    }
+
+    @Test
+    void testHashCode() {
+        Ast.Expression first = new Parser(new Lexer("obj.method(a, 1.5, 'c') + -2 * (b / \"s\")").lex()).parseExpression();
+        Ast.Expression second = new Parser(new Lexer("obj.method(a, 1.5, 'c') + -2 * (b / \"s\")").lex()).parseExpression();
+        Assertions.assertEquals(first.hashCode(), second.hashCode());
+        Ast.Expression other = new Parser(new Lexer("obj.method(a, 1.5, 'c') + -2 * (b / \"t\")").lex()).parseExpression();
+        Assertions.assertNotEquals(first.hashCode(), other.hashCode());
+    }
+
+}
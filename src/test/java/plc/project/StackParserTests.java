@@ -0,0 +1,107 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Checks that {@link StackParser} produces the same AST and errors as
+ * {@link Parser}, and parses inputs nested far deeper than the Java stack
+ * allows.
+ */
+public class StackParserTests {
+
+    private static final int DEPTH = 1_000_000;
+
+    @ParameterizedTest
+    @MethodSource
+    void testSameSource(String test, String input) {
+        List<Token> tokens = new Lexer(input).lex();
+        Assertions.assertEquals(new Parser(tokens).parseSource(), new StackParser(tokens).parseSource());
+    }
+
+    private static Stream<Arguments> testSameSource() {
+        return Stream.of(
+                Arguments.of("Empty", ""),
+                Arguments.of("Fields", "LET x: Integer; LET CONST y: String = \"s\"; LET z: Decimal = (1.5 + 2) * 3;"),
+                Arguments.of("Parameters", "DEF f(a: Integer, b: String): Boolean DO END DEF g() DO END"),
+                Arguments.of("Statements", "DEF f() DO LET x; LET y: Integer = 1; x = y; print(x); RETURN x + 1; END"),
+                Arguments.of("If Else", "DEF f() DO IF a DO b; ELSE IF c DO d; END e; END IF f DO END END"),
+                Arguments.of("For", "DEF f() DO FOR (i = 0; i < 10; i = i + 1) print(i); END FOR (; x;) END END"),
+                Arguments.of("While", "DEF f() DO WHILE x != 0 DO WHILE y DO END x = x - 1; END END"),
+                Arguments.of("Calls", "DEF f() DO obj.field.method(a, b.c(), (d)).x; f(); g(1, 'c', \"s\", TRUE, FALSE, NIL); END"),
+                Arguments.of("Keyword Names", "DEF f() DO x = END; obj.IF(); END"),
+                Arguments.of("Generated", LexerBenchmark.source(5)),
+                Arguments.of("Expressions", ExpressionBenchmark.source(20))
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testSameError(String test, String input) {
+        List<Token> tokens = new Lexer(input).lex();
+        RuntimeException expected = Assertions.assertThrows(RuntimeException.class, () -> new Parser(tokens).parseSource());
+        RuntimeException actual = Assertions.assertThrows(RuntimeException.class, () -> new StackParser(tokens).parseSource());
+        Assertions.assertEquals(expected.getClass(), actual.getClass());
+        if (expected instanceof ParseException) {
+            Assertions.assertEquals(expected.getMessage(), actual.getMessage());
+            Assertions.assertEquals(((ParseException) expected).getIndex(), ((ParseException) actual).getIndex());
+        }
+    }
+
+    private static Stream<Arguments> testSameError() {
+        return Stream.of(
+                Arguments.of("Field Type", "LET x = 1;"),
+                Arguments.of("Field Semicolon", "LET x: Integer = 1"),
+                Arguments.of("Method After", "DEF f() DO END LET x: Integer;"),
+                Arguments.of("Parameter", "DEF f(a: Integer,) DO END"),
+                Arguments.of("Missing Do", "DEF f() RETURN 1; END"),
+                Arguments.of("Missing Semicolon", "DEF f() DO x END"),
+                Arguments.of("Missing Paren", "DEF f() DO x = (1 + 2; END"),
+                Arguments.of("Missing Operand", "DEF f() DO x = 1 +"),
+                Arguments.of("Missing Member", "DEF f() DO x.; END"),
+                Arguments.of("Return", "DEF f() DO RETURN 1 END"),
+                Arguments.of("For Assign", "DEF f() DO FOR (i 0; i; ) END END"),
+                Arguments.of("While End", "DEF f() DO WHILE x DO y;"),
+                Arguments.of("If End", "DEF f() DO IF x DO y;")
+        );
+    }
+
+    @Test
+    void testDeepGroups() {
+        String input = "(".repeat(DEPTH) + "x" + ")".repeat(DEPTH);
+        Ast.Expression expression = new StackParser(new DfaLexer(input).lex()).parseExpression();
+        for (int i = 0; i < DEPTH; i++) {
+            expression = ((Ast.Expression.Group) expression).getExpression();
+        }
+        Assertions.assertEquals("x", ((Ast.Expression.Access) expression).getName());
+    }
+
+    @Test
+    void testDeepArguments() {
+        String input = "f(".repeat(DEPTH) + ")".repeat(DEPTH);
+        Ast.Expression expression = new StackParser(new DfaLexer(input).lex()).parseExpression();
+        for (int i = 1; i < DEPTH; i++) {
+            expression = ((Ast.Expression.Function) expression).getArguments().get(0);
+        }
+        Assertions.assertEquals(0, ((Ast.Expression.Function) expression).getArguments().size());
+    }
+
+    @Test
+    void testDeepBlocks() {
+        String input = "DEF main() DO " + "IF x DO WHILE y DO ".repeat(DEPTH / 2) + "z;" + " END END".repeat(DEPTH / 2) + " END";
+        Ast.Source source = new StackParser(new DfaLexer(input).lex()).parseSource();
+        Ast.Statement statement = source.getMethods().get(0).getStatements().get(0);
+        for (int i = 0; i < DEPTH / 2; i++) {
+            Ast.Statement.While loop = (Ast.Statement.While) ((Ast.Statement.If) statement).getThenStatements().get(0);
+            statement = loop.getStatements().get(0);
+        }
+        Assertions.assertEquals("z", ((Ast.Expression.Access) ((Ast.Statement.Expression) statement).getExpression()).getName());
+    }
+
+}
@@ -0,0 +1,62 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+public class SymbolsTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testLookup(String test, String literal, int expected) {
+        Assertions.assertEquals(expected, Symbols.lookup(literal));
+    }
+
+    private static Stream<Arguments> testLookup() {
+        return Stream.of(
+                Arguments.of("Keyword", "LET", Symbols.LET),
+                Arguments.of("Longest Keyword", "RETURN", Symbols.RETURN),
+                Arguments.of("Operator", "<=", Symbols.LESS_EQUAL),
+                Arguments.of("Lowercase Keyword", "let", Symbols.NONE),
+                Arguments.of("Keyword Prefix", "LETTER", Symbols.NONE),
+                Arguments.of("Identifier", "getName", Symbols.NONE),
+                Arguments.of("Empty", "", Symbols.NONE)
+        );
+    }
+
+    @Test
+    void testAllSymbols() {
+        for (int id = 1; id < Symbols.COUNT; id++) {
+            Assertions.assertEquals(id, Symbols.lookup(Symbols.getName(id)));
+        }
+    }
+
+    @Test
+    void testLexedSymbols() {
+        List<Token> tokens = new Lexer("LET x = x + y;").lex();
+        Assertions.assertEquals(Symbols.LET, tokens.get(0).getSymbol());
+        Assertions.assertEquals(Symbols.NONE, tokens.get(1).getSymbol());
+        Assertions.assertEquals(Symbols.ASSIGN, tokens.get(2).getSymbol());
+        Assertions.assertSame(tokens.get(1).getLiteral(), tokens.get(3).getLiteral());
+    }
+
+    @Test
+    void testIntern() {
+        Symbols.Table table = new Symbols.Table();
+        String source = "name other name";
+        String name = table.intern(source, 0, 4);
+        Assertions.assertEquals("name", name);
+        Assertions.assertSame(name, table.intern(source, 11, 15));
+        for (int i = 0; i < 1000; i++) {
+            table.intern("x" + i, 0, ("x" + i).length());
+        }
+        Assertions.assertSame(name, table.intern(source, 11, 15));
+        Assertions.assertEquals(1001, table.size());
+    }
+
+}
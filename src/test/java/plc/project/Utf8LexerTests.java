@@ -0,0 +1,86 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Checks that {@link Utf8Lexer} produces the same tokens as {@link Lexer},
+ * with indices converted to byte offsets.
+ */
+public class Utf8LexerTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testSameTokens(String test, String input) {
+        List<Token> expected = new ArrayList<>();
+        for (Token token : new Lexer(input).lex()) {
+            expected.add(new Token(token.getType(), token.getLiteral(), offset(input, token.getIndex())));
+        }
+        Assertions.assertEquals(expected, new Utf8Lexer(encode(input)).lex());
+    }
+
+    private static Stream<Arguments> testSameTokens() {
+        return Stream.of(
+                Arguments.of("Empty", ""),
+                Arguments.of("Ascii", "LET x = 5;\nprint(\"Hello, World!\");\n"),
+                Arguments.of("Non-ASCII String", "LET name = \"caf\u00e9 \u4e16\u754c\"; x"),
+                Arguments.of("Non-ASCII Character", "c = '\u00e9'; d = '\u4e16';"),
+                Arguments.of("Non-ASCII Operator", "x \u00d7 y"),
+                Arguments.of("Line Separator In String", "\"a\u2028b\" z"),
+                Arguments.of("Range Boundaries", "\"\u0800 \ud7ff \ue000 \ud800\udc00 \udbff\udfff\""),
+                Arguments.of("Source", LexerBenchmark.source(3))
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testSameError(String test, String input) {
+        ParseException expected = Assertions.assertThrows(ParseException.class, () -> new Lexer(input).lex());
+        ParseException actual = Assertions.assertThrows(ParseException.class, () -> new Utf8Lexer(encode(input)).lex());
+        Assertions.assertEquals(offset(input, expected.getIndex()), actual.getIndex());
+    }
+
+    private static Stream<Arguments> testSameError() {
+        return Stream.of(
+                Arguments.of("Unterminated String", "x = \"\u00e9t\u00e9"),
+                Arguments.of("Multiple Characters", "'\u00e9\u00e9'"),
+                Arguments.of("Line Separator", "\u00e9 \u2028 y")
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testInvalid(String test, byte[] input, int index) {
+        ParseException exception = Assertions.assertThrows(ParseException.class, () -> new Utf8Lexer(ByteBuffer.wrap(input)).lex());
+        Assertions.assertEquals(index, exception.getIndex());
+    }
+
+    private static Stream<Arguments> testInvalid() {
+        return Stream.of(
+                Arguments.of("Continuation Byte", new byte[] {'x', ' ', (byte) 0x80}, 2),
+                Arguments.of("Truncated Sequence", new byte[] {'"', (byte) 0xE4, (byte) 0xB8}, 1),
+                Arguments.of("Invalid Lead Byte", new byte[] {(byte) 0xFF}, 0),
+                Arguments.of("Overlong Three Bytes", new byte[] {'"', (byte) 0xE0, (byte) 0x9F, (byte) 0xBF, '"'}, 1),
+                Arguments.of("Overlong Four Bytes", new byte[] {'"', (byte) 0xF0, (byte) 0x8F, (byte) 0xBF, (byte) 0xBF, '"'}, 1),
+                Arguments.of("Surrogate", new byte[] {'"', (byte) 0xED, (byte) 0xA0, (byte) 0x80, '"'}, 1),
+                Arguments.of("Above Maximum", new byte[] {'"', (byte) 0xF4, (byte) 0x90, (byte) 0x80, (byte) 0x80, '"'}, 1)
+        );
+    }
+
+    private static ByteBuffer encode(String input) {
+        return ByteBuffer.wrap(input.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static int offset(String input, int index) {
+        return input.substring(0, index).getBytes(StandardCharsets.UTF_8).length;
+    }
+
+}
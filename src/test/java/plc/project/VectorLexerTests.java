@@ -0,0 +1,75 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Checks that {@link VectorLexer} produces the same tokens and errors as the
+ * reference {@link Lexer}, with both the scalar and vector run scanners.
+ */
+public class VectorLexerTests {
+
+    private static final RunScanner[] SCANNERS = {RunScanner.SCALAR, RunScanner.get()};
+
+    @ParameterizedTest
+    @MethodSource
+    void testSameTokens(String test, String input) {
+        for (RunScanner runs : SCANNERS) {
+            Assertions.assertEquals(new Lexer(input).lex(), new VectorLexer(input, runs).lex());
+        }
+    }
+
+    private static Stream<Arguments> testSameTokens() {
+        return Stream.of(
+                Arguments.of("Identifiers", "getName thelegend27 a-b_c [x] ^y `z \\w"),
+                Arguments.of("Long Identifier", "a" + "Bc_-9".repeat(40) + " z"),
+                Arguments.of("Numbers", "0 1 -1 +12 007 1.5 -0.25 1. 0. 0.5.5 - +"),
+                Arguments.of("Long Number", "1".repeat(100) + "." + "2".repeat(100) + ";"),
+                Arguments.of("Long Whitespace", " \t\b\r\n".repeat(50) + "x" + " ".repeat(70)),
+                Arguments.of("Non-ASCII", "x\u00c1 \u0141y \uff41 \u8000\u8030"),
+                Arguments.of("Source", LexerBenchmark.source(3))
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testSameError(String test, String input) {
+        ParseException expected = Assertions.assertThrows(ParseException.class, () -> new Lexer(input).lex());
+        for (RunScanner runs : SCANNERS) {
+            ParseException actual = Assertions.assertThrows(ParseException.class, () -> new VectorLexer(input, runs).lex());
+            Assertions.assertEquals(expected.getIndex(), actual.getIndex());
+        }
+    }
+
+    private static Stream<Arguments> testSameError() {
+        return Stream.of(
+                Arguments.of("Unterminated String", "x = \"unterminated"),
+                Arguments.of("Line Separator", "x \u2028 y")
+        );
+    }
+
+    @Test
+    void testRuns() {
+        RunScanner runs = RunScanner.get();
+        char[] alphabet = " \t\b\r\n09az_-AZ.@[`{\u0080\u0130\u8000\uffff".toCharArray();
+        Random random = new Random(8);
+        for (int i = 0; i < 1000; i++) {
+            char[] chars = new char[random.nextInt(200)];
+            int run = random.nextInt(alphabet.length);
+            for (int j = 0; j < chars.length; j++) {
+                chars[j] = alphabet[random.nextInt(10) == 0 ? random.nextInt(alphabet.length) : run];
+            }
+            int start = chars.length == 0 ? 0 : random.nextInt(chars.length);
+            Assertions.assertEquals(RunScanner.SCALAR.whitespace(chars, start, chars.length), runs.whitespace(chars, start, chars.length));
+            Assertions.assertEquals(RunScanner.SCALAR.identifier(chars, start, chars.length), runs.identifier(chars, start, chars.length));
+            Assertions.assertEquals(RunScanner.SCALAR.digits(chars, start, chars.length), runs.digits(chars, start, chars.length));
+        }
+    }
+
+}
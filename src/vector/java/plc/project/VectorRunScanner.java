@@ -0,0 +1,99 @@
+package plc.project;
+
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * A {@link RunScanner} classifying a whole vector of chars per step with the
+ * incubating Vector API, 16 to 64 bytes at a time depending on the hardware.
+ * The tail shorter than a vector is finished by {@link RunScanner#SCALAR}.
+ *
+ * Only loaded through {@link RunScanner#get()}, since it requires the
+ * {@code jdk.incubator.vector} module.
+ */
+final class VectorRunScanner implements RunScanner {
+
+    private static final VectorSpecies<Short> SPECIES = ShortVector.SPECIES_PREFERRED;
+
+    /**
+     * Most runs in real sources are short, so the first few chars are checked
+     * one at a time before loading any vectors.
+     */
+    private static final int PREFIX = 8;
+
+    @Override
+    public int whitespace(char[] chars, int start, int end) {
+        int prefix = Math.min(end, start + PREFIX);
+        while (start < prefix && RunScanner.isWhitespace(chars[start])) {
+            start++;
+        }
+        if (start < prefix) {
+            return start;
+        }
+        for (; start + SPECIES.length() <= end; start += SPECIES.length()) {
+            ShortVector vector = ShortVector.fromCharArray(SPECIES, chars, start);
+            VectorMask<Short> whitespace = vector.eq((short) ' ')
+                    .or(vector.eq((short) '\t'))
+                    .or(vector.eq((short) '\n'))
+                    .or(vector.eq((short) '\r'))
+                    .or(vector.eq((short) '\b'));
+            int first = whitespace.not().firstTrue();
+            if (first < SPECIES.length()) {
+                return start + first;
+            }
+        }
+        return SCALAR.whitespace(chars, start, end);
+    }
+
+    @Override
+    public int identifier(char[] chars, int start, int end) {
+        int prefix = Math.min(end, start + PREFIX);
+        while (start < prefix && RunScanner.isIdentifier(chars[start])) {
+            start++;
+        }
+        if (start < prefix) {
+            return start;
+        }
+        for (; start + SPECIES.length() <= end; start += SPECIES.length()) {
+            ShortVector vector = ShortVector.fromCharArray(SPECIES, chars, start);
+            VectorMask<Short> identifier = range(vector.or((short) 0x20), 'a', 26)
+                    .or(range(vector, '0', 10))
+                    .or(vector.eq((short) '_'))
+                    .or(vector.eq((short) '-'));
+            int first = identifier.not().firstTrue();
+            if (first < SPECIES.length()) {
+                return start + first;
+            }
+        }
+        return SCALAR.identifier(chars, start, end);
+    }
+
+    @Override
+    public int digits(char[] chars, int start, int end) {
+        int prefix = Math.min(end, start + PREFIX);
+        while (start < prefix && RunScanner.isDigit(chars[start])) {
+            start++;
+        }
+        if (start < prefix) {
+            return start;
+        }
+        for (; start + SPECIES.length() <= end; start += SPECIES.length()) {
+            ShortVector vector = ShortVector.fromCharArray(SPECIES, chars, start);
+            int first = range(vector, '0', 10).not().firstTrue();
+            if (first < SPECIES.length()) {
+                return start + first;
+            }
+        }
+        return SCALAR.digits(chars, start, end);
+    }
+
+    /**
+     * Returns the lanes in {@code [low, low + count)}, as one unsigned compare.
+     */
+    private static VectorMask<Short> range(ShortVector vector, char low, int count) {
+        return vector.sub((short) low).compare(VectorOperators.UNSIGNED_LT, (short) count);
+    }
+
+}